@@ -69,6 +69,8 @@ public class DelegateAsyncTransformation implements ASTTransformation {
 
         ClassNode promisesClass = ClassHelper.make(Promises.class).getPlainNodeReference();
         MethodNode createPromiseMethodTargetWithDecorators = promisesClass.getDeclaredMethod("createPromise", new Parameter[]{new Parameter(new ClassNode(Closure.class), "c"), new Parameter(new ClassNode(List.class), "c")});
+        // classes that declare their own createPromise(Closure, List) method control how the delegated calls are executed
+        MethodNode localCreatePromiseMethod = findLocalCreatePromiseMethod(classNode);
         Map<String,ClassNode> genericsSpec = createGenericsSpec(classNode);
         for(MethodNode candidate : methods) {
             if (isCandidateMethod(candidate)) {
@@ -103,9 +105,16 @@ public class DelegateAsyncTransformation implements ASTTransformation {
                     MethodCallExpression getDecoratorsMethodCall = new MethodCallExpression(new ClassExpression(delegateAsyncUtilsClassNode), "getPromiseDecorators", getPromiseDecoratorsArguments);
                     getDecoratorsMethodCall.setMethodTarget(getPromiseDecoratorsMethodNode);
 
-                    MethodCallExpression createPromiseWithDecorators = new MethodCallExpression(new ClassExpression(promisesClass), "createPromise",new ArgumentListExpression( closureExpression, getDecoratorsMethodCall));
-                    if(createPromiseMethodTargetWithDecorators != null) {
-                        createPromiseWithDecorators.setMethodTarget(createPromiseMethodTargetWithDecorators);
+                    MethodCallExpression createPromiseWithDecorators;
+                    if(localCreatePromiseMethod != null) {
+                        createPromiseWithDecorators = new MethodCallExpression(VariableExpression.THIS_EXPRESSION, "createPromise", new ArgumentListExpression(closureExpression, getDecoratorsMethodCall));
+                        createPromiseWithDecorators.setMethodTarget(localCreatePromiseMethod);
+                    }
+                    else {
+                        createPromiseWithDecorators = new MethodCallExpression(new ClassExpression(promisesClass), "createPromise",new ArgumentListExpression( closureExpression, getDecoratorsMethodCall));
+                        if(createPromiseMethodTargetWithDecorators != null) {
+                            createPromiseWithDecorators.setMethodTarget(createPromiseMethodTargetWithDecorators);
+                        }
                     }
                     methodBody.addStatement(new ExpressionStatement(createPromiseWithDecorators));
 
@@ -129,6 +138,18 @@ public class DelegateAsyncTransformation implements ASTTransformation {
     }
 
 
+    private MethodNode findLocalCreatePromiseMethod(ClassNode classNode) {
+        for (MethodNode method : classNode.getMethods("createPromise")) {
+            Parameter[] parameters = method.getParameters();
+            if (!method.isStatic() && parameters.length == 2 &&
+                    parameters[0].getType().getName().equals(Closure.class.getName()) &&
+                    parameters[1].getType().getName().equals(List.class.getName())) {
+                return method;
+            }
+        }
+        return null;
+    }
+
     private List<String> genericPlaceholderNames(MethodNode candidate) {
         GenericsType[] candidateGenericsTypes = candidate.getGenericsTypes();
         List<String> names = new ArrayList<String>();
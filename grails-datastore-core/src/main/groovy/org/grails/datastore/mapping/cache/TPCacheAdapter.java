@@ -49,4 +49,15 @@ public interface TPCacheAdapter<T> {
      * @throws CacheException runtime exception indicating any cache-related problems
      */
     T getCachedEntry(Serializable key) throws CacheException;
+
+    /**
+     * Removes the entry stored for the specified key. Adapters that cannot remove individual entries rely on the eviction policy of the
+     * underlying cache instead
+     *
+     * @param key the entry key
+     * @throws CacheException runtime exception indicating any cache-related problems
+     */
+    default void evictEntry(Serializable key) throws CacheException {
+        // no-op by default
+    }
 }
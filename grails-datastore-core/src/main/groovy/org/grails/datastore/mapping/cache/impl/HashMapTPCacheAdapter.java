@@ -20,5 +20,10 @@ public class HashMapTPCacheAdapter<T> implements TPCacheAdapter<T> {
         return cache.get(key);
     }
 
+    @Override
+    public void evictEntry(Serializable key) throws CacheException {
+        cache.remove(key);
+    }
+
     private ConcurrentHashMap<Object, T> cache = new ConcurrentHashMap<Object, T>();
 }
@@ -0,0 +1,363 @@
+package org.grails.datastore.mapping.cache.impl;
+
+import org.grails.datastore.mapping.cache.TPCacheAdapter;
+import org.grails.datastore.mapping.cache.TPCacheAdapterRepository;
+import org.grails.datastore.mapping.cache.exception.CacheException;
+import org.grails.datastore.mapping.core.connections.ConnectionSource;
+import org.grails.datastore.mapping.model.PersistentEntity;
+import org.grails.datastore.mapping.multitenancy.TenantResolver;
+import org.grails.datastore.mapping.multitenancy.exceptions.TenantNotFoundException;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>A {@link TPCacheAdapterRepository} that partitions the cached entries of multi tenant entities by tenant, so that a shared cache
+ * can be used with discriminator or schema based multi tenancy. The entries are stored in the adapters of the decorated repository,
+ * which may be shared or distributed, using keys that include the tenant id.</p>
+ *
+ * <p>Each tenant is bounded by a quota of entries, once the quota is reached the least recently used entries of that tenant are evicted
+ * with {@link TPCacheAdapter#evictEntry(Serializable)}, leaving the entries of the other tenants untouched. All the entries of a tenant
+ * can be evicted at once with {@link #evictTenant(Serializable)}. Only the keys are tracked per tenant, the entries themselves remain in
+ * the decorated adapters.</p>
+ *
+ * <p>Entities that are not multi tenant use the adapters of the decorated repository as is. Nothing is cached for multi tenant entities
+ * when there is no current tenant.</p>
+ *
+ * @author Graeme Rocher
+ * @since 7.0
+ */
+public class TenantPartitionedTPCacheAdapterRepository<T> implements TPCacheAdapterRepository<T> {
+
+    /**
+     * The default maximum number of entries cached per tenant
+     */
+    public static final int DEFAULT_MAX_ENTRIES_PER_TENANT = 10000;
+
+    private final TPCacheAdapterRepository<T> repository;
+    private final ConcurrentHashMap<Serializable, TenantPartition> partitions = new ConcurrentHashMap<>();
+    private final int maxEntriesPerTenant;
+    private volatile TenantResolver tenantResolver;
+
+    public TenantPartitionedTPCacheAdapterRepository(TPCacheAdapterRepository<T> repository, TenantResolver tenantResolver) {
+        this(repository, tenantResolver, DEFAULT_MAX_ENTRIES_PER_TENANT);
+    }
+
+    public TenantPartitionedTPCacheAdapterRepository(TPCacheAdapterRepository<T> repository, TenantResolver tenantResolver, int maxEntriesPerTenant) {
+        if (repository == null) {
+            throw new IllegalArgumentException("Argument [repository] cannot be null");
+        }
+        if (maxEntriesPerTenant < 1) {
+            throw new IllegalArgumentException("Argument [maxEntriesPerTenant] must be greater than zero");
+        }
+        this.repository = repository;
+        this.tenantResolver = tenantResolver;
+        this.maxEntriesPerTenant = maxEntriesPerTenant;
+    }
+
+    public TPCacheAdapter<T> getTPCacheAdapter(PersistentEntity entity) {
+        if (entity == null) {
+            return null;
+        }
+        if (!entity.isMultiTenant()) {
+            return repository.getTPCacheAdapter(entity);
+        }
+        return getTPCacheAdapter(entity, resolveTenantId());
+    }
+
+    /**
+     * Returns the {@link TPCacheAdapter} for the given entity and an already resolved tenant, for example the tenant resolved once
+     * for the current session
+     *
+     * @param entity The entity
+     * @param tenantId The tenant id or null if there is no current tenant
+     * @return null if no adapter is registered for the entity or if the entity is multi tenant and there is no tenant
+     */
+    public TPCacheAdapter<T> getTPCacheAdapter(PersistentEntity entity, Serializable tenantId) {
+        if (entity == null) {
+            return null;
+        }
+        TPCacheAdapter<T> cacheAdapter = repository.getTPCacheAdapter(entity);
+        if (cacheAdapter == null || !entity.isMultiTenant()) {
+            return cacheAdapter;
+        }
+        if (tenantId == null || ConnectionSource.DEFAULT.equals(tenantId)) {
+            // never share the entries of multi tenant entities
+            return null;
+        }
+        return new TenantKeyedTPCacheAdapter<>(cacheAdapter, getPartition(tenantId), entity.getJavaClass().getName());
+    }
+
+    public void setTPCacheAdapter(PersistentEntity entity, TPCacheAdapter<T> cacheAdapter) {
+        repository.setTPCacheAdapter(entity, cacheAdapter);
+    }
+
+    public void setTPCacheAdapter(@SuppressWarnings("rawtypes") Class entityJavaClass, TPCacheAdapter<T> cacheAdapter) {
+        repository.setTPCacheAdapter(entityJavaClass, cacheAdapter);
+    }
+
+    public void setTPCacheAdapter(String entityJavaClassFQN, TPCacheAdapter<T> cacheAdapter) {
+        repository.setTPCacheAdapter(entityJavaClassFQN, cacheAdapter);
+    }
+
+    /**
+     * @return The decorated repository that holds the cached entries
+     */
+    public TPCacheAdapterRepository<T> getRepository() {
+        return repository;
+    }
+
+    /**
+     * Evicts all the entries cached for the given tenant. Entries cached concurrently through an adapter obtained before the eviction
+     * are evicted as soon as they are stored
+     *
+     * @param tenantId The tenant id
+     * @return The number of entries evicted
+     */
+    public int evictTenant(Serializable tenantId) {
+        if (tenantId == null) {
+            return 0;
+        }
+        TenantPartition partition = partitions.remove(tenantId);
+        return partition != null ? partition.evictAll() : 0;
+    }
+
+    /**
+     * @return The ids of the tenants that have a cache partition
+     */
+    public Set<Serializable> getTenantIds() {
+        return Collections.unmodifiableSet(partitions.keySet());
+    }
+
+    /**
+     * @param tenantId The tenant id
+     * @return The number of entries cached for the given tenant
+     */
+    public int getEntryCount(Serializable tenantId) {
+        TenantPartition partition = tenantId != null ? partitions.get(tenantId) : null;
+        return partition != null ? partition.size() : 0;
+    }
+
+    /**
+     * @param tenantId The tenant id
+     * @return The number of entries of the given tenant evicted because the quota was exceeded
+     */
+    public long getEvictionCount(Serializable tenantId) {
+        TenantPartition partition = tenantId != null ? partitions.get(tenantId) : null;
+        return partition != null ? partition.getEvictionCount() : 0;
+    }
+
+    /**
+     * @return The maximum number of entries cached per tenant
+     */
+    public int getMaxEntriesPerTenant() {
+        return maxEntriesPerTenant;
+    }
+
+    public TenantResolver getTenantResolver() {
+        return tenantResolver;
+    }
+
+    /**
+     * Sets the resolver of the current tenant, used when the tenant is not supplied by the caller. It should take into account any
+     * tenant bound to the current thread
+     *
+     * @param tenantResolver The tenant resolver
+     */
+    public void setTenantResolver(TenantResolver tenantResolver) {
+        this.tenantResolver = tenantResolver;
+    }
+
+    /**
+     * @return The current tenant id or null if there is none
+     */
+    protected Serializable resolveTenantId() {
+        TenantResolver tenantResolver = this.tenantResolver;
+        if (tenantResolver == null) {
+            return null;
+        }
+        try {
+            return tenantResolver.resolveTenantIdentifier();
+        } catch (TenantNotFoundException e) {
+            return null;
+        }
+    }
+
+    private TenantPartition getPartition(Serializable tenantId) {
+        TenantPartition partition = partitions.get(tenantId);
+        if (partition == null) {
+            partition = partitions.computeIfAbsent(tenantId, id -> new TenantPartition(id, maxEntriesPerTenant));
+        }
+        return partition;
+    }
+
+    /**
+     * Stores the entries of a tenant in the decorated adapter using {@link TenantKey}s
+     */
+    private static class TenantKeyedTPCacheAdapter<T> implements TPCacheAdapter<T> {
+        private final TPCacheAdapter<T> cacheAdapter;
+        private final TenantPartition partition;
+        private final String entityName;
+
+        TenantKeyedTPCacheAdapter(TPCacheAdapter<T> cacheAdapter, TenantPartition partition, String entityName) {
+            this.cacheAdapter = cacheAdapter;
+            this.partition = partition;
+            this.entityName = entityName;
+        }
+
+        public void cacheEntry(Serializable key, T entry) throws CacheException {
+            TenantKey tenantKey = new TenantKey(partition.tenantId, entityName, key);
+            cacheAdapter.cacheEntry(tenantKey, entry);
+            for (PartitionEntry evicted : partition.track(tenantKey, cacheAdapter)) {
+                evicted.cacheAdapter.evictEntry(evicted.key);
+            }
+        }
+
+        public T getCachedEntry(Serializable key) throws CacheException {
+            TenantKey tenantKey = new TenantKey(partition.tenantId, entityName, key);
+            T entry = cacheAdapter.getCachedEntry(tenantKey);
+            if (entry != null) {
+                partition.touch(tenantKey);
+            }
+            return entry;
+        }
+
+        @Override
+        public void evictEntry(Serializable key) throws CacheException {
+            TenantKey tenantKey = new TenantKey(partition.tenantId, entityName, key);
+            partition.untrack(tenantKey);
+            cacheAdapter.evictEntry(tenantKey);
+        }
+    }
+
+    /**
+     * The keys of the entries cached for a single tenant, in least recently used order
+     */
+    private static class TenantPartition {
+        private final Serializable tenantId;
+        private final int maxEntries;
+        private final LinkedHashMap<TenantKey, TPCacheAdapter<?>> keys = new LinkedHashMap<>(16, 0.75f, true);
+        private long evictionCount;
+        private boolean evicted;
+
+        TenantPartition(Serializable tenantId, int maxEntries) {
+            this.tenantId = tenantId;
+            this.maxEntries = maxEntries;
+        }
+
+        synchronized List<PartitionEntry> track(TenantKey key, TPCacheAdapter<?> cacheAdapter) {
+            if (evicted) {
+                // the tenant was evicted while the entry was being stored
+                return Collections.singletonList(new PartitionEntry(key, cacheAdapter));
+            }
+            keys.put(key, cacheAdapter);
+            if (keys.size() <= maxEntries) {
+                return Collections.emptyList();
+            }
+            List<PartitionEntry> evicted = new ArrayList<>(1);
+            Iterator<Map.Entry<TenantKey, TPCacheAdapter<?>>> i = keys.entrySet().iterator();
+            while (keys.size() > maxEntries && i.hasNext()) {
+                Map.Entry<TenantKey, TPCacheAdapter<?>> eldest = i.next();
+                evicted.add(new PartitionEntry(eldest.getKey(), eldest.getValue()));
+                i.remove();
+                evictionCount++;
+            }
+            return evicted;
+        }
+
+        synchronized void touch(TenantKey key) {
+            keys.get(key);
+        }
+
+        synchronized void untrack(TenantKey key) {
+            keys.remove(key);
+        }
+
+        int evictAll() {
+            Map<TenantKey, TPCacheAdapter<?>> evictedKeys;
+            synchronized (this) {
+                evicted = true;
+                evictedKeys = new LinkedHashMap<>(keys);
+                keys.clear();
+            }
+            for (Map.Entry<TenantKey, TPCacheAdapter<?>> entry : evictedKeys.entrySet()) {
+                entry.getValue().evictEntry(entry.getKey());
+            }
+            return evictedKeys.size();
+        }
+
+        synchronized int size() {
+            return keys.size();
+        }
+
+        synchronized long getEvictionCount() {
+            return evictionCount;
+        }
+    }
+
+    private static class PartitionEntry {
+        private final TenantKey key;
+        private final TPCacheAdapter<?> cacheAdapter;
+
+        PartitionEntry(TenantKey key, TPCacheAdapter<?> cacheAdapter) {
+            this.key = key;
+            this.cacheAdapter = cacheAdapter;
+        }
+    }
+
+    /**
+     * The key of an entry of a multi tenant entity in the decorated adapter
+     */
+    public static final class TenantKey implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final Serializable tenantId;
+        private final String entityName;
+        private final Serializable id;
+
+        public TenantKey(Serializable tenantId, String entityName, Serializable id) {
+            this.tenantId = tenantId;
+            this.entityName = entityName;
+            this.id = id;
+        }
+
+        public Serializable getTenantId() {
+            return tenantId;
+        }
+
+        public String getEntityName() {
+            return entityName;
+        }
+
+        public Serializable getId() {
+            return id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof TenantKey)) return false;
+            TenantKey that = (TenantKey) o;
+            return tenantId.equals(that.tenantId) && entityName.equals(that.entityName) && (id != null ? id.equals(that.id) : that.id == null);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = tenantId.hashCode();
+            result = 31 * result + entityName.hashCode();
+            return 31 * result + (id != null ? id.hashCode() : 0);
+        }
+
+        @Override
+        public String toString() {
+            return tenantId + ":" + entityName + "#" + id;
+        }
+    }
+}
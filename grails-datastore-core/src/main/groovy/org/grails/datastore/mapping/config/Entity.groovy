@@ -71,6 +71,11 @@ class Entity<P extends Property> {
      */
     boolean version = true
 
+    /**
+     * @return Whether only the dirty properties of an already persisted instance should be validated on update. If null the global setting applies
+     */
+    Boolean validateDirtyOnly = null
+
     /**
      * @return The property configurations
      */
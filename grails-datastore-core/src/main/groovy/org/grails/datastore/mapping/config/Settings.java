@@ -27,6 +27,30 @@ public interface Settings {
      * Whether to mark the instance as dirty on an explicit save()
      */
     String SETTING_MARK_DIRTY = PREFIX + '.' + "markDirty";
+    /**
+     * Whether to only validate the dirty properties of already persisted instances
+     */
+    String SETTING_VALIDATE_DIRTY_ONLY = PREFIX + '.' + "validateDirtyOnly";
+    /**
+     * Whether to evaluate entity constraints in a background thread after startup
+     */
+    String SETTING_VALIDATOR_WARM_UP = PREFIX + '.' + "validatorWarmUp";
+    /**
+     * Whether to record validation and constraint latency metrics
+     */
+    String SETTING_VALIDATION_METRICS = PREFIX + '.' + "validationMetrics";
+    /**
+     * The p99 latency in milliseconds above which a constraint is reported as slow
+     */
+    String SETTING_SLOW_CONSTRAINT_THRESHOLD = PREFIX + '.' + "slowConstraintThreshold";
+    /**
+     * Whether to record per tenant query and persistence metrics
+     */
+    String SETTING_METRICS = PREFIX + '.' + "metrics";
+    /**
+     * The maximum number of tenants whose metrics are kept
+     */
+    String SETTING_METRICS_MAX_TENANTS = PREFIX + '.' + "metricsMaxTenants";
     /**
      * The default mapping
      */
@@ -54,6 +78,11 @@ public interface Settings {
      * The multi tenancy resolver class
      */
     String SETTING_MULTI_TENANT_RESOLVER = PREFIX + '.' + "multiTenancy.tenantResolver";
+
+    /**
+     * The maximum number of connection sources kept open by {@link org.grails.datastore.mapping.core.connections.LazyConnectionSources}
+     */
+    String SETTING_CONNECTION_SOURCES_MAX_ACTIVE = PREFIX + '.' + "connectionSources.maxActive";
     /**
      * The data sources setting
      */
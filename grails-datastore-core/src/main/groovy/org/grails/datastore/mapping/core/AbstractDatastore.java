@@ -19,12 +19,17 @@ import groovy.lang.GroovySystem;
 import groovy.lang.MetaClassRegistry;
 import groovy.util.ConfigObject;
 import org.grails.datastore.mapping.cache.TPCacheAdapterRepository;
+import org.grails.datastore.mapping.cache.impl.TenantPartitionedTPCacheAdapterRepository;
 import org.grails.datastore.mapping.config.Property;
+import org.grails.datastore.mapping.metrics.DatastoreMetrics;
+import org.grails.datastore.mapping.metrics.NoopDatastoreMetrics;
 import org.grails.datastore.mapping.model.MappingContext;
 import org.grails.datastore.mapping.model.PersistentEntity;
 import org.grails.datastore.mapping.model.PersistentProperty;
 import org.grails.datastore.mapping.model.PropertyMapping;
 import org.grails.datastore.mapping.model.types.BasicTypeConverterRegistrar;
+import org.grails.datastore.mapping.multitenancy.TenantQueryFilter;
+import org.grails.datastore.mapping.multitenancy.TenantResolver;
 import org.grails.datastore.mapping.reflect.ClassPropertyFetcher;
 import org.grails.datastore.mapping.reflect.FieldEntityAccess;
 import org.grails.datastore.mapping.services.DefaultServiceRegistry;
@@ -44,7 +49,10 @@ import org.springframework.core.env.PropertyResolver;
 import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import javax.annotation.PreDestroy;
+import java.io.Closeable;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Abstract Datastore implementation that deals with binding the Session to thread locale upon creation.
@@ -60,7 +68,13 @@ public abstract class AbstractDatastore implements Datastore, StatelessDatastore
     protected final MappingContext mappingContext;
     protected final ServiceRegistry serviceRegistry;
     protected final PropertyResolver connectionDetails;
-    protected final TPCacheAdapterRepository cacheAdapterRepository;
+    protected TPCacheAdapterRepository cacheAdapterRepository;
+    private volatile TenantQueryFilter tenantQueryFilter;
+    private volatile TenantResolver currentTenantResolver;
+    private volatile DatastoreMetrics datastoreMetrics = NoopDatastoreMetrics.INSTANCE;
+    private final boolean defaultSessionLookup = isDefaultSessionLookup(getClass());
+    private final List<Closeable> closeables = new CopyOnWriteArrayList<>();
+    private volatile boolean destroyed;
 
 
     public AbstractDatastore(MappingContext mappingContext) {
@@ -107,8 +121,39 @@ public abstract class AbstractDatastore implements Datastore, StatelessDatastore
         return serviceRegistry.getServices();
     }
 
+    /**
+     * Registers a resource that is closed when the datastore is destroyed
+     *
+     * @param closeable The resource
+     * @throws IllegalStateException If the datastore has already been destroyed
+     */
+    public void addCloseable(Closeable closeable) {
+        if (destroyed) {
+            throw new IllegalStateException("Datastore [" + this + "] has been destroyed");
+        }
+        closeables.add(closeable);
+        // destroyed concurrently, close it here unless destroy already has
+        if (destroyed && closeables.remove(closeable)) {
+            closeQuietly(closeable);
+            throw new IllegalStateException("Datastore [" + this + "] has been destroyed");
+        }
+    }
+
+    /**
+     * @return Whether the datastore has been destroyed
+     */
+    public boolean isDestroyed() {
+        return destroyed;
+    }
+
     @PreDestroy
     public void destroy() {
+        destroyed = true;
+        for (Closeable closeable : closeables) {
+            if (closeables.remove(closeable)) {
+                closeQuietly(closeable);
+            }
+        }
         FieldEntityAccess.clearReflectors();
         final MetaClassRegistry registry = GroovySystem.getMetaClassRegistry();
         for (PersistentEntity persistentEntity : getMappingContext().getPersistentEntities()) {
@@ -121,6 +166,14 @@ public abstract class AbstractDatastore implements Datastore, StatelessDatastore
         }
     }
 
+    private void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (Throwable e) {
+            LOG.error("Error closing resource [" + closeable + "] of datastore [" + this + "]: " + e.getMessage(), e);
+        }
+    }
+
     public void setApplicationContext(ApplicationContext ctx) {
         applicationContext = ctx;
     }
@@ -177,6 +230,22 @@ public abstract class AbstractDatastore implements Datastore, StatelessDatastore
         return TransactionSynchronizationManager.hasResource(this);
     }
 
+    /**
+     * @return Whether this datastore uses the default thread bound session lookup, which allows {@link DatastoreUtils#getCurrentSession(Datastore)} to take a fast path
+     */
+    public boolean hasDefaultSessionLookup() {
+        return defaultSessionLookup;
+    }
+
+    private static boolean isDefaultSessionLookup(Class<?> datastoreClass) {
+        try {
+            return datastoreClass.getMethod("getCurrentSession").getDeclaringClass() == AbstractDatastore.class &&
+                    datastoreClass.getMethod("hasCurrentSession").getDeclaringClass() == AbstractDatastore.class;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
     /**
      * Static way to retrieve the session
      * @return The session instance
@@ -217,6 +286,69 @@ public abstract class AbstractDatastore implements Datastore, StatelessDatastore
         return mappingContext;
     }
 
+    /**
+     * @return The filter applied to queries of multi tenant entities when they are created or null if there is none
+     */
+    public TenantQueryFilter getTenantQueryFilter() {
+        return tenantQueryFilter;
+    }
+
+    /**
+     * Sets the filter applied to queries of multi tenant entities when they are created
+     *
+     * @param tenantQueryFilter The filter
+     */
+    public void setTenantQueryFilter(TenantQueryFilter tenantQueryFilter) {
+        this.tenantQueryFilter = tenantQueryFilter;
+    }
+
+    /**
+     * @return The resolver of the current tenant used to partition session caches by tenant or null if they are not partitioned
+     */
+    public TenantResolver getCurrentTenantResolver() {
+        return currentTenantResolver;
+    }
+
+    /**
+     * Sets the resolver of the current tenant used to partition session caches by tenant. It should take into account any tenant
+     * bound to the current thread. The configured {@link TPCacheAdapterRepository}, if any, is partitioned by tenant as well
+     *
+     * @param currentTenantResolver The tenant resolver
+     */
+    public void setCurrentTenantResolver(TenantResolver currentTenantResolver) {
+        this.currentTenantResolver = currentTenantResolver;
+        TPCacheAdapterRepository cacheAdapterRepository = this.cacheAdapterRepository;
+        if (cacheAdapterRepository instanceof TenantPartitionedTPCacheAdapterRepository) {
+            ((TenantPartitionedTPCacheAdapterRepository) cacheAdapterRepository).setTenantResolver(currentTenantResolver);
+        }
+        else if (cacheAdapterRepository != null && currentTenantResolver != null) {
+            this.cacheAdapterRepository = new TenantPartitionedTPCacheAdapterRepository(cacheAdapterRepository, currentTenantResolver);
+        }
+    }
+
+    /**
+     * @return The repository of third party cache adapters or null if there is none
+     */
+    public TPCacheAdapterRepository getCacheAdapterRepository() {
+        return cacheAdapterRepository;
+    }
+
+    /**
+     * @return The query and persistence metrics of this datastore
+     */
+    public DatastoreMetrics getDatastoreMetrics() {
+        return datastoreMetrics;
+    }
+
+    /**
+     * Sets the sink for query and persistence metrics
+     *
+     * @param datastoreMetrics The metrics, null to disable metrics
+     */
+    public void setDatastoreMetrics(DatastoreMetrics datastoreMetrics) {
+        this.datastoreMetrics = datastoreMetrics != null ? datastoreMetrics : NoopDatastoreMetrics.INSTANCE;
+    }
+
     /**
      * @deprecated  Deprecated, will be removed in a future version of GORM
      */
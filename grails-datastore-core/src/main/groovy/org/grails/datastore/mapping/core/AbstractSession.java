@@ -18,13 +18,18 @@ import com.github.benmanes.caffeine.cache.Caffeine;
 import com.github.benmanes.caffeine.cache.RemovalListener;
 import org.grails.datastore.mapping.cache.TPCacheAdapterRepository;
 import org.grails.datastore.mapping.config.Entity;
+import org.grails.datastore.mapping.core.connections.ConnectionSource;
 import org.grails.datastore.mapping.core.impl.*;
 import org.grails.datastore.mapping.dirty.checking.DirtyCheckable;
 import org.grails.datastore.mapping.dirty.checking.DirtyCheckingSupport;
 import org.grails.datastore.mapping.engine.*;
+import org.grails.datastore.mapping.metrics.DatastoreMetrics;
 import org.grails.datastore.mapping.model.MappingContext;
 import org.grails.datastore.mapping.model.PersistentEntity;
 import org.grails.datastore.mapping.model.PersistentProperty;
+import org.grails.datastore.mapping.multitenancy.TenantQueryFilter;
+import org.grails.datastore.mapping.multitenancy.TenantResolver;
+import org.grails.datastore.mapping.multitenancy.exceptions.TenantNotFoundException;
 import org.grails.datastore.mapping.query.Query;
 import org.grails.datastore.mapping.query.api.QueryableCriteria;
 import org.grails.datastore.mapping.transactions.Transaction;
@@ -34,6 +39,7 @@ import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.core.convert.ConversionFailedException;
 import org.springframework.core.convert.ConversionService;
 import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
 import org.springframework.dao.InvalidDataAccessResourceUsageException;
 import org.springframework.transaction.NoTransactionException;
 import org.springframework.transaction.TransactionDefinition;
@@ -94,6 +100,7 @@ public abstract class AbstractSession<N> extends AbstractAttributeStoringSession
     protected Map<Class, Map<Serializable, Object>> firstLevelEntryCache = new ConcurrentHashMap<>();
     protected Map<Class, Map<Serializable, Object>> firstLevelEntryCacheDirtyCheck = new ConcurrentHashMap<>();
     protected Map<CollectionKey, Collection> firstLevelCollectionCache = new ConcurrentHashMap<>();
+    protected Map<Serializable, TenantCaches> tenantFirstLevelCaches = new ConcurrentHashMap<>();
 
     protected TPCacheAdapterRepository cacheAdapterRepository;
 
@@ -122,6 +129,7 @@ public abstract class AbstractSession<N> extends AbstractAttributeStoringSession
 
     protected boolean stateless = false;
     protected boolean flushActive = false;
+    protected boolean readOnly = false;
 
 
     public AbstractSession(Datastore datastore, MappingContext mappingContext,
@@ -159,6 +167,33 @@ public abstract class AbstractSession<N> extends AbstractAttributeStoringSession
         return this.stateless;
     }
 
+    /**
+     * @return Whether the session is read-only
+     */
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    /**
+     * Sets whether the session is read-only. A read-only session does not snapshot loaded entries for dirty checking
+     * and rejects inserts, updates and deletes with an {@link InvalidDataAccessApiUsageException}, hence changes made to entities are never written
+     *
+     * @param readOnly True if the session is read-only
+     */
+    public void setReadOnly(boolean readOnly) {
+        this.readOnly = readOnly;
+    }
+
+    /**
+     * @param operation The name of the write operation
+     * @throws InvalidDataAccessApiUsageException If the session is read-only
+     */
+    protected void assertWritable(String operation) {
+        if (readOnly) {
+            throw new InvalidDataAccessApiUsageException("Cannot " + operation + " entities in a read-only session");
+        }
+    }
+
     public void addPostFlushOperation(Runnable runnable) {
         if (runnable != null && !postFlushOperations.contains(runnable)) {
             postFlushOperations.add(runnable);
@@ -166,6 +201,7 @@ public abstract class AbstractSession<N> extends AbstractAttributeStoringSession
     }
 
     public void addPendingInsert(PendingInsert insert) {
+        assertWritable("insert");
         final Object o = insert.getObject();
         if (o != null) {
             registerPending(o);
@@ -208,6 +244,7 @@ public abstract class AbstractSession<N> extends AbstractAttributeStoringSession
     }
 
     public void addPendingUpdate(PendingUpdate update) {
+        assertWritable("update");
         final Object o = update.getObject();
         if (o != null) {
             registerPending(o);
@@ -223,6 +260,7 @@ public abstract class AbstractSession<N> extends AbstractAttributeStoringSession
     }
 
     public void addPendingDelete(PendingDelete delete) {
+        assertWritable("delete");
         final Object o = delete.getObject();
         if (o != null) {
             registerPending(o);
@@ -257,7 +295,9 @@ public abstract class AbstractSession<N> extends AbstractAttributeStoringSession
             return;
         }
 
-        cacheEntry(key, entry, getEntryCache(entity.getJavaClass(), true), true);
+        if (!readOnly) {
+            cacheEntry(key, entry, getEntryCache(entity.getJavaClass(), true), true);
+        }
         cacheEntry(key, entry, getEntryCache(entity.getJavaClass(), false), false);
     }
 
@@ -277,7 +317,7 @@ public abstract class AbstractSession<N> extends AbstractAttributeStoringSession
             return null;
         }
 
-        return firstLevelCollectionCache.get(
+        return getCollectionCache(entity).get(
                 new CollectionKey(entity.getJavaClass(), key, name));
     }
 
@@ -287,7 +327,7 @@ public abstract class AbstractSession<N> extends AbstractAttributeStoringSession
             return;
         }
 
-        firstLevelCollectionCache.put(
+        getCollectionCache(entity).put(
                 new CollectionKey(entity.getJavaClass(), key, name),
                 collection);
     }
@@ -324,6 +364,9 @@ public abstract class AbstractSession<N> extends AbstractAttributeStoringSession
         if (flushActive) return;
 
         boolean hasInserts;
+        DatastoreMetrics metrics = DatastoreMetrics.of(datastore);
+        long start = 0L;
+        int operationCount = 0;
         try {
             if (exceptionOccurred) {
                 throw new InvalidDataAccessResourceUsageException(
@@ -334,11 +377,18 @@ public abstract class AbstractSession<N> extends AbstractAttributeStoringSession
 
             hasInserts = hasUpdates();
             if (hasInserts) {
+                if (metrics.isEnabled()) {
+                    start = System.nanoTime();
+                    operationCount = countPendingOperations();
+                }
                 flushPendingInserts(pendingInserts);
                 flushPendingUpdates(pendingUpdates);
                 flushPendingDeletes(pendingDeletes);
 
                 firstLevelCollectionCache.clear();
+                for (TenantCaches tenantCaches : tenantFirstLevelCaches.values()) {
+                    tenantCaches.collections.clear();
+                }
 
                 executePendings(postFlushOperations);
             }
@@ -347,9 +397,26 @@ public abstract class AbstractSession<N> extends AbstractAttributeStoringSession
             clearPendingOperations();
             flushActive = false;
         }
+        if (hasInserts && metrics.isEnabled()) {
+            metrics.recordFlush(System.nanoTime() - start, operationCount);
+        }
         postFlush(hasInserts);
     }
 
+    private int countPendingOperations() {
+        int count = postFlushOperations.size();
+        for (Collection<PendingInsert> inserts : pendingInserts.values()) {
+            count += inserts.size();
+        }
+        for (Collection<PendingUpdate> updates : pendingUpdates.values()) {
+            count += updates.size();
+        }
+        for (Collection<PendingDelete> deletes : pendingDeletes.values()) {
+            count += deletes.size();
+        }
+        return count;
+    }
+
     protected void flushPendingDeletes(Map<PersistentEntity, Collection<PendingDelete>> pendingDeletes) {
         final Collection<Collection<PendingDelete>> deletes = pendingDeletes.values();
         for (Collection<PendingDelete> delete : deletes) {
@@ -462,6 +529,7 @@ public abstract class AbstractSession<N> extends AbstractAttributeStoringSession
         clearMaps(firstLevelEntryCache);
         clearMaps(firstLevelEntryCacheDirtyCheck);
         firstLevelCollectionCache.clear();
+        tenantFirstLevelCaches.clear();
         clearPendingOperations();
         attributes.clear();
         exceptionOccurred = false;
@@ -550,7 +618,7 @@ public abstract class AbstractSession<N> extends AbstractAttributeStoringSession
             return;
         }
 
-        final Map<Serializable, Object> cache = firstLevelCache.get(o.getClass());
+        final Map<Serializable, Object> cache = getInstanceCache(o.getClass());
         if (cache != null) {
             Persister persister = getPersister(o);
             Serializable key = persister.getObjectIdentifier(o);
@@ -586,6 +654,7 @@ public abstract class AbstractSession<N> extends AbstractAttributeStoringSession
 
     public Serializable persist(Object o) {
         Assert.notNull(o, "Cannot persist null object");
+        assertWritable("persist");
         Persister persister = getPersister(o);
         if (persister == null) {
             throw new NonPersistentTypeException("Object [" + o +
@@ -600,6 +669,7 @@ public abstract class AbstractSession<N> extends AbstractAttributeStoringSession
     @Override
     public Serializable insert(Object o) {
         Assert.notNull(o, "Cannot persist null object");
+        assertWritable("insert");
         Persister persister = getPersister(o);
         if (persister == null) {
             throw new NonPersistentTypeException("Object [" + o +
@@ -739,6 +809,7 @@ public abstract class AbstractSession<N> extends AbstractAttributeStoringSession
         if (obj == null) {
             return;
         }
+        assertWritable("delete");
 
         final EntityPersister p = (EntityPersister) getPersister(obj);
         if (p == null) {
@@ -754,6 +825,7 @@ public abstract class AbstractSession<N> extends AbstractAttributeStoringSession
         if (objects == null) {
             return;
         }
+        assertWritable("delete");
 
         // sort the objects into sets by Persister, in case the objects are of different types.
         Map<Persister, List> toDelete = new HashMap<Persister, List>();
@@ -782,6 +854,7 @@ public abstract class AbstractSession<N> extends AbstractAttributeStoringSession
         if (objects == null) {
             return Collections.emptyList();
         }
+        assertWritable("persist");
 
         final Iterator i = objects.iterator();
         if (!i.hasNext()) {
@@ -858,7 +931,14 @@ public abstract class AbstractSession<N> extends AbstractAttributeStoringSession
                     "] is not a known persistent type.");
         }
 
-        return p.createQuery();
+        Query query = p.createQuery();
+        if(query.getEntity().isMultiTenant() && datastore instanceof AbstractDatastore) {
+            TenantQueryFilter tenantQueryFilter = ((AbstractDatastore) datastore).getTenantQueryFilter();
+            if(tenantQueryFilter != null) {
+                tenantQueryFilter.filter(query);
+            }
+        }
+        return query;
     }
 
     public final Transaction beginTransaction() {
@@ -885,17 +965,92 @@ public abstract class AbstractSession<N> extends AbstractAttributeStoringSession
         return transaction != null;
     }
 
+    /**
+     * Clears the instances, entries and collections cached for the given tenant
+     *
+     * @param tenantId The tenant id
+     */
+    public void clearTenant(Serializable tenantId) {
+        if (tenantId != null) {
+            tenantFirstLevelCaches.remove(tenantId);
+        }
+    }
+
+    /**
+     * Resolves the tenant that the cached instances and entries of the given type are partitioned by. Only multi tenant entities
+     * of datastores that provide a {@link AbstractDatastore#getCurrentTenantResolver()} are partitioned, so that the same
+     * session can be shared by several tenants when using discriminator based multi tenancy
+     *
+     * @param type The type
+     * @return The tenant id or null if the shared cache should be used
+     */
+    protected Serializable resolveCacheTenantId(Class type) {
+        if (!(datastore instanceof AbstractDatastore) || ((AbstractDatastore) datastore).getCurrentTenantResolver() == null) {
+            return null;
+        }
+        return getCacheTenantId(getMappingContext().getPersistentEntity(type.getName()));
+    }
+
+    /**
+     * Resolves the tenant that the cached instances and entries of the given entity are partitioned by. The tenant is resolved on each
+     * access, so that a session used by several tenants in turn, for example within {@code Tenants.withId}, reads and writes the
+     * partition of the current tenant
+     *
+     * @param entity The entity
+     * @return The tenant id or null if the entity is not partitioned by tenant or there is no current tenant
+     */
+    public Serializable getCacheTenantId(PersistentEntity entity) {
+        if (entity == null || !entity.isMultiTenant() || !(datastore instanceof AbstractDatastore)) {
+            return null;
+        }
+        TenantResolver tenantResolver = ((AbstractDatastore) datastore).getCurrentTenantResolver();
+        if (tenantResolver == null) {
+            return null;
+        }
+
+        Serializable tenantId;
+        try {
+            tenantId = tenantResolver.resolveTenantIdentifier();
+        } catch (TenantNotFoundException e) {
+            return null;
+        }
+        return ConnectionSource.DEFAULT.equals(tenantId) ? null : tenantId;
+    }
+
+    private TenantCaches getTenantCaches(Serializable tenantId) {
+        TenantCaches caches = tenantFirstLevelCaches.get(tenantId);
+        if (caches == null) {
+            caches = tenantFirstLevelCaches.computeIfAbsent(tenantId, id -> new TenantCaches());
+        }
+        return caches;
+    }
+
     private Map<Serializable, Object> getInstanceCache(Class c) {
-        Map<Serializable, Object> cache = firstLevelCache.get(c);
+        Map<Class, Map<Serializable, Object>> caches = firstLevelCache;
+        Serializable tenantId = resolveCacheTenantId(c);
+        if (tenantId != null) {
+            caches = getTenantCaches(tenantId).instances;
+        }
+        Map<Serializable, Object> cache = caches.get(c);
         if (cache == null) {
             cache = new ConcurrentHashMap<>();
-            firstLevelCache.put(c, cache);
+            caches.put(c, cache);
         }
         return cache;
     }
 
+    private Map<CollectionKey, Collection> getCollectionCache(PersistentEntity entity) {
+        Serializable tenantId = resolveCacheTenantId(entity.getJavaClass());
+        return tenantId != null ? getTenantCaches(tenantId).collections : firstLevelCollectionCache;
+    }
+
     private Map<Serializable, Object> getEntryCache(Class c, boolean forDirtyCheck) {
         Map<Class, Map<Serializable, Object>> caches = forDirtyCheck ? firstLevelEntryCacheDirtyCheck : firstLevelEntryCache;
+        Serializable tenantId = resolveCacheTenantId(c);
+        if (tenantId != null) {
+            TenantCaches tenantCaches = getTenantCaches(tenantId);
+            caches = forDirtyCheck ? tenantCaches.entriesForDirtyCheck : tenantCaches.entries;
+        }
         Map<Serializable, Object> cache = caches.get(c);
         if (cache == null) {
             cache = new ConcurrentHashMap<>();
@@ -918,6 +1073,16 @@ public abstract class AbstractSession<N> extends AbstractAttributeStoringSession
         this.isSynchronizedWithTransaction = isSynchronizedWithTransaction;
     }
 
+    /**
+     * The first level caches of a single tenant
+     */
+    protected static class TenantCaches {
+        final Map<Class, Map<Serializable, Object>> instances = new ConcurrentHashMap<>();
+        final Map<Class, Map<Serializable, Object>> entries = new ConcurrentHashMap<>();
+        final Map<Class, Map<Serializable, Object>> entriesForDirtyCheck = new ConcurrentHashMap<>();
+        final Map<CollectionKey, Collection> collections = new ConcurrentHashMap<>();
+    }
+
     private static class CollectionKey {
         final Class clazz;
         final Serializable key;
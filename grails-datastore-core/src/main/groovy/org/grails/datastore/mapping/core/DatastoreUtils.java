@@ -292,8 +292,9 @@ public abstract class DatastoreUtils {
      * @return the return value from the closure
      */
     public static Object doWithSession(final Datastore datastore, final Closure c) {
-        boolean existing = datastore.hasCurrentSession();
-        Session session = existing ? datastore.getCurrentSession() : bindSession(datastore.connect());
+        Session existingSession = getCurrentSession(datastore);
+        boolean existing = existingSession != null;
+        Session session = existing ? existingSession : bindSession(datastore.connect());
         try {
             return c.call(session);
         }
@@ -305,6 +306,35 @@ public abstract class DatastoreUtils {
         }
     }
 
+    /**
+     * Obtains the session bound to the current thread for the given datastore. For an {@link AbstractDatastore} that does not
+     * customize the session lookup this needs a single lookup of the transaction resources and, within a unit of work, reuses
+     * the session handle cached on the {@link SessionHolder} unless a transaction has yet to be synchronized with the session
+     *
+     * @param datastore The datastore
+     * @return The current session or null if there is none
+     */
+    public static Session getCurrentSession(Datastore datastore) {
+        if (datastore instanceof AbstractDatastore && ((AbstractDatastore) datastore).hasDefaultSessionLookup()) {
+            Object resource = TransactionSynchronizationManager.getResource(datastore);
+            if (resource == null) {
+                return null;
+            }
+            if (resource instanceof SessionHolder) {
+                SessionHolder sessionHolder = (SessionHolder) resource;
+                // an active transaction may still need to register its synchronization for the pre-bound session
+                if (sessionHolder.isSynchronizedWithTransaction() || !TransactionSynchronizationManager.isSynchronizationActive()) {
+                    Session session = sessionHolder.getSessionHandle();
+                    if (session != null) {
+                        return session;
+                    }
+                }
+            }
+            return datastore.getCurrentSession();
+        }
+        return datastore.hasCurrentSession() ? datastore.getCurrentSession() : null;
+    }
+
     /**
      * Execute the callback in the current session if it exists, or create a new one and close it otherwise.
      * @param <T> the return type
@@ -313,8 +343,9 @@ public abstract class DatastoreUtils {
      * @return the return value from the callback
      */
     public static <T> T execute(final Datastore datastore, final SessionCallback<T> callback) {
-        boolean existing = datastore.hasCurrentSession();
-        Session session = existing ? datastore.getCurrentSession() : bindSession(datastore.connect());
+        Session existingSession = getCurrentSession(datastore);
+        boolean existing = existingSession != null;
+        Session session = existing ? existingSession : bindSession(datastore.connect());
         try {
             return callback.doInSession(session);
         }
@@ -332,8 +363,9 @@ public abstract class DatastoreUtils {
      * @param callback the callback to execute
      */
     public static void execute(final Datastore datastore, final VoidSessionCallback callback) {
-        boolean existing = datastore.hasCurrentSession();
-        Session session = existing ? datastore.getCurrentSession() : bindSession(datastore.connect());
+        Session existingSession = getCurrentSession(datastore);
+        boolean existing = existingSession != null;
+        Session session = existing ? existingSession : bindSession(datastore.connect());
         try {
             callback.doInSession(session);
         }
@@ -54,6 +54,36 @@ class ConnectionSourceSettings implements Settings {
      */
     Boolean markDirty
 
+    /**
+     * Whether to only validate the dirty properties of already persisted instances
+     */
+    boolean validateDirtyOnly = false
+
+    /**
+     * Whether to evaluate entity constraints in a background thread after startup instead of on first validation
+     */
+    boolean validatorWarmUp = false
+
+    /**
+     * Whether to record validation and constraint latency metrics
+     */
+    boolean validationMetrics = false
+
+    /**
+     * The p99 latency in milliseconds above which a constraint is reported as slow when metrics are enabled
+     */
+    long slowConstraintThreshold = 50
+
+    /**
+     * Whether to record per tenant query and persistence metrics
+     */
+    boolean metrics = false
+
+    /**
+     * The maximum number of tenants whose metrics are kept when metrics are enabled, the least recently active tenants are evicted beyond it. 0 for unlimited
+     */
+    int metricsMaxTenants = 1000
+
     /**
      * Package names that should fail on error
      */
@@ -3,6 +3,8 @@ package org.grails.datastore.mapping.core.connections;
 import org.springframework.core.env.PropertyResolver;
 
 import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -29,6 +31,20 @@ public interface ConnectionSources<T, S extends ConnectionSourceSettings> extend
      */
     Iterable<ConnectionSource<T, S>> getAllConnectionSources();
 
+    /**
+     * The names of all the connection sources. Implementations that create connection sources lazily return the names of
+     * the sources that have not been created yet as well, without creating them
+     *
+     * @return The names of all the connection sources, including the default
+     */
+    default Iterable<String> getConnectionSourceNames() {
+        List<String> names = new ArrayList<>();
+        for (ConnectionSource<T, S> connectionSource : getAllConnectionSources()) {
+            names.add(connectionSource.getName());
+        }
+        return names;
+    }
+
     /**
      * Obtain a {@link ConnectionSource} by name
      *
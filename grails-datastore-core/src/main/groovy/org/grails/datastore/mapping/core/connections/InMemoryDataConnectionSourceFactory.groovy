@@ -0,0 +1,11 @@
+package org.grails.datastore.mapping.core.connections
+
+/**
+ * Marks a {@link ConnectionSourceFactory} whose connection sources hold their data themselves, so that closing a connection source
+ * discards its data. Such connection sources are never evicted by {@link LazyConnectionSources}
+ *
+ * @author Graeme Rocher
+ * @since 7.0
+ */
+interface InMemoryDataConnectionSourceFactory {
+}
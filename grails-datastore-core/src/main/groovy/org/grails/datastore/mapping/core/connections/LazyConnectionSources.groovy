@@ -0,0 +1,405 @@
+package org.grails.datastore.mapping.core.connections
+
+import groovy.transform.CompileStatic
+import groovy.util.logging.Slf4j
+import org.grails.datastore.mapping.config.Settings
+import org.springframework.core.env.PropertyResolver
+
+import java.util.concurrent.Callable
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ConcurrentMap
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.FutureTask
+import java.util.concurrent.atomic.LongAdder
+
+/**
+ * <p>A {@link ConnectionSources} implementation that creates each {@link ConnectionSource} on first use and keeps at most
+ * {@link #getMaxActive()} of them open. When the limit is exceeded the least recently used source that can be evicted is closed.
+ * A closed source is recreated from its configuration when it is next requested, and the {@link ConnectionSourcesListener listeners}
+ * are notified of each source created. Concurrent requests for a source that is not active wait for a single creation.</p>
+ *
+ * <p>Only sources obtained with {@link #acquireConnectionSource(String)} can be evicted, once every lease has been passed to
+ * {@link #releaseConnectionSource(ConnectionSource)}. A source handed out by {@link #getConnectionSource(String)} or
+ * {@link #addConnectionSource(String, PropertyResolver)} may be held indefinitely by its caller, hence it stays open until the
+ * sources are closed, if necessary the limit is exceeded. Sources created by an {@link InMemoryDataConnectionSourceFactory}
+ * hold their data themselves and are never evicted.</p>
+ *
+ * <p>This suits {@link org.grails.datastore.mapping.multitenancy.MultiTenancySettings.MultiTenancyMode#DATABASE} multi tenancy with
+ * many tenants, most of which are rarely active. {@link #getAllConnectionSources()} only returns the active sources, use
+ * {@link #getConnectionSourceNames()} to obtain the names of all the sources.</p>
+ *
+ * <p>It can be enabled by setting <code>connectionSourcesClass</code> to this class. The limit is read from
+ * {@link Settings#SETTING_CONNECTION_SOURCES_MAX_ACTIVE}.</p>
+ *
+ * @author Graeme Rocher
+ * @since 7.0
+ */
+@CompileStatic
+@Slf4j
+class LazyConnectionSources<T, S extends ConnectionSourceSettings> extends AbstractConnectionSources<T, S> {
+
+    /**
+     * The default maximum number of active connection sources, excluding the default source
+     */
+    public static final int DEFAULT_MAX_ACTIVE = 100
+
+    /**
+     * The maximum number of active connection sources, excluding the default source
+     */
+    final int maxActive
+
+    /**
+     * The configuration used to create each known connection source
+     */
+    protected final Map<String, PropertyResolver> connectionSourceConfigurations = new ConcurrentHashMap<>()
+
+    private final LinkedHashMap<String, ConnectionSource<T, S>> activeConnectionSources = new LinkedHashMap<>(16, 0.75f, true)
+    // the number of leases of each source in use, guarded by activeConnectionSources
+    private final Map<ConnectionSource<T, S>, Integer> usages = new IdentityHashMap<>()
+    // the sources handed out without a lease, guarded by activeConnectionSources
+    private final Set<ConnectionSource<T, S>> pinned = Collections.newSetFromMap(new IdentityHashMap<ConnectionSource<T, S>, Boolean>())
+    private final ConcurrentMap<String, FutureTask<ConnectionSource<T, S>>> pendingCreations = new ConcurrentHashMap<>()
+    private final LongAdder creations = new LongAdder()
+    private final LongAdder evictions = new LongAdder()
+    private final LongAdder hits = new LongAdder()
+    private final LongAdder misses = new LongAdder()
+
+    LazyConnectionSources(ConnectionSource<T, S> defaultConnectionSource, ConnectionSourceFactory<T, S> connectionSourceFactory, PropertyResolver configuration) {
+        this(defaultConnectionSource, connectionSourceFactory, configuration, resolveMaxActive(configuration))
+    }
+
+    LazyConnectionSources(ConnectionSource<T, S> defaultConnectionSource, ConnectionSourceFactory<T, S> connectionSourceFactory, PropertyResolver configuration, int maxActive) {
+        super(defaultConnectionSource, connectionSourceFactory, configuration)
+        if(maxActive < 1) {
+            throw new IllegalArgumentException("Argument [maxActive] must be greater than zero")
+        }
+        this.maxActive = maxActive
+        for(String name : getConnectionSourceNames(connectionSourceFactory, this.configuration)) {
+            if(name == Settings.SETTING_DATASOURCE || name == ConnectionSource.DEFAULT) continue // data source is reserved name for the default
+            connectionSourceConfigurations.put(name, this.configuration)
+        }
+    }
+
+    @Override
+    Iterable<String> getConnectionSourceNames() {
+        List<String> names = [ConnectionSource.DEFAULT]
+        names.addAll(connectionSourceConfigurations.keySet())
+        return Collections.unmodifiableList(names)
+    }
+
+    /**
+     * @return The default connection source and the connection sources that are currently active
+     */
+    @Override
+    Iterable<ConnectionSource<T, S>> getAllConnectionSources() {
+        List<ConnectionSource<T, S>> all = [defaultConnectionSource]
+        synchronized (activeConnectionSources) {
+            all.addAll(activeConnectionSources.values())
+        }
+        return Collections.unmodifiableList(all)
+    }
+
+    /**
+     * Obtains the connection source with the given name. Since the caller may hold on to it, the source is not evicted until
+     * the connection sources are closed, use {@link #acquireConnectionSource(String)} to obtain a source that can be evicted
+     * once released
+     *
+     * @param name The name of the connection source
+     * @return The connection source or null if no such connection source exists
+     */
+    @Override
+    ConnectionSource<T, S> getConnectionSource(String name) {
+        return obtain(name, false)
+    }
+
+    /**
+     * Obtains the connection source with the given name and marks it as in use, so that it is not evicted until it is released
+     * with {@link #releaseConnectionSource(ConnectionSource)}
+     *
+     * @param name The name of the connection source
+     * @return The connection source or null if no such connection source exists
+     */
+    ConnectionSource<T, S> acquireConnectionSource(String name) {
+        return obtain(name, true)
+    }
+
+    /**
+     * Releases a connection source obtained with {@link #acquireConnectionSource(String)}
+     *
+     * @param connectionSource The connection source
+     */
+    void releaseConnectionSource(ConnectionSource<T, S> connectionSource) {
+        if(connectionSource.is(defaultConnectionSource)) {
+            return
+        }
+        List<ConnectionSource<T, S>> toClose
+        synchronized (activeConnectionSources) {
+            Integer usage = usages.get(connectionSource)
+            if(usage == null) {
+                return
+            }
+            if(usage > 1) {
+                usages.put(connectionSource, usage - 1)
+                return
+            }
+            usages.remove(connectionSource)
+            // sources kept beyond the limit while in use can be evicted now
+            toClose = evictExcess()
+        }
+        closeAll(toClose)
+    }
+
+    /**
+     * @param connectionSource The connection source
+     * @return Whether the connection source is currently leased or was handed out without a lease, in which case it cannot be evicted
+     */
+    boolean isInUse(ConnectionSource<T, S> connectionSource) {
+        synchronized (activeConnectionSources) {
+            return usages.containsKey(connectionSource) || pinned.contains(connectionSource)
+        }
+    }
+
+    @Override
+    ConnectionSource<T, S> addConnectionSource(String name, PropertyResolver configuration) {
+        if(name == null) {
+            throw new IllegalArgumentException("Argument [name] cannot be null")
+        }
+        if(configuration == null) {
+            throw new IllegalArgumentException("Argument [configuration] cannot be null")
+        }
+
+        connectionSourceConfigurations.put(name, configuration)
+        ConnectionSource<T, S> connectionSource = createConnectionSource(name, configuration)
+        List<ConnectionSource<T, S>> toClose
+        synchronized (activeConnectionSources) {
+            ConnectionSource<T, S> replaced = activeConnectionSources.put(name, connectionSource)
+            if(replaced != null) {
+                pinned.remove(replaced)
+            }
+            pinned.add(connectionSource)
+            toClose = evictExcess()
+        }
+        closeAll(toClose)
+
+        for(listener in listeners) {
+            listener.newConnectionSource(connectionSource)
+        }
+        return connectionSource
+    }
+
+    /**
+     * @return Whether the connection source with the given name is currently active
+     */
+    boolean isActive(String name) {
+        if(ConnectionSource.DEFAULT == name) {
+            return true
+        }
+        synchronized (activeConnectionSources) {
+            return activeConnectionSources.containsKey(name)
+        }
+    }
+
+    /**
+     * @return The number of active connection sources, excluding the default source
+     */
+    int getActiveCount() {
+        synchronized (activeConnectionSources) {
+            return activeConnectionSources.size()
+        }
+    }
+
+    /**
+     * @return The number of connection sources created
+     */
+    long getCreationCount() {
+        return creations.sum()
+    }
+
+    /**
+     * @return The number of connection sources evicted and closed
+     */
+    long getEvictionCount() {
+        return evictions.sum()
+    }
+
+    /**
+     * @return The number of lookups that found an active connection source
+     */
+    long getHitCount() {
+        return hits.sum()
+    }
+
+    /**
+     * @return The number of lookups that had to create the connection source
+     */
+    long getMissCount() {
+        return misses.sum()
+    }
+
+    @Override
+    void close() throws IOException {
+        List<ConnectionSource<T, S>> toClose
+        synchronized (activeConnectionSources) {
+            toClose = new ArrayList<>(activeConnectionSources.values())
+            activeConnectionSources.clear()
+            usages.clear()
+            pinned.clear()
+        }
+        for(ConnectionSource<T, S> connectionSource in toClose) {
+            connectionSource.close()
+        }
+        defaultConnectionSource.close()
+    }
+
+    /**
+     * Creates the connection source with the given name
+     *
+     * @param name The name
+     * @param configuration The configuration
+     * @return The connection source
+     */
+    protected ConnectionSource<T, S> createConnectionSource(String name, PropertyResolver configuration) {
+        ConnectionSource<T, S> connectionSource = connectionSourceFactory.createRuntime(name, configuration, (S)defaultConnectionSource.getSettings())
+        if(connectionSource == null) {
+            throw new IllegalStateException("ConnectionSource factory returned null")
+        }
+        creations.increment()
+        log.debug("Created connection source [{}]", name)
+        return connectionSource
+    }
+
+    /**
+     * Whether the given active connection source may be closed to stay within the limit. Sources created by an
+     * {@link InMemoryDataConnectionSourceFactory} are never evicted since closing them would discard their data
+     *
+     * @param connectionSource The connection source
+     * @return True if it can be evicted
+     */
+    protected boolean isEvictable(ConnectionSource<T, S> connectionSource) {
+        return !(connectionSourceFactory instanceof InMemoryDataConnectionSourceFactory)
+    }
+
+    private ConnectionSource<T, S> obtain(String name, boolean lease) {
+        if(name == null) {
+            return null
+        }
+        if(ConnectionSource.DEFAULT == name) {
+            return defaultConnectionSource
+        }
+        PropertyResolver connectionSourceConfiguration = connectionSourceConfigurations.get(name)
+        if(connectionSourceConfiguration == null) {
+            return null
+        }
+
+        while(true) {
+            synchronized (activeConnectionSources) {
+                ConnectionSource<T, S> connectionSource = activeConnectionSources.get(name)
+                if(connectionSource != null) {
+                    markInUse(connectionSource, lease)
+                    hits.increment()
+                    return connectionSource
+                }
+            }
+
+            FutureTask<ConnectionSource<T, S>> creation = new FutureTask<ConnectionSource<T, S>>({ ->
+                ConnectionSource<T, S> created = createConnectionSource(name, connectionSourceConfiguration)
+                List<ConnectionSource<T, S>> toClose
+                synchronized (activeConnectionSources) {
+                    activeConnectionSources.put(name, created)
+                    markInUse(created, lease)
+                    toClose = evictExcess()
+                }
+                closeAll(toClose)
+                return created
+            } as Callable<ConnectionSource<T, S>>)
+
+            FutureTask<ConnectionSource<T, S>> pending = pendingCreations.putIfAbsent(name, creation)
+            if(pending != null) {
+                // created by another thread, wait for it and look it up again so that it is marked as in use for this caller
+                await(pending)
+                continue
+            }
+            misses.increment()
+            ConnectionSource<T, S> created
+            try {
+                creation.run()
+                created = await(creation)
+            } finally {
+                pendingCreations.remove(name, creation)
+            }
+            for(listener in listeners) {
+                listener.newConnectionSource(created)
+            }
+            return created
+        }
+    }
+
+    // must be called holding the lock on the active sources
+    private void markInUse(ConnectionSource<T, S> connectionSource, boolean lease) {
+        if(lease) {
+            Integer usage = usages.get(connectionSource)
+            usages.put(connectionSource, usage != null ? usage + 1 : 1)
+        }
+        else {
+            pinned.add(connectionSource)
+        }
+    }
+
+    private static <C> C await(FutureTask<C> task) {
+        try {
+            return task.get()
+        } catch (ExecutionException e) {
+            Throwable cause = e.cause
+            if(cause instanceof RuntimeException) {
+                throw (RuntimeException) cause
+            }
+            if(cause instanceof Error) {
+                throw (Error) cause
+            }
+            throw new IllegalStateException("Error creating connection source: ${cause?.message}", cause)
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt()
+            throw new IllegalStateException("Interrupted while waiting for the creation of a connection source", e)
+        }
+    }
+
+    /**
+     * Evicts the least recently used sources that are neither in use nor excluded from eviction until the limit is respected.
+     * Must be called holding the lock on the active sources
+     *
+     * @return The evicted sources, which must be closed once the lock is released
+     */
+    private List<ConnectionSource<T, S>> evictExcess() {
+        List<ConnectionSource<T, S>> evicted = []
+        Iterator<Map.Entry<String, ConnectionSource<T, S>>> i = activeConnectionSources.entrySet().iterator()
+        while(activeConnectionSources.size() > maxActive && i.hasNext()) {
+            Map.Entry<String, ConnectionSource<T, S>> eldest = i.next()
+            ConnectionSource<T, S> candidate = eldest.value
+            if(usages.containsKey(candidate) || pinned.contains(candidate) || !isEvictable(candidate)) {
+                continue
+            }
+            i.remove()
+            evicted.add(candidate)
+            evictions.increment()
+            log.debug("Evicting connection source [{}]", eldest.key)
+        }
+        return evicted
+    }
+
+    private void closeAll(List<ConnectionSource<T, S>> toClose) {
+        for(ConnectionSource<T, S> connectionSource in toClose) {
+            try {
+                connectionSource.close()
+            } catch (Throwable e) {
+                log.warn("Error closing connection source [${connectionSource.name}]: ${e.message}", e)
+            }
+        }
+    }
+
+    private static int resolveMaxActive(PropertyResolver configuration) {
+        if(configuration == null) {
+            return DEFAULT_MAX_ACTIVE
+        }
+        return configuration.getProperty(Settings.SETTING_CONNECTION_SOURCES_MAX_ACTIVE, Integer, DEFAULT_MAX_ACTIVE)
+    }
+}
@@ -16,10 +16,12 @@ package org.grails.datastore.mapping.engine;
 
 import java.io.Serializable;
 import java.sql.Timestamp;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 
 import org.grails.datastore.mapping.config.Property;
+import org.grails.datastore.mapping.core.AbstractSession;
 import org.grails.datastore.mapping.core.Session;
 import org.grails.datastore.mapping.core.SessionImplementor;
 import org.grails.datastore.mapping.engine.event.PostDeleteEvent;
@@ -30,6 +32,8 @@ import org.grails.datastore.mapping.engine.event.PreDeleteEvent;
 import org.grails.datastore.mapping.engine.event.PreInsertEvent;
 import org.grails.datastore.mapping.engine.event.PreLoadEvent;
 import org.grails.datastore.mapping.engine.event.PreUpdateEvent;
+import org.grails.datastore.mapping.metrics.DatastoreMetrics;
+import org.grails.datastore.mapping.metrics.NoopDatastoreMetrics;
 import org.grails.datastore.mapping.model.MappingContext;
 import org.grails.datastore.mapping.model.PersistentEntity;
 import org.grails.datastore.mapping.model.PersistentProperty;
@@ -180,11 +184,25 @@ public abstract class EntityPersister implements Persister {
             return persister.persist(obj);
         }
 
-        return persistEntity(getPersistentEntity(), obj);
+        DatastoreMetrics metrics = getDatastoreMetrics();
+        if (!metrics.isEnabled()) {
+            return persistEntity(getPersistentEntity(), obj);
+        }
+        long start = System.nanoTime();
+        Serializable key = persistEntity(getPersistentEntity(), obj);
+        metrics.recordPersist(getPersistentEntity(), System.nanoTime() - start, 1);
+        return key;
     }
 
     public List<Serializable> persist(@SuppressWarnings("rawtypes") Iterable objs) {
-        return persistEntities(getPersistentEntity(), objs);
+        DatastoreMetrics metrics = getDatastoreMetrics();
+        if (!metrics.isEnabled()) {
+            return persistEntities(getPersistentEntity(), objs);
+        }
+        long start = System.nanoTime();
+        List<Serializable> keys = persistEntities(getPersistentEntity(), objs);
+        metrics.recordPersist(getPersistentEntity(), System.nanoTime() - start, keys != null ? keys.size() : 0);
+        return keys;
     }
 
     public List<Object> retrieveAll(Iterable<Serializable> keys) {
@@ -260,7 +278,16 @@ public abstract class EntityPersister implements Persister {
             return;
         }
 
+        DatastoreMetrics metrics = getDatastoreMetrics();
+        if (!metrics.isEnabled()) {
+            deleteEntities(getPersistentEntity(), objects);
+            return;
+        }
+        // the objects may only be iterable once, so the number of instances is only known up front for collections
+        int count = objects instanceof Collection ? ((Collection) objects).size() : 0;
+        long start = System.nanoTime();
         deleteEntities(getPersistentEntity(), objects);
+        metrics.recordDelete(getPersistentEntity(), System.nanoTime() - start, count);
     }
 
     public void delete(Object obj) {
@@ -268,7 +295,21 @@ public abstract class EntityPersister implements Persister {
             return;
         }
 
+        DatastoreMetrics metrics = getDatastoreMetrics();
+        if (!metrics.isEnabled()) {
+            deleteEntity(getPersistentEntity(), obj);
+            return;
+        }
+        long start = System.nanoTime();
         deleteEntity(getPersistentEntity(), obj);
+        metrics.recordDelete(getPersistentEntity(), System.nanoTime() - start, 1);
+    }
+
+    /**
+     * @return The metrics of the datastore of the session
+     */
+    protected DatastoreMetrics getDatastoreMetrics() {
+        return session != null ? DatastoreMetrics.of(session.getDatastore()) : NoopDatastoreMetrics.INSTANCE;
     }
 
     protected abstract void deleteEntity(PersistentEntity pe, Object obj);
@@ -356,8 +397,9 @@ public abstract class EntityPersister implements Persister {
     }
 
     public void firePostLoadEvent(final PersistentEntity persistentEntity, final EntityAccess entityAccess) {
-        publisher.publishEvent(new PostLoadEvent(
-                session.getDatastore(), persistentEntity, entityAccess));
+        PostLoadEvent event = new PostLoadEvent(session.getDatastore(), persistentEntity, entityAccess);
+        event.setReadOnly(session instanceof AbstractSession && ((AbstractSession) session).isReadOnly());
+        publisher.publishEvent(event);
     }
 
     public boolean isVersioned(final EntityAccess ea) {
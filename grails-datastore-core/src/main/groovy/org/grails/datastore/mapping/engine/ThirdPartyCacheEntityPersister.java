@@ -16,6 +16,8 @@ package org.grails.datastore.mapping.engine;
 
 import org.grails.datastore.mapping.cache.TPCacheAdapter;
 import org.grails.datastore.mapping.cache.TPCacheAdapterRepository;
+import org.grails.datastore.mapping.cache.impl.TenantPartitionedTPCacheAdapterRepository;
+import org.grails.datastore.mapping.core.AbstractSession;
 import org.grails.datastore.mapping.core.Session;
 import org.grails.datastore.mapping.model.MappingContext;
 import org.grails.datastore.mapping.model.PersistentEntity;
@@ -47,7 +49,7 @@ public abstract class ThirdPartyCacheEntityPersister<T> extends LockableEntityPe
             return;
         }
 
-        TPCacheAdapter<T> cacheAdapter = cacheAdapterRepository.getTPCacheAdapter(persistentEntity);
+        TPCacheAdapter<T> cacheAdapter = getTPCacheAdapter(persistentEntity);
         if (cacheAdapter != null) {
             cacheAdapter.cacheEntry(id, e);
         }
@@ -58,10 +60,24 @@ public abstract class ThirdPartyCacheEntityPersister<T> extends LockableEntityPe
             return null;
         }
 
-        TPCacheAdapter<T> cacheAdapter = cacheAdapterRepository.getTPCacheAdapter(persistentEntity);
+        TPCacheAdapter<T> cacheAdapter = getTPCacheAdapter(persistentEntity);
         if (cacheAdapter != null) {
             return cacheAdapter.getCachedEntry(id);
         }
         return null;
     }
+
+    /**
+     * Obtains the cache adapter for the given entity, partitioned by the tenant of the current session if the repository is tenant partitioned
+     *
+     * @param persistentEntity The entity
+     * @return The adapter or null if the entity is not cached
+     */
+    protected TPCacheAdapter<T> getTPCacheAdapter(PersistentEntity persistentEntity) {
+        if (cacheAdapterRepository instanceof TenantPartitionedTPCacheAdapterRepository && session instanceof AbstractSession) {
+            Serializable tenantId = ((AbstractSession) session).getCacheTenantId(persistentEntity);
+            return ((TenantPartitionedTPCacheAdapterRepository<T>) cacheAdapterRepository).getTPCacheAdapter(persistentEntity, tenantId);
+        }
+        return cacheAdapterRepository.getTPCacheAdapter(persistentEntity);
+    }
 }
@@ -25,6 +25,8 @@ public class PostLoadEvent extends AbstractPersistenceEvent {
 
     private static final long serialVersionUID = 1;
 
+    private boolean readOnly;
+
     public PostLoadEvent(final Datastore source, final PersistentEntity entity,
             final EntityAccess entityAccess) {
         super(source, entity, entityAccess);
@@ -42,6 +44,20 @@ public class PostLoadEvent extends AbstractPersistenceEvent {
         super(source, entity);
     }
 
+    /**
+     * @return Whether the entity was loaded by a read-only session
+     */
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    /**
+     * @param readOnly Whether the entity was loaded by a read-only session
+     */
+    public void setReadOnly(boolean readOnly) {
+        this.readOnly = readOnly;
+    }
+
     @Override
     public EventType getEventType() {
         return EventType.PostLoad;
@@ -0,0 +1,69 @@
+package org.grails.datastore.mapping.metrics;
+
+import org.grails.datastore.mapping.core.AbstractDatastore;
+import org.grails.datastore.mapping.core.Datastore;
+import org.grails.datastore.mapping.model.PersistentEntity;
+
+/**
+ * A sink for query and persistence metrics. Implementations are expected to tag the metrics with the current tenant
+ * so that the tenants generating load can be identified
+ *
+ * @see InMemoryDatastoreMetrics
+ * @see AbstractDatastore#setDatastoreMetrics(DatastoreMetrics)
+ *
+ * @author Graeme Rocher
+ * @since 7.0
+ */
+public interface DatastoreMetrics {
+
+    /**
+     * @return Whether metrics are being recorded. When false the callers skip timing altogether
+     */
+    boolean isEnabled();
+
+    /**
+     * Records the execution of a query
+     *
+     * @param entity The queried entity
+     * @param durationNanos The duration in nanoseconds
+     * @param rowCount The number of results
+     */
+    void recordQuery(PersistentEntity entity, long durationNanos, int rowCount);
+
+    /**
+     * Records a session flush
+     *
+     * @param durationNanos The duration in nanoseconds
+     * @param operationCount The number of pending operations flushed
+     */
+    void recordFlush(long durationNanos, int operationCount);
+
+    /**
+     * Records the persisting of one or many entities
+     *
+     * @param entity The entity
+     * @param durationNanos The duration in nanoseconds
+     * @param count The number of instances
+     */
+    void recordPersist(PersistentEntity entity, long durationNanos, int count);
+
+    /**
+     * Records the deletion of one or many entities
+     *
+     * @param entity The entity
+     * @param durationNanos The duration in nanoseconds
+     * @param count The number of instances, or zero if they were given as an iterable that is not a collection
+     */
+    void recordDelete(PersistentEntity entity, long durationNanos, int count);
+
+    /**
+     * @param datastore The datastore
+     * @return The metrics of the given datastore, never null
+     */
+    static DatastoreMetrics of(Datastore datastore) {
+        if (datastore instanceof AbstractDatastore) {
+            return ((AbstractDatastore) datastore).getDatastoreMetrics();
+        }
+        return NoopDatastoreMetrics.INSTANCE;
+    }
+}
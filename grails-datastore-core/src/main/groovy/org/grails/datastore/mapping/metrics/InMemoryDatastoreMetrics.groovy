@@ -0,0 +1,223 @@
+package org.grails.datastore.mapping.metrics
+
+import groovy.transform.CompileStatic
+import org.grails.datastore.mapping.core.connections.ConnectionSource
+import org.grails.datastore.mapping.model.PersistentEntity
+import org.grails.datastore.mapping.multitenancy.TenantResolver
+import org.grails.datastore.mapping.multitenancy.exceptions.TenantNotFoundException
+
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ConcurrentMap
+import java.util.concurrent.atomic.LongAdder
+
+/**
+ * A lock free {@link DatastoreMetrics} implementation that keeps per tenant operation counts, row counts and latency histograms
+ * in memory. Operations executed without a tenant are recorded against {@link ConnectionSource#DEFAULT}. At most
+ * {@link #maxTenants} tenants are tracked, once the limit is reached the statistics of the tenant that recorded an operation
+ * least recently are evicted to make room for a new tenant.
+ *
+ * @author Graeme Rocher
+ * @since 7.0
+ */
+@CompileStatic
+class InMemoryDatastoreMetrics implements DatastoreMetrics {
+
+    /**
+     * The default maximum number of tenants whose statistics are kept
+     */
+    public static final int DEFAULT_MAX_TENANTS = 1000
+
+    /**
+     * Resolves the tenant the metrics are recorded against, if null all metrics are recorded against {@link ConnectionSource#DEFAULT}
+     */
+    final TenantResolver tenantResolver
+
+    /**
+     * The maximum number of tenants whose statistics are kept, 0 if unlimited
+     */
+    final int maxTenants
+
+    private final ConcurrentMap<Serializable, TenantStatistics> tenantStatistics = new ConcurrentHashMap<>()
+    private final LongAdder evictedTenants = new LongAdder()
+
+    InMemoryDatastoreMetrics(TenantResolver tenantResolver = null, int maxTenants = DEFAULT_MAX_TENANTS) {
+        this.tenantResolver = tenantResolver
+        this.maxTenants = maxTenants
+    }
+
+    @Override
+    boolean isEnabled() {
+        return true
+    }
+
+    @Override
+    void recordQuery(PersistentEntity entity, long durationNanos, int rowCount) {
+        currentTenantStatistics().queries.record(durationNanos, rowCount)
+    }
+
+    @Override
+    void recordFlush(long durationNanos, int operationCount) {
+        currentTenantStatistics().flushes.record(durationNanos, operationCount)
+    }
+
+    @Override
+    void recordPersist(PersistentEntity entity, long durationNanos, int count) {
+        currentTenantStatistics().persists.record(durationNanos, count)
+    }
+
+    @Override
+    void recordDelete(PersistentEntity entity, long durationNanos, int count) {
+        currentTenantStatistics().deletes.record(durationNanos, count)
+    }
+
+    /**
+     * @param tenantId The tenant id
+     * @return The statistics of the given tenant or null if nothing has been recorded for it
+     */
+    TenantStatistics getTenantStatistics(Serializable tenantId) {
+        return tenantStatistics.get(tenantId != null ? tenantId : ConnectionSource.DEFAULT)
+    }
+
+    /**
+     * @return The statistics of all tenants
+     */
+    Collection<TenantStatistics> getTenantStatistics() {
+        return Collections.unmodifiableCollection(tenantStatistics.values())
+    }
+
+    /**
+     * @param limit The maximum number of tenants to return
+     * @return The tenants that have spent the most time executing queries and persistence operations, busiest first
+     */
+    List<TenantStatistics> getHotTenants(int limit) {
+        List<TenantStatistics> all = new ArrayList<>(tenantStatistics.values())
+        all.sort { TenantStatistics a, TenantStatistics b -> Long.compare(b.totalTimeNanos, a.totalTimeNanos) }
+        return all.size() > limit ? new ArrayList<>(all.subList(0, limit)) : all
+    }
+
+    /**
+     * @return The number of tenants whose statistics were evicted to stay within {@link #maxTenants}
+     */
+    long getEvictedTenants() {
+        return evictedTenants.sum()
+    }
+
+    /**
+     * Clears all recorded metrics
+     */
+    void reset() {
+        tenantStatistics.clear()
+        evictedTenants.reset()
+    }
+
+    protected TenantStatistics currentTenantStatistics() {
+        Serializable tenantId = resolveTenantId()
+        TenantStatistics statistics = tenantStatistics.get(tenantId)
+        if(statistics == null) {
+            statistics = new TenantStatistics(tenantId)
+            TenantStatistics existing = tenantStatistics.putIfAbsent(tenantId, statistics)
+            if(existing != null) {
+                statistics = existing
+            }
+            else if(maxTenants > 0 && tenantStatistics.size() > maxTenants) {
+                evictLeastRecentlyUsed(statistics)
+            }
+        }
+        statistics.lastRecorded = System.nanoTime()
+        return statistics
+    }
+
+    /**
+     * Evicts the statistics of the tenants that recorded an operation least recently until at most {@link #maxTenants} are kept
+     *
+     * @param added The statistics that were just added, which are never evicted
+     */
+    protected void evictLeastRecentlyUsed(TenantStatistics added) {
+        while(tenantStatistics.size() > maxTenants) {
+            TenantStatistics eldest = null
+            for(TenantStatistics candidate in tenantStatistics.values()) {
+                if(!candidate.is(added) && (eldest == null || candidate.lastRecorded - eldest.lastRecorded < 0)) {
+                    eldest = candidate
+                }
+            }
+            if(eldest == null) {
+                return
+            }
+            if(tenantStatistics.remove(eldest.tenantId, eldest)) {
+                evictedTenants.increment()
+            }
+        }
+    }
+
+    protected Serializable resolveTenantId() {
+        if(tenantResolver == null) {
+            return ConnectionSource.DEFAULT
+        }
+        try {
+            Serializable tenantId = tenantResolver.resolveTenantIdentifier()
+            return tenantId != null ? tenantId : ConnectionSource.DEFAULT
+        } catch (TenantNotFoundException ignored) {
+            return ConnectionSource.DEFAULT
+        }
+    }
+
+    /**
+     * The recorded statistics of a single tenant
+     */
+    static class TenantStatistics {
+        final Serializable tenantId
+        final OperationStatistics queries = new OperationStatistics()
+        final OperationStatistics flushes = new OperationStatistics()
+        final OperationStatistics persists = new OperationStatistics()
+        final OperationStatistics deletes = new OperationStatistics()
+        protected volatile long lastRecorded = System.nanoTime()
+
+        TenantStatistics(Serializable tenantId) {
+            this.tenantId = tenantId
+        }
+
+        /**
+         * @return The time spent in queries, persists and deletes in nanoseconds. Flushes are excluded since they include the persists and deletes
+         */
+        long getTotalTimeNanos() {
+            return queries.latency.total + persists.latency.total + deletes.latency.total
+        }
+
+        @Override
+        String toString() {
+            return "Tenant [${tenantId}] queries: ${queries}, flushes: ${flushes}, persists: ${persists}, deletes: ${deletes}"
+        }
+    }
+
+    /**
+     * The recorded statistics of a type of operation
+     */
+    static class OperationStatistics {
+        final LatencyHistogram latency = new LatencyHistogram()
+        private final LongAdder rows = new LongAdder()
+
+        protected void record(long durationNanos, int rowCount) {
+            latency.record(durationNanos)
+            rows.add(rowCount)
+        }
+
+        /**
+         * @return The number of operations
+         */
+        long getCount() {
+            return latency.count
+        }
+
+        /**
+         * @return The number of rows, instances or pending operations processed
+         */
+        long getRowCount() {
+            return rows.sum()
+        }
+
+        @Override
+        String toString() {
+            return "(count: ${count}, rows: ${rowCount}, p99: ${latency.getPercentile(99d)}ns)"
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package org.grails.datastore.mapping.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock free latency histogram with HDR style log-linear buckets. Each power of two range is split into
+ * 2<sup>subBucketBits</sup> linear sub-buckets, so values below 2<sup>subBucketBits + 1</sup> are recorded exactly
+ * and larger values with a relative error of at most 2<sup>-subBucketBits</sup>. Percentiles are reported as the
+ * upper bound of the sub-bucket they fall into, capped at the largest recorded value
+ *
+ * @author Graeme Rocher
+ * @since 7.0
+ */
+public class LatencyHistogram {
+
+    /**
+     * The default number of sub-bucket bits, giving a precision of about 3%
+     */
+    public static final int DEFAULT_SUB_BUCKET_BITS = 5;
+
+    private final int subBucketBits;
+    private final int subBucketCount;
+    private final AtomicLongArray buckets;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0L);
+
+    public LatencyHistogram() {
+        this(DEFAULT_SUB_BUCKET_BITS);
+    }
+
+    /**
+     * @param subBucketBits The number of bits of precision kept for each power of two, between 1 and 16
+     */
+    public LatencyHistogram(int subBucketBits) {
+        if (subBucketBits < 1 || subBucketBits > 16) {
+            throw new IllegalArgumentException("Sub-bucket bits must be between 1 and 16: " + subBucketBits);
+        }
+        this.subBucketBits = subBucketBits;
+        this.subBucketCount = 1 << subBucketBits;
+        // values below 2 * subBucketCount are exact, every further power of two adds subBucketCount buckets
+        this.buckets = new AtomicLongArray((64 - subBucketBits) * subBucketCount);
+    }
+
+    /**
+     * Records a value
+     *
+     * @param value The value, negative values are recorded as zero
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        buckets.incrementAndGet(bucketFor(value));
+        count.increment();
+        total.add(value);
+        max.accumulate(value);
+    }
+
+    /**
+     * @return The number of recorded values
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * @return The sum of all recorded values
+     */
+    public long getTotal() {
+        return total.sum();
+    }
+
+    /**
+     * @return The largest recorded value
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * @return The mean of the recorded values
+     */
+    public double getMean() {
+        long n = getCount();
+        return n == 0 ? 0d : (double) getTotal() / n;
+    }
+
+    /**
+     * Estimates the given percentile
+     *
+     * @param percentile The percentile between 0 and 100
+     * @return The upper bound of the bucket containing the percentile or 0 if nothing has been recorded
+     */
+    public long getPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100: " + percentile);
+        }
+        int bucketCount = buckets.length();
+        long[] snapshot = new long[bucketCount];
+        long n = 0;
+        for (int i = 0; i < bucketCount; i++) {
+            snapshot[i] = buckets.get(i);
+            n += snapshot[i];
+        }
+        if (n == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil((percentile / 100d) * n);
+        if (rank < 1) {
+            rank = 1;
+        }
+        long seen = 0;
+        for (int i = 0; i < bucketCount; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(upperBound(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * @return The relative error of the values reported for values beyond the exactly recorded range
+     */
+    public double getPrecision() {
+        return 1d / subBucketCount;
+    }
+
+    private int bucketFor(long value) {
+        int magnitude = 64 - Long.numberOfLeadingZeros(value);
+        if (magnitude <= subBucketBits + 1) {
+            return (int) value;
+        }
+        // keep the subBucketBits bits below the highest bit, the shift identifies the power of two
+        int shift = magnitude - subBucketBits - 1;
+        return (shift + 1) * subBucketCount + (int) ((value >>> shift) - subBucketCount);
+    }
+
+    private long upperBound(int bucket) {
+        if (bucket < 2 * subBucketCount) {
+            return bucket;
+        }
+        int shift = bucket / subBucketCount - 1;
+        long lowerBound = ((long) (bucket % subBucketCount) + subBucketCount) << shift;
+        return lowerBound + (1L << shift) - 1;
+    }
+}
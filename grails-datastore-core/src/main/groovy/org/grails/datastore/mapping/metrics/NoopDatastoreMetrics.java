@@ -0,0 +1,39 @@
+package org.grails.datastore.mapping.metrics;
+
+import org.grails.datastore.mapping.model.PersistentEntity;
+
+/**
+ * A {@link DatastoreMetrics} implementation that records nothing
+ *
+ * @author Graeme Rocher
+ * @since 7.0
+ */
+public class NoopDatastoreMetrics implements DatastoreMetrics {
+
+    public static final NoopDatastoreMetrics INSTANCE = new NoopDatastoreMetrics();
+
+    @Override
+    public boolean isEnabled() {
+        return false;
+    }
+
+    @Override
+    public void recordQuery(PersistentEntity entity, long durationNanos, int rowCount) {
+        // no-op
+    }
+
+    @Override
+    public void recordFlush(long durationNanos, int operationCount) {
+        // no-op
+    }
+
+    @Override
+    public void recordPersist(PersistentEntity entity, long durationNanos, int count) {
+        // no-op
+    }
+
+    @Override
+    public void recordDelete(PersistentEntity entity, long durationNanos, int count) {
+        // no-op
+    }
+}
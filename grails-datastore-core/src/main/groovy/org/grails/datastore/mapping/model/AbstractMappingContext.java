@@ -213,8 +213,8 @@ public abstract class AbstractMappingContext implements MappingContext, Initiali
             if(validator == null && validatorRegistry != null) {
                 Validator v = validatorRegistry.getValidator(entity);
                 if(v != null) {
-                    entityValidators.put(entity, v);
-                    return v;
+                    Validator existing = entityValidators.putIfAbsent(entity, v);
+                    return existing != null ? existing : v;
                 }
             }
             return validator;
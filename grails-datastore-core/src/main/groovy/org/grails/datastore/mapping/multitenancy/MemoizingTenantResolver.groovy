@@ -0,0 +1,17 @@
+package org.grails.datastore.mapping.multitenancy
+
+/**
+ * A {@link TenantResolver} that memoizes the resolved tenant identifier for the current unit of work (for example a web request)
+ * so that repeated calls do not repeat the resolution. The memoized identifier is cleared whenever the tenant is explicitly
+ * switched with <code>Tenants.withId(..)</code>
+ *
+ * @author Graeme Rocher
+ * @since 7.0
+ */
+interface MemoizingTenantResolver extends TenantResolver {
+
+    /**
+     * Clears the tenant identifier memoized for the current unit of work, if any
+     */
+    void clearResolvedTenantIdentifier()
+}
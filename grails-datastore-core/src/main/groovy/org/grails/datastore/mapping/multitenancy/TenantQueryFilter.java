@@ -0,0 +1,24 @@
+package org.grails.datastore.mapping.multitenancy;
+
+import org.grails.datastore.mapping.query.Query;
+
+/**
+ * Restricts queries to the current tenant, for datastores using
+ * {@link MultiTenancySettings.MultiTenancyMode#DISCRIMINATOR} multi tenancy. This avoids resolving the datastore
+ * and the tenant through a {@link org.grails.datastore.mapping.query.event.PreQueryEvent} for every query that is executed
+ *
+ * @see org.grails.datastore.mapping.core.AbstractDatastore#setTenantQueryFilter(TenantQueryFilter)
+ *
+ * @author Graeme Rocher
+ * @since 7.0
+ */
+public interface TenantQueryFilter {
+
+    /**
+     * Restricts the given query to the current tenant. Implementations should use {@link Query#restrictToCurrentTenant(String, java.util.function.Supplier)}
+     * so that the tenant is only resolved when the query is executed
+     *
+     * @param query The query, the entity of which is multi tenant
+     */
+    void filter(Query query);
+}
@@ -14,12 +14,16 @@
  */
 package org.grails.datastore.mapping.query;
 
+import org.grails.datastore.mapping.core.AbstractDatastore;
+import org.grails.datastore.mapping.core.Datastore;
 import org.grails.datastore.mapping.core.Session;
+import org.grails.datastore.mapping.metrics.DatastoreMetrics;
 import org.grails.datastore.mapping.model.MappingContext;
 import org.grails.datastore.mapping.model.PersistentEntity;
 import org.grails.datastore.mapping.model.PersistentProperty;
 import org.grails.datastore.mapping.model.types.Association;
 import org.grails.datastore.mapping.model.types.Embedded;
+import org.grails.datastore.mapping.multitenancy.TenantQueryFilter;
 import org.grails.datastore.mapping.query.api.AssociationCriteria;
 import org.grails.datastore.mapping.query.api.QueryableCriteria;
 import org.grails.datastore.mapping.query.event.PostQueryEvent;
@@ -35,6 +39,7 @@ import javax.persistence.LockModeType;
 import javax.persistence.criteria.JoinType;
 import java.io.Serializable;
 import java.util.*;
+import java.util.function.Supplier;
 import java.util.regex.Pattern;
 
 /**
@@ -59,6 +64,9 @@ public abstract class Query implements Cloneable{
     protected Map<String, JoinType> joinTypes = new HashMap<>();
     protected Boolean queryCache;
     protected LockModeType lockResult;
+    protected Criterion tenantCriterion;
+    protected String pendingTenantIdProperty;
+    protected Supplier<Serializable> pendingTenantId;
 
     protected Query(Session session, PersistentEntity entity) {
         this.entity = entity;
@@ -71,6 +79,10 @@ public abstract class Query implements Cloneable{
         if(session == null) throw new IllegalStateException("Cannot clone a stateless query");
         Query newQuery = session.createQuery(entity.getJavaClass());
         for (Criterion criterion : criteria.getCriteria()) {
+            if(criterion == tenantCriterion && newQuery.isRestrictedToTenant()) {
+                // already applied when the new query was created
+                continue;
+            }
             newQuery.add(criterion);
         }
         return newQuery;
@@ -240,6 +252,13 @@ public abstract class Query implements Cloneable{
         return max(max);
     }
 
+    /**
+     * @return The maximum number of results to return or -1 if there is no limit
+     */
+    public int getMax() {
+        return max;
+    }
+
     /**
      * Defines the offset (the first result index) of the query
      * @param offset The offset
@@ -259,6 +278,13 @@ public abstract class Query implements Cloneable{
         return offset(offset);
     }
 
+    /**
+     * @return The offset (the first result index) of the query
+     */
+    public int getOffset() {
+        return offset;
+    }
+
     /**
      * Specifies the order of results
      * @param order The order object
@@ -297,6 +323,67 @@ public abstract class Query implements Cloneable{
         return this;
     }
 
+    /**
+     * Restricts the results to the given tenant. Used for discriminator based multi tenancy
+     *
+     * @param tenantIdProperty The name of the tenant id property
+     * @param tenantId The tenant id
+     * @return This query instance
+     */
+    public Query restrictToTenant(String tenantIdProperty, Serializable tenantId) {
+        Object resolved = resolvePropertyValue(entity, tenantIdProperty, tenantId);
+        tenantCriterion = Restrictions.eq(tenantIdProperty, resolved);
+        criteria.add(tenantCriterion);
+        return this;
+    }
+
+    /**
+     * Restricts the results to the current tenant, which is resolved with the given supplier when the query is first executed.
+     * Used for discriminator based multi tenancy
+     *
+     * @param tenantIdProperty The name of the tenant id property
+     * @param tenantId Supplies the current tenant id
+     * @return This query instance
+     */
+    public Query restrictToCurrentTenant(String tenantIdProperty, Supplier<Serializable> tenantId) {
+        if(tenantCriterion == null) {
+            pendingTenantIdProperty = tenantIdProperty;
+            pendingTenantId = tenantId;
+        }
+        return this;
+    }
+
+    /**
+     * @return Whether the query has been restricted to a tenant with {@link #restrictToTenant(String, Serializable)} or {@link #restrictToCurrentTenant(String, Supplier)}
+     */
+    public boolean isRestrictedToTenant() {
+        return tenantCriterion != null || pendingTenantId != null;
+    }
+
+    /**
+     * Applies the tenant restriction prior to execution, resolving the current tenant if the query was restricted with
+     * {@link #restrictToCurrentTenant(String, Supplier)} or applying the datastore's {@link TenantQueryFilter} if the query was not created by a session
+     */
+    protected void applyTenantRestriction() {
+        if(tenantCriterion != null) return;
+
+        if(pendingTenantId == null && entity.isMultiTenant()) {
+            Datastore datastore = session.getDatastore();
+            if(datastore instanceof AbstractDatastore) {
+                TenantQueryFilter tenantQueryFilter = ((AbstractDatastore) datastore).getTenantQueryFilter();
+                if(tenantQueryFilter != null) {
+                    tenantQueryFilter.filter(this);
+                }
+            }
+        }
+        if(pendingTenantId != null) {
+            Serializable tenantId = pendingTenantId.get();
+            restrictToTenant(pendingTenantIdProperty, tenantId);
+            pendingTenantId = null;
+            pendingTenantIdProperty = null;
+        }
+    }
+
     Object resolvePropertyValue(PersistentEntity entity, String property, Object value) {
         PersistentProperty persistentProperty = entity.getPropertyByName(property);
         Object resolved;
@@ -579,9 +666,14 @@ public abstract class Query implements Cloneable{
     }
 
     private List doList() {
+        applyTenantRestriction();
         flushBeforeQuery();
 
-        ApplicationEventPublisher publisher = session.getDatastore().getApplicationEventPublisher();
+        Datastore datastore = session.getDatastore();
+        DatastoreMetrics metrics = DatastoreMetrics.of(datastore);
+        long start = metrics.isEnabled() ? System.nanoTime() : 0L;
+
+        ApplicationEventPublisher publisher = datastore.getApplicationEventPublisher();
         if(publisher != null) {
             publisher.publishEvent(new PreQueryEvent(this));
         }
@@ -594,6 +686,9 @@ public abstract class Query implements Cloneable{
             results = postQueryEvent.getResults();
         }
 
+        if(metrics.isEnabled()) {
+            metrics.recordQuery(entity, System.nanoTime() - start, results != null ? results.size() : 0);
+        }
 
         return results;
     }
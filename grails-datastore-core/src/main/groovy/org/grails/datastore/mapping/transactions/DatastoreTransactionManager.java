@@ -18,6 +18,7 @@ import javax.persistence.FlushModeType;
 
 import org.springframework.dao.DataAccessException;
 import org.springframework.dao.DataAccessResourceFailureException;
+import org.grails.datastore.mapping.core.AbstractSession;
 import org.grails.datastore.mapping.core.ConnectionNotFoundException;
 import org.grails.datastore.mapping.core.Datastore;
 import org.grails.datastore.mapping.core.DatastoreUtils;
@@ -116,6 +117,11 @@ public class DatastoreTransactionManager extends AbstractPlatformTransactionMana
             if (definition.isReadOnly()) {
                 // Just set to NEVER in case of a new Session for this transaction.
                 session.setFlushMode(FlushModeType.COMMIT);
+                if (session instanceof AbstractSession && !((AbstractSession) session).isReadOnly()) {
+                    // skip dirty checking snapshots and pending operations for the duration of the transaction
+                    ((AbstractSession) session).setReadOnly(true);
+                    txObject.setReadOnlyApplied(true);
+                }
             }
 
             Transaction<?> tx = session.beginTransaction();
@@ -216,6 +222,14 @@ public class DatastoreTransactionManager extends AbstractPlatformTransactionMana
     protected void doCleanupAfterCompletion(Object transaction) {
         TransactionObject txObject = (TransactionObject) transaction;
 
+        if (txObject.isReadOnlyApplied()) {
+            Session session = txObject.getSessionHolder().getSession();
+            if (session instanceof AbstractSession) {
+                ((AbstractSession) session).setReadOnly(false);
+            }
+            txObject.setReadOnlyApplied(false);
+        }
+
         // Un-bind the session holder from the thread.
         if (txObject.isNewSessionHolder()) {
             DatastoreUtils.closeSession(txObject.getSessionHolder().getSession());
@@ -30,6 +30,8 @@ public class SessionHolder extends ResourceHolderSupport {
 
     private Deque<Session> sessions = new LinkedBlockingDeque<Session>();
     private Object creator = null;
+    // the last validated current session, avoids locking the deque and re-validating on every lookup
+    private Session sessionHandle;
 
     public SessionHolder(Session session) {
         sessions.add(session);
@@ -54,6 +56,8 @@ public class SessionHolder extends ResourceHolderSupport {
 
     @Override
     public void setSynchronizedWithTransaction(boolean synchronizedWithTransaction) {
+        // the next lookup has to go through the regular path so that a new transaction can register its synchronization
+        sessionHandle = null;
         for (Session session : sessions) {
             session.setSynchronizedWithTransaction(synchronizedWithTransaction);
         }
@@ -78,10 +82,12 @@ public class SessionHolder extends ResourceHolderSupport {
     }
 
     public void addSession(Session session) {
+        sessionHandle = null;
         sessions.add(session);
     }
 
     public void removeSession(Session session) {
+        sessionHandle = null;
         sessions.remove(session);
     }
 
@@ -99,6 +105,28 @@ public class SessionHolder extends ResourceHolderSupport {
             removeSession(session);
             session = null;
         }
+        sessionHandle = session;
         return session;
     }
+
+    /**
+     * Obtains the current session validated by the last call to {@link #getValidatedSession()} without locking, provided that
+     * no session has been added or removed and the transaction synchronization has not changed since and that it is still connected
+     *
+     * @return The session or null if it needs to be validated again
+     */
+    public Session getSessionHandle() {
+        Session session = sessionHandle;
+        if (session != null && !session.isConnected()) {
+            sessionHandle = null;
+            return null;
+        }
+        return session;
+    }
+
+    @Override
+    public void unbound() {
+        sessionHandle = null;
+        super.unbound();
+    }
 }
@@ -27,6 +27,7 @@ public class TransactionObject implements SmartTransactionObject {
     private SessionHolder sessionHolder;
     private boolean newSessionHolder;
     private boolean newSession;
+    private boolean readOnlyApplied;
 
     public SessionHolder getSessionHolder() {
         return sessionHolder;
@@ -70,6 +71,17 @@ public class TransactionObject implements SmartTransactionObject {
         return newSession;
     }
 
+    /**
+     * @return Whether the session was switched to read-only for the duration of the transaction
+     */
+    public boolean isReadOnlyApplied() {
+        return readOnlyApplied;
+    }
+
+    public void setReadOnlyApplied(boolean readOnlyApplied) {
+        this.readOnlyApplied = readOnlyApplied;
+    }
+
 
     @Override
     public boolean isRollbackOnly() {
@@ -14,8 +14,11 @@
  */
 package org.grails.datastore.gorm.async
 
+import grails.async.Promise
 import grails.async.decorator.PromiseDecorator
 import grails.async.decorator.PromiseDecoratorProvider
+import groovy.transform.CompileStatic
+import org.grails.datastore.gorm.GormEnhancer
 import org.grails.datastore.gorm.async.transform.DelegateAsync
 import org.grails.datastore.gorm.query.GormOperations
 
@@ -41,6 +44,8 @@ class AsyncQuery<E> implements PromiseDecoratorProvider {
     } as PromiseDecorator ]
 
 
+    private volatile GormAsyncExecutor asyncExecutor
+
     AsyncQuery(GormOperations<E> gormOperations) {
         this.gormOperations = gormOperations
     }
@@ -49,4 +54,21 @@ class AsyncQuery<E> implements PromiseDecoratorProvider {
     List<PromiseDecorator> getDecorators() {
         return decorators
     }
+
+    /**
+     * Creates the promises of the query using the {@link GormAsyncExecutor} of the datastore of the queried entity
+     *
+     * @param callable The callable
+     * @param decorators The decorators
+     * @return The promise
+     */
+    @CompileStatic
+    public <T> Promise<T> createPromise(Closure<T> callable, List<PromiseDecorator> decorators) {
+        GormAsyncExecutor executor = asyncExecutor
+        if(executor == null || executor.closed) {
+            executor = GormAsyncExecutor.forDatastore(GormEnhancer.findDatastore((Class) gormOperations.persistentClass))
+            asyncExecutor = executor
+        }
+        executor.createPromise(callable, decorators)
+    }
 }
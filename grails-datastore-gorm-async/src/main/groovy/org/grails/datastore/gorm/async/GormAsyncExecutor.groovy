@@ -0,0 +1,315 @@
+package org.grails.datastore.gorm.async
+
+import grails.async.Promise
+import grails.async.Promises
+import grails.async.decorator.PromiseDecorator
+import groovy.transform.CompileStatic
+import groovy.util.logging.Slf4j
+import org.grails.async.factory.future.FutureTaskPromise
+import org.grails.datastore.gorm.GormEnhancer
+import org.grails.datastore.mapping.core.Datastore
+import org.grails.datastore.mapping.core.connections.ConnectionSourcesProvider
+import org.springframework.core.env.PropertyResolver
+
+import java.lang.reflect.Method
+import java.util.concurrent.ArrayBlockingQueue
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.RejectedExecutionException
+import java.util.concurrent.Semaphore
+import java.util.concurrent.ThreadFactory
+import java.util.concurrent.ThreadPoolExecutor
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Controls where the promises of the asynchronous GORM API of a datastore are executed. By default promises are created
+ * with the global {@link Promises} factory. When virtual threads are enabled each operation runs on its own virtual thread,
+ * or on a bounded pool of platform threads when the JVM does not support virtual threads, and the number of operations
+ * running concurrently against the datastore can be limited. Operations over the limit wait in a bounded queue without holding
+ * a thread. The executor of a datastore is closed when the datastore is closed
+ *
+ * @author Graeme Rocher
+ * @since 7.0
+ */
+@CompileStatic
+@Slf4j
+class GormAsyncExecutor implements Closeable {
+
+    public static final String SETTING_VIRTUAL_THREADS = "grails.gorm.async.virtualThreads"
+    public static final String SETTING_POOL_SIZE = "grails.gorm.async.poolSize"
+    public static final String SETTING_MAX_CONCURRENCY = "grails.gorm.async.maxConcurrency"
+    public static final String SETTING_QUEUE_CAPACITY = "grails.gorm.async.queueCapacity"
+
+    public static final int DEFAULT_POOL_SIZE = Runtime.getRuntime().availableProcessors() * 2
+    public static final int DEFAULT_QUEUE_CAPACITY = 10000
+
+    private static final Map<Datastore, GormAsyncExecutor> EXECUTORS = new ConcurrentHashMap<>()
+
+    /**
+     * Whether operations run on a dedicated executor instead of the global promise factory
+     */
+    final boolean virtualThreads
+
+    /**
+     * The maximum number of operations that run concurrently, 0 if unlimited
+     */
+    final int maxConcurrency
+
+    /**
+     * The maximum number of operations waiting for a thread of the fallback pool or for the concurrency limit
+     */
+    final int queueCapacity
+
+    private final ExecutorService executor
+    private final Semaphore permits
+    private final boolean usesVirtualThreads
+    private final Queue<Runnable> waiting = new ConcurrentLinkedQueue<>()
+    private final AtomicInteger waitingCount = new AtomicInteger()
+    private volatile boolean closed
+
+    GormAsyncExecutor(boolean virtualThreads = false, int poolSize = DEFAULT_POOL_SIZE, int maxConcurrency = 0, int queueCapacity = DEFAULT_QUEUE_CAPACITY) {
+        this.virtualThreads = virtualThreads
+        this.maxConcurrency = maxConcurrency
+        this.queueCapacity = queueCapacity
+        this.permits = maxConcurrency > 0 ? new Semaphore(maxConcurrency) : null
+        ExecutorService virtualThreadExecutor = virtualThreads ? createVirtualThreadExecutor() : null
+        this.usesVirtualThreads = virtualThreadExecutor != null
+        this.executor = virtualThreadExecutor != null ? virtualThreadExecutor : (virtualThreads ? createPlatformThreadExecutor(poolSize, queueCapacity) : null)
+    }
+
+    /**
+     * Creates an executor from the configuration of a datastore
+     *
+     * @param configuration The configuration
+     * @return The executor
+     */
+    static GormAsyncExecutor create(PropertyResolver configuration) {
+        if(configuration == null) {
+            return new GormAsyncExecutor()
+        }
+        return new GormAsyncExecutor(
+            configuration.getProperty(SETTING_VIRTUAL_THREADS, Boolean, false),
+            configuration.getProperty(SETTING_POOL_SIZE, Integer, DEFAULT_POOL_SIZE),
+            configuration.getProperty(SETTING_MAX_CONCURRENCY, Integer, 0),
+            configuration.getProperty(SETTING_QUEUE_CAPACITY, Integer, DEFAULT_QUEUE_CAPACITY)
+        )
+    }
+
+    /**
+     * Finds the executor of a datastore, creating it from the configuration of the datastore if none has been registered.
+     * Callers should retain the executor rather than looking it up for each operation
+     *
+     * @param datastore The datastore
+     * @return The executor
+     * @throws IllegalStateException If the datastore has been closed
+     */
+    static GormAsyncExecutor forDatastore(Datastore datastore) {
+        GormAsyncExecutor executor = EXECUTORS.get(datastore)
+        if(executor != null) {
+            return executor
+        }
+        if(GormEnhancer.isClosed(datastore)) {
+            throw new IllegalStateException("Datastore [$datastore] has been closed")
+        }
+        PropertyResolver configuration = datastore instanceof ConnectionSourcesProvider ? ((ConnectionSourcesProvider) datastore).connectionSources.baseConfiguration : null
+        GormAsyncExecutor created = create(configuration)
+        executor = EXECUTORS.putIfAbsent(datastore, created)
+        if(executor != null) {
+            created.close()
+            return executor
+        }
+        closeWithDatastore(datastore, created)
+        return created
+    }
+
+    /**
+     * Registers the executor used by a datastore, closing any previously registered executor
+     *
+     * @param datastore The datastore
+     * @param executor The executor
+     * @throws IllegalStateException If the datastore has been closed
+     */
+    static void register(Datastore datastore, GormAsyncExecutor executor) {
+        GormAsyncExecutor previous = EXECUTORS.put(datastore, executor)
+        if(previous != null && !previous.is(executor)) {
+            previous.close()
+        }
+        else if(previous == null) {
+            closeWithDatastore(datastore, executor)
+        }
+    }
+
+    /**
+     * Removes and closes the executor of a datastore
+     *
+     * @param datastore The datastore
+     */
+    static void unregister(Datastore datastore) {
+        EXECUTORS.remove(datastore)?.close()
+    }
+
+    private static void closeWithDatastore(Datastore datastore, GormAsyncExecutor executor) {
+        try {
+            GormEnhancer.registerCloseable(datastore, { unregister(datastore) } as Closeable)
+        } catch (IllegalStateException e) {
+            // closed concurrently, nothing would ever close the executor
+            EXECUTORS.remove(datastore, executor)
+            executor.close()
+            throw e
+        }
+    }
+
+    /**
+     * @return Whether operations run on virtual threads
+     */
+    boolean isUsingVirtualThreads() {
+        return usesVirtualThreads
+    }
+
+    /**
+     * @return The number of operations that may currently start without waiting, or -1 if concurrency is unlimited
+     */
+    int getAvailablePermits() {
+        return permits != null ? permits.availablePermits() : -1
+    }
+
+    /**
+     * @return The number of operations waiting for the concurrency limit
+     */
+    int getWaitingCount() {
+        return waitingCount.get()
+    }
+
+    /**
+     * @return Whether the executor has been closed
+     */
+    boolean isClosed() {
+        return closed
+    }
+
+    /**
+     * Creates a promise for the given closure
+     *
+     * @param callable The closure
+     * @param decorators The decorators to apply to the closure
+     * @return The promise
+     */
+    public <T> Promise<T> createPromise(Closure<T> callable, List<PromiseDecorator> decorators) {
+        if(closed) {
+            throw new RejectedExecutionException("The GORM async executor has been closed")
+        }
+        if(executor == null && permits == null) {
+            return (Promise<T>) Promises.createPromise(callable, decorators)
+        }
+
+        Closure<T> decorated = callable
+        for(PromiseDecorator decorator in decorators) {
+            decorated = decorator.decorate(decorated)
+        }
+        FutureTaskPromise<T> promise = new FutureTaskPromise<T>(Promises.promiseFactory, decorated)
+        if(permits == null) {
+            executor.execute(promise)
+        }
+        else {
+            if(waitingCount.incrementAndGet() > queueCapacity) {
+                waitingCount.decrementAndGet()
+                throw new RejectedExecutionException("More than [$queueCapacity] GORM async operations are waiting for the concurrency limit of [$maxConcurrency]")
+            }
+            waiting.add(promise)
+            dispatchWaiting()
+        }
+        return promise
+    }
+
+    @Override
+    void close() throws IOException {
+        closed = true
+        executor?.shutdown()
+    }
+
+    /**
+     * Starts waiting operations while permits are available. An operation that completes releases its permit and dispatches
+     * again, so operations over the limit wait in the queue rather than blocking a thread
+     */
+    protected void dispatchWaiting() {
+        while(!waiting.isEmpty() && permits.tryAcquire()) {
+            Runnable next = waiting.poll()
+            if(next == null) {
+                permits.release()
+                continue
+            }
+            waitingCount.decrementAndGet()
+            Runnable limited = new PermitReleasingTask(this, next)
+            try {
+                if(executor != null) {
+                    executor.execute(limited)
+                }
+                else {
+                    Promises.createPromise({ -> limited.run() }, Collections.<PromiseDecorator>emptyList())
+                }
+            } catch (RejectedExecutionException e) {
+                permits.release()
+                if(next instanceof FutureTaskPromise) {
+                    ((FutureTaskPromise) next).cancel(false)
+                }
+                log.warn("GORM async operation rejected: ${e.message}")
+            }
+        }
+    }
+
+    protected ExecutorService createVirtualThreadExecutor() {
+        try {
+            Method method = java.util.concurrent.Executors.getMethod("newVirtualThreadPerTaskExecutor")
+            return (ExecutorService) method.invoke(null)
+        } catch (NoSuchMethodException ignored) {
+            log.debug("Virtual threads are not supported by this JVM, GORM async operations will use a bounded thread pool")
+            return null
+        } catch (ReflectiveOperationException e) {
+            log.warn("Unable to create virtual thread executor, GORM async operations will use a bounded thread pool: ${e.message}")
+            return null
+        }
+    }
+
+    protected ExecutorService createPlatformThreadExecutor(int poolSize, int queueCapacity) {
+        // operations beyond the capacity of the queue are rejected rather than accumulating without bounds
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(poolSize, poolSize, 60L, TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(queueCapacity), new AsyncThreadFactory())
+        executor.allowCoreThreadTimeOut(true)
+        return executor
+    }
+
+    /**
+     * Runs an operation holding a permit, releasing the permit and starting the next waiting operation once it completes
+     */
+    private static class PermitReleasingTask implements Runnable {
+        private final GormAsyncExecutor asyncExecutor
+        private final Runnable task
+
+        PermitReleasingTask(GormAsyncExecutor asyncExecutor, Runnable task) {
+            this.asyncExecutor = asyncExecutor
+            this.task = task
+        }
+
+        @Override
+        void run() {
+            try {
+                task.run()
+            } finally {
+                asyncExecutor.permits.release()
+                asyncExecutor.dispatchWaiting()
+            }
+        }
+    }
+
+    private static class AsyncThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger()
+
+        @Override
+        Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "GORMAsync-${count.incrementAndGet()}".toString())
+            thread.setDaemon(true)
+            return thread
+        }
+    }
+}
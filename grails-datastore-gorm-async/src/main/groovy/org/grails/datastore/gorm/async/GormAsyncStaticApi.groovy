@@ -15,11 +15,11 @@
 package org.grails.datastore.gorm.async
 
 import grails.async.Promise
-import grails.async.Promises
 import grails.async.decorator.PromiseDecorator
 import grails.async.decorator.PromiseDecoratorProvider
 import grails.gorm.api.GormStaticOperations
 import groovy.transform.CompileStatic
+import org.grails.datastore.gorm.GormEnhancer
 import org.grails.datastore.gorm.GormStaticApi
 import org.grails.datastore.gorm.async.transform.DelegateAsync
 
@@ -40,6 +40,8 @@ class GormAsyncStaticApi<D> implements PromiseDecoratorProvider{
         return { args -> staticApi.withNewSession{ callable.call(*args) } }
     } as PromiseDecorator ]
 
+    private volatile GormAsyncExecutor asyncExecutor
+
     GormAsyncStaticApi(GormStaticApi<D> staticApi) {
         this.staticApi = staticApi
     }
@@ -58,6 +60,23 @@ class GormAsyncStaticApi<D> implements PromiseDecoratorProvider{
     @CompileStatic
     public <T> Promise<T> task(Closure<T> callable) {
         callable.delegate = staticApi.gormPersistentEntity.javaClass
-        (Promise<T>)Promises.createPromise(callable, decorators)
+        createPromise(callable, decorators)
+    }
+
+    /**
+     * Creates the promises of the asynchronous API using the {@link GormAsyncExecutor} of the datastore of the entity
+     *
+     * @param callable The callable
+     * @param decorators The decorators
+     * @return The promise
+     */
+    @CompileStatic
+    public <T> Promise<T> createPromise(Closure<T> callable, List<PromiseDecorator> decorators) {
+        GormAsyncExecutor executor = asyncExecutor
+        if(executor == null || executor.closed) {
+            executor = GormAsyncExecutor.forDatastore(GormEnhancer.findDatastore(staticApi.gormPersistentEntity.javaClass))
+            asyncExecutor = executor
+        }
+        executor.createPromise(callable, decorators)
     }
 }
\ No newline at end of file
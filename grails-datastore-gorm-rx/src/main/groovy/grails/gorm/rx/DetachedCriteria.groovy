@@ -4,16 +4,19 @@ import groovy.transform.CompileStatic
 import groovy.transform.InheritConstructors
 import org.grails.datastore.gorm.finders.DynamicFinder
 import org.grails.datastore.gorm.query.criteria.AbstractDetachedCriteria
+import org.grails.datastore.mapping.model.PersistentEntity
 import org.grails.datastore.mapping.query.Query
 import org.grails.datastore.mapping.query.api.Criteria
 import org.grails.datastore.mapping.query.api.ProjectionList
 import org.grails.datastore.mapping.query.api.QueryArgumentsAware
 import org.grails.datastore.mapping.query.api.QueryableCriteria
 import org.grails.datastore.rx.query.RxQuery
+import org.grails.datastore.rx.query.RxQueryUtils
 import org.grails.gorm.rx.api.RxGormEnhancer
 import rx.Observable
 import rx.Subscriber
 import rx.Subscription
+import rx.functions.Func0
 
 import javax.persistence.FetchType
 
@@ -50,7 +53,8 @@ class DetachedCriteria<T> extends AbstractDetachedCriteria<Observable<T>> implem
 
     /**
      * Finds all results matching this criteria. Note that the observable returned will emit each result one by one. If you
-     * prefer to receive the entire list of results use {@link #toList()} instead
+     * prefer to receive the entire list of results use {@link #toList()} instead. If the <code>batchSize</code> argument is
+     * specified the results are fetched in batches of that size as the subscriber requests them
      *
      * @param args The arguments The arguments
      * @param additionalCriteria Any additional criteria
@@ -58,10 +62,39 @@ class DetachedCriteria<T> extends AbstractDetachedCriteria<Observable<T>> implem
      * @return An observable
      */
     Observable<T> findAll(Map args = Collections.emptyMap(), @DelegatesTo(DetachedCriteria) Closure additionalCriteria = null) {
+        if(args.containsKey(RxQuery.ARGUMENT_BATCH_SIZE)) {
+            return findAllInBatches(args.get(RxQuery.ARGUMENT_BATCH_SIZE) as Integer, args, additionalCriteria)
+        }
         Query query = prepareQuery(args, additionalCriteria)
         return ((RxQuery)query).findAll(args)
     }
 
+    /**
+     * Streams all results matching this criteria in batches using keyset pagination on the sort properties and the identity.
+     * Each batch is only fetched once the subscriber has requested the results of the previous one, so memory use does not
+     * grow with the size of the result set
+     *
+     * @param batchSize The number of results to fetch per batch
+     * @param args The arguments
+     * @param additionalCriteria Any additional criteria
+     *
+     * @return An observable
+     */
+    Observable<T> findAllInBatches(int batchSize, Map args = Collections.emptyMap(), @DelegatesTo(DetachedCriteria) Closure additionalCriteria = null) {
+        Map<String, Object> batchArguments = new LinkedHashMap<>(args)
+        batchArguments.put(RxQuery.ARGUMENT_BATCH_SIZE, batchSize)
+        if (defaultMax != null && !batchArguments.containsKey(DynamicFinder.ARGUMENT_MAX)) {
+            batchArguments.put(DynamicFinder.ARGUMENT_MAX, defaultMax)
+        }
+        if (defaultOffset != null && !batchArguments.containsKey(DynamicFinder.ARGUMENT_OFFSET)) {
+            batchArguments.put(DynamicFinder.ARGUMENT_OFFSET, defaultOffset)
+        }
+        PersistentEntity entity = RxGormEnhancer.findStaticApi(targetClass).entity
+        return RxQueryUtils.findAllInBatches(entity, batchArguments, {
+            prepareQuery(Collections.emptyMap(), additionalCriteria)
+        } as Func0<Query>)
+    }
+
     /**
      * The same as {@link #find(java.util.Map, groovy.lang.Closure)}
      *
@@ -152,6 +185,19 @@ class DetachedCriteria<T> extends AbstractDetachedCriteria<Observable<T>> implem
         return ((RxQuery)query).deleteAll()
     }
 
+    /**
+     * Deletes all entities matching this criteria in batches of the given size, publishing delete events only when there
+     * are listeners for them
+     *
+     * @param batchSize The maximum number of entities deleted per batch
+     * @param args The arguments, the <code>concurrency</code> argument specifies how many batches can be deleted at the same time
+     * @return An observable that emits the number of entities deleted as each batch is deleted
+     */
+    Observable<Number> deleteAll(int batchSize, Map<String, Object> args = Collections.emptyMap()) {
+        Query query = prepareQuery(Collections.emptyMap(), null)
+        return RxGormEnhancer.findStaticApi(targetClass).datastoreClient.deleteAll(query, batchSize, args)
+    }
+
     /**
      * Convert this {@link DetachedCriteria} to a query implementation
      *
@@ -18,6 +18,7 @@ import org.grails.datastore.mapping.model.types.OneToMany
 import org.grails.datastore.mapping.model.types.ToOne
 import org.grails.datastore.mapping.reflect.EntityReflector
 import org.grails.datastore.mapping.validation.ValidationException
+import org.grails.datastore.rx.query.QueryState
 import org.grails.gorm.rx.api.RxGormEnhancer
 import org.grails.gorm.rx.api.RxGormInstanceApi
 import org.grails.gorm.rx.api.RxGormStaticApi
@@ -378,6 +379,18 @@ trait RxEntity<D> implements RxGormOperations<D>, GormValidateable, DirtyCheckab
         saveAll((Iterable<D>)Arrays.asList(objects))
     }
 
+    /**
+     * Saves the objects emitted by the given observable in batches of the given size, consuming upstream with backpressure
+     *
+     * @param objects The objects to save
+     * @param batchSize The number of objects written per batch
+     * @param arguments The arguments to save, such as <code>validate</code> and <code>concurrency</code>
+     * @return An observable that emits the identifiers of the saved objects as each batch is written
+     */
+    static Observable<Serializable> saveAll(Observable<D> objects, int batchSize, Map arguments = Collections.emptyMap()) {
+        currentRxGormStaticApi().saveAll(objects, batchSize, arguments)
+    }
+
     /**
      * Batch saves all of the given objects
      *
@@ -673,6 +686,28 @@ trait RxEntity<D> implements RxGormOperations<D>, GormValidateable, DirtyCheckab
         return callable.call()
     }
 
+    /**
+     * Execute the closure with an identity map that is shared by the operations created within it, so that entities are
+     * only loaded once
+     *
+     * @param callable The closure
+     * @return The result of the closure
+     */
+    static <T> T withSession(@DelegatesTo(RxGormAllOperations) Closure<T> callable) {
+        currentRxGormStaticApi().withSession callable
+    }
+
+    /**
+     * Execute the closure with the identity map of an existing session
+     *
+     * @param session The identity map of the session
+     * @param callable The closure
+     * @return The result of the closure
+     */
+    static <T> T withSession(QueryState session, @DelegatesTo(RxGormAllOperations) Closure<T> callable) {
+        currentRxGormStaticApi().withSession session, callable
+    }
+
     /**
      * Handles dynamic finders
      *
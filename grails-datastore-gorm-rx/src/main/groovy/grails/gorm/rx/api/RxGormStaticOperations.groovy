@@ -4,6 +4,7 @@ import grails.gorm.api.GormAllOperations
 import grails.gorm.rx.CriteriaBuilder
 import grails.gorm.rx.DetachedCriteria
 import grails.gorm.rx.proxy.ObservableProxy
+import org.grails.datastore.rx.query.QueryState
 import rx.Observable
 
 /**
@@ -121,6 +122,25 @@ interface RxGormStaticOperations<D> {
      */
     Observable<List<Serializable>> saveAll(D... objects)
 
+    /**
+     * Saves the objects emitted by the given observable in batches of the given size, consuming upstream with backpressure
+     *
+     * @param objects The objects to save
+     * @param batchSize The number of objects written per batch
+     * @return An observable that emits the identifiers of the saved objects as each batch is written
+     */
+    Observable<Serializable> saveAll(Observable<D> objects, int batchSize)
+
+    /**
+     * Saves the objects emitted by the given observable in batches of the given size, consuming upstream with backpressure
+     *
+     * @param objects The objects to save
+     * @param batchSize The number of objects written per batch
+     * @param arguments The arguments to save, such as <code>validate</code> and <code>concurrency</code>
+     * @return An observable that emits the identifiers of the saved objects as each batch is written
+     */
+    Observable<Serializable> saveAll(Observable<D> objects, int batchSize, Map arguments)
+
     /**
      * Batch saves all of the given objects
      *
@@ -387,4 +407,26 @@ interface RxGormStaticOperations<D> {
      * @return The operations
      */
     RxGormAllOperations<D> withTenant(Serializable tenantId)
-}
\ No newline at end of file
+
+    /**
+     * Execute the closure with an identity map that is shared by the operations created within it, so that an entity
+     * loaded by one of them is not loaded again by the others. The identity map retains a bounded number of the most
+     * recently used entities of each type and is passed to the closure if it accepts an argument. If a session is already
+     * bound its identity map is reused
+     *
+     * @param callable The closure
+     * @return The result of the closure
+     */
+    def <T> T withSession(@DelegatesTo(RxGormAllOperations) Closure<T> callable)
+
+    /**
+     * Execute the closure with the given identity map shared by the operations created within it. Use this to rejoin a session
+     * from operations created outside the closure passed to {@link #withSession(groovy.lang.Closure)}, such as in a
+     * <code>flatMap</code> function
+     *
+     * @param session The identity map of the session
+     * @param callable The closure
+     * @return The result of the closure
+     */
+    def <T> T withSession(QueryState session, @DelegatesTo(RxGormAllOperations) Closure<T> callable)
+}
@@ -72,6 +72,19 @@ class Tenants extends grails.gorm.multitenancy.Tenants {
         }
     }
 
+    /**
+     * @return The current tenant id for the given datastore client
+     */
+    static Serializable currentId(RxDatastoreClient datastoreClient) {
+        def tenantId = grails.gorm.multitenancy.Tenants.CurrentTenant.get()
+        if(tenantId != null) {
+            return tenantId
+        }
+        else {
+            return datastoreClient.getTenantResolver().resolveTenantIdentifier()
+        }
+    }
+
     /**
      * Execute the given closure with the current tenant
      *
@@ -119,7 +132,28 @@ class Tenants extends grails.gorm.multitenancy.Tenants {
         return withTenantIdInternal(datastoreClient, tenantId, callable)
     }
 
+    /**
+     * Execute the given closure with given tenant id for the given datastore client
+     * @param datastoreClient The datastore client
+     * @param tenantId The tenant id
+     * @param callable The closure
+     * @return The result of the closure
+     */
+    static <T> T withId(RxDatastoreClient datastoreClient, Serializable tenantId, @DelegatesTo(RxDatastoreClient) Closure<T> callable) {
+        return withTenantIdInternal(datastoreClient, tenantId, callable)
+    }
+
     private static <T> T withTenantIdInternal(RxDatastoreClient datastoreClient, Serializable tenantIdentifier, Closure<T> callable) {
+        grails.gorm.multitenancy.Tenants.clearResolvedTenantIdentifier(datastoreClient.tenantResolver)
+        try {
+            return callWithTenantId(datastoreClient, tenantIdentifier, callable)
+        }
+        finally {
+            grails.gorm.multitenancy.Tenants.clearResolvedTenantIdentifier(datastoreClient.tenantResolver)
+        }
+    }
+
+    private static <T> T callWithTenantId(RxDatastoreClient datastoreClient, Serializable tenantIdentifier, Closure<T> callable) {
         return grails.gorm.multitenancy.Tenants.CurrentTenant.withTenant(tenantIdentifier) {
             callable.setDelegate(datastoreClient)
             def i = callable.parameterTypes.length
@@ -140,8 +174,7 @@ class Tenants extends grails.gorm.multitenancy.Tenants {
         MultiTenancySettings.MultiTenancyMode multiTenancyMode = datastoreClient.multiTenancyMode
         ConnectionSources connectionSources = datastoreClient.connectionSources
         if (multiTenancyMode == MultiTenancySettings.MultiTenancyMode.DATABASE) {
-            for (ConnectionSource connectionSource in connectionSources.allConnectionSources) {
-                def tenantId = connectionSource.name
+            for (String tenantId in connectionSources.connectionSourceNames) {
                 if (tenantId != ConnectionSource.DEFAULT) {
                     withTenantIdInternal(datastoreClient, tenantId, callable)
                 }
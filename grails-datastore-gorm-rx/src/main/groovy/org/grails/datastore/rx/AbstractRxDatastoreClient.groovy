@@ -1,7 +1,9 @@
 package org.grails.datastore.rx
 
+import grails.gorm.rx.multitenancy.Tenants
 import grails.gorm.rx.proxy.ObservableProxy
 import groovy.transform.CompileStatic
+import org.grails.datastore.gorm.finders.DynamicFinder
 import org.grails.datastore.gorm.validation.constraints.registry.DefaultValidatorRegistry
 import org.grails.datastore.gorm.validation.javax.JavaxValidatorRegistry
 import org.grails.datastore.gorm.validation.registry.support.ValidatorRegistries
@@ -27,17 +29,24 @@ import org.grails.datastore.mapping.model.types.ToOne
 import org.grails.datastore.mapping.multitenancy.MultiTenancySettings
 import org.grails.datastore.mapping.multitenancy.TenantResolver
 import org.grails.datastore.mapping.query.Query
+import org.grails.datastore.mapping.query.api.QueryArgumentsAware
 import org.grails.datastore.mapping.reflect.EntityReflector
 import org.grails.datastore.mapping.validation.ValidatorRegistry
 import org.grails.datastore.rx.batch.BatchOperation
+import org.grails.datastore.rx.batch.CascadeGraph
+import org.grails.datastore.rx.internal.BlockingInitializer
 import org.grails.datastore.rx.internal.RxDatastoreClientImplementor
 import org.grails.datastore.rx.proxy.ProxyFactory
 import org.grails.datastore.rx.proxy.RxJavassistProxyFactory
+import org.grails.datastore.rx.query.BatchLoader
 import org.grails.datastore.rx.query.QueryState
+import org.grails.datastore.rx.query.QueryStateScope
+import org.grails.datastore.rx.query.RxQuery
 import org.grails.gorm.rx.api.RxGormEnhancer
 import org.grails.gorm.rx.api.RxGormInstanceApi
 import org.grails.gorm.rx.api.RxGormStaticApi
 import org.grails.gorm.rx.api.RxGormValidationApi
+import org.grails.gorm.rx.config.Settings
 import org.grails.gorm.rx.events.AutoTimestampEventListener
 import org.grails.datastore.gorm.events.ConfigurableApplicationEventPublisher
 import org.grails.datastore.gorm.events.DefaultApplicationEventPublisher
@@ -45,12 +54,21 @@ import org.grails.gorm.rx.events.DomainEventListener
 import org.grails.gorm.rx.events.MultiTenantEventListener
 import org.springframework.context.ApplicationEvent
 import org.springframework.context.ApplicationEventPublisher
+import org.springframework.context.ApplicationListener
 import org.springframework.context.MessageSource
 import org.springframework.context.MessageSourceAware
+import org.springframework.context.event.SmartApplicationListener
 import org.springframework.context.support.StaticMessageSource
+import org.springframework.core.env.PropertyResolver
 import rx.Observable
+import rx.Scheduler
+import rx.functions.Action1
+import rx.functions.Func0
+import rx.functions.Func1
+import rx.schedulers.Schedulers
 
 import javax.persistence.CascadeType
+import java.util.concurrent.Callable
 /**
  * Abstract implementation the {@link RxDatastoreClient} interface
  *
@@ -60,6 +78,36 @@ import javax.persistence.CascadeType
 @CompileStatic
 abstract class AbstractRxDatastoreClient<T> implements RxDatastoreClient<T>, RxDatastoreClientImplementor<T>, MessageSourceAware {
 
+    /**
+     * The argument that specifies how many batches {@link #persistAll(Observable, int, Map)} writes at the same time
+     */
+    public static final String ARGUMENT_CONCURRENCY = "concurrency"
+
+    /**
+     * Initializes proxies and collections when blocking operations are allowed, see {@link Settings#SETTING_BLOCKING_DETECT}
+     */
+    BlockingInitializer blockingInitializer
+
+    /**
+     * The scheduler on which the lazy loads coalesced by a {@link BatchLoader} are dispatched
+     */
+    Scheduler batchLoadScheduler = Schedulers.io()
+
+    /**
+     * The number of milliseconds a {@link BatchLoader} collects lazy loads for before dispatching them
+     */
+    long batchLoadWindow = BatchLoader.DEFAULT_WINDOW
+
+    /**
+     * The scheduler on which the entity types of larger cascades reserve identifiers and build their batches concurrently
+     */
+    Scheduler cascadeScheduler = Schedulers.io()
+
+    /**
+     * The minimum number of objects in a cascade for its entity types to be written concurrently
+     */
+    int parallelCascadeThreshold = 256
+
     protected MappingContext mappingContext
     ConfigurableApplicationEventPublisher eventPublisher = new DefaultApplicationEventPublisher()
     final ProxyFactory proxyFactory
@@ -85,6 +133,11 @@ abstract class AbstractRxDatastoreClient<T> implements RxDatastoreClient<T>, RxD
         this.mappingContext.setValidatorRegistry(
                 createValidatorRegistry()
         )
+
+        PropertyResolver configuration = connectionSources.baseConfiguration
+        this.blockingInitializer = new BlockingInitializer(
+                configuration.getProperty(Settings.SETTING_BLOCKING_DETECT, Boolean, false)
+        )
     }
 
     @Override
@@ -147,17 +200,21 @@ abstract class AbstractRxDatastoreClient<T> implements RxDatastoreClient<T>, RxD
     }
 
     @Override
-    def <T1> ObservableProxy<T1> proxy(Class<T1> type, Serializable id, QueryState queryState = new QueryState()) {
+    def <T1> ObservableProxy<T1> proxy(Class<T1> type, Serializable id, QueryState queryState = QueryStateScope.currentOrNew(this)) {
         (ObservableProxy)proxyFactory.createProxy(this, queryState, type, id)
     }
 
     @Override
-    ObservableProxy proxy(Query query, QueryState queryState = new QueryState()) {
+    ObservableProxy proxy(Query query, QueryState queryState = QueryStateScope.currentOrNew(this)) {
         (ObservableProxy)proxyFactory.createProxy(this, queryState, query)
     }
 
     @Override
     def <T> Observable get(Class<T> type, Serializable id, QueryState queryState) {
+        T loaded = queryState != null ? queryState.getLoadedEntity(type, id) : null
+        if(loaded != null) {
+            return Observable.just(loaded)
+        }
         return (Observable<T>)createQuery(type, queryState)
                 .idEq(id)
                 .max(1)
@@ -171,7 +228,7 @@ abstract class AbstractRxDatastoreClient<T> implements RxDatastoreClient<T>, RxD
      */
     @Override
     final <T1> Observable<T1> get(Class<T1> type, Serializable id) {
-        return get(type, id, new QueryState())
+        return get(type, id, QueryStateScope.currentOrNew(this))
     }
 
     @Override
@@ -191,7 +248,7 @@ abstract class AbstractRxDatastoreClient<T> implements RxDatastoreClient<T>, RxD
 
     @Override
     final Query createQuery(Class type, Map arguments) {
-        return createQuery(type, new QueryState())
+        return createQuery(type, QueryStateScope.currentOrNew(this), arguments)
     }
 
     @Override
@@ -221,6 +278,7 @@ abstract class AbstractRxDatastoreClient<T> implements RxDatastoreClient<T>, RxD
         def ctx = this.mappingContext
         def proxyHandler = ctx.getProxyHandler()
         if(instances != null) {
+            QueryState session = QueryStateScope.current(this)
             def batchOperation = new BatchOperation(arguments)
             List<ApplicationEvent> postEvents = []
             for(o in instances) {
@@ -244,6 +302,7 @@ abstract class AbstractRxDatastoreClient<T> implements RxDatastoreClient<T>, RxD
             }
 
             return batchDelete(batchOperation).map { Number deleteCount ->
+                evictDeleted(session, batchOperation)
                 if(deleteCount > 0) {
                     if(eventPublisher != null) {
                         for(event in postEvents) {
@@ -259,6 +318,171 @@ abstract class AbstractRxDatastoreClient<T> implements RxDatastoreClient<T>, RxD
         }
     }
 
+    @Override
+    Observable<Number> deleteAll(Query query, int batchSize) {
+        return deleteAll(query, batchSize, Collections.<String, Object>emptyMap())
+    }
+
+    @Override
+    Observable<Number> deleteAll(Query query, int batchSize, Map<String, Object> arguments) {
+        if(batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be greater than zero")
+        }
+        Object concurrencyArgument = arguments?.get(ARGUMENT_CONCURRENCY)
+        int concurrency = concurrencyArgument != null ? mappingContext.conversionService.convert(concurrencyArgument, Integer) : 1
+        if(concurrency < 1) {
+            throw new IllegalArgumentException("Argument [$ARGUMENT_CONCURRENCY] must be greater than zero")
+        }
+
+        // pages are read by identifier, which a limit or offset of the query would silently defeat
+        Map queryArguments = query instanceof QueryArgumentsAware ? ((QueryArgumentsAware)query).arguments : null
+        if(query.max > -1 || query.offset > 0 || queryArguments?.containsKey(DynamicFinder.ARGUMENT_MAX) || queryArguments?.containsKey(DynamicFinder.ARGUMENT_OFFSET)) {
+            throw new IllegalArgumentException("Queries deleted in batches cannot specify a max or an offset")
+        }
+
+        PersistentEntity entity = query.entity
+        String identityName = entity.identity.name
+        EntityReflector reflector = mappingContext.getEntityReflector(entity)
+        boolean publishEvents = hasDeleteListeners(entity)
+        QueryState session = QueryStateScope.current(this)
+        QueryState pageState = session != null ? session : new QueryState()
+        List<Query.Criterion> criteria = new ArrayList<>(query.criteria.criteria)
+        Map pageArguments = queryArguments != null ? new LinkedHashMap(queryArguments) : [:]
+        // pages after the first are read on the thread that deleted the previous one, so each enters the tenant of the call
+        Serializable tenantId = multiTenancyMode.isSharedConnection() && entity.isMultiTenant() ? Tenants.currentId(this) : null
+        // the position of the last page, pages are read by identifier so deleting a page does not move the next one
+        Object[] lastIdentifier = new Object[1]
+
+        Func0<Observable<List>> readPage = { ->
+            Query pageQuery = createQuery(entity.javaClass, pageState, pageArguments)
+            for(Query.Criterion criterion in criteria) {
+                pageQuery.add(criterion)
+            }
+            if(lastIdentifier[0] != null) {
+                pageQuery.gt(identityName, lastIdentifier[0])
+            }
+            pageQuery.order(Query.Order.asc(identityName)).max(batchSize)
+            if(!publishEvents) {
+                // only the identifiers are needed when there is no listener to receive the instances
+                pageQuery.projections().id()
+            }
+            ((RxQuery)pageQuery).findAll().toList()
+        } as Func0<Observable<List>>
+
+        Observable<List> pages = Observable.range(0, Integer.MAX_VALUE).concatMap({ Integer page ->
+            Observable.defer({
+                tenantId != null ? Tenants.withId(this, tenantId) { readPage.call() } : readPage.call()
+            } as Func0<Observable<List>>)
+        } as Func1<Integer, Observable<List>>)
+        .takeUntil({ List results -> results.size() < batchSize } as Func1<List, Boolean>)
+        .filter({ List results -> !results.isEmpty() } as Func1<List, Boolean>)
+        .doOnNext({ List results ->
+            Object last = results.get(results.size() - 1)
+            lastIdentifier[0] = publishEvents ? reflector.getIdentifier(last) : last
+        } as Action1<List>)
+
+        // pages are read sequentially while up to concurrency pages are deleted at the same time
+        return pages.flatMap({ List results ->
+            deleteBatch(entity, results, publishEvents, arguments, session)
+        } as Func1<List, Observable<Number>>, concurrency)
+    }
+
+    /**
+     * Deletes a page of entities read by {@link #deleteAll(Query, int, Map)}
+     *
+     * @param entity The entity
+     * @param results The instances, or the identifiers when events are not published
+     * @param publishEvents Whether delete events are published
+     * @param arguments The arguments
+     * @param session The identity map of the session the delete was requested within or null
+     * @return An observable that emits the number of entities deleted
+     */
+    protected Observable<Number> deleteBatch(PersistentEntity entity, List results, boolean publishEvents, Map<String, Object> arguments, QueryState session) {
+        BatchOperation batchOperation = new BatchOperation(arguments)
+        List<ApplicationEvent> postEvents = []
+        EntityReflector reflector = mappingContext.getEntityReflector(entity)
+        for(Object result in results) {
+            if(publishEvents) {
+                EntityAccess entityAccess = mappingContext.createEntityAccess(entity, result)
+                PreDeleteEvent preDeleteEvent = new PreDeleteEvent(this, entity, entityAccess)
+                eventPublisher.publishEvent(preDeleteEvent)
+                if(!preDeleteEvent.isCancelled()) {
+                    batchOperation.addDelete(entity, reflector.getIdentifier(result), result)
+                    postEvents.add(new PostDeleteEvent(this, entity, entityAccess))
+                }
+            }
+            else {
+                batchOperation.addDelete(entity, (Serializable)result, null)
+            }
+        }
+        if(!batchOperation.hasPendingOperations()) {
+            return Observable.just((Number)0)
+        }
+
+        return batchDelete(batchOperation).map({ Number deleteCount ->
+            evictDeleted(session, batchOperation)
+            if(deleteCount > 0) {
+                for(ApplicationEvent event in postEvents) {
+                    eventPublisher.publishEvent(event)
+                }
+            }
+            return deleteCount
+        } as Func1<Number, Number>).defaultIfEmpty(0)
+    }
+
+    /**
+     * Removes the entities of a delete operation from the identity map of the session the delete was requested within, so
+     * that they are no longer returned by get
+     *
+     * @param session The identity map or null if there is no session
+     * @param batchOperation The delete operation
+     */
+    protected void evictDeleted(QueryState session, BatchOperation batchOperation) {
+        if(session == null) {
+            return
+        }
+        for(Map.Entry<PersistentEntity, Map<Serializable, BatchOperation.EntityOperation>> deletes in batchOperation.deletes.entrySet()) {
+            for(Serializable id in deletes.value.keySet()) {
+                session.removeLoadedEntity(deletes.key.javaClass, id)
+            }
+        }
+    }
+
+    /**
+     * Whether any listener may receive the delete events of the given entity. Only the listeners of a
+     * {@link DefaultApplicationEventPublisher} can be inspected, other publishers are assumed to have listeners
+     *
+     * @param entity The entity
+     * @return True if delete events should be published
+     */
+    protected boolean hasDeleteListeners(PersistentEntity entity) {
+        if(eventPublisher == null) {
+            return false
+        }
+        if(!(eventPublisher instanceof DefaultApplicationEventPublisher)) {
+            return true
+        }
+        for(ApplicationListener listener in ((DefaultApplicationEventPublisher)eventPublisher).applicationListeners) {
+            if(listener instanceof org.grails.datastore.gorm.events.DomainEventListener) {
+                org.grails.datastore.gorm.events.DomainEventListener domainEventListener = (org.grails.datastore.gorm.events.DomainEventListener)listener
+                if(domainEventListener.hasEventMethod(entity, EventType.PreDelete) || domainEventListener.hasEventMethod(entity, EventType.PostDelete)) {
+                    return true
+                }
+            }
+            else if(listener instanceof SmartApplicationListener) {
+                SmartApplicationListener smartListener = (SmartApplicationListener)listener
+                if(smartListener.supportsSourceType(getClass()) &&
+                        (smartListener.supportsEventType(PreDeleteEvent) || smartListener.supportsEventType(PostDeleteEvent))) {
+                    return true
+                }
+            }
+            else {
+                return true
+            }
+        }
+        return false
+    }
+
     /**
      * Persist an instance
      * @param instance The instance
@@ -314,158 +538,244 @@ abstract class AbstractRxDatastoreClient<T> implements RxDatastoreClient<T>, RxD
         return persistAllInternal(instances, true, arguments)
     }
 
+    @Override
+    Observable<Serializable> persistAll(Observable objects, int batchSize) {
+        return persistAll(objects, batchSize, Collections.<String, Object>emptyMap())
+    }
+
+    @Override
+    Observable<Serializable> persistAll(Observable objects, int batchSize, Map<String, Object> arguments) {
+        return persistAll(objects, batchSize, arguments, { List batch ->
+            persistAllInternal(batch, false, arguments)
+        } as Func1<List, Observable<List<Serializable>>>)
+    }
+
+    @Override
+    Observable<Serializable> persistAll(Observable objects, int batchSize, Map<String, Object> arguments, Func1<List, Observable<List<Serializable>>> batchWriter) {
+        if(batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be greater than zero")
+        }
+        Object concurrencyArgument = arguments?.get(ARGUMENT_CONCURRENCY)
+        int concurrency = concurrencyArgument != null ? mappingContext.conversionService.convert(concurrencyArgument, Integer) : 1
+        if(concurrency < 1) {
+            throw new IllegalArgumentException("Argument [$ARGUMENT_CONCURRENCY] must be greater than zero")
+        }
+
+        // flatMap only requests as many batches as can be written concurrently, which buffer translates into
+        // requests for batchSize objects each, so upstream is never drained faster than the batches are written
+        return objects.buffer(batchSize).flatMap({ List batch ->
+            batchWriter.call(batch).concatMap { List<Serializable> identifiers ->
+                Observable.from(identifiers)
+            }
+        } as Func1<List, Observable<Serializable>>, concurrency)
+    }
+
     protected Observable<List<Serializable>> persistAllInternal(Iterable instances, boolean isInsert, Map<String, Object> arguments) {
-        MappingContext ctx = this.mappingContext
         ApplicationEventPublisher eventPublisher = this.eventPublisher
 
-        def proxyHandler = ctx.getProxyHandler()
         if (instances != null) {
-            def batchOperation = new BatchOperation(arguments)
-            List<Serializable> identifiers = []
+            CascadeGraph graph = collectCascadeGraph(instances, isInsert)
+            Map<PersistentEntity, List<CascadeGraph.Node>> writableNodes = graph.writableNodes
             List<ApplicationEvent> postEvents = []
-            for (o in instances) {
-                Class type = proxyHandler.getProxiedClass(o)
-                PersistentEntity entity = ctx.getPersistentEntity(type.name)
-                EntityReflector entityReflector = ctx.getEntityReflector(entity)
-                EntityAccess entityAccess = ctx.createEntityAccess(entity, o)
-                if (entity == null) {
-                    throw new IllegalArgumentException("Type [$type.name] of instance [$o] is not a persistent type")
+            for (List<CascadeGraph.Node> nodes in writableNodes.values()) {
+                for (CascadeGraph.Node node in nodes) {
+                    postEvents.add(node.postEvent)
                 }
-                def id = entityReflector.getIdentifier(o)
-
-                boolean hasId = id != null
-                if (hasId && !isInsert) {
-                    def preUpdateEvent = new PreUpdateEvent(this, entity, entityAccess)
-                    eventPublisher?.publishEvent(preUpdateEvent)
-                    if (!preUpdateEvent.isCancelled()) {
-                        processAssociations(entity, id, o, entityReflector, batchOperation, postEvents)
-                        batchOperation.addUpdate(entity, id, o)
-                        postEvents.add(new PostUpdateEvent(this, entity, entityAccess))
-                    }
-                } else {
-                    if(!hasId) {
-                        ValueGenerator valueGenerator = entity.getMapping().getIdentifier().generator
-                        if(valueGenerator == ValueGenerator.NATIVE) {
-                            // if the identifier is generated natively then use the hash code to identity the entity since the
-                            // identifiers themselves will be generated from the insert operation
-                            id = o.hashCode()
-                        }
-                        else if(valueGenerator == ValueGenerator.ASSIGNED) {
-                            throw new IdentityGenerationException("Id generator is set to assigned but not identifier was provided for entity $o")
-                        }
-                        else {
-                            id = generateIdentifier(entity, o, entityReflector)
-                        }
+            }
 
-                    }
-                    def preInsertEvent = new PreInsertEvent(this, entity, entityAccess)
-                    eventPublisher?.publishEvent(preInsertEvent)
-                    if (!preInsertEvent.isCancelled()) {
-                        processAssociations(entity, id, o, entityReflector, batchOperation, postEvents)
-                        batchOperation.addInsert(entity, id, o)
-                        postEvents.add(new PostInsertEvent(this, entity, entityAccess))
-                    }
+            return prepareBatchOperation(writableNodes, arguments).flatMap({ BatchOperation batchOperation ->
+                List<Serializable> identifiers = graph.roots.collect { CascadeGraph.Node node -> node.id }
+                if (batchOperation.hasPendingOperations()) {
+                    return batchWrite(batchOperation).map({
+                        if (eventPublisher != null) {
+                            for (event in postEvents) {
+                                eventPublisher.publishEvent(event)
+                            }
+                        }
+                        return identifiers
+                    })
+                } else {
+                    return Observable.just(identifiers)
                 }
-                identifiers.add(id)
+            } as Func1<BatchOperation, Observable<List<Serializable>>>)
+        } else {
+            return Observable.just([])
+        }
+    }
+
+    /**
+     * Reserves the identifiers of the nodes to write and builds the batch operation. This work does not depend on the events,
+     * which have already been published, so the entity types of cascades of at least {@link #parallelCascadeThreshold} objects
+     * are prepared concurrently on the {@link #cascadeScheduler}, while smaller cascades are prepared on the calling thread
+     *
+     * @param writableNodes The nodes to write, partitioned by entity type
+     * @param arguments The arguments to the operation
+     * @return An observable that emits the batch operation
+     */
+    protected Observable<BatchOperation> prepareBatchOperation(Map<PersistentEntity, List<CascadeGraph.Node>> writableNodes, Map<String, Object> arguments) {
+        int size = 0
+        for (List<CascadeGraph.Node> nodes in writableNodes.values()) {
+            size += nodes.size()
+        }
+        if (writableNodes.size() < 2 || size < parallelCascadeThreshold) {
+            BatchOperation batchOperation = new BatchOperation(arguments)
+            for (List<CascadeGraph.Node> nodes in writableNodes.values()) {
+                prepareBatch(batchOperation, nodes)
             }
+            return Observable.just(batchOperation)
+        }
 
-            if (batchOperation.hasPendingOperations()) {
+        List<Observable<BatchOperation>> batches = []
+        for (List<CascadeGraph.Node> nodes in writableNodes.values()) {
+            batches.add(Observable.fromCallable({
+                BatchOperation batch = new BatchOperation(arguments)
+                prepareBatch(batch, nodes)
+                return batch
+            } as Callable<BatchOperation>).subscribeOn(cascadeScheduler))
+        }
+        return Observable.merge(batches).toList().map({ List<BatchOperation> prepared ->
+            BatchOperation batchOperation = new BatchOperation(arguments)
+            for (BatchOperation batch in prepared) {
+                batchOperation.addAll(batch)
+            }
+            return batchOperation
+        } as Func1<List<BatchOperation>, BatchOperation>)
+    }
 
-                return batchWrite(batchOperation).map({
-                    if (eventPublisher != null) {
-                        for (event in postEvents) {
-                            eventPublisher.publishEvent(event)
-                        }
-                    }
-                    return identifiers
-                })
+    /**
+     * Reserves the identifiers of the given nodes, which are all of the same entity type, and adds them to the batch
+     *
+     * @param batchOperation The batch operation
+     * @param nodes The nodes
+     */
+    protected void prepareBatch(BatchOperation batchOperation, List<CascadeGraph.Node> nodes) {
+        for (CascadeGraph.Node node in nodes) {
+            PersistentEntity entity = node.entity
+            if (node.id == null) {
+                if (entity.getMapping().getIdentifier().generator == ValueGenerator.NATIVE) {
+                    // if the identifier is generated natively then use the hash code to identity the entity since the
+                    // identifiers themselves will be generated from the insert operation
+                    node.id = node.instance.hashCode()
+                }
+                else {
+                    node.id = generateIdentifier(entity, node.instance, mappingContext.getEntityReflector(entity))
+                }
+            }
+            if (node.insert) {
+                batchOperation.addInsert(entity, node.id, node.instance)
             } else {
-                return Observable.just(identifiers)
+                batchOperation.addUpdate(entity, node.id, node.instance)
             }
-        } else {
-            return Observable.just([])
         }
     }
 
-    void processAssociations(PersistentEntity entity, Serializable id, Object instance, EntityReflector entityReflector, BatchOperation operation, List<ApplicationEvent> postEvents) {
-        if(operation.isAlreadyPending(entity, id, instance)) {
-            return
+    /**
+     * Collects the graph of objects reachable from the given instances through cascading associations that have changed and
+     * publishes their pre events. The events are published on the calling thread in the order the nodes are discovered, and the
+     * associations of a node are only followed once its pre event was published, so that objects added by listeners are
+     * cascaded while the objects reachable only through a cancelled node are neither written nor assigned identifiers
+     *
+     * @param instances The instances being persisted
+     * @param isInsert Whether the instances are being inserted
+     * @return The graph
+     */
+    protected CascadeGraph collectCascadeGraph(Iterable instances, boolean isInsert) {
+        MappingContext ctx = this.mappingContext
+        def proxyHandler = ctx.getProxyHandler()
+        CascadeGraph graph = new CascadeGraph()
+        Deque<CascadeGraph.Node> pending = new ArrayDeque<>()
+        for (o in instances) {
+            Class type = proxyHandler.getProxiedClass(o)
+            PersistentEntity entity = ctx.getPersistentEntity(type.name)
+            if (entity == null) {
+                throw new IllegalArgumentException("Type [$type.name] of instance [$o] is not a persistent type")
+            }
+            boolean visited = graph.getNode(o) != null
+            CascadeGraph.Node node = graph.addRoot(entity, o)
+            if (!visited) {
+                pending.add(node)
+            }
         }
-        for(association in entity.associations) {
-            if(association.doesCascade(CascadeType.PERSIST) && !association.isEmbedded() && !association.isBasic()) {
-                def associatedEntity = association.associatedEntity
 
-                if(association instanceof ToOne) {
-                    DirtyCheckable associatedObject = (DirtyCheckable )entityReflector.getProperty(instance, association.name)
-                    if(associatedObject != null && associatedObject.hasChanged()) {
-                        scheduleInsertOrUpdate(associatedEntity, associatedObject, operation, postEvents)
+        while (!pending.isEmpty()) {
+            CascadeGraph.Node node = pending.poll()
+            prepareCascadeNode(node, isInsert)
+            if (node.cancelled) {
+                continue
+            }
+            EntityReflector entityReflector = ctx.getEntityReflector(node.entity)
+            for (association in node.entity.associations) {
+                if (association.doesCascade(CascadeType.PERSIST) && !association.isEmbedded() && !association.isBasic()) {
+                    def associatedEntity = association.associatedEntity
+
+                    if (association instanceof ToOne) {
+                        DirtyCheckable associatedObject = (DirtyCheckable) entityReflector.getProperty(node.instance, association.name)
+                        if (associatedObject != null && associatedObject.hasChanged()) {
+                            addCascadeNode(graph, node, associatedEntity, associatedObject, pending)
+                        }
                     }
-                }
-                else if(association instanceof ToMany) {
-                    Iterable collection = (Iterable)entityReflector.getProperty(instance, association.name)
-                    if(collection != null) {
-
-                        if(collection instanceof PersistentCollection) {
-                            if( !((PersistentCollection)collection).isInitialized() ) {
-                                continue
+                    else if (association instanceof ToMany) {
+                        Iterable collection = (Iterable) entityReflector.getProperty(node.instance, association.name)
+                        if (collection != null) {
+
+                            if (collection instanceof PersistentCollection) {
+                                if (!((PersistentCollection) collection).isInitialized()) {
+                                    continue
+                                }
                             }
-                        }
-                        if(collection instanceof DirtyCheckableCollection) {
-                            if( !((DirtyCheckableCollection)collection).hasChanged() ) {
-                                continue
+                            if (collection instanceof DirtyCheckableCollection) {
+                                if (!((DirtyCheckableCollection) collection).hasChanged()) {
+                                    continue
+                                }
                             }
-                        }
 
-                        for(obj in collection) {
-                            scheduleInsertOrUpdate(associatedEntity, (DirtyCheckable)obj, operation, postEvents)
+                            for (obj in collection) {
+                                if (obj != null) {
+                                    addCascadeNode(graph, node, associatedEntity, obj, pending)
+                                }
+                            }
                         }
                     }
                 }
             }
         }
+        return graph
     }
 
-    protected void scheduleInsertOrUpdate(PersistentEntity associatedEntity, DirtyCheckable associatedObject, BatchOperation operation, List<ApplicationEvent> postEvents) {
-        EntityReflector associationReflector = mappingContext.getEntityReflector(associatedEntity)
-        def associationAccess = mappingContext.createEntityAccess(associatedEntity, associatedObject)
-        def associatedId = associationReflector.getIdentifier(associatedObject)
-        if (associatedId != null) {
-            scheduleUpdate(associatedEntity, associationAccess, associatedId, associatedObject, associationReflector, operation, postEvents)
-        } else {
-            scheduleInsert(associatedEntity, associatedObject, associationReflector, associationAccess, operation, postEvents)
+    private static void addCascadeNode(CascadeGraph graph, CascadeGraph.Node parent, PersistentEntity associatedEntity, Object associatedObject, Deque<CascadeGraph.Node> pending) {
+        CascadeGraph.Node child = graph.getNode(associatedObject)
+        if (child == null) {
+            child = graph.addNode(associatedEntity, associatedObject)
+            pending.add(child)
         }
-        processAssociations(associatedEntity, associatedId, associatedObject, associationReflector, operation, postEvents)
+        parent.children.add(child)
     }
 
-    protected void scheduleInsert(PersistentEntity associatedEntity, DirtyCheckable associatedObject, EntityReflector associationReflector, EntityAccess associationAccess, BatchOperation operation, List<ApplicationEvent> postEvents) {
-        ValueGenerator valueGenerator = associatedEntity.getMapping().getIdentifier().generator
-        def associatedId
-        if(valueGenerator == ValueGenerator.NATIVE) {
-            // if the identifier is generated natively then use the hash code to identity the entity since the
-            // identifiers themselves will be generated from the insert operation
-            associatedId = associatedObject.hashCode()
-        }
-        else {
-            associatedId = generateIdentifier(associatedEntity, associatedObject, associationReflector)
-        }
-
-        def preInsertEvent = new PreInsertEvent(this, associatedEntity, associationAccess)
-        eventPublisher?.publishEvent(preInsertEvent)
-        if (!preInsertEvent.isCancelled()) {
-            operation.addInsert(associatedEntity, associatedId, associatedObject)
-            postEvents.add(new PostInsertEvent(this, associatedEntity, associationAccess))
-            processAssociations(associatedEntity, associatedId, associatedObject, associationReflector, operation, postEvents)
+    /**
+     * Prepares a node of the graph by publishing its pre event. Identifiers are reserved once the graph is complete, see
+     * {@link #prepareBatchOperation(Map, Map)}
+     *
+     * @param node The node
+     * @param isInsert Whether the roots of the graph are being inserted
+     */
+    protected void prepareCascadeNode(CascadeGraph.Node node, boolean isInsert) {
+        PersistentEntity entity = node.entity
+        EntityReflector entityReflector = mappingContext.getEntityReflector(entity)
+        EntityAccess entityAccess = mappingContext.createEntityAccess(entity, node.instance)
+        Serializable id = entityReflector.getIdentifier(node.instance)
+        boolean insert = id == null || (isInsert && node.root)
+        if (id == null && node.root && entity.getMapping().getIdentifier().generator == ValueGenerator.ASSIGNED) {
+            throw new IdentityGenerationException("Id generator is set to assigned but not identifier was provided for entity $node.instance")
         }
-    }
-
-    protected void scheduleUpdate(PersistentEntity associatedEntity, EntityAccess associationAccess, Serializable associatedId, DirtyCheckable associatedObject, EntityReflector associationReflector, BatchOperation operation, List<ApplicationEvent> postEvents) {
-        def preUpdateEvent = new PreUpdateEvent(this, associatedEntity, associationAccess)
-        eventPublisher?.publishEvent(preUpdateEvent)
-        if (!preUpdateEvent.isCancelled()) {
-            operation.addUpdate(associatedEntity, associatedId, associatedObject)
-            postEvents.add(new PostUpdateEvent(this, associatedEntity, associationAccess))
-
-            processAssociations(associatedEntity, associatedId, associatedObject, associationReflector, operation, postEvents)
+        node.id = id
+        node.insert = insert
+        node.entityAccess = entityAccess
+
+        AbstractPersistenceEvent preEvent = insert ? new PreInsertEvent(this, entity, entityAccess) : new PreUpdateEvent(this, entity, entityAccess)
+        eventPublisher?.publishEvent(preEvent)
+        node.cancelled = preEvent.isCancelled()
+        if (!node.cancelled) {
+            node.postEvent = insert ? new PostInsertEvent(this, entity, entityAccess) : new PostUpdateEvent(this, entity, entityAccess)
         }
     }
 
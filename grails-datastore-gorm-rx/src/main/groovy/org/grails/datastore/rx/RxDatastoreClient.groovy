@@ -95,6 +95,29 @@ interface RxDatastoreClient<T> extends Closeable, QueryCreator, Settings, Connec
      */
     Observable<Number> deleteAll(Iterable instances, Map<String, Object> arguments)
 
+    /**
+     * Deletes the entities matching the criteria of the given query in batches of the given size. Matching identifiers are
+     * read a page at a time in identifier order, so that only the batches being deleted are held in memory, and delete
+     * events are only published when there are listeners for them
+     *
+     * @param query The query whose criteria match the entities to delete, which cannot specify a max or an offset
+     * @param batchSize The maximum number of entities deleted per batch
+     * @return An observable that emits the number of entities deleted as each batch is deleted
+     */
+    Observable<Number> deleteAll(Query query, int batchSize)
+
+    /**
+     * Deletes the entities matching the criteria of the given query in batches of the given size. Matching identifiers are
+     * read a page at a time in identifier order, so that only the batches being deleted are held in memory, and delete
+     * events are only published when there are listeners for them
+     *
+     * @param query The query whose criteria match the entities to delete, which cannot specify a max or an offset
+     * @param batchSize The maximum number of entities deleted per batch
+     * @param arguments The arguments, the <code>concurrency</code> argument specifies how many batches can be deleted at the same time
+     * @return An observable that emits the number of entities deleted as each batch is deleted
+     */
+    Observable<Number> deleteAll(Query query, int batchSize, Map<String, Object> arguments)
+
     /**
      * Obtain an {@link ObservableProxy} for the given type and id
      *
@@ -144,6 +167,27 @@ interface RxDatastoreClient<T> extends Closeable, QueryCreator, Settings, Connec
      */
     Observable<List<Serializable>> insertAll(Iterable objects, Map<String, Object> arguments)
 
+    /**
+     * Saves the objects emitted by the given observable in batches of the given size. Upstream is consumed with backpressure
+     * so that only the batches being written are held in memory
+     *
+     * @param objects The objects to save
+     * @param batchSize The number of objects written per batch
+     * @return An observable that emits the identifiers of the saved objects as each batch is written
+     */
+    Observable<Serializable> persistAll(Observable objects, int batchSize)
+
+    /**
+     * Saves the objects emitted by the given observable in batches of the given size. Upstream is consumed with backpressure
+     * so that only the batches being written are held in memory
+     *
+     * @param objects The objects to save
+     * @param batchSize The number of objects written per batch
+     * @param arguments The arguments, the <code>concurrency</code> argument specifies how many batches can be written at the same time
+     * @return An observable that emits the identifiers of the saved objects as each batch is written
+     */
+    Observable<Serializable> persistAll(Observable objects, int batchSize, Map<String, Object> arguments)
+
     /**
      * Creates a query for the given type
      *
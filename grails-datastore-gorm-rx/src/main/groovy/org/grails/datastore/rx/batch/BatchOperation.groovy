@@ -58,6 +58,25 @@ class BatchOperation {
         inserts.get(entity).put(id, new EntityOperation(id, object))
     }
 
+    /**
+     * Adds the operations of another batch to this batch
+     *
+     * @param other The other batch
+     * @return This batch
+     */
+    BatchOperation addAll(BatchOperation other) {
+        for(Map.Entry<PersistentEntity, Map<Serializable, EntityOperation>> entry in other.deletes.entrySet()) {
+            deletes.get(entry.key).putAll(entry.value)
+        }
+        for(Map.Entry<PersistentEntity, Map<Serializable, EntityOperation>> entry in other.updates.entrySet()) {
+            updates.get(entry.key).putAll(entry.value)
+        }
+        for(Map.Entry<PersistentEntity, Map<Serializable, EntityOperation>> entry in other.inserts.entrySet()) {
+            inserts.get(entry.key).putAll(entry.value)
+        }
+        return this
+    }
+
     /**
      * @return Whether there are any pending operations
      */
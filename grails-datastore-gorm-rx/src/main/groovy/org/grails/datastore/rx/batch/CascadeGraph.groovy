@@ -0,0 +1,140 @@
+package org.grails.datastore.rx.batch
+
+import groovy.transform.CompileStatic
+import org.grails.datastore.mapping.engine.EntityAccess
+import org.grails.datastore.mapping.model.PersistentEntity
+import org.springframework.context.ApplicationEvent
+
+/**
+ * The object graph reachable from the instances being persisted through cascading associations. Visited objects are tracked
+ * by identity to break cycles. The pre events of the nodes are published on the calling thread while the graph is collected,
+ * then the nodes are partitioned by entity type so that each type reserves its identifiers and builds its batch independently,
+ * concurrently for larger graphs
+ *
+ * @author Graeme Rocher
+ * @since 7.0
+ */
+@CompileStatic
+class CascadeGraph {
+
+    /**
+     * The nodes of the instances being persisted, in the order they were given
+     */
+    final List<Node> roots = []
+
+    /**
+     * The nodes of the graph partitioned by entity type, in the order they were discovered
+     */
+    final Map<PersistentEntity, List<Node>> nodesByEntity = new LinkedHashMap<>()
+
+    private final Map<Object, Node> visited = new IdentityHashMap<>()
+
+    /**
+     * Adds an instance being persisted to the graph
+     *
+     * @param entity The entity
+     * @param instance The instance
+     * @return The node of the instance
+     */
+    Node addRoot(PersistentEntity entity, Object instance) {
+        Node node = getNode(instance)
+        if(node == null) {
+            node = addNode(entity, instance)
+        }
+        node.root = true
+        roots.add(node)
+        return node
+    }
+
+    /**
+     * @param instance The instance
+     * @return The node of the given instance or null if it has not been visited
+     */
+    Node getNode(Object instance) {
+        return visited.get(instance)
+    }
+
+    /**
+     * Adds an instance reached through a cascading association to the graph
+     *
+     * @param entity The entity
+     * @param instance The instance
+     * @return The node of the instance
+     */
+    Node addNode(PersistentEntity entity, Object instance) {
+        Node node = new Node(entity, instance)
+        visited.put(instance, node)
+        List<Node> nodes = nodesByEntity.get(entity)
+        if(nodes == null) {
+            nodes = []
+            nodesByEntity.put(entity, nodes)
+        }
+        nodes.add(node)
+        return node
+    }
+
+    /**
+     * @return The number of instances in the graph
+     */
+    int size() {
+        return visited.size()
+    }
+
+    /**
+     * Once the nodes have been prepared, finds the nodes to write. These are the nodes that were not cancelled and that are
+     * reachable from a root only through nodes that were not cancelled, since cancelling an event also cancels the cascade
+     *
+     * @return The nodes to write, partitioned by entity type
+     */
+    Map<PersistentEntity, List<Node>> getWritableNodes() {
+        Set<Node> reachable = Collections.newSetFromMap(new IdentityHashMap<Node, Boolean>())
+        Deque<Node> pending = new ArrayDeque<>()
+        for(Node root in roots) {
+            if(!root.cancelled && reachable.add(root)) {
+                pending.add(root)
+            }
+        }
+        while(!pending.isEmpty()) {
+            Node node = pending.poll()
+            for(Node child in node.children) {
+                if(!child.cancelled && reachable.add(child)) {
+                    pending.add(child)
+                }
+            }
+        }
+
+        Map<PersistentEntity, List<Node>> writable = new LinkedHashMap<>()
+        for(Map.Entry<PersistentEntity, List<Node>> entry in nodesByEntity.entrySet()) {
+            List<Node> nodes = entry.value.findAll { Node node -> reachable.contains(node) }
+            if(!nodes.isEmpty()) {
+                writable.put(entry.key, nodes)
+            }
+        }
+        return writable
+    }
+
+    /**
+     * An instance within the graph
+     */
+    static class Node {
+        final PersistentEntity entity
+        final Object instance
+        /**
+         * The nodes reached from this node through cascading associations
+         */
+        final List<Node> children = []
+        boolean root
+
+        // populated when the pre event of the node is published, except for identifiers which are reserved once the graph is complete
+        Serializable id
+        boolean insert
+        boolean cancelled
+        EntityAccess entityAccess
+        ApplicationEvent postEvent
+
+        Node(PersistentEntity entity, Object instance) {
+            this.entity = entity
+            this.instance = instance
+        }
+    }
+}
@@ -9,7 +9,9 @@ import org.grails.datastore.mapping.model.types.Association
 import org.grails.datastore.mapping.query.Query
 import org.grails.datastore.rx.RxDatastoreClient
 import org.grails.datastore.rx.exceptions.BlockingOperationException
+import org.grails.datastore.rx.internal.BlockingInitializer
 import org.grails.datastore.rx.internal.RxDatastoreClientImplementor
+import org.grails.datastore.rx.query.BatchLoader
 import org.grails.datastore.rx.query.QueryState
 import org.grails.datastore.rx.query.RxQuery
 import rx.Observable
@@ -64,6 +66,17 @@ class RxPersistentSet extends PersistentSet implements RxPersistentCollection, R
 
 
     protected Observable resolveObservable() {
+        if(queryState != null) {
+            // coalesce with the other collections and proxies loaded with the same query state
+            BatchLoader batchLoader = queryState.getBatchLoader(datastoreClient)
+            if(associationKey != null) {
+                return batchLoader.loadAssociation(association, associationKey)
+            }
+            else {
+                return batchLoader.loadAll(childType, keys.toList())
+            }
+        }
+
         def query = ((RxDatastoreClientImplementor)datastoreClient).createQuery(childType, queryState)
         if(associationKey != null) {
             query.eq( association.inverseSide.name, associationKey )
@@ -89,7 +102,8 @@ class RxPersistentSet extends PersistentSet implements RxPersistentCollection, R
             if(((RxDatastoreClientImplementor)datastoreClient).isAllowBlockingOperations()) {
                 log.warn("Association $association initialised using blocking operation. Consider using subscribe(..) or an eager query instead")
 
-                addAll observable.toBlocking().first()
+                BlockingInitializer blockingInitializer = ((RxDatastoreClientImplementor)datastoreClient).blockingInitializer
+                addAll((Collection)blockingInitializer.initialize("${association.owner.name}.${association.name}".toString(), observable))
             }
             else {
                 throw new BlockingOperationException("Cannot initialize $association using a blocking operation. Use subscribe(..) instead.")
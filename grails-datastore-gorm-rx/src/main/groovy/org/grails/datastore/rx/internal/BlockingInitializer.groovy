@@ -0,0 +1,244 @@
+package org.grails.datastore.rx.internal
+
+import groovy.transform.CompileStatic
+import org.grails.datastore.rx.exceptions.BlockingOperationException
+import rx.Observable
+import rx.Scheduler
+import rx.Subscription
+import rx.functions.Action0
+import rx.functions.Func0
+import rx.functions.Func1
+import rx.plugins.RxJavaHooks
+
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ConcurrentMap
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Performs the blocking initialization of proxies and collections when blocking operations are allowed, counting how often
+ * and where it happens. When detection is enabled, an initialization requested from a thread of a non-blocking scheduler
+ * fails fast with a {@link BlockingOperationException} naming the entity or association, since waiting would stall the
+ * scheduler whichever thread the work runs on.
+ *
+ * Threads are recognised as non-blocking while they run actions of a scheduler wrapped with {@link #nonBlocking(Scheduler)},
+ * which detection installs for the RxJava computation scheduler through {@link RxJavaHooks}, or when one of the registered
+ * {@link #addNonBlockingThreadDetector(Func0) detectors} returns true, for example one calling <code>EventLoop.inEventLoop()</code>
+ * on the event loops of a Netty server
+ *
+ * @author Graeme Rocher
+ * @since 7.0
+ */
+@CompileStatic
+class BlockingInitializer {
+
+    private static final ThreadLocal<Boolean> NON_BLOCKING = new ThreadLocal<Boolean>()
+    private static final List<Func0<Boolean>> NON_BLOCKING_THREAD_DETECTORS = new CopyOnWriteArrayList<Func0<Boolean>>()
+
+    /**
+     * Whether initializations from non-blocking threads are rejected
+     */
+    final boolean detect
+
+    private final AtomicLong blockingInitializations = new AtomicLong()
+    private final AtomicLong rejectedInitializations = new AtomicLong()
+    private final ConcurrentMap<String, AtomicLong> initializationsByLocation = new ConcurrentHashMap<>()
+
+    BlockingInitializer(boolean detect = false) {
+        this.detect = detect
+        if(detect) {
+            detectComputationScheduler()
+        }
+    }
+
+    /**
+     * Blocks until the observable emits its first item
+     *
+     * @param location The entity or association being initialized
+     * @param observable The observable that initializes it
+     * @return The first item
+     */
+    Object initialize(String location, Observable observable) {
+        if(detect && isNonBlockingThread()) {
+            rejectedInitializations.incrementAndGet()
+            throw new BlockingOperationException("Cannot initialize $location using a blocking operation on non-blocking thread [${Thread.currentThread().name}]. Use subscribe(..) instead.")
+        }
+
+        blockingInitializations.incrementAndGet()
+        AtomicLong counter = initializationsByLocation.get(location)
+        if(counter == null) {
+            AtomicLong newCounter = new AtomicLong()
+            counter = initializationsByLocation.putIfAbsent(location, newCounter)
+            if(counter == null) {
+                counter = newCounter
+            }
+        }
+        counter.incrementAndGet()
+        return observable.toBlocking().first()
+    }
+
+    /**
+     * @return Whether the current thread belongs to a non-blocking scheduler
+     */
+    static boolean isNonBlockingThread() {
+        if(NON_BLOCKING.get() != null) {
+            return true
+        }
+        for(Func0<Boolean> detector in NON_BLOCKING_THREAD_DETECTORS) {
+            if(detector.call()) {
+                return true
+            }
+        }
+        return false
+    }
+
+    /**
+     * Registers a detector of non-blocking threads, for example one that checks whether the current thread is an event loop
+     *
+     * @param detector The detector, which returns true if the current thread is non-blocking
+     */
+    static void addNonBlockingThreadDetector(Func0<Boolean> detector) {
+        NON_BLOCKING_THREAD_DETECTORS.add(detector)
+    }
+
+    /**
+     * @param detector The detector to remove
+     */
+    static void removeNonBlockingThreadDetector(Func0<Boolean> detector) {
+        NON_BLOCKING_THREAD_DETECTORS.remove(detector)
+    }
+
+    /**
+     * Wraps a scheduler so that its threads are recognised as non-blocking while they run its actions
+     *
+     * @param scheduler The scheduler
+     * @return The wrapped scheduler
+     */
+    static Scheduler nonBlocking(Scheduler scheduler) {
+        if(scheduler instanceof NonBlockingScheduler) {
+            return scheduler
+        }
+        return new NonBlockingScheduler(scheduler)
+    }
+
+    /**
+     * Marks the threads of the RxJava computation scheduler as non-blocking, keeping any previously installed hook
+     */
+    static synchronized void detectComputationScheduler() {
+        Func1<Scheduler, Scheduler> previous = RxJavaHooks.getOnComputationScheduler()
+        if(!(previous instanceof NonBlockingSchedulerHook)) {
+            RxJavaHooks.setOnComputationScheduler(new NonBlockingSchedulerHook(previous))
+        }
+    }
+
+    /**
+     * @return The number of blocking initializations
+     */
+    long getBlockingInitializations() {
+        return blockingInitializations.get()
+    }
+
+    /**
+     * @return The number of blocking initializations that were rejected because they were requested from a non-blocking thread
+     */
+    long getRejectedInitializations() {
+        return rejectedInitializations.get()
+    }
+
+    /**
+     * @return The number of blocking initializations of each entity or association
+     */
+    Map<String, Long> getInitializationsByLocation() {
+        Map<String, Long> snapshot = new TreeMap<>()
+        for(Map.Entry<String, AtomicLong> entry in initializationsByLocation.entrySet()) {
+            snapshot.put(entry.key, entry.value.get())
+        }
+        return snapshot
+    }
+
+    private static class NonBlockingSchedulerHook implements Func1<Scheduler, Scheduler> {
+        private final Func1<Scheduler, Scheduler> previous
+
+        NonBlockingSchedulerHook(Func1<Scheduler, Scheduler> previous) {
+            this.previous = previous
+        }
+
+        @Override
+        Scheduler call(Scheduler scheduler) {
+            return nonBlocking(previous != null ? previous.call(scheduler) : scheduler)
+        }
+    }
+
+    private static class NonBlockingScheduler extends Scheduler {
+        private final Scheduler scheduler
+
+        NonBlockingScheduler(Scheduler scheduler) {
+            this.scheduler = scheduler
+        }
+
+        @Override
+        Scheduler.Worker createWorker() {
+            return new NonBlockingWorker(scheduler.createWorker())
+        }
+
+        @Override
+        long now() {
+            return scheduler.now()
+        }
+    }
+
+    private static class NonBlockingWorker extends Scheduler.Worker {
+        private final Scheduler.Worker worker
+
+        NonBlockingWorker(Scheduler.Worker worker) {
+            this.worker = worker
+        }
+
+        @Override
+        Subscription schedule(Action0 action) {
+            return worker.schedule(new NonBlockingAction(action))
+        }
+
+        @Override
+        Subscription schedule(Action0 action, long delayTime, TimeUnit unit) {
+            return worker.schedule(new NonBlockingAction(action), delayTime, unit)
+        }
+
+        @Override
+        long now() {
+            return worker.now()
+        }
+
+        @Override
+        void unsubscribe() {
+            worker.unsubscribe()
+        }
+
+        @Override
+        boolean isUnsubscribed() {
+            return worker.isUnsubscribed()
+        }
+    }
+
+    private static class NonBlockingAction implements Action0 {
+        private final Action0 action
+
+        NonBlockingAction(Action0 action) {
+            this.action = action
+        }
+
+        @Override
+        void call() {
+            Boolean previous = NON_BLOCKING.get()
+            NON_BLOCKING.set(Boolean.TRUE)
+            try {
+                action.call()
+            } finally {
+                if(previous == null) {
+                    NON_BLOCKING.remove()
+                }
+            }
+        }
+    }
+}
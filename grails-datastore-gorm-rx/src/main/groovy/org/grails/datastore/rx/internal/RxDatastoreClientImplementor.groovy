@@ -9,6 +9,8 @@ import org.grails.gorm.rx.api.RxGormInstanceApi
 import org.grails.gorm.rx.api.RxGormStaticApi
 import org.grails.gorm.rx.api.RxGormValidationApi
 import rx.Observable
+import rx.Scheduler
+import rx.functions.Func1
 
 /**
  * Internal non-client methods implemented by the implementor
@@ -22,6 +24,34 @@ interface RxDatastoreClientImplementor<T> extends RxDatastoreClient<T> {
      * @return Whether blocking operations are allowed by the implementation
      */
     boolean isAllowBlockingOperations()
+
+    /**
+     * @return The initializer used to initialize proxies and collections when blocking operations are allowed
+     */
+    BlockingInitializer getBlockingInitializer()
+
+    /**
+     * @return The scheduler on which the lazy loads coalesced by a {@link org.grails.datastore.rx.query.BatchLoader} are dispatched
+     */
+    Scheduler getBatchLoadScheduler()
+
+    /**
+     * @return The number of milliseconds a {@link org.grails.datastore.rx.query.BatchLoader} collects lazy loads for before dispatching them
+     */
+    long getBatchLoadWindow()
+
+    /**
+     * Saves the objects emitted by the given observable in batches of the given size, writing each batch with the given function.
+     * Allows callers such as tenant scoped operations to decorate the write of each batch without repeating the batching
+     *
+     * @param objects The objects to save
+     * @param batchSize The number of objects written per batch
+     * @param arguments The arguments, the <code>concurrency</code> argument specifies how many batches can be written at the same time
+     * @param batchWriter Writes a batch and emits the identifiers of the saved objects
+     * @return An observable that emits the identifiers of the saved objects as each batch is written
+     */
+    Observable<Serializable> persistAll(Observable objects, int batchSize, Map<String, Object> arguments, Func1<List, Observable<List<Serializable>>> batchWriter)
+
     /**
      * Obtain an instance passing the query state
      *
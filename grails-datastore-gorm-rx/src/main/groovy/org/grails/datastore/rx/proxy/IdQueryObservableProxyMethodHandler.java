@@ -77,7 +77,7 @@ public class IdQueryObservableProxyMethodHandler extends AbstractObservableProxy
             if(LOG.isWarnEnabled()) {
                 LOG.warn("Entity of type [{}] with id [{}] lazy loaded using a blocking operation. Consider using ObservableProxy.subscribe(..) instead", type.getName(), proxyKey);
             }
-            this.target = observable.toBlocking().first();
+            this.target = ((RxDatastoreClientImplementor)client).getBlockingInitializer().initialize(type.getName(), observable);
         }
         else {
             throw new BlockingOperationException("Cannot initialize proxy for class ["+type+"] using a blocking operation. Use ObservableProxy.subscribe(..) instead.");
@@ -8,7 +8,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import rx.Observable;
 import rx.functions.Action1;
-import rx.functions.Func1;
 
 import java.io.Serializable;
 
@@ -31,15 +30,20 @@ class IdentifierObservableProxyMethodHandler extends AbstractObservableProxyMeth
     }
 
     protected Observable resolveObservable() {
-        Observable observable = ((RxDatastoreClientImplementor) client).get(type, proxyKey, queryState);
-        observable.map(new Func1() {
+        Observable observable;
+        if(queryState != null) {
+            // coalesce with the other proxies of the same type loaded with the same query state
+            observable = queryState.getBatchLoader(client).load(type, proxyKey);
+        }
+        else {
+            observable = ((RxDatastoreClientImplementor) client).get(type, proxyKey, queryState);
+        }
+        return observable.doOnNext(new Action1() {
             @Override
-            public Object call(Object o) {
+            public void call(Object o) {
                 target = o;
-                return o;
             }
         });
-        return observable;
     }
 
     @Override
@@ -57,7 +61,7 @@ class IdentifierObservableProxyMethodHandler extends AbstractObservableProxyMeth
                 if(LOG.isWarnEnabled()) {
                     LOG.warn("Entity of type [{}] with id [{}] lazy loaded using a blocking operation. Consider using ObservableProxy.subscribe(..) instead", type.getName(), proxyKey);
                 }
-                this.target = observable.toBlocking().first();
+                this.target = ((RxDatastoreClientImplementor)client).getBlockingInitializer().initialize(type.getName(), observable);
             }
             else {
                 throw new BlockingOperationException("Cannot initialize proxy for class ["+type+"] using a blocking operation. Use ObservableProxy.subscribe(..) instead.");
@@ -56,7 +56,7 @@ public class QueryObservableProxyMethodHandler extends AbstractObservableProxyMe
             if(LOG.isWarnEnabled()) {
                 LOG.warn("Entity of type [{}] lazy loaded using a blocking operation. Consider using ObservableProxy.subscribe(..) instead", type.getName());
             }
-            this.target = observable.toBlocking().first();
+            this.target = ((RxDatastoreClientImplementor)client).getBlockingInitializer().initialize(type.getName(), observable);
         }
         else {
             throw new BlockingOperationException("Cannot initialize proxy for class ["+type+"] using a blocking operation. Use ObservableProxy.subscribe(..) instead.");
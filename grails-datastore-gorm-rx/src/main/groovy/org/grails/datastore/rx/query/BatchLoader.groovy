@@ -0,0 +1,340 @@
+package org.grails.datastore.rx.query
+
+import groovy.transform.CompileStatic
+import org.grails.datastore.mapping.model.MappingContext
+import org.grails.datastore.mapping.model.PersistentEntity
+import org.grails.datastore.mapping.model.types.Association
+import org.grails.datastore.mapping.proxy.ProxyHandler
+import org.grails.datastore.mapping.query.Query
+import org.grails.datastore.mapping.reflect.EntityReflector
+import org.grails.datastore.rx.RxDatastoreClient
+import org.grails.datastore.rx.internal.RxDatastoreClientImplementor
+import rx.Observable
+import rx.Observer
+import rx.Scheduler
+import rx.functions.Action0
+import rx.functions.Func0
+import rx.schedulers.Schedulers
+import rx.subjects.AsyncSubject
+
+import java.util.concurrent.TimeUnit
+
+/**
+ * Coalesces the lazy loading of proxies and collections that share a {@link QueryState}. The first load registered after a
+ * dispatch opens a window of {@link #getWindow()} milliseconds on the scheduler, and the loads requested within the window,
+ * or before an explicit {@link #flush()}, are grouped into a single <code>in</code> query per entity type, or per association
+ * for collections. The results are fanned back out to each subscriber. This turns N lazy loads of the parents of a result
+ * set into one query. Batches larger than {@link #getMaxBatchSize()} are split into several queries so that the
+ * <code>in</code> lists stay within the limits of the database.
+ *
+ * @author Graeme Rocher
+ * @since 7.0
+ */
+@CompileStatic
+class BatchLoader {
+
+    /**
+     * The default maximum number of identifiers in the <code>in</code> list of a single query
+     */
+    public static final int DEFAULT_MAX_BATCH_SIZE = 500
+
+    /**
+     * The default number of milliseconds loads are collected for before they are dispatched
+     */
+    public static final long DEFAULT_WINDOW = 1
+
+    final RxDatastoreClient datastoreClient
+    final QueryState queryState
+    final Scheduler scheduler
+
+    /**
+     * The number of milliseconds loads are collected for before they are dispatched
+     */
+    final long window
+
+    /**
+     * The maximum number of identifiers in the <code>in</code> list of a single query
+     */
+    int maxBatchSize = DEFAULT_MAX_BATCH_SIZE
+
+    private final Object lock = new Object()
+    private Map<Class, Map<Serializable, AsyncSubject<Object>>> pendingEntities = new LinkedHashMap<>()
+    private Map<Association, Map<Serializable, AsyncSubject<List>>> pendingAssociations = new LinkedHashMap<>()
+    private boolean dispatchScheduled
+
+    BatchLoader(RxDatastoreClient datastoreClient, QueryState queryState) {
+        this(datastoreClient, queryState,
+                datastoreClient instanceof RxDatastoreClientImplementor ? ((RxDatastoreClientImplementor)datastoreClient).batchLoadScheduler : Schedulers.io(),
+                datastoreClient instanceof RxDatastoreClientImplementor ? ((RxDatastoreClientImplementor)datastoreClient).batchLoadWindow : DEFAULT_WINDOW)
+    }
+
+    BatchLoader(RxDatastoreClient datastoreClient, QueryState queryState, Scheduler scheduler, long window = DEFAULT_WINDOW) {
+        this.datastoreClient = datastoreClient
+        this.queryState = queryState
+        this.scheduler = scheduler
+        this.window = window
+    }
+
+    /**
+     * Loads an entity, batching the load with the other loads of the same type
+     *
+     * @param type The type
+     * @param id The identifier
+     * @return An observable that emits the entity or nothing if it does not exist
+     */
+    Observable load(Class type, Serializable id) {
+        return Observable.defer({
+            register(type, id)
+        } as Func0<Observable>)
+    }
+
+    /**
+     * Loads the entities of the given type and identifiers as part of a single batch, in the order of the identifiers
+     *
+     * @param type The type
+     * @param ids The identifiers
+     * @return An observable that emits the entities that exist
+     */
+    Observable loadAll(Class type, Collection<Serializable> ids) {
+        return Observable.defer({
+            List<Observable> loads = new ArrayList<>(ids.size())
+            for(Serializable id in ids) {
+                loads.add(register(type, id))
+            }
+            Observable.concat(Observable.from(loads))
+        } as Func0<Observable>)
+    }
+
+    /**
+     * Loads the entities of an association whose foreign key is held by the associated entity, batching the load with the
+     * other owners of the same association
+     *
+     * @param association The association
+     * @param ownerKey The identifier of the owner
+     * @return An observable that emits the associated entities
+     */
+    Observable loadAssociation(Association association, Serializable ownerKey) {
+        return Observable.defer({
+            AsyncSubject<List> subject
+            synchronized (lock) {
+                Map<Serializable, AsyncSubject<List>> owners = pendingAssociations.get(association)
+                if(owners == null) {
+                    owners = new LinkedHashMap<>()
+                    pendingAssociations.put(association, owners)
+                }
+                Serializable key = convertIdentifier(association.owner, ownerKey)
+                subject = owners.get(key)
+                if(subject == null) {
+                    subject = AsyncSubject.<List>create()
+                    owners.put(key, subject)
+                }
+                scheduleDispatch()
+            }
+            subject.concatMap { List associated -> Observable.from(associated) }
+        } as Func0<Observable>)
+    }
+
+    protected Observable register(Class type, Serializable id) {
+        Object loaded = queryState.getLoadedEntity(type, id)
+        if(loaded != null) {
+            return Observable.just(loaded)
+        }
+        synchronized (lock) {
+            Map<Serializable, AsyncSubject<Object>> byId = pendingEntities.get(type)
+            if(byId == null) {
+                byId = new LinkedHashMap<>()
+                pendingEntities.put(type, byId)
+            }
+            Serializable key = convertIdentifier(getPersistentEntity(type), id)
+            AsyncSubject<Object> subject = byId.get(key)
+            if(subject == null) {
+                subject = AsyncSubject.create()
+                byId.put(key, subject)
+            }
+            scheduleDispatch()
+            return subject
+        }
+    }
+
+    // must be called holding the lock
+    private void scheduleDispatch() {
+        if(dispatchScheduled) {
+            return
+        }
+        dispatchScheduled = true
+        Scheduler.Worker worker = scheduler.createWorker()
+        worker.schedule(new Action0() {
+            @Override
+            void call() {
+                try {
+                    dispatch()
+                } finally {
+                    worker.unsubscribe()
+                }
+            }
+        }, window, TimeUnit.MILLISECONDS)
+    }
+
+    /**
+     * Dispatches the loads requested so far without waiting for the end of the window
+     */
+    void flush() {
+        dispatch()
+    }
+
+    /**
+     * Executes the loads requested since the last dispatch
+     */
+    protected void dispatch() {
+        Map<Class, Map<Serializable, AsyncSubject<Object>>> entities
+        Map<Association, Map<Serializable, AsyncSubject<List>>> associations
+        synchronized (lock) {
+            entities = pendingEntities
+            associations = pendingAssociations
+            pendingEntities = new LinkedHashMap<>()
+            pendingAssociations = new LinkedHashMap<>()
+            dispatchScheduled = false
+        }
+
+        for(Map.Entry<Class, Map<Serializable, AsyncSubject<Object>>> pending in entities.entrySet()) {
+            for(Map<Serializable, AsyncSubject<Object>> chunk in partition(pending.value)) {
+                dispatchEntities(pending.key, chunk)
+            }
+        }
+        for(Map.Entry<Association, Map<Serializable, AsyncSubject<List>>> pending in associations.entrySet()) {
+            for(Map<Serializable, AsyncSubject<List>> chunk in partition(pending.value)) {
+                dispatchAssociation(pending.key, chunk)
+            }
+        }
+    }
+
+    /**
+     * Splits the pending loads into chunks of at most {@link #getMaxBatchSize()} identifiers, preserving their order
+     */
+    protected <V> List<Map<Serializable, V>> partition(Map<Serializable, V> subjects) {
+        int chunkSize = maxBatchSize > 0 ? maxBatchSize : DEFAULT_MAX_BATCH_SIZE
+        if(subjects.size() <= chunkSize) {
+            return Collections.singletonList(subjects)
+        }
+        List<Map<Serializable, V>> chunks = new ArrayList<>()
+        Map<Serializable, V> chunk = null
+        for(Map.Entry<Serializable, V> entry in subjects.entrySet()) {
+            if(chunk == null || chunk.size() == chunkSize) {
+                chunk = new LinkedHashMap<>()
+                chunks.add(chunk)
+            }
+            chunk.put(entry.key, entry.value)
+        }
+        return chunks
+    }
+
+    protected void dispatchEntities(Class type, Map<Serializable, AsyncSubject<Object>> subjects) {
+        PersistentEntity entity = getPersistentEntity(type)
+        EntityReflector reflector = mappingContext.getEntityReflector(entity)
+        Query query = ((RxDatastoreClientImplementor)datastoreClient).createQuery(type, queryState)
+                .in(entity.identity.name, new ArrayList<Serializable>(subjects.keySet()))
+
+        ((RxQuery)query).findAll().toList().subscribe(new Observer<List>() {
+            @Override
+            void onNext(List results) {
+                for(Object result in results) {
+                    AsyncSubject<Object> subject = subjects.get(convertIdentifier(entity, reflector.getIdentifier(result)))
+                    subject?.onNext(result)
+                }
+            }
+
+            @Override
+            void onCompleted() {
+                for(AsyncSubject<Object> subject in subjects.values()) {
+                    subject.onCompleted()
+                }
+            }
+
+            @Override
+            void onError(Throwable e) {
+                for(AsyncSubject<Object> subject in subjects.values()) {
+                    subject.onError(e)
+                }
+            }
+        })
+    }
+
+    protected void dispatchAssociation(Association association, Map<Serializable, AsyncSubject<List>> subjects) {
+        PersistentEntity associatedEntity = association.associatedEntity
+        String inverseName = association.inverseSide.name
+        EntityReflector reflector = mappingContext.getEntityReflector(associatedEntity)
+        Query query = ((RxDatastoreClientImplementor)datastoreClient).createQuery(associatedEntity.javaClass, queryState)
+                .in(inverseName, new ArrayList<Serializable>(subjects.keySet()))
+
+        ((RxQuery)query).findAll().toList().subscribe(new Observer<List>() {
+            @Override
+            void onNext(List results) {
+                Map<Serializable, List> byOwner = new LinkedHashMap<>()
+                for(Object result in results) {
+                    Serializable ownerKey = convertIdentifier(association.owner, resolveIdentifier(association.owner, reflector.getProperty(result, inverseName)))
+                    List associated = byOwner.get(ownerKey)
+                    if(associated == null) {
+                        associated = []
+                        byOwner.put(ownerKey, associated)
+                    }
+                    associated.add(result)
+                }
+                for(Map.Entry<Serializable, AsyncSubject<List>> owner in subjects.entrySet()) {
+                    List associated = byOwner.get(owner.key)
+                    owner.value.onNext(associated != null ? associated : Collections.emptyList())
+                }
+            }
+
+            @Override
+            void onCompleted() {
+                for(AsyncSubject<List> subject in subjects.values()) {
+                    subject.onCompleted()
+                }
+            }
+
+            @Override
+            void onError(Throwable e) {
+                for(AsyncSubject<List> subject in subjects.values()) {
+                    subject.onError(e)
+                }
+            }
+        })
+    }
+
+    protected MappingContext getMappingContext() {
+        return datastoreClient.mappingContext
+    }
+
+    protected PersistentEntity getPersistentEntity(Class type) {
+        PersistentEntity entity = mappingContext.getPersistentEntity(type.name)
+        if(entity == null) {
+            throw new IllegalArgumentException("Type [$type.name] is not a persistent type")
+        }
+        return entity
+    }
+
+    protected Serializable resolveIdentifier(PersistentEntity entity, Object value) {
+        if(value == null) {
+            return null
+        }
+        ProxyHandler proxyHandler = mappingContext.proxyHandler
+        if(proxyHandler.isProxy(value)) {
+            return proxyHandler.getIdentifier(value)
+        }
+        if(entity.isInstance(value)) {
+            return mappingContext.getEntityReflector(entity).getIdentifier(value)
+        }
+        return (Serializable)value
+    }
+
+    /**
+     * Converts identifiers to the identity type of the entity so that keys of different numeric types match
+     */
+    protected Serializable convertIdentifier(PersistentEntity entity, Serializable id) {
+        Class idType = entity.identity.type
+        if(id == null || idType.isInstance(id) || !mappingContext.conversionService.canConvert(id.getClass(), idType)) {
+            return id
+        }
+        return (Serializable)mappingContext.conversionService.convert(id, idType)
+    }
+}
@@ -1,8 +1,10 @@
 package org.grails.datastore.rx.query
 
 import groovy.transform.CompileStatic
+import org.grails.datastore.rx.RxDatastoreClient
 
 import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ConcurrentMap
 
 /**
  *
@@ -14,21 +16,42 @@ import java.util.concurrent.ConcurrentHashMap
 @CompileStatic
 class QueryState {
 
-    private final Map<Class, Map<Serializable, Object>> loadedEntities = new ConcurrentHashMap<>()
+    private final ConcurrentMap<Class, Map<Serializable, Object>> loadedEntities = new ConcurrentHashMap<>()
+    private final ConcurrentMap<Object, QueryState> partitions = new ConcurrentHashMap<>()
+    private final int maxEntities
+    private volatile BatchLoader batchLoader
 
     QueryState() {
+        this(0)
+    }
+
+    /**
+     * Creates a query state that retains at most the given number of the most recently used entities of each type, so that it
+     * can be shared as an identity map by many operations without growing without bounds
+     *
+     * @param maxEntities The maximum number of entities per type or zero for no limit
+     */
+    QueryState(int maxEntities) {
+        this.maxEntities = maxEntities
+    }
+
+    /**
+     * @return The maximum number of entities retained per type or zero if there is no limit
+     */
+    int getMaxEntities() {
+        return maxEntities
     }
 
     void addLoadedEntity(Class type, Serializable id, Object object) {
         def loadedByType = loadedEntities.get(type)
         if(loadedByType == null) {
-            loadedByType = new ConcurrentHashMap<Serializable, Object>()
-            loadedByType.put(id, object)
-            loadedEntities.put(type, loadedByType)
-        }
-        else {
-            loadedByType.put(id, object)
+            Map<Serializable, Object> newLoadedByType = maxEntities > 0 ? Collections.synchronizedMap(new LeastRecentlyUsedMap(maxEntities)) : new ConcurrentHashMap<Serializable, Object>()
+            loadedByType = loadedEntities.putIfAbsent(type, newLoadedByType)
+            if(loadedByType == null) {
+                loadedByType = newLoadedByType
+            }
         }
+        loadedByType.put(id, object)
     }
 
     public <T> T getLoadedEntity(Class<T> type, Serializable id) {
@@ -40,4 +63,71 @@ class QueryState {
             return (T) loadedByType.get(id)
         }
     }
+
+    /**
+     * Removes an entity, for example once it has been deleted, from the types it is an instance of
+     *
+     * @param type The type of the entity
+     * @param id The identifier
+     */
+    void removeLoadedEntity(Class type, Serializable id) {
+        for(Map.Entry<Class, Map<Serializable, Object>> loadedByType in loadedEntities.entrySet()) {
+            if(loadedByType.key.isAssignableFrom(type)) {
+                loadedByType.value.remove(id)
+            }
+        }
+    }
+
+    /**
+     * Obtains a query state with the same limits that is isolated from this one and from the other partitions, so that the
+     * entities of different tenants or connection sources are never mixed up
+     *
+     * @param key The key of the partition
+     * @return The query state of the partition
+     */
+    QueryState getPartition(Object key) {
+        QueryState partition = partitions.get(key)
+        if(partition == null) {
+            QueryState newPartition = new QueryState(maxEntities)
+            partition = partitions.putIfAbsent(key, newPartition)
+            if(partition == null) {
+                partition = newPartition
+            }
+        }
+        return partition
+    }
+
+    /**
+     * Obtains the {@link BatchLoader} used to coalesce the lazy loads of proxies and collections created with this query state
+     *
+     * @param datastoreClient The datastore client
+     * @return The batch loader
+     */
+    BatchLoader getBatchLoader(RxDatastoreClient datastoreClient) {
+        BatchLoader loader = batchLoader
+        if(loader == null) {
+            synchronized (this) {
+                loader = batchLoader
+                if(loader == null) {
+                    loader = new BatchLoader(datastoreClient, this)
+                    batchLoader = loader
+                }
+            }
+        }
+        return loader
+    }
+
+    private static class LeastRecentlyUsedMap extends LinkedHashMap<Serializable, Object> {
+        private final int maxEntries
+
+        LeastRecentlyUsedMap(int maxEntries) {
+            super(16, 0.75f, true)
+            this.maxEntries = maxEntries
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Serializable, Object> eldest) {
+            return size() > maxEntries
+        }
+    }
 }
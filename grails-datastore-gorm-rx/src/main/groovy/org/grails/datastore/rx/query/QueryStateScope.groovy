@@ -0,0 +1,112 @@
+package org.grails.datastore.rx.query
+
+import grails.gorm.multitenancy.Tenants
+import groovy.transform.CompileStatic
+import org.grails.datastore.mapping.multitenancy.exceptions.TenantNotFoundException
+import org.grails.datastore.rx.RxDatastoreClient
+
+/**
+ * Binds a {@link QueryState} to the current thread so that it is shared as an identity map by the operations created within
+ * a scope, giving reactive code first level cache semantics without blocking. As with the tenant id bound by
+ * {@link grails.gorm.rx.multitenancy.Tenants}, the scope applies to the operations created while the closure executes.
+ * Operations created later, for example within a <code>flatMap</code> function, can rejoin the scope by passing the query
+ * state to {@link #withQueryState(QueryState, groovy.lang.Closure)}
+ *
+ * The entities of each connection source and tenant are kept in a separate partition of the bound query state, since they
+ * may share identifiers and an instance of one tenant must never be returned to another
+ *
+ * @author Graeme Rocher
+ * @since 7.0
+ */
+@CompileStatic
+class QueryStateScope {
+
+    /**
+     * The default maximum number of entities per type retained by a scoped query state
+     */
+    public static final int DEFAULT_MAX_ENTITIES = 10000
+
+    private static final ThreadLocal<QueryState> CURRENT = new ThreadLocal<>()
+
+    /**
+     * @return The query state bound to the current thread or null if there is none
+     */
+    static QueryState current() {
+        return CURRENT.get()
+    }
+
+    /**
+     * @return The query state bound to the current thread or a new query state if there is none
+     */
+    static QueryState currentOrNew() {
+        QueryState queryState = CURRENT.get()
+        return queryState != null ? queryState : new QueryState()
+    }
+
+    /**
+     * @param datastoreClient The datastore client
+     * @return The partition of the bound query state for the connection source of the client and the current tenant,
+     * or null if there is no bound query state
+     */
+    static QueryState current(RxDatastoreClient datastoreClient) {
+        QueryState queryState = CURRENT.get()
+        return queryState != null ? queryState.getPartition(partitionKey(datastoreClient)) : null
+    }
+
+    /**
+     * @param datastoreClient The datastore client
+     * @return The partition of the bound query state for the client or a new query state if there is none
+     * @see #current(RxDatastoreClient)
+     */
+    static QueryState currentOrNew(RxDatastoreClient datastoreClient) {
+        QueryState queryState = current(datastoreClient)
+        return queryState != null ? queryState : new QueryState()
+    }
+
+    /**
+     * Executes the closure with the given query state bound to the current thread. The query state is passed to the closure
+     * if it accepts an argument
+     *
+     * @param queryState The query state
+     * @param callable The closure
+     * @return The result of the closure
+     */
+    static <T> T withQueryState(QueryState queryState, Closure<T> callable) {
+        QueryState previous = CURRENT.get()
+        CURRENT.set(queryState)
+        try {
+            return callable.maximumNumberOfParameters == 0 ? callable.call() : callable.call(queryState)
+        }
+        finally {
+            if(previous != null) {
+                CURRENT.set(previous)
+            }
+            else {
+                CURRENT.remove()
+            }
+        }
+    }
+
+    protected static Object partitionKey(RxDatastoreClient datastoreClient) {
+        String connectionSourceName = datastoreClient.connectionSources.defaultConnectionSource.name
+        Serializable tenantId = datastoreClient.multiTenancyMode.isSharedConnection() ? currentTenantId(datastoreClient) : null
+        return tenantId != null ? Arrays.asList(connectionSourceName, tenantId) : connectionSourceName
+    }
+
+    /**
+     * Resolves the tenant in the same way as {@link grails.gorm.rx.multitenancy.Tenants#currentId(java.lang.Class)}, so that the
+     * partition matches the tenant the queries are restricted to whether it is bound or comes from the tenant resolver
+     */
+    private static Serializable currentTenantId(RxDatastoreClient datastoreClient) {
+        Serializable tenantId = Tenants.boundId()
+        if(tenantId != null) {
+            return tenantId
+        }
+        try {
+            return datastoreClient.tenantResolver.resolveTenantIdentifier()
+        } catch (TenantNotFoundException ignored) {
+            // no tenant, only entities that are not multi tenant can be queried
+            return null
+        }
+    }
+}
@@ -12,6 +12,14 @@ import rx.Observable
 @CompileStatic
 interface RxQuery<T> {
 
+    /**
+     * The argument that streams the results in batches of the given size using keyset pagination. It is a hint: implementations
+     * that support it delegate to {@link RxQueryUtils#findAllInBatches(org.grails.datastore.mapping.model.PersistentEntity, java.util.Map, rx.functions.Func0)},
+     * those that do not ignore it and return the same results without batching
+     *
+     * @see RxQueryUtils#findAllInBatches(org.grails.datastore.mapping.model.PersistentEntity, java.util.Map, rx.functions.Func0)
+     */
+    String ARGUMENT_BATCH_SIZE = "batchSize"
 
     /**
      * @return All results matching this query as an observable
@@ -19,7 +27,8 @@ interface RxQuery<T> {
     Observable<T> findAll()
 
     /**
-     * @param queryArguments The query arguments. These are things like the max, offset etc.
+     * @param queryArguments The query arguments. These are things like the max, offset etc. If the {@link #ARGUMENT_BATCH_SIZE}
+     * argument is specified and supported the results are fetched in batches as the subscriber requests them
      *
      * @return All results matching this query as an observable
      */
@@ -3,6 +3,7 @@ package org.grails.datastore.rx.query
 import grails.gorm.rx.collection.RxUnidirectionalCollection
 import grails.gorm.rx.proxy.ObservableProxy
 import groovy.transform.CompileStatic
+import org.grails.datastore.gorm.finders.DynamicFinder
 import org.grails.datastore.mapping.dirty.checking.DirtyCheckable
 import org.grails.datastore.mapping.dirty.checking.DirtyCheckingSupport
 import org.grails.datastore.mapping.model.PersistentEntity
@@ -11,12 +12,17 @@ import org.grails.datastore.mapping.model.types.ManyToMany
 import org.grails.datastore.mapping.model.types.ManyToOne
 import org.grails.datastore.mapping.model.types.ToMany
 import org.grails.datastore.mapping.model.types.ToOne
+import org.grails.datastore.mapping.query.Query
+import org.grails.datastore.mapping.query.Restrictions
 import org.grails.datastore.mapping.reflect.EntityReflector
 import org.grails.datastore.rx.internal.RxDatastoreClientImplementor
 import rx.Observable
+import rx.functions.Func0
+import rx.functions.Func1
 import rx.functions.FuncN
 
 import javax.persistence.FetchType
+import java.util.concurrent.atomic.AtomicReference
 
 /**
  * Utility methods for building Query implementations
@@ -134,4 +140,126 @@ class RxQueryUtils {
         }
         return observable
     }
+
+    /**
+     * Streams the results of a query in batches of the size given by the {@link RxQuery#ARGUMENT_BATCH_SIZE} argument using
+     * keyset pagination. Each batch is fetched when the subscriber has consumed the previous one and resumes after the sort
+     * values of the last result of the previous batch, so no more than two batches are held in memory regardless of the size
+     * of the result set. The results are ordered by the sort properties of the query followed by the identity, which must
+     * therefore be non-null properties of the entity. Projections are not supported. The offset is applied by the query of the
+     * first batch and the max limits the batches, so rows outside the requested range are not fetched.
+     *
+     * @param entity The entity being queried
+     * @param queryArguments The query arguments
+     * @param queryFactory Creates a new query with the criteria and order of the original query for each batch
+     *
+     * @return An observable that emits each result
+     */
+    static Observable findAllInBatches(PersistentEntity entity, Map<String, Object> queryArguments, Func0<Query> queryFactory) {
+        int batchSize = intArgument(queryArguments, RxQuery.ARGUMENT_BATCH_SIZE, 0)
+        if(batchSize < 1) {
+            throw new IllegalArgumentException("Argument [$RxQuery.ARGUMENT_BATCH_SIZE] must be greater than zero")
+        }
+        int max = intArgument(queryArguments, DynamicFinder.ARGUMENT_MAX, -1)
+        int offset = intArgument(queryArguments, DynamicFinder.ARGUMENT_OFFSET, 0)
+        Map<String, Object> batchArguments = new LinkedHashMap<>(queryArguments)
+        batchArguments.remove(RxQuery.ARGUMENT_BATCH_SIZE)
+        batchArguments.remove(DynamicFinder.ARGUMENT_MAX)
+        batchArguments.remove(DynamicFinder.ARGUMENT_OFFSET)
+        EntityReflector entityReflector = entity.mappingContext.getEntityReflector(entity)
+        // no batch needs to be larger than the number of results requested
+        int pageSize = max > -1 ? Math.min(batchSize, max) : batchSize
+        if(pageSize == 0) {
+            return Observable.empty()
+        }
+
+        Observable results = Observable.defer({
+            // the sort values of the last result of the previous batch
+            AtomicReference<Object[]> lastKeys = new AtomicReference<>()
+
+            Observable.range(0, Integer.MAX_VALUE).concatMap({ Integer batch ->
+                Observable.defer({
+                    Query query = queryFactory.call()
+                    DynamicFinder.populateArgumentsForCriteria(entity.javaClass, query, batchArguments)
+                    if(!query.projections().isEmpty()) {
+                        throw new IllegalArgumentException("Argument [$RxQuery.ARGUMENT_BATCH_SIZE] cannot be used with projections")
+                    }
+                    List<Query.Order> orders = keysetOrders(entity, query)
+                    Object[] previous = lastKeys.get()
+                    if(previous != null) {
+                        query.add(keysetCriterion(orders, previous))
+                    }
+                    // later batches resume after the last result, which already accounts for the offset
+                    query.max(pageSize).offset(previous == null ? offset : 0)
+
+                    ((RxQuery)query).findAll(Collections.<String, Object>emptyMap()).toList().doOnNext { List batchResults ->
+                        if(!batchResults.isEmpty()) {
+                            lastKeys.set(keysetValues(entity, entityReflector, orders, batchResults.get(batchResults.size() - 1)))
+                        }
+                    }
+                } as Func0<Observable<List>>)
+            } as Func1<Integer, Observable<List>>)
+            .takeUntil({ List batchResults -> batchResults.size() < pageSize } as Func1<List, Boolean>)
+            .concatMap({ List batchResults -> Observable.from(batchResults) } as Func1<List, Observable>)
+        } as Func0<Observable>)
+
+        if(max > -1) {
+            results = results.take(max)
+        }
+        return results
+    }
+
+    private static List<Query.Order> keysetOrders(PersistentEntity entity, Query query) {
+        String identityName = entity.identity.name
+        Map<String, Query.Order> orders = new LinkedHashMap<>()
+        for(Query.Order order in query.getOrderBy()) {
+            if(!orders.containsKey(order.property)) {
+                orders.put(order.property, order)
+            }
+        }
+        if(!orders.containsKey(identityName)) {
+            // the identity breaks ties between results with the same sort values
+            Query.Order byIdentity = Query.Order.asc(identityName)
+            query.order(byIdentity)
+            orders.put(identityName, byIdentity)
+        }
+        return new ArrayList<Query.Order>(orders.values())
+    }
+
+    private static Query.Criterion keysetCriterion(List<Query.Order> orders, Object[] lastKeys) {
+        // (a > ?) or (a = ? and b > ?) or ...
+        Query.Disjunction after = new Query.Disjunction()
+        for(int i = 0; i < orders.size(); i++) {
+            Query.Conjunction conjunction = new Query.Conjunction()
+            for(int j = 0; j < i; j++) {
+                conjunction.add(Restrictions.eq(orders.get(j).property, lastKeys[j]))
+            }
+            Query.Order order = orders.get(i)
+            if(order.direction == Query.Order.Direction.DESC) {
+                conjunction.add(Restrictions.lt(order.property, lastKeys[i]))
+            }
+            else {
+                conjunction.add(Restrictions.gt(order.property, lastKeys[i]))
+            }
+            after.add(conjunction)
+        }
+        return after
+    }
+
+    private static Object[] keysetValues(PersistentEntity entity, EntityReflector entityReflector, List<Query.Order> orders, Object result) {
+        Object[] values = new Object[orders.size()]
+        for(int i = 0; i < orders.size(); i++) {
+            String property = orders.get(i).property
+            values[i] = property == entity.identity.name ? entityReflector.getIdentifier(result) : entityReflector.getProperty(result, property)
+        }
+        return values
+    }
+
+    private static int intArgument(Map<String, Object> arguments, String name, int defaultValue) {
+        Object value = arguments.get(name)
+        if(value == null) {
+            return defaultValue
+        }
+        return value instanceof Number ? ((Number)value).intValue() : Integer.parseInt(value.toString())
+    }
 }
@@ -10,7 +10,9 @@ import groovy.transform.CompileDynamic
 import groovy.transform.CompileStatic
 import org.grails.datastore.gorm.GormValidateable
 import org.grails.datastore.gorm.finders.DynamicFinder
+import org.grails.datastore.gorm.finders.DynamicFinderInvocation
 import org.grails.datastore.gorm.finders.FinderMethod
+import org.grails.datastore.gorm.finders.MethodExpression
 import org.grails.datastore.mapping.core.connections.ConnectionSource
 import org.grails.datastore.mapping.core.connections.ConnectionSources
 import org.grails.datastore.mapping.model.PersistentEntity
@@ -18,12 +20,17 @@ import org.grails.datastore.mapping.multitenancy.MultiTenancySettings
 import org.grails.datastore.mapping.query.api.Criteria
 import org.grails.datastore.mapping.validation.ValidationException
 import org.grails.datastore.rx.RxDatastoreClient
+import org.grails.datastore.rx.query.QueryState
+import org.grails.datastore.rx.query.QueryStateScope
 import org.grails.datastore.rx.query.RxQuery
 import org.grails.gorm.rx.api.multitenancy.TenantDelegatingRxGormOperations
 import org.grails.gorm.rx.finders.*
 import org.springframework.beans.PropertyAccessorFactory
 import rx.Observable
 import rx.Subscriber
+
+import java.util.concurrent.ConcurrentHashMap
+
 /**
  * Bridge to the implementation of the static method level operations for RX GORM
  *
@@ -39,6 +46,7 @@ class RxGormStaticApi<D> implements RxGormAllOperations<D> {
 
     final List<FinderMethod> gormDynamicFinders
 
+    protected final Map<String, DynamicFinder> resolvedFinders = new ConcurrentHashMap<>()
     protected final MultiTenancySettings.MultiTenancyMode multiTenancyMode
     protected final ConnectionSources connectionSources
 
@@ -65,6 +73,14 @@ class RxGormStaticApi<D> implements RxGormAllOperations<D> {
     @Override
     Observable<D> get(Serializable id, Map args = Collections.emptyMap()) {
         def clazz = entity.javaClass
+        // the partition of the current connection source and tenant, so that an entity loaded for another tenant is never returned
+        QueryState session = QueryStateScope.current(datastoreClient)
+        if(session != null && args.isEmpty()) {
+            D loaded = (D)session.getLoadedEntity(clazz, convertIdentifier(id))
+            if(loaded != null) {
+                return Observable.just(loaded)
+            }
+        }
         def query = datastoreClient.createQuery(clazz, args)
         query.idEq(id)
         query.max(1)
@@ -188,6 +204,20 @@ class RxGormStaticApi<D> implements RxGormAllOperations<D> {
         saveAll(Arrays.asList(objects))
     }
 
+    @Override
+    Observable<Serializable> saveAll(Observable<D> objects, int batchSize, Map arguments = Collections.emptyMap()) {
+        boolean shouldValidate = arguments?.containsKey("validate") ? arguments.validate : true
+        if(shouldValidate) {
+            objects = objects.map { D object ->
+                if((object instanceof GormValidateable) && !((GormValidateable)object).validate()) {
+                    throw new ValidationException("Validation error occurred during call to save() for entity [$object]", ((GormValidateable)object).errors)
+                }
+                return object
+            }
+        }
+        return datastoreClient.persistAll(objects, batchSize, arguments)
+    }
+
     @Override
     Observable<List<Serializable>> insertAll(Iterable<D> objects, Map arguments = [:]) {
         boolean shouldValidate = arguments?.containsKey("validate") ? arguments.validate : true
@@ -466,6 +496,31 @@ class RxGormStaticApi<D> implements RxGormAllOperations<D> {
         return method.invoke(persistentClass, methodName, args)
     }
 
+    /**
+     * Invokes a dynamic finder whose method name was parsed at compile time by {@link org.grails.gorm.rx.transform.RxDynamicFinderTransformation},
+     * bypassing the method name matching and metaclass dispatch of {@link #methodMissing(java.lang.String, java.lang.Object)}
+     *
+     * @param methodName The name of the finder
+     * @param operator The operator joining the expressions or null if there is only one expression
+     * @param expressions The unbound method expressions of the finder
+     * @param args The arguments
+     * @return An observable with the result
+     */
+    Observable invokeFinder(String methodName, String operator, MethodExpression[] expressions, Object[] args) {
+        DynamicFinder finder = resolvedFinders.get(methodName)
+        if(finder == null) {
+            FinderMethod method = gormDynamicFinders.find { FinderMethod f -> f.isMethodMatch(methodName) }
+            if(!(method instanceof DynamicFinder)) {
+                throw new MissingMethodException(methodName, persistentClass, args)
+            }
+            finder = (DynamicFinder)method
+            resolvedFinders.put(methodName, finder)
+        }
+
+        DynamicFinderInvocation invocation = finder.createFinderInvocation(persistentClass, methodName, operator, Arrays.asList(expressions), args)
+        return (Observable)finder.invoke(invocation)
+    }
+
 
     /**
      * Property missing handler
@@ -586,6 +641,18 @@ class RxGormStaticApi<D> implements RxGormAllOperations<D> {
         }
     }
 
+    @Override
+    def <T> T withSession(@DelegatesTo(RxGormAllOperations) Closure<T> callable) {
+        QueryState current = QueryStateScope.current()
+        return withSession(current != null ? current : new QueryState(QueryStateScope.DEFAULT_MAX_ENTITIES), callable)
+    }
+
+    @Override
+    def <T> T withSession(QueryState session, @DelegatesTo(RxGormAllOperations) Closure<T> callable) {
+        callable.setDelegate(this)
+        return QueryStateScope.withQueryState(session, callable)
+    }
+
     @Override
     RxGormAllOperations<D> eachTenant(@DelegatesTo(RxGormAllOperations) Closure callable) {
         Tenants.eachTenant((Class<RxDatastoreClient>)datastoreClient.getClass()) { Serializable tenantId ->
@@ -608,4 +675,13 @@ class RxGormStaticApi<D> implements RxGormAllOperations<D> {
             throw new UnsupportedOperationException("Method not supported in multi tenancy mode $multiTenancyMode")
         }
     }
+
+    protected Serializable convertIdentifier(Serializable id) {
+        Class identityType = entity.identity.type
+        def conversionService = entity.mappingContext.conversionService
+        if(id == null || identityType.isInstance(id) || !conversionService.canConvert(id.getClass(), identityType)) {
+            return id
+        }
+        return (Serializable)conversionService.convert(id, identityType)
+    }
 }
@@ -7,7 +7,10 @@ import grails.gorm.rx.multitenancy.Tenants
 import grails.gorm.rx.proxy.ObservableProxy
 import groovy.transform.CompileStatic
 import org.grails.datastore.rx.RxDatastoreClient
+import org.grails.datastore.rx.internal.RxDatastoreClientImplementor
+import org.grails.datastore.rx.query.QueryState
 import rx.Observable
+import rx.functions.Func1
 
 /**
  * Delegates to a RxGORM API ensuring the tenant id is correct
@@ -168,6 +171,22 @@ class TenantDelegatingRxGormOperations<D> implements RxGormAllOperations<D> {
         }
     }
 
+    @Override
+    Observable<Serializable> saveAll(Observable<D> objects, int batchSize) {
+        return saveAll(objects, batchSize, Collections.emptyMap())
+    }
+
+    @Override
+    Observable<Serializable> saveAll(Observable<D> objects, int batchSize, Map arguments) {
+        // the batches are saved as they are emitted, long after this method returned, so each batch re-enters the tenant scope
+        return ((RxDatastoreClientImplementor)datastoreClient).persistAll(objects, batchSize, arguments, { List batch ->
+            Observable<List<Serializable>> saved = Tenants.withId(datastoreClientClass, tenantId) {
+                delegateOperations.saveAll((Iterable<D>)batch, arguments)
+            }
+            return saved
+        } as Func1<List, Observable<List<Serializable>>>)
+    }
+
     @Override
     Observable<List<Serializable>> insertAll(Iterable<D> objects) {
         Tenants.withId(datastoreClientClass, tenantId) {
@@ -392,4 +411,18 @@ class TenantDelegatingRxGormOperations<D> implements RxGormAllOperations<D> {
     RxGormAllOperations<D> withTenant(Serializable tenantId) {
         return delegateOperations.withTenant(tenantId)
     }
+
+    @Override
+    def <T> T withSession(@DelegatesTo(RxGormAllOperations) Closure<T> callable) {
+        Tenants.withId(datastoreClientClass, tenantId) {
+            delegateOperations.withSession(callable)
+        }
+    }
+
+    @Override
+    def <T> T withSession(QueryState session, @DelegatesTo(RxGormAllOperations) Closure<T> callable) {
+        Tenants.withId(datastoreClientClass, tenantId) {
+            delegateOperations.withSession(session, callable)
+        }
+    }
 }
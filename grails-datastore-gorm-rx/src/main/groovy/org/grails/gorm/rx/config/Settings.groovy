@@ -12,4 +12,9 @@ interface Settings extends org.grails.datastore.mapping.config.Settings{
      * Whether blocking operations are allowed
      */
     String SETTING_ALLOW_BLOCKING = "${PREFIX}.rx.allowBlocking"
+
+    /**
+     * Whether blocking operations requested from a thread of a non-blocking scheduler fail instead of stalling the scheduler
+     */
+    String SETTING_BLOCKING_DETECT = "${PREFIX}.rx.blocking.detect"
 }
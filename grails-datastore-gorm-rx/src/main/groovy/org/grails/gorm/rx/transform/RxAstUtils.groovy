@@ -29,7 +29,7 @@ class RxAstUtils extends AstUtils {
      * @return True if is an {@link RxEntity}
      */
     static boolean isRxEntity(ClassNode classNode) {
-        isSubclassOf(classNode, RX_ENTITY.name)
+        isSubclassOf(classNode, RX_ENTITY.name) || implementsInterface(classNode, RX_ENTITY)
     }
     /**
      * Return if the given class is an Observable of domain class
@@ -0,0 +1,36 @@
+package org.grails.gorm.rx.transform
+
+import groovy.transform.CompileStatic
+import org.codehaus.groovy.ast.ASTNode
+import org.codehaus.groovy.ast.ClassNode
+import org.codehaus.groovy.ast.ModuleNode
+import org.codehaus.groovy.control.CompilePhase
+import org.codehaus.groovy.control.SourceUnit
+import org.codehaus.groovy.transform.ASTTransformation
+import org.codehaus.groovy.transform.GroovyASTTransformation
+
+/**
+ * A global transformation that binds the dynamic finders of {@link grails.gorm.rx.RxEntity} types at compile time, so that
+ * reactive code does not pay for method name parsing and metaclass dispatch on each call
+ *
+ * @see RxDynamicFinderTransformer
+ *
+ * @author Graeme Rocher
+ * @since 7.0
+ */
+@CompileStatic
+@GroovyASTTransformation(phase = CompilePhase.CANONICALIZATION)
+class RxDynamicFinderTransformation implements ASTTransformation {
+
+    @Override
+    void visit(ASTNode[] nodes, SourceUnit source) {
+        ModuleNode ast = source.getAST()
+        if(ast == null) {
+            return
+        }
+        RxDynamicFinderTransformer transformer = new RxDynamicFinderTransformer(source)
+        for(ClassNode classNode in ast.classes) {
+            transformer.visitClass(classNode)
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package org.grails.gorm.rx.transform
+
+import groovy.transform.CompileStatic
+import org.codehaus.groovy.ast.ClassCodeExpressionTransformer
+import org.codehaus.groovy.ast.ClassHelper
+import org.codehaus.groovy.ast.ClassNode
+import org.codehaus.groovy.ast.expr.ArgumentListExpression
+import org.codehaus.groovy.ast.expr.ArrayExpression
+import org.codehaus.groovy.ast.expr.ClassExpression
+import org.codehaus.groovy.ast.expr.ClosureExpression
+import org.codehaus.groovy.ast.expr.Expression
+import org.codehaus.groovy.ast.expr.MethodCallExpression
+import org.codehaus.groovy.ast.expr.SpreadExpression
+import org.codehaus.groovy.ast.expr.SpreadMapExpression
+import org.codehaus.groovy.control.SourceUnit
+import org.grails.datastore.gorm.finders.DynamicFinder
+import org.grails.datastore.gorm.finders.MatchSpec
+import org.grails.datastore.gorm.finders.MethodExpression
+import org.grails.gorm.rx.api.RxGormEnhancer
+import rx.Observable
+
+import java.lang.reflect.Modifier
+
+import static org.codehaus.groovy.ast.tools.GeneralUtils.*
+
+/**
+ * Rewrites dynamic finder calls on {@link grails.gorm.rx.RxEntity} types whose method name is known at compile time, for
+ * example <code>Book.findByTitle(title)</code>, into a call to {@link org.grails.gorm.rx.api.RxGormStaticApi#invokeFinder}
+ * with the method expressions of the finder already resolved. Calls that cannot be resolved at compile time are left to
+ * be dispatched through <code>methodMissing</code> at runtime
+ *
+ * @author Graeme Rocher
+ * @since 7.0
+ */
+@CompileStatic
+class RxDynamicFinderTransformer extends ClassCodeExpressionTransformer {
+
+    /**
+     * The prefixes of the finders that are resolved at compile time, in the order they are matched
+     */
+    static final List<String> FINDER_PREFIXES = ['findOrCreateBy', 'findOrSaveBy', 'findAllBy', 'findBy', 'countBy']
+
+    private static final ClassNode STATIC_API_LOOKUP = ClassHelper.make(RxGormEnhancer)
+    private static final ClassNode METHOD_EXPRESSION = ClassHelper.make(MethodExpression)
+    private static final ClassNode OBSERVABLE = ClassHelper.make(Observable)
+
+    final SourceUnit sourceUnit
+
+    RxDynamicFinderTransformer(SourceUnit sourceUnit) {
+        this.sourceUnit = sourceUnit
+    }
+
+    @Override
+    protected SourceUnit getSourceUnit() {
+        return sourceUnit
+    }
+
+    @Override
+    Expression transform(Expression exp) {
+        if(exp instanceof ClosureExpression) {
+            exp.visit(this)
+            return exp
+        }
+
+        Expression transformed = super.transform(exp)
+        if(transformed instanceof MethodCallExpression) {
+            Expression finderCall = transformFinderCall((MethodCallExpression) transformed)
+            if(finderCall != null) {
+                return finderCall
+            }
+        }
+        return transformed
+    }
+
+    /**
+     * Transforms a call to a dynamic finder
+     *
+     * @param call The method call
+     * @return The statically bound finder call or null if the call is not a dynamic finder that can be resolved at compile time
+     */
+    protected Expression transformFinderCall(MethodCallExpression call) {
+        Expression objectExpression = call.objectExpression
+        String methodName = call.methodAsString
+        if(!(objectExpression instanceof ClassExpression) || methodName == null || call.isSpreadSafe() || !(call.arguments instanceof ArgumentListExpression)) {
+            return null
+        }
+
+        ClassNode entityNode = objectExpression.type
+        String prefix = FINDER_PREFIXES.find { String p -> methodName.startsWith(p) }
+        if(prefix == null || !RxAstUtils.isRxEntity(entityNode) || entityNode.hasPossibleStaticMethod(methodName, call.arguments)) {
+            return null
+        }
+
+        List<Expression> arguments = ((ArgumentListExpression) call.arguments).expressions
+        if(arguments.any { Expression e -> e instanceof SpreadExpression || e instanceof SpreadMapExpression }) {
+            return null
+        }
+
+        MatchSpec matchSpec
+        try {
+            matchSpec = DynamicFinder.buildMatchSpec(prefix, methodName, arguments.size())
+        } catch (IllegalArgumentException ignored) {
+            return null
+        }
+        if(matchSpec == null) {
+            return null
+        }
+
+        ClassNode entityType = entityNode.plainNodeReference
+        List<Expression> methodExpressions = []
+        for(MethodExpression methodExpression in matchSpec.methodCallExpressions) {
+            Class expressionType = methodExpression.getClass()
+            // negated expressions have no type of their own so are left to be resolved at runtime
+            if(expressionType.isAnonymousClass() || !Modifier.isPublic(expressionType.modifiers)) {
+                return null
+            }
+            methodExpressions.add(
+                ctorX(ClassHelper.make(expressionType), args(classX(entityType), constX(methodExpression.propertyName)))
+            )
+        }
+
+        Expression staticApi = callX(classX(STATIC_API_LOOKUP), "findStaticApi", args(classX(entityType)))
+        Expression finderCall = callX(staticApi, "invokeFinder", args(
+                constX(methodName),
+                constX(matchSpec.operator),
+                new ArrayExpression(METHOD_EXPRESSION, methodExpressions),
+                new ArrayExpression(ClassHelper.OBJECT_TYPE, arguments)
+        ))
+        Expression result = castX(OBSERVABLE, finderCall)
+        result.setSourcePosition(call)
+        return result
+    }
+}
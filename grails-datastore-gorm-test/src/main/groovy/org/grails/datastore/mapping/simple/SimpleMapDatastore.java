@@ -18,9 +18,11 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.io.Serializable;
 import java.util.Collections;
-import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import groovy.lang.Closure;
 import org.grails.datastore.gorm.GormEnhancer;
@@ -28,6 +30,7 @@ import org.grails.datastore.gorm.GormInstanceApi;
 import org.grails.datastore.gorm.GormStaticApi;
 import org.grails.datastore.gorm.GormValidationApi;
 import org.grails.datastore.gorm.events.*;
+import org.grails.datastore.gorm.multitenancy.CurrentTenantResolver;
 import org.grails.datastore.gorm.multitenancy.MultiTenantEventListener;
 import org.grails.datastore.gorm.utils.ClasspathEntityScanner;
 import org.grails.datastore.mapping.config.Settings;
@@ -38,12 +41,15 @@ import org.grails.datastore.mapping.core.Session;
 import org.grails.datastore.mapping.core.connections.*;
 import org.grails.datastore.mapping.core.exceptions.ConfigurationException;
 import org.grails.datastore.mapping.keyvalue.mapping.config.KeyValueMappingContext;
+import org.grails.datastore.mapping.metrics.InMemoryDatastoreMetrics;
 import org.grails.datastore.mapping.model.MappingContext;
 import org.grails.datastore.mapping.model.PersistentEntity;
 import org.grails.datastore.mapping.multitenancy.MultiTenancySettings;
 import org.grails.datastore.mapping.multitenancy.SchemaMultiTenantCapableDatastore;
 import org.grails.datastore.mapping.multitenancy.TenantResolver;
 import org.grails.datastore.mapping.simple.connections.SimpleMapConnectionSourceFactory;
+import org.grails.datastore.mapping.simple.engine.InsertionOrderedConcurrentMap;
+import org.grails.datastore.mapping.simple.engine.PostingList;
 import org.grails.datastore.mapping.transactions.DatastoreTransactionManager;
 import org.grails.datastore.mapping.transactions.TransactionCapableDatastore;
 import org.springframework.context.ApplicationEventPublisher;
@@ -64,11 +70,13 @@ public class SimpleMapDatastore extends AbstractDatastore implements Closeable,
     private final TenantResolver tenantResolver;
     protected final GormEnhancer gormEnhancer;
     private final ConfigurableApplicationEventPublisher eventPublisher;
-    private Map indices = new ConcurrentHashMap();
+    private final ConcurrentMap<Object, List> indices = new ConcurrentHashMap<>();
+    private final Map<String, Set<Object>> reservedIdentifiers = new ConcurrentHashMap<>();
+    private final Object commitLock = new Object();
     private final PlatformTransactionManager transactionManager;
     private final ConnectionSources<Map<String,Map>, ConnectionSourceSettings> connectionSources;
     private final MultiTenancySettings.MultiTenancyMode multiTenancyMode;
-    protected final Map<String, SimpleMapDatastore> datastoresByConnectionSource = new LinkedHashMap<>();
+    protected final Map<String, SimpleMapDatastore> datastoresByConnectionSource = new ConcurrentHashMap<>();
     protected final boolean failOnError;
 
     public SimpleMapDatastore(ConnectionSources<Map<String,Map>, ConnectionSourceSettings> connectionSources, MappingContext mappingContext, ConfigurableApplicationEventPublisher eventPublisher) {
@@ -84,29 +92,20 @@ public class SimpleMapDatastore extends AbstractDatastore implements Closeable,
         this.tenantResolver = multiTenancy.getTenantResolver();
         PropertyResolver config = connectionSources.getBaseConfiguration();
         this.failOnError = config.getProperty(Settings.SETTING_FAIL_ON_ERROR, Boolean.class, false);
+        this.eventPublisher = eventPublisher;
+        if(defaultConnectionSource.getSettings().isMetrics()) {
+            setDatastoreMetrics(new InMemoryDatastoreMetrics(
+                    multiTenancyMode != MultiTenancySettings.MultiTenancyMode.NONE ? new CurrentTenantResolver(this) : null,
+                    defaultConnectionSource.getSettings().getMetricsMaxTenants()));
+        }
         if(!(connectionSources instanceof SingletonConnectionSources)) {
-
-            Iterable<ConnectionSource<Map<String,Map>, ConnectionSourceSettings>> allConnectionSources = connectionSources.getAllConnectionSources();
-            for (ConnectionSource<Map<String,Map>, ConnectionSourceSettings> connectionSource : allConnectionSources) {
-                SingletonConnectionSources singletonConnectionSources = new SingletonConnectionSources(connectionSource, connectionSources.getBaseConfiguration());
-                SimpleMapDatastore childDatastore;
-
-                if(ConnectionSource.DEFAULT.equals(connectionSource.getName())) {
-                    childDatastore = this;
-                }
-                else {
-                    childDatastore = new SimpleMapDatastore(singletonConnectionSources, mappingContext, eventPublisher) {
-                        @Override
-                        protected GormEnhancer initialize(ConnectionSourceSettings settings) {
-                            return null;
-                        }
-                    };
-                }
-                datastoresByConnectionSource.put(connectionSource.getName(), childDatastore);
-            }
+            // the child datastores of the other connection sources are created on first use
+            datastoresByConnectionSource.put(ConnectionSource.DEFAULT, this);
         }
-        this.eventPublisher = eventPublisher;
         this.gormEnhancer = initialize(defaultConnectionSource.getSettings());
+        if(gormEnhancer != null) {
+            gormEnhancer.warmUp();
+        }
     }
 
     public SimpleMapDatastore(ConnectionSources<Map<String,Map>, ConnectionSourceSettings> connectionSources, ConfigurableApplicationEventPublisher eventPublisher, Class... classes) {
@@ -251,11 +250,11 @@ public class SimpleMapDatastore extends AbstractDatastore implements Closeable,
                     if(isDefaultQualifier) {
                         qualifier = defaultConnectionSourceName;
                     }
-                    ConnectionSource<Map<String,Map>, ConnectionSourceSettings> connectionSource = connectionSources.getConnectionSource(qualifier);
-                    if(connectionSource == null) {
+                    SimpleMapDatastore datastore = findDatastoreForConnection(qualifier);
+                    if(datastore == null) {
                         throw new ConfigurationException("Invalid connection ["+defaultConnectionSourceName+"] configured for class ["+cls+"]");
                     }
-                    return SimpleMapDatastore.this.datastoresByConnectionSource.get(qualifier);
+                    return datastore;
                 }
             }
         };
@@ -265,7 +264,11 @@ public class SimpleMapDatastore extends AbstractDatastore implements Closeable,
         eventPublisher.addApplicationListener(new DomainEventListener(this));
         eventPublisher.addApplicationListener(new AutoTimestampEventListener(this));
         if(multiTenancyMode == MultiTenancySettings.MultiTenancyMode.DISCRIMINATOR) {
-            eventPublisher.addApplicationListener(new MultiTenantEventListener(this));
+            MultiTenantEventListener multiTenantEventListener = new MultiTenantEventListener(this);
+            eventPublisher.addApplicationListener(multiTenantEventListener);
+            setTenantQueryFilter(multiTenantEventListener);
+            // the session is shared by all the tenants, so partition its caches
+            setCurrentTenantResolver(new CurrentTenantResolver(this));
         }
     }
 
@@ -273,6 +276,37 @@ public class SimpleMapDatastore extends AbstractDatastore implements Closeable,
         return indices;
     }
 
+    /**
+     * Adds a key to an index. Published index lists are never modified, each change replaces the list with a {@link PostingList}
+     * that shares the backing array of the previous one, hence adding a key is amortized constant time
+     *
+     * @param index The index name
+     * @param key The key
+     */
+    public void addToIndex(Object index, Object key) {
+        indices.compute(index, (name, indexed) -> (indexed != null ? (PostingList) indexed : new PostingList()).append(key));
+    }
+
+    /**
+     * Removes a key from an index, replacing the list with a copy
+     *
+     * @param index The index name
+     * @param key The key
+     */
+    public void removeFromIndex(Object index, Object key) {
+        indices.computeIfPresent(index, (name, indexed) -> ((PostingList) indexed).without(key));
+    }
+
+    /**
+     * Obtains the committed entries of a family, creating it if necessary
+     *
+     * @param family The family
+     * @return The entries
+     */
+    public Map getFamily(String family) {
+        return inmemoryData.computeIfAbsent(family, f -> new InsertionOrderedConcurrentMap());
+    }
+
     @Override
     protected Session createSession(PropertyResolver connectionDetails) {
         return new SimpleMapSession(this, getMappingContext(), eventPublisher);
@@ -290,6 +324,48 @@ public class SimpleMapDatastore extends AbstractDatastore implements Closeable,
     public void clearData() {
         inmemoryData.clear();
         indices.clear();
+        reservedIdentifiers.clear();
+    }
+
+    /**
+     * Reserves a generated identifier so that no other session hands it out before the entry it identifies is stored
+     *
+     * @param family The family
+     * @param key The identifier
+     * @return True if the identifier was reserved, false if it is already stored or reserved
+     */
+    public boolean reserveIdentifier(String family, Object key) {
+        Set<Object> reserved = reservedIdentifiers.computeIfAbsent(family, f -> ConcurrentHashMap.newKeySet());
+        if (!reserved.add(key)) {
+            return false;
+        }
+        // checked after reserving so that an entry stored concurrently is either seen here or was still reserved above
+        Map entries = inmemoryData.get(family);
+        if (entries != null && entries.containsKey(key)) {
+            reserved.remove(key);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Releases an identifier reserved with {@link #reserveIdentifier(String, Object)}
+     *
+     * @param family The family
+     * @param key The identifier
+     */
+    public void releaseIdentifier(String family, Object key) {
+        Set<Object> reserved = reservedIdentifiers.get(family);
+        if (reserved != null) {
+            reserved.remove(key);
+        }
+    }
+
+    /**
+     * @return The lock held while a {@link SimpleMapTransaction} is validated and merged into the backing map
+     */
+    public Object getCommitLock() {
+        return commitLock;
     }
 
     @Override
@@ -339,13 +415,63 @@ public class SimpleMapDatastore extends AbstractDatastore implements Closeable,
     @Override
     public Datastore getDatastoreForConnection(String connectionName) {
 
-        SimpleMapDatastore childDatastore = datastoresByConnectionSource.get(connectionName);
+        SimpleMapDatastore childDatastore = findDatastoreForConnection(connectionName);
         if(childDatastore == null) {
             throw new ConfigurationException("No datastore found for connection named ["+connectionName+"]");
         }
         return childDatastore;
     }
 
+    /**
+     * Obtains the child datastore for the given connection, creating it on first use. If the connection source
+     * has been recreated since, for example after being evicted by {@link LazyConnectionSources}, the child datastore is rebuilt
+     *
+     * @param connectionName The connection name
+     * @return The datastore or null if no such connection exists
+     */
+    protected SimpleMapDatastore findDatastoreForConnection(String connectionName) {
+        if(connectionSources instanceof SingletonConnectionSources) {
+            return null;
+        }
+        if(ConnectionSource.DEFAULT.equals(connectionName)) {
+            return this;
+        }
+        ConnectionSource<Map<String, Map>, ConnectionSourceSettings> connectionSource = connectionSources.getConnectionSource(connectionName);
+        if(connectionSource == null) {
+            return null;
+        }
+        SimpleMapDatastore childDatastore = datastoresByConnectionSource.get(connectionName);
+        if(childDatastore == null || childDatastore.getConnectionSources().getDefaultConnectionSource() != connectionSource) {
+            synchronized (datastoresByConnectionSource) {
+                childDatastore = datastoresByConnectionSource.get(connectionName);
+                if(childDatastore == null || childDatastore.getConnectionSources().getDefaultConnectionSource() != connectionSource) {
+                    childDatastore = createChildDatastore(connectionSource);
+                    datastoresByConnectionSource.put(connectionName, childDatastore);
+                }
+            }
+        }
+        return childDatastore;
+    }
+
+    /**
+     * Creates the datastore for a non-default connection source
+     *
+     * @param connectionSource The connection source
+     * @return The child datastore
+     */
+    protected SimpleMapDatastore createChildDatastore(ConnectionSource<Map<String, Map>, ConnectionSourceSettings> connectionSource) {
+        SingletonConnectionSources singletonConnectionSources = new SingletonConnectionSources(connectionSource, connectionSources.getBaseConfiguration());
+        SimpleMapDatastore childDatastore = new SimpleMapDatastore(singletonConnectionSources, mappingContext, eventPublisher) {
+            @Override
+            protected GormEnhancer initialize(ConnectionSourceSettings settings) {
+                return null;
+            }
+        };
+        // metrics are recorded against the tenant, so share them with the parent
+        childDatastore.setDatastoreMetrics(getDatastoreMetrics());
+        return childDatastore;
+    }
+
     @Override
     public void close() throws IOException {
         try {
@@ -359,21 +485,9 @@ public class SimpleMapDatastore extends AbstractDatastore implements Closeable,
     @Override
     public void addTenantForSchema(String schemaName) {
         ConnectionSource<Map<String, Map>, ConnectionSourceSettings> connectionSource = this.connectionSources.addConnectionSource(schemaName, Collections.<String, Object>emptyMap());
-        SingletonConnectionSources singletonConnectionSources = new SingletonConnectionSources(connectionSource, connectionSources.getBaseConfiguration());
-        SimpleMapDatastore childDatastore;
-
-        if(ConnectionSource.DEFAULT.equals(connectionSource.getName())) {
-            childDatastore = this;
-        }
-        else {
-            childDatastore = new SimpleMapDatastore(singletonConnectionSources, mappingContext, eventPublisher) {
-                @Override
-                protected GormEnhancer initialize(ConnectionSourceSettings settings) {
-                    return null;
-                }
-            };
+        if(!ConnectionSource.DEFAULT.equals(connectionSource.getName())) {
+            datastoresByConnectionSource.put(connectionSource.getName(), createChildDatastore(connectionSource));
         }
-        datastoresByConnectionSource.put(connectionSource.getName(), childDatastore);
 
         for (PersistentEntity persistentEntity : mappingContext.getPersistentEntities()) {
             gormEnhancer.registerEntity(persistentEntity);
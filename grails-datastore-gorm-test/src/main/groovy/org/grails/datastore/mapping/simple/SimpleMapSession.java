@@ -14,7 +14,9 @@
  */
 package org.grails.datastore.mapping.simple;
 
+import java.util.Collection;
 import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import org.springframework.context.ApplicationEventPublisher;
 import org.grails.datastore.mapping.core.AbstractSession;
@@ -34,6 +36,8 @@ import org.grails.datastore.mapping.transactions.Transaction;
 @SuppressWarnings("rawtypes")
 public class SimpleMapSession extends AbstractSession<Map> {
     private Map<String, Map> datastore;
+    // identifiers reserved by this session whose entries have not been stored yet
+    private final Collection<ReservedIdentifier> reservedIdentifiers = new ConcurrentLinkedQueue<>();
 
     public SimpleMapSession(SimpleMapDatastore datastore, MappingContext mappingContext,
                ApplicationEventPublisher publisher) {
@@ -56,41 +60,96 @@ public class SimpleMapSession extends AbstractSession<Map> {
             (SimpleMapDatastore) getDatastore(), publisher);
     }
 
+    /**
+     * @return The backing map, including the uncommitted changes of the active transaction if there is one
+     */
     public Map<String, Map> getBackingMap() {
-        return datastore;
+        SimpleMapTransaction transaction = getActiveTransaction();
+        return transaction != null ? transaction.getBackingMap() : datastore;
+    }
+
+    /**
+     * @return The indices, including the uncommitted changes of the active transaction if there is one
+     */
+    public Map getIndices() {
+        SimpleMapTransaction transaction = getActiveTransaction();
+        return transaction != null ? transaction.getIndices() : ((SimpleMapDatastore) getDatastore()).getIndices();
+    }
+
+    /**
+     * @return The active transaction or null if there is none
+     */
+    public SimpleMapTransaction getActiveTransaction() {
+        Transaction current = transaction;
+        return current instanceof SimpleMapTransaction && current.isActive() ? (SimpleMapTransaction) current : null;
     }
 
     @Override
     protected Transaction beginTransactionInternal() {
-        return new MockTransaction(this);
+        SimpleMapTransaction active = getActiveTransaction();
+        return active != null ? active : new SimpleMapTransaction((SimpleMapDatastore) getDatastore());
     }
 
-    public Map getNativeInterface() {
-        return datastore;
+    /**
+     * Registers an identifier reserved with {@link SimpleMapDatastore#reserveIdentifier(String, Object)} by this session, which is
+     * released when the session is disconnected unless its entry is stored before
+     *
+     * @param family The family
+     * @param key The identifier
+     */
+    public void registerIdentifier(String family, Object key) {
+        reservedIdentifiers.add(new ReservedIdentifier(family, key));
     }
 
-    private class MockTransaction implements Transaction {
-        public MockTransaction(SimpleMapSession simpleMapSession) {
-        }
+    /**
+     * Stops tracking an identifier registered with {@link #registerIdentifier(String, Object)}, typically because its entry was stored
+     *
+     * @param family The family
+     * @param key The identifier
+     * @return True if the identifier was reserved by this session
+     */
+    public boolean unregisterIdentifier(String family, Object key) {
+        return reservedIdentifiers.remove(new ReservedIdentifier(family, key));
+    }
 
-        public void commit() {
-            // do nothing
+    @Override
+    public void disconnect() {
+        SimpleMapTransaction active = getActiveTransaction();
+        if (active != null) {
+            active.rollback();
         }
-
-        public void rollback() {
-            // do nothing
+        SimpleMapDatastore simpleMapDatastore = (SimpleMapDatastore) getDatastore();
+        for (ReservedIdentifier reserved : reservedIdentifiers) {
+            simpleMapDatastore.releaseIdentifier(reserved.family, reserved.key);
         }
+        reservedIdentifiers.clear();
+        super.disconnect();
+    }
+
+    public Map getNativeInterface() {
+        return getBackingMap();
+    }
+
+    private static class ReservedIdentifier {
+        final String family;
+        final Object key;
 
-        public Object getNativeTransaction() {
-            return this;
+        ReservedIdentifier(String family, Object key) {
+            this.family = family;
+            this.key = key;
         }
 
-        public boolean isActive() {
-            return true;
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof ReservedIdentifier)) return false;
+            ReservedIdentifier that = (ReservedIdentifier) o;
+            return family.equals(that.family) && key.equals(that.key);
         }
 
-        public void setTimeout(int timeout) {
-            // do nothing
+        @Override
+        public int hashCode() {
+            return 31 * family.hashCode() + key.hashCode();
         }
     }
 }
@@ -0,0 +1,450 @@
+package org.grails.datastore.mapping.simple;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.grails.datastore.mapping.core.OptimisticLockingException;
+import org.grails.datastore.mapping.model.PersistentEntity;
+import org.grails.datastore.mapping.simple.engine.PostingList;
+import org.grails.datastore.mapping.transactions.Transaction;
+import org.springframework.dao.DuplicateKeyException;
+
+/**
+ * A copy-on-write transaction for the {@link SimpleMapDatastore}. The entries and index changes written within the transaction
+ * are kept in a write set that is only visible to the session that owns it. On commit the versions of the entries as they were
+ * when first read within the transaction are compared with the committed ones, failing with an {@link OptimisticLockingException}
+ * if another session changed them in the meantime, or with a {@link DuplicateKeyException} if another session stored an entry
+ * that was absent, before the write set is merged into the backing map. Rollback discards the write set.
+ *
+ * @author Graeme Rocher
+ * @since 7.0
+ */
+@SuppressWarnings({"rawtypes", "unchecked"})
+public class SimpleMapTransaction implements Transaction<SimpleMapTransaction> {
+
+    private static final String VERSION = "version";
+    private static final Object ABSENT = new Object();
+
+    private final SimpleMapDatastore datastore;
+    private final Map<String, WriteSet> writeSets = new LinkedHashMap<>();
+    private final Map<String, FamilyView> familyViews = new HashMap<>();
+    // the version of each entry when it was first read within the transaction
+    private final Map<String, Map<Object, Object>> readVersions = new HashMap<>();
+    private final Map<String, PostingList> indexCopies = new HashMap<>();
+    private final List<IndexOperation> indexOperations = new ArrayList<>();
+    private final List<Object[]> identifiers = new ArrayList<>();
+    private final Map<String, Map> backingMap = new BackingMapView();
+    private final Map indices = new IndicesView();
+    private boolean active = true;
+
+    public SimpleMapTransaction(SimpleMapDatastore datastore) {
+        this.datastore = datastore;
+    }
+
+    /**
+     * @return A view of the backing map of the datastore that includes the changes made within this transaction
+     */
+    public Map<String, Map> getBackingMap() {
+        return backingMap;
+    }
+
+    /**
+     * @return A view of the indices of the datastore that includes the changes made within this transaction
+     */
+    public Map getIndices() {
+        return indices;
+    }
+
+    /**
+     * Writes an entry within the transaction
+     *
+     * @param entity The entity
+     * @param family The family
+     * @param key The key
+     * @param entry The entry
+     */
+    public void putEntry(PersistentEntity entity, String family, Object key, Map entry) {
+        WriteSet writeSet = getWriteSet(entity, family);
+        writeSet.recordBaseVersion(key);
+        writeSet.deleted.remove(key);
+        writeSet.entries.put(key, entry);
+    }
+
+    /**
+     * Removes an entry within the transaction
+     *
+     * @param entity The entity
+     * @param family The family
+     * @param key The key
+     */
+    public void removeEntry(PersistentEntity entity, String family, Object key) {
+        WriteSet writeSet = getWriteSet(entity, family);
+        writeSet.recordBaseVersion(key);
+        writeSet.entries.remove(key);
+        writeSet.deleted.add(key);
+    }
+
+    /**
+     * Adds a key to an index within the transaction
+     *
+     * @param index The index name
+     * @param key The key
+     */
+    public void addToIndex(String index, Object key) {
+        PostingList indexed = getIndexCopy(index);
+        PostingList appended = indexed.append(key);
+        if (appended != indexed) {
+            indexCopies.put(index, appended);
+            indexOperations.add(new IndexOperation(index, key, true));
+        }
+    }
+
+    /**
+     * Removes a key from an index within the transaction
+     *
+     * @param index The index name
+     * @param key The key
+     */
+    public void removeFromIndex(String index, Object key) {
+        PostingList indexed = getIndexCopy(index);
+        PostingList remaining = indexed.without(key);
+        if (remaining != indexed) {
+            indexCopies.put(index, remaining);
+            indexOperations.add(new IndexOperation(index, key, false));
+        }
+    }
+
+    /**
+     * Registers a generated identifier whose reservation is released once the transaction completes
+     *
+     * @param family The family
+     * @param key The key
+     */
+    public void registerIdentifier(String family, Object key) {
+        identifiers.add(new Object[] { family, key });
+    }
+
+    @Override
+    public void commit() {
+        if (!active) {
+            return;
+        }
+        try {
+            synchronized (datastore.getCommitLock()) {
+                for (WriteSet writeSet : writeSets.values()) {
+                    writeSet.validate();
+                }
+                for (WriteSet writeSet : writeSets.values()) {
+                    writeSet.apply();
+                }
+                for (IndexOperation operation : indexOperations) {
+                    operation.apply();
+                }
+            }
+        }
+        finally {
+            complete();
+        }
+    }
+
+    @Override
+    public void rollback() {
+        if (active) {
+            complete();
+        }
+    }
+
+    @Override
+    public SimpleMapTransaction getNativeTransaction() {
+        return this;
+    }
+
+    @Override
+    public boolean isActive() {
+        return active;
+    }
+
+    @Override
+    public void setTimeout(int timeout) {
+        // do nothing
+    }
+
+    private void complete() {
+        active = false;
+        writeSets.clear();
+        familyViews.clear();
+        readVersions.clear();
+        indexCopies.clear();
+        indexOperations.clear();
+        for (Object[] identifier : identifiers) {
+            datastore.releaseIdentifier((String) identifier[0], identifier[1]);
+        }
+        identifiers.clear();
+    }
+
+    private WriteSet getWriteSet(PersistentEntity entity, String family) {
+        WriteSet writeSet = writeSets.get(family);
+        if (writeSet == null) {
+            writeSet = new WriteSet(entity, family);
+            writeSets.put(family, writeSet);
+        }
+        return writeSet;
+    }
+
+    private void recordReadVersion(String family, Object key, Map committedEntry) {
+        Map<Object, Object> versions = readVersions.get(family);
+        if (versions == null) {
+            versions = new HashMap<>();
+            readVersions.put(family, versions);
+        }
+        if (!versions.containsKey(key)) {
+            versions.put(key, committedEntry != null ? committedEntry.get(VERSION) : ABSENT);
+        }
+    }
+
+    private PostingList getIndexCopy(String index) {
+        PostingList indexed = indexCopies.get(index);
+        if (indexed == null) {
+            // a private copy, appending to the committed list would write to the array it shares with the datastore
+            List committed = (List) datastore.getIndices().get(index);
+            indexed = committed != null ? PostingList.copyOf(committed) : new PostingList();
+            indexCopies.put(index, indexed);
+        }
+        return indexed;
+    }
+
+    private static boolean isSameVersion(Object version, Object other) {
+        if (version instanceof Number && other instanceof Number) {
+            return ((Number) version).longValue() == ((Number) other).longValue();
+        }
+        return Objects.equals(version, other);
+    }
+
+    /**
+     * The entries written to a single family
+     */
+    private class WriteSet {
+        final PersistentEntity entity;
+        final String family;
+        final Map<Object, Map> entries = new LinkedHashMap<>();
+        final Set<Object> deleted = new LinkedHashSet<>();
+        // the version of each entry when it was first read or written, used to detect concurrent modifications
+        final Map<Object, Object> baseVersions = new HashMap<>();
+
+        WriteSet(PersistentEntity entity, String family) {
+            this.entity = entity;
+            this.family = family;
+        }
+
+        void recordBaseVersion(Object key) {
+            if (!baseVersions.containsKey(key)) {
+                Map<Object, Object> versions = readVersions.get(family);
+                if (versions != null && versions.containsKey(key)) {
+                    baseVersions.put(key, versions.get(key));
+                }
+                else {
+                    Map committed = datastore.getBackingMap().get(family);
+                    Map entry = committed != null ? (Map) committed.get(key) : null;
+                    baseVersions.put(key, entry != null ? entry.get(VERSION) : ABSENT);
+                }
+            }
+        }
+
+        void validate() {
+            Map committed = datastore.getBackingMap().get(family);
+            for (Map.Entry<Object, Object> base : baseVersions.entrySet()) {
+                Object baseVersion = base.getValue();
+                Map current = committed != null ? (Map) committed.get(base.getKey()) : null;
+                if (baseVersion == ABSENT) {
+                    if (current != null && entries.containsKey(base.getKey())) {
+                        throw new DuplicateKeyException("An entry with key [" + base.getKey() + "] of [" + family + "] was stored by another session");
+                    }
+                    continue;
+                }
+                boolean modified = current == null ? baseVersion != null : !isSameVersion(baseVersion, current.get(VERSION));
+                if (modified) {
+                    throw new OptimisticLockingException(entity, base.getKey());
+                }
+            }
+        }
+
+        void apply() {
+            Map committed = datastore.getFamily(family);
+            for (Object key : deleted) {
+                committed.remove(key);
+            }
+            committed.putAll(entries);
+        }
+    }
+
+    /**
+     * A change to an index, replayed against the committed indices on commit
+     */
+    private class IndexOperation {
+        final String index;
+        final Object key;
+        final boolean add;
+
+        IndexOperation(String index, Object key, boolean add) {
+            this.index = index;
+            this.key = key;
+            this.add = add;
+        }
+
+        void apply() {
+            if (add) {
+                datastore.addToIndex(index, key);
+            }
+            else {
+                datastore.removeFromIndex(index, key);
+            }
+        }
+    }
+
+    /**
+     * A view of the backing map that resolves each family to a {@link FamilyView}
+     */
+    private class BackingMapView extends AbstractMap<String, Map> {
+        @Override
+        public Map get(Object family) {
+            if (datastore.getBackingMap().get(family) == null && !writeSets.containsKey(family)) {
+                return null;
+            }
+            String name = (String) family;
+            FamilyView view = familyViews.get(name);
+            if (view == null) {
+                view = new FamilyView(name);
+                familyViews.put(name, view);
+            }
+            return view;
+        }
+
+        @Override
+        public boolean containsKey(Object family) {
+            return get(family) != null;
+        }
+
+        @Override
+        public Map put(String family, Map entries) {
+            // creating a family is not transactional
+            return datastore.getBackingMap().putIfAbsent(family, entries);
+        }
+
+        @Override
+        public Set<Entry<String, Map>> entrySet() {
+            Set<String> families = new LinkedHashSet<>(datastore.getBackingMap().keySet());
+            families.addAll(writeSets.keySet());
+            Map<String, Map> merged = new LinkedHashMap<>();
+            for (String family : families) {
+                merged.put(family, get(family));
+            }
+            return Collections.unmodifiableMap(merged).entrySet();
+        }
+    }
+
+    /**
+     * A view of a single family that overlays the write set of the transaction on the committed entries
+     */
+    private class FamilyView extends AbstractMap<Object, Map> {
+        final String family;
+
+        FamilyView(String family) {
+            this.family = family;
+        }
+
+        @Override
+        public Map get(Object key) {
+            WriteSet writeSet = writeSets.get(family);
+            if (writeSet != null) {
+                if (writeSet.deleted.contains(key)) {
+                    return null;
+                }
+                Map entry = writeSet.entries.get(key);
+                if (entry != null) {
+                    return entry;
+                }
+            }
+            Map committed = datastore.getBackingMap().get(family);
+            Map entry = committed != null ? (Map) committed.get(key) : null;
+            recordReadVersion(family, key, entry);
+            return entry;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public Map put(Object key, Map entry) {
+            Map previous = get(key);
+            putEntry(datastore.getMappingContext().getPersistentEntity(family), family, key, entry);
+            return previous;
+        }
+
+        @Override
+        public Map remove(Object key) {
+            Map previous = get(key);
+            if (previous != null) {
+                removeEntry(datastore.getMappingContext().getPersistentEntity(family), family, key);
+            }
+            return previous;
+        }
+
+        @Override
+        public Set<Entry<Object, Map>> entrySet() {
+            WriteSet writeSet = writeSets.get(family);
+            Map<Object, Map> committed = datastore.getBackingMap().get(family);
+            if (writeSet == null) {
+                return committed != null ? Collections.unmodifiableMap(committed).entrySet() : Collections.<Entry<Object, Map>>emptySet();
+            }
+            Map<Object, Map> merged = new LinkedHashMap<>();
+            if (committed != null) {
+                for (Entry<Object, Map> entry : committed.entrySet()) {
+                    Object key = entry.getKey();
+                    if (!writeSet.deleted.contains(key)) {
+                        Map written = writeSet.entries.get(key);
+                        merged.put(key, written != null ? written : entry.getValue());
+                    }
+                }
+            }
+            for (Entry<Object, Map> entry : writeSet.entries.entrySet()) {
+                if (!merged.containsKey(entry.getKey())) {
+                    merged.put(entry.getKey(), entry.getValue());
+                }
+            }
+            return Collections.unmodifiableMap(merged).entrySet();
+        }
+    }
+
+    /**
+     * A view of the indices that resolves the indices changed within the transaction to their copies
+     */
+    private class IndicesView extends AbstractMap<Object, List> {
+        @Override
+        public List get(Object index) {
+            List indexed = indexCopies.get(index);
+            return indexed != null ? indexed : (List) datastore.getIndices().get(index);
+        }
+
+        @Override
+        public boolean containsKey(Object index) {
+            return get(index) != null;
+        }
+
+        @Override
+        public Set<Entry<Object, List>> entrySet() {
+            Map<Object, List> merged = new LinkedHashMap<>((Map<Object, List>) datastore.getIndices());
+            merged.putAll(indexCopies);
+            return Collections.unmodifiableMap(merged).entrySet();
+        }
+    }
+}
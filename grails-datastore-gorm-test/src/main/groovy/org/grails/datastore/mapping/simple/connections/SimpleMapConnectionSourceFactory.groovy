@@ -7,13 +7,14 @@ import org.springframework.core.env.PropertyResolver
 import java.util.concurrent.ConcurrentHashMap
 
 /**
- * Simple implementation that just builds {@link ConnectionSource} instances from Maps
+ * Simple implementation that just builds {@link ConnectionSource} instances from Maps. The maps hold the data, so the sources are
+ * never evicted by {@link LazyConnectionSources}
  *
  * @author Graeme Rocher
  * @since 6.0
  */
 @CompileStatic
-class SimpleMapConnectionSourceFactory extends AbstractConnectionSourceFactory<Map<String,Map>, ConnectionSourceSettings> {
+class SimpleMapConnectionSourceFactory extends AbstractConnectionSourceFactory<Map<String,Map>, ConnectionSourceSettings> implements InMemoryDataConnectionSourceFactory {
     @Override
     ConnectionSource<Map<String, Map>, ConnectionSourceSettings> create(String name, ConnectionSourceSettings settings) {
         return new DefaultConnectionSource<Map<String,Map>, ConnectionSourceSettings>(name, new ConcurrentHashMap<String, Map>(), settings)
@@ -0,0 +1,209 @@
+package org.grails.datastore.mapping.simple.engine;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A concurrent map that iterates in insertion order like a {@link java.util.LinkedHashMap}, used to store the entries of
+ * each family of the {@link org.grails.datastore.mapping.simple.SimpleMapDatastore} so that unordered query results keep
+ * the order in which entries were stored. Operations on a single key are atomic and iteration is weakly consistent, hence
+ * it never throws a {@link java.util.ConcurrentModificationException}. Null keys and values are not permitted.
+ *
+ * @author Graeme Rocher
+ * @since 7.0
+ */
+@SuppressWarnings("unchecked")
+public class InsertionOrderedConcurrentMap<K, V> extends AbstractMap<K, V> implements ConcurrentMap<K, V> {
+
+    private final ConcurrentHashMap<Object, Node<V>> nodes = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Long, K> order = new ConcurrentSkipListMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final Set<Entry<K, V>> entrySet = new EntrySet();
+
+    @Override
+    public V get(Object key) {
+        Node<V> node = nodes.get(key);
+        return node != null ? node.value : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return nodes.containsKey(key);
+    }
+
+    @Override
+    public int size() {
+        return nodes.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return nodes.isEmpty();
+    }
+
+    @Override
+    public V put(K key, V value) {
+        Objects.requireNonNull(value);
+        Object[] previous = new Object[1];
+        nodes.compute(key, (k, node) -> {
+            if (node == null) {
+                return newNode(key, value);
+            }
+            previous[0] = node.value;
+            return new Node<>(node.sequence, value);
+        });
+        return (V) previous[0];
+    }
+
+    @Override
+    public V putIfAbsent(K key, V value) {
+        Objects.requireNonNull(value);
+        Object[] previous = new Object[1];
+        nodes.compute(key, (k, node) -> {
+            if (node == null) {
+                return newNode(key, value);
+            }
+            previous[0] = node.value;
+            return node;
+        });
+        return (V) previous[0];
+    }
+
+    @Override
+    public V remove(Object key) {
+        Object[] previous = new Object[1];
+        nodes.computeIfPresent(key, (k, node) -> {
+            previous[0] = node.value;
+            order.remove(node.sequence);
+            return null;
+        });
+        return (V) previous[0];
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+        boolean[] removed = new boolean[1];
+        nodes.computeIfPresent(key, (k, node) -> {
+            if (!Objects.equals(node.value, value)) {
+                return node;
+            }
+            removed[0] = true;
+            order.remove(node.sequence);
+            return null;
+        });
+        return removed[0];
+    }
+
+    @Override
+    public boolean replace(K key, V oldValue, V newValue) {
+        Objects.requireNonNull(newValue);
+        boolean[] replaced = new boolean[1];
+        nodes.computeIfPresent(key, (k, node) -> {
+            if (!Objects.equals(node.value, oldValue)) {
+                return node;
+            }
+            replaced[0] = true;
+            return new Node<>(node.sequence, newValue);
+        });
+        return replaced[0];
+    }
+
+    @Override
+    public V replace(K key, V value) {
+        Objects.requireNonNull(value);
+        Object[] previous = new Object[1];
+        nodes.computeIfPresent(key, (k, node) -> {
+            previous[0] = node.value;
+            return new Node<>(node.sequence, value);
+        });
+        return (V) previous[0];
+    }
+
+    @Override
+    public void clear() {
+        for (Object key : nodes.keySet()) {
+            remove(key);
+        }
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return entrySet;
+    }
+
+    // only called while holding the lock of the key in the nodes map, so the order index is updated atomically with the key
+    private Node<V> newNode(K key, V value) {
+        long next = sequence.incrementAndGet();
+        order.put(next, key);
+        return new Node<>(next, value);
+    }
+
+    private static class Node<V> {
+        final long sequence;
+        final V value;
+
+        Node(long sequence, V value) {
+            this.sequence = sequence;
+            this.value = value;
+        }
+    }
+
+    private class EntrySet extends AbstractSet<Entry<K, V>> {
+        @Override
+        public Iterator<Entry<K, V>> iterator() {
+            return new EntryIterator();
+        }
+
+        @Override
+        public int size() {
+            return nodes.size();
+        }
+    }
+
+    private class EntryIterator implements Iterator<Entry<K, V>> {
+        private final Iterator<Entry<Long, K>> keys = order.entrySet().iterator();
+        private Entry<K, V> next;
+        private K last;
+
+        @Override
+        public boolean hasNext() {
+            while (next == null && keys.hasNext()) {
+                Entry<Long, K> candidate = keys.next();
+                Node<V> node = nodes.get(candidate.getValue());
+                // skip keys that were removed, or removed and stored again, since the iteration started
+                if (node != null && node.sequence == candidate.getKey()) {
+                    next = new SimpleImmutableEntry<>(candidate.getValue(), node.value);
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public Entry<K, V> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Entry<K, V> current = next;
+            next = null;
+            last = current.getKey();
+            return current;
+        }
+
+        @Override
+        public void remove() {
+            if (last == null) {
+                throw new IllegalStateException();
+            }
+            InsertionOrderedConcurrentMap.this.remove(last);
+            last = null;
+        }
+    }
+}
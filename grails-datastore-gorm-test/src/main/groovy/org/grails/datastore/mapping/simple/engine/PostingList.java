@@ -0,0 +1,119 @@
+package org.grails.datastore.mapping.simple.engine;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An immutable list of the keys of an index of the {@link org.grails.datastore.mapping.simple.SimpleMapDatastore}. Appending a key
+ * returns a new list that shares the backing array and the key positions with this one, growing the array by doubling, so that
+ * adding keys to an index is amortized constant time while the published lists are never modified. Removing a key copies the list.
+ *
+ * Appending must only be applied to the latest list of an index, which the datastore ensures by updating each index atomically.
+ *
+ * @author Graeme Rocher
+ * @since 7.0
+ */
+public final class PostingList extends AbstractList<Object> implements RandomAccess {
+
+    private static final int INITIAL_CAPACITY = 4;
+
+    private final Object[] elements;
+    // shared by the lists appended to each other, the position of a key is only visible to the lists that contain it
+    private final Map<Object, Integer> positions;
+    private final int size;
+
+    public PostingList() {
+        this(new Object[INITIAL_CAPACITY], new ConcurrentHashMap<>(), 0);
+    }
+
+    /**
+     * @param keys The keys
+     * @return A new list of the given keys that does not share its backing array with any other list
+     */
+    public static PostingList copyOf(Iterable<?> keys) {
+        PostingList copy = new PostingList();
+        for (Object key : keys) {
+            copy = copy.append(key);
+        }
+        return copy;
+    }
+
+    private PostingList(Object[] elements, Map<Object, Integer> positions, int size) {
+        this.elements = elements;
+        this.positions = positions;
+        this.size = size;
+    }
+
+    /**
+     * @param key The key
+     * @return A list with the given key appended or this list if it already contains the key
+     */
+    public PostingList append(Object key) {
+        if (contains(key)) {
+            return this;
+        }
+        Object[] target = elements;
+        if (size == target.length) {
+            target = Arrays.copyOf(elements, size * 2);
+        }
+        target[size] = key;
+        positions.put(key, size);
+        return new PostingList(target, positions, size + 1);
+    }
+
+    /**
+     * @param key The key
+     * @return A list without the given key or this list if it does not contain the key
+     */
+    public PostingList without(Object key) {
+        if (!contains(key)) {
+            return this;
+        }
+        Object[] remaining = new Object[Math.max(INITIAL_CAPACITY, size)];
+        Map<Object, Integer> remainingPositions = new ConcurrentHashMap<>();
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            Object element = elements[i];
+            if (!element.equals(key)) {
+                remainingPositions.put(element, count);
+                remaining[count++] = element;
+            }
+        }
+        return new PostingList(remaining, remainingPositions, count);
+    }
+
+    @Override
+    public Object get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return elements[index];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return indexOf(o) > -1;
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        if (o == null) {
+            return -1;
+        }
+        Integer position = positions.get(o);
+        return position != null && position < size ? position : -1;
+    }
+
+    @Override
+    public int lastIndexOf(Object o) {
+        return indexOf(o);
+    }
+}
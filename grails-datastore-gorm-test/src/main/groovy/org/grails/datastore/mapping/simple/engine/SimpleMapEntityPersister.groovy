@@ -30,6 +30,8 @@ import org.grails.datastore.mapping.model.types.Association
 import org.grails.datastore.mapping.model.types.ManyToMany
 import org.grails.datastore.mapping.query.Query
 import org.grails.datastore.mapping.simple.SimpleMapDatastore
+import org.grails.datastore.mapping.simple.SimpleMapSession
+import org.grails.datastore.mapping.simple.SimpleMapTransaction
 import org.grails.datastore.mapping.simple.query.SimpleMapQuery
 import org.springframework.context.ApplicationEventPublisher
 
@@ -42,20 +44,18 @@ import org.springframework.context.ApplicationEventPublisher
  */
 class SimpleMapEntityPersister extends AbstractKeyValueEntityPersister<Map, Object> {
 
-    Map<String, Map> datastore
-    Map indices
     def lastKey
     String family
+    private final SimpleMapDatastore simpleMapDatastore
 
     SimpleMapEntityPersister(MappingContext context, PersistentEntity entity, Session session,
                              SimpleMapDatastore datastore, ApplicationEventPublisher publisher) {
         super(context, entity, session, publisher)
-        this.datastore = datastore.backingMap
-        this.indices = datastore.indices
+        this.simpleMapDatastore = datastore
         family = getFamily(entity, entity.getMapping())
         final identity = entity.getIdentity()
         def idType = identity?.type
-        if (this.datastore[family] == null) this.datastore[family] = [:]
+        datastore.getFamily(family)
 
         if (idType == Integer) {
             lastKey = this.datastore[family].size()
@@ -65,6 +65,64 @@ class SimpleMapEntityPersister extends AbstractKeyValueEntityPersister<Map, Obje
         }
     }
 
+    /**
+     * @return The backing map as seen by the session, including the changes of its active transaction
+     */
+    Map<String, Map> getDatastore() {
+        ((SimpleMapSession) session).backingMap
+    }
+
+    /**
+     * @return The indices as seen by the session, including the changes of its active transaction
+     */
+    Map getIndices() {
+        ((SimpleMapSession) session).indices
+    }
+
+    protected SimpleMapTransaction getActiveTransaction() {
+        ((SimpleMapSession) session).activeTransaction
+    }
+
+    protected void writeEntry(String family, key, Map entry) {
+        SimpleMapTransaction transaction = activeTransaction
+        if (transaction != null) {
+            transaction.putEntry(persistentEntity, family, key, entry)
+        }
+        else {
+            simpleMapDatastore.getFamily(family).put(key, entry)
+        }
+    }
+
+    protected void removeEntry(String family, key) {
+        SimpleMapTransaction transaction = activeTransaction
+        if (transaction != null) {
+            transaction.removeEntry(persistentEntity, family, key)
+        }
+        else {
+            simpleMapDatastore.backingMap[family]?.remove(key)
+        }
+    }
+
+    protected void addToIndex(String index, key) {
+        SimpleMapTransaction transaction = activeTransaction
+        if (transaction != null) {
+            transaction.addToIndex(index, key)
+        }
+        else {
+            simpleMapDatastore.addToIndex(index, key)
+        }
+    }
+
+    protected void removeFromIndex(String index, key) {
+        SimpleMapTransaction transaction = activeTransaction
+        if (transaction != null) {
+            transaction.removeFromIndex(index, key)
+        }
+        else {
+            simpleMapDatastore.removeFromIndex(index, key)
+        }
+    }
+
     protected PersistentEntity discriminatePersistentEntity(PersistentEntity persistentEntity, Map nativeEntry) {
         def disc = nativeEntry?.discriminator
         if (disc) {
@@ -79,11 +137,11 @@ class SimpleMapEntityPersister extends AbstractKeyValueEntityPersister<Map, Obje
     }
 
     protected void deleteEntry(String family, key, entry) {
-        datastore[family].remove(key)
+        removeEntry(family, key)
         def parent = persistentEntity.parentEntity
         while (parent != null) {
             def f = getFamily(parent, parent.mapping)
-            datastore[f].remove(key)
+            removeEntry(f, key)
             parent = parent.parentEntity
         }
     }
@@ -101,24 +159,11 @@ class SimpleMapEntityPersister extends AbstractKeyValueEntityPersister<Map, Obje
             }
 
             void deindex(value, primaryKey) {
-                def index = getIndexName(value)
-                List indexed = indices[index]
-                if (indexed) {
-                    indexed.removeElement(primaryKey)
-                }
+                removeFromIndex(getIndexName(value), primaryKey)
             }
 
             void index(value, primaryKey) {
-
-                def index = getIndexName(value)
-                def indexed = indices[index]
-                if (indexed == null) {
-                    indexed = []
-                    indices[index] = indexed
-                }
-                if (!indexed.contains(primaryKey)) {
-                    indexed << primaryKey
-                }
+                addToIndex(getIndexName(value), primaryKey)
             }
 
             List query(value) {
@@ -163,28 +208,14 @@ class SimpleMapEntityPersister extends AbstractKeyValueEntityPersister<Map, Obje
             }
 
             void index(primaryKey, List foreignKeys) {
-                def indexed = getIndex(primaryKey)
-
-                indexed.addAll(foreignKeys)
-                def index = getIndexName(primaryKey)
-                indexed = indexed.unique()
-                indices[index] = indexed
-            }
-
-            private List getIndex(primaryKey) {
                 def index = getIndexName(primaryKey)
-                def indexed = indices[index]
-                if (indexed == null) {
-                    indexed = []
-                    indices[index] = indexed
+                for (foreignKey in foreignKeys) {
+                    addToIndex(index, foreignKey)
                 }
-                return indexed
             }
 
             void index(primaryKey, foreignKey) {
-                def indexed = getIndex(primaryKey)
-                if (!indexed.contains(foreignKey))
-                    indexed.add(foreignKey)
+                addToIndex(getIndexName(primaryKey), foreignKey)
             }
 
             List query(primaryKey) {
@@ -262,16 +293,8 @@ class SimpleMapEntityPersister extends AbstractKeyValueEntityPersister<Map, Obje
         final isRoot = persistentEntity.root
         final type = isRoot ? persistentEntity.identity.type : persistentEntity.rootEntity.identity.type
         if ((String.isAssignableFrom(type)) || (Number.isAssignableFrom(type))) {
-            def key
-            if (isRoot) {
-                key = ++lastKey
-            }
-            else {
-                def root = persistentEntity.rootEntity
-                session.getPersister(root).lastKey++
-                key = session.getPersister(root).lastKey
-            }
-            return type == String ? key.toString() : key
+            SimpleMapEntityPersister rootPersister = isRoot ? this : (SimpleMapEntityPersister) session.getPersister(persistentEntity.rootEntity)
+            return rootPersister.nextIdentifier(type)
         }
         else if (UUID.isAssignableFrom(type)) {
           return UUID.randomUUID()
@@ -285,16 +308,51 @@ class SimpleMapEntityPersister extends AbstractKeyValueEntityPersister<Map, Obje
         }
     }
 
+    /**
+     * Generates the next identifier of this root entity, skipping those stored or reserved by other sessions
+     *
+     * @param type The identifier type
+     * @return The identifier
+     */
+    protected nextIdentifier(Class type) {
+        while (true) {
+            def key = ++lastKey
+            def storeId = type == String ? key.toString() : key
+            if (simpleMapDatastore.reserveIdentifier(family, storeId)) {
+                ((SimpleMapSession) session).registerIdentifier(family, storeId)
+                return storeId
+            }
+        }
+    }
+
     protected storeEntry(PersistentEntity persistentEntity, EntityAccess entityAccess, storeId, Map nativeEntry) {
         if (!persistentEntity.root) {
             nativeEntry.discriminator = persistentEntity.discriminator
         }
-        datastore[family].put(storeId, nativeEntry)
+        writeEntry(family, storeId, nativeEntry)
         indexIdentifier(persistentEntity, storeId)
         updateInheritanceHierarchy(persistentEntity, storeId, nativeEntry)
+        releaseIdentifier(persistentEntity, storeId)
         return storeId
     }
 
+    private void releaseIdentifier(PersistentEntity persistentEntity, storeId) {
+        def root = persistentEntity.rootEntity
+        def rootFamily = getFamily(root, root.mapping)
+        if (!((SimpleMapSession) session).unregisterIdentifier(rootFamily, storeId)) {
+            // assigned or not reserved by this session
+            return
+        }
+        SimpleMapTransaction transaction = activeTransaction
+        if (transaction != null) {
+            // the identifier stays reserved until the entry is committed
+            transaction.registerIdentifier(rootFamily, storeId)
+        }
+        else {
+            simpleMapDatastore.releaseIdentifier(rootFamily, storeId)
+        }
+    }
+
     protected def indexIdentifier(PersistentEntity persistentEntity, storeId) {
         final indexer = getPropertyIndexer(persistentEntity.identity)
         indexer.index(storeId, storeId)
@@ -305,12 +363,7 @@ class SimpleMapEntityPersister extends AbstractKeyValueEntityPersister<Map, Obje
         while (parent != null) {
 
             def f = getFamily(parent, parent.mapping)
-            def parentEntry = datastore[f]
-            if (parentEntry == null) {
-                parentEntry = [:]
-                datastore[f] = parentEntry
-            }
-            parentEntry.put(storeId, nativeEntry)
+            writeEntry(f, storeId, nativeEntry)
             parent = parent.parentEntity
         }
     }
@@ -339,17 +392,28 @@ class SimpleMapEntityPersister extends AbstractKeyValueEntityPersister<Map, Obje
                     throw new OptimisticLockingException(persistentEntity, key)
                 }
                 incrementVersion(entityAccess)
+                // store the new version so that concurrent transactions can detect the update
+                entry["version"] = entityAccess.getProperty('version')
             }
         }
 
         indexIdentifier(persistentEntity, key)
-        if (existing == null) {
-            datastore[family].put(key, entry)
+        Map updated = entry
+        if (existing != null) {
+            // never modify the stored entry in place, it may be shared with other sessions
+            updated = new LinkedHashMap(existing)
+            updated.putAll(entry)
+        }
+        if (existing != null && activeTransaction == null && isVersioned(entityAccess)) {
+            // outside of a transaction the version check and the write must be atomic, otherwise concurrent updates are lost
+            if (!simpleMapDatastore.getFamily(family).replace(key, existing, updated)) {
+                throw new OptimisticLockingException(persistentEntity, key)
+            }
         }
         else {
-            existing.putAll(entry)
+            writeEntry(family, key, updated)
         }
-        updateInheritanceHierarchy(persistentEntity, key, entry)
+        updateInheritanceHierarchy(persistentEntity, key, updated)
     }
 
     protected void deleteEntries(String family, List<Object> keys) {
@@ -41,17 +41,22 @@ import org.springframework.util.Assert
  */
 class SimpleMapQuery extends Query {
 
-    Map<String, Map> datastore
     private String family
     private SimpleMapEntityPersister entityPersister
 
     SimpleMapQuery(SimpleMapSession session, PersistentEntity entity, SimpleMapEntityPersister entityPersister) {
         super(session, entity)
-        this.datastore = session.getBackingMap()
         family = getFamily(entity)
         this.entityPersister = entityPersister
     }
 
+    /**
+     * @return The backing map as seen by the session, including the changes of its active transaction
+     */
+    Map<String, Map> getDatastore() {
+        ((SimpleMapSession) session).backingMap
+    }
+
     protected List executeQuery(PersistentEntity entity, Query.Junction criteria) {
         def results = []
         def entityMap = [:]
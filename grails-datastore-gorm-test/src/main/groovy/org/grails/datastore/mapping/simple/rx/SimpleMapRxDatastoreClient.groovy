@@ -0,0 +1,444 @@
+package org.grails.datastore.mapping.simple.rx
+
+import grails.gorm.rx.collection.RxUnidirectionalCollection
+import groovy.transform.CompileStatic
+import org.grails.datastore.mapping.collection.PersistentCollection
+import org.grails.datastore.mapping.core.DatastoreUtils
+import org.grails.datastore.mapping.core.IdentityGenerationException
+import org.grails.datastore.mapping.core.OptimisticLockingException
+import org.grails.datastore.mapping.core.connections.ConnectionSourceSettings
+import org.grails.datastore.mapping.core.connections.ConnectionSources
+import org.grails.datastore.mapping.core.connections.ConnectionSourcesInitializer
+import org.grails.datastore.mapping.engine.EntityAccess
+import org.grails.datastore.mapping.engine.event.PostLoadEvent
+import org.grails.datastore.mapping.keyvalue.mapping.config.KeyValueMappingContext
+import org.grails.datastore.mapping.model.MappingContext
+import org.grails.datastore.mapping.model.PersistentEntity
+import org.grails.datastore.mapping.model.PersistentProperty
+import org.grails.datastore.mapping.model.types.Association
+import org.grails.datastore.mapping.model.types.Basic
+import org.grails.datastore.mapping.model.types.ManyToMany
+import org.grails.datastore.mapping.model.types.ToMany
+import org.grails.datastore.mapping.model.types.ToOne
+import org.grails.datastore.mapping.proxy.ProxyHandler
+import org.grails.datastore.mapping.query.Query
+import org.grails.datastore.mapping.reflect.EntityReflector
+import org.grails.datastore.mapping.simple.connections.SimpleMapConnectionSourceFactory
+import org.grails.datastore.mapping.simple.engine.InsertionOrderedConcurrentMap
+import org.grails.datastore.rx.AbstractRxDatastoreClient
+import org.grails.datastore.rx.batch.BatchOperation
+import org.grails.datastore.rx.collection.RxCollectionUtils
+import org.grails.datastore.rx.collection.RxPersistentList
+import org.grails.datastore.rx.collection.RxPersistentSet
+import org.grails.datastore.rx.collection.RxPersistentSortedSet
+import org.grails.datastore.rx.query.QueryState
+import org.grails.gorm.rx.api.RxGormEnhancer
+import org.grails.gorm.rx.config.Settings
+import org.springframework.core.env.PropertyResolver
+import org.springframework.dao.DuplicateKeyException
+import rx.Observable
+import rx.Scheduler
+import rx.schedulers.Schedulers
+
+import java.util.concurrent.Callable
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ConcurrentMap
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * An in-memory {@link org.grails.datastore.rx.RxDatastoreClient} that stores entities using the storage model of the
+ * {@link org.grails.datastore.mapping.simple.SimpleMapDatastore}, a map of families of native entries in insertion order.
+ * Writes and queries never block the calling thread and are executed on the configured {@link Scheduler}, which makes it
+ * possible to test and load test reactive code paths without an external database.
+ *
+ * @author Graeme Rocher
+ * @since 7.0
+ */
+@CompileStatic
+class SimpleMapRxDatastoreClient extends AbstractRxDatastoreClient<Map<String, Map>> {
+
+    /**
+     * The key of the native entry that stores the discriminator of subclasses
+     */
+    public static final String DISCRIMINATOR = "discriminator"
+
+    /**
+     * The scheduler the operations are executed on, defaults to {@link Schedulers#io()}
+     */
+    Scheduler scheduler = Schedulers.io()
+
+    private final boolean allowBlockingOperations
+    private final Map<String, Map> backingMap
+    private final ConcurrentMap<String, AtomicLong> lastKeys = new ConcurrentHashMap<>()
+
+    SimpleMapRxDatastoreClient(ConnectionSources<Map<String, Map>, ConnectionSourceSettings> connectionSources, MappingContext mappingContext) {
+        super(connectionSources, mappingContext)
+        this.backingMap = connectionSources.defaultConnectionSource.source
+        this.allowBlockingOperations = connectionSources.baseConfiguration.getProperty(Settings.SETTING_ALLOW_BLOCKING, Boolean, true)
+        initDefaultEventListeners(eventPublisher)
+
+        for(PersistentEntity entity in mappingContext.persistentEntities) {
+            RxGormEnhancer.registerEntity(entity, this)
+        }
+        mappingContext.addMappingContextListener(new MappingContext.Listener() {
+            @Override
+            void persistentEntityAdded(PersistentEntity entity) {
+                RxGormEnhancer.registerEntity(entity, SimpleMapRxDatastoreClient.this)
+            }
+        })
+    }
+
+    SimpleMapRxDatastoreClient(ConnectionSources<Map<String, Map>, ConnectionSourceSettings> connectionSources, Class... classes) {
+        this(connectionSources, createMappingContext(connectionSources, classes))
+    }
+
+    SimpleMapRxDatastoreClient(PropertyResolver configuration, Class... classes) {
+        this((ConnectionSources<Map<String, Map>, ConnectionSourceSettings>)ConnectionSourcesInitializer.create(new SimpleMapConnectionSourceFactory(), configuration), classes)
+    }
+
+    SimpleMapRxDatastoreClient(Class... classes) {
+        this(DatastoreUtils.createPropertyResolver(null), classes)
+    }
+
+    protected static KeyValueMappingContext createMappingContext(ConnectionSources<Map<String, Map>, ConnectionSourceSettings> connectionSources, Class... classes) {
+        KeyValueMappingContext ctx = new KeyValueMappingContext("rx", connectionSources.defaultConnectionSource.settings)
+        ctx.addPersistentEntities(classes)
+        return ctx
+    }
+
+    @Override
+    Map<String, Map> getNativeInterface() {
+        return backingMap
+    }
+
+    @Override
+    boolean isAllowBlockingOperations() {
+        return allowBlockingOperations
+    }
+
+    /**
+     * Obtains the entries of the given family, creating the family if necessary
+     *
+     * @param family The family
+     * @return The entries keyed by identifier
+     */
+    ConcurrentMap<Object, Map> getFamily(String family) {
+        Map entries = backingMap.get(family)
+        if(entries == null) {
+            entries = new InsertionOrderedConcurrentMap<Object, Map>()
+            Map existing = ((ConcurrentMap<String, Map>)backingMap).putIfAbsent(family, entries)
+            if(existing != null) {
+                entries = existing
+            }
+        }
+        return (ConcurrentMap<Object, Map>)entries
+    }
+
+    /**
+     * @param entity The entity
+     * @return The family the entries of the entity are stored in. Subclasses are stored with their root entity
+     */
+    String getFamilyName(PersistentEntity entity) {
+        return entity.rootEntity.name
+    }
+
+    /**
+     * Clears all the data held by the client
+     */
+    void clearData() {
+        backingMap.clear()
+        lastKeys.clear()
+    }
+
+    @Override
+    Observable<Number> batchWrite(BatchOperation operation) {
+        return Observable.fromCallable({
+            int count = 0
+            // the entries inserted so far, removed again if an insert fails
+            Map<ConcurrentMap<Object, Map>, Map<Object, Map>> inserted = new IdentityHashMap<>()
+            try {
+                for(Map.Entry<PersistentEntity, Map<Serializable, BatchOperation.EntityOperation>> inserts in operation.inserts.entrySet()) {
+                    PersistentEntity entity = inserts.key
+                    String familyName = getFamilyName(entity)
+                    ConcurrentMap<Object, Map> family = getFamily(familyName)
+                    for(BatchOperation.EntityOperation insert in inserts.value.values()) {
+                        EntityAccess access = mappingContext.createEntityAccess(entity, insert.object)
+                        Serializable id = (Serializable)access.identifier
+                        if(id == null) {
+                            // natively generated identifiers are assigned on insert
+                            id = generateIdentifier(entity, insert.object, mappingContext.getEntityReflector(entity))
+                        }
+                        if(entity.isVersioned() && access.getProperty(entity.version.name) == null) {
+                            access.setProperty(entity.version.name, 0)
+                        }
+                        Map entry = encodeEntry(entity, id, access)
+                        if(family.putIfAbsent(id, entry) != null) {
+                            throw new DuplicateKeyException("An entry with key [$id] of [$familyName] already exists")
+                        }
+                        Map<Object, Map> insertedEntries = inserted.get(family)
+                        if(insertedEntries == null) {
+                            insertedEntries = [:]
+                            inserted.put(family, insertedEntries)
+                        }
+                        insertedEntries.put(id, entry)
+                        count++
+                    }
+                }
+            } catch (DuplicateKeyException e) {
+                for(Map.Entry<ConcurrentMap<Object, Map>, Map<Object, Map>> insertedEntries in inserted.entrySet()) {
+                    for(Map.Entry<Object, Map> entry in insertedEntries.value.entrySet()) {
+                        insertedEntries.key.remove(entry.key, entry.value)
+                    }
+                }
+                throw e
+            }
+            for(Map.Entry<PersistentEntity, Map<Serializable, BatchOperation.EntityOperation>> updates in operation.updates.entrySet()) {
+                PersistentEntity entity = updates.key
+                ConcurrentMap<Object, Map> family = getFamily(getFamilyName(entity))
+                for(BatchOperation.EntityOperation update in updates.value.values()) {
+                    if(updateEntry(entity, family, update)) {
+                        count++
+                    }
+                }
+            }
+            return (Number)count
+        } as Callable<Number>).subscribeOn(scheduler)
+    }
+
+    @Override
+    Observable<Number> batchDelete(BatchOperation operation) {
+        return Observable.fromCallable({
+            int count = 0
+            for(Map.Entry<PersistentEntity, Map<Serializable, BatchOperation.EntityOperation>> deletes in operation.deletes.entrySet()) {
+                Map<Object, Map> family = getFamily(getFamilyName(deletes.key))
+                for(Serializable id in deletes.value.keySet()) {
+                    if(family.remove(id) != null) {
+                        count++
+                    }
+                }
+            }
+            return (Number)count
+        } as Callable<Number>).subscribeOn(scheduler)
+    }
+
+    @Override
+    Serializable generateIdentifier(PersistentEntity entity, Object instance, EntityReflector reflector) {
+        String familyName = getFamilyName(entity)
+        AtomicLong lastKey = lastKeys.get(familyName)
+        if(lastKey == null) {
+            lastKey = new AtomicLong()
+            AtomicLong existing = lastKeys.putIfAbsent(familyName, lastKey)
+            if(existing != null) {
+                lastKey = existing
+            }
+        }
+        Class idType = entity.identity.type
+        Map<Object, Map> family = getFamily(familyName)
+        Serializable id = convertIdentifier(idType, lastKey.incrementAndGet())
+        // skip any identifiers that were assigned explicitly
+        while(family.containsKey(id)) {
+            id = convertIdentifier(idType, lastKey.incrementAndGet())
+        }
+        reflector.setIdentifier(instance, id)
+        return id
+    }
+
+    @Override
+    Query createEntityQuery(PersistentEntity entity, QueryState queryState, Map arguments) {
+        return new SimpleMapRxQuery(this, entity, queryState, arguments)
+    }
+
+    @Override
+    void doClose() {
+        clearData()
+    }
+
+    /**
+     * Converts a native entry into an instance of the given entity
+     *
+     * @param entity The entity
+     * @param id The identifier
+     * @param entry The native entry
+     * @param queryState The query state
+     * @return The instance
+     */
+    Object decodeEntry(PersistentEntity entity, Serializable id, Map entry, QueryState queryState) {
+        String discriminator = (String)entry.get(DISCRIMINATOR)
+        if(discriminator != null) {
+            entity = mappingContext.getChildEntityByDiscriminator(entity.rootEntity, discriminator) ?: entity
+        }
+        Object loaded = queryState.getLoadedEntity(entity.javaClass, id)
+        if(loaded != null) {
+            return loaded
+        }
+
+        Object instance = entity.newInstance()
+        EntityAccess access = mappingContext.createEntityAccess(entity, instance)
+        access.setIdentifierNoConversion(id)
+        queryState.addLoadedEntity(entity.javaClass, id, instance)
+
+        for(PersistentProperty property in entity.persistentProperties) {
+            String name = property.name
+            Object value = entry.get(name)
+            if(property instanceof ToOne) {
+                ToOne toOne = (ToOne)property
+                if(toOne.isEmbedded()) {
+                    access.setPropertyNoConversion(name, value)
+                }
+                else if(toOne.isForeignKeyInChild()) {
+                    PersistentEntity associatedEntity = toOne.associatedEntity
+                    Query query = createQuery(associatedEntity.javaClass, queryState)
+                            .eq(toOne.inverseSide.name, id)
+                            .max(1)
+                    access.setPropertyNoConversion(name, proxy(query, queryState))
+                }
+                else if(value != null) {
+                    Class associatedType = toOne.associatedEntity.javaClass
+                    Object associated = queryState.getLoadedEntity(associatedType, (Serializable)value)
+                    access.setPropertyNoConversion(name, associated != null ? associated : proxy(associatedType, (Serializable)value, queryState))
+                }
+            }
+            else if(property instanceof Basic) {
+                if(value instanceof Collection) {
+                    access.setProperty(name, new ArrayList((Collection)value))
+                }
+                else if(value != null) {
+                    access.setProperty(name, value)
+                }
+            }
+            else if(property instanceof ToMany) {
+                ToMany toMany = (ToMany)property
+                if(isStoredByInverseSide(toMany)) {
+                    access.setPropertyNoConversion(name, RxCollectionUtils.createConcreteCollection(toMany, id, queryState))
+                }
+                else {
+                    List<Serializable> keys = value instanceof Collection ? new ArrayList<Serializable>((Collection<Serializable>)value) : new ArrayList<Serializable>()
+                    access.setPropertyNoConversion(name, createCollection(toMany, keys, queryState))
+                }
+            }
+            else if(value != null) {
+                access.setPropertyNoConversion(name, value)
+            }
+        }
+
+        activeDirtyChecking(instance)
+        eventPublisher?.publishEvent(new PostLoadEvent(this, entity, access))
+        return instance
+    }
+
+    /**
+     * Converts an instance into a native entry
+     *
+     * @param entity The entity
+     * @param id The identifier
+     * @param access The entity access of the instance
+     * @return The native entry
+     */
+    protected Map encodeEntry(PersistentEntity entity, Serializable id, EntityAccess access) {
+        Map<String, Object> entry = new LinkedHashMap<>()
+        entry.put(entity.identity.name, id)
+        if(!entity.isRoot()) {
+            entry.put(DISCRIMINATOR, entity.discriminator)
+        }
+        ProxyHandler proxyHandler = mappingContext.proxyHandler
+        for(PersistentProperty property in entity.persistentProperties) {
+            String name = property.name
+            Object value = access.getProperty(name)
+            if(property instanceof ToOne) {
+                ToOne toOne = (ToOne)property
+                if(toOne.isForeignKeyInChild()) {
+                    continue
+                }
+                if(value != null && !toOne.isEmbedded()) {
+                    value = proxyHandler.isProxy(value) ? proxyHandler.getIdentifier(value) : mappingContext.getEntityReflector(toOne.associatedEntity).getIdentifier(value)
+                }
+            }
+            else if(property instanceof Basic) {
+                if(value instanceof Collection) {
+                    value = new ArrayList((Collection)value)
+                }
+            }
+            else if(property instanceof ToMany) {
+                ToMany toMany = (ToMany)property
+                if(isStoredByInverseSide(toMany)) {
+                    continue
+                }
+                value = value != null ? associationKeys(toMany, (Collection)value) : null
+            }
+            entry.put(name, value)
+        }
+        return entry
+    }
+
+    protected boolean updateEntry(PersistentEntity entity, ConcurrentMap<Object, Map> family, BatchOperation.EntityOperation update) {
+        EntityAccess access = mappingContext.createEntityAccess(entity, update.object)
+        Serializable id = update.identity
+        Map existing = family.get(id)
+        if(existing == null) {
+            return false
+        }
+        if(!entity.isVersioned()) {
+            family.put(id, encodeEntry(entity, id, access))
+            return true
+        }
+
+        String versionName = entity.version.name
+        Object currentVersion = access.getProperty(versionName)
+        if(currentVersion != null && existing.get(versionName) != currentVersion) {
+            throw new OptimisticLockingException(entity, id)
+        }
+        Object previousVersion = currentVersion
+        access.setProperty(versionName, currentVersion instanceof Number ? ((Number)currentVersion).longValue() + 1 : 0)
+        Map updated = encodeEntry(entity, id, access)
+        if(!family.replace(id, existing, updated)) {
+            // another subscriber updated the entry in the meantime
+            access.setProperty(versionName, previousVersion)
+            throw new OptimisticLockingException(entity, id)
+        }
+        return true
+    }
+
+    protected boolean isStoredByInverseSide(ToMany toMany) {
+        return toMany.isBidirectional() && !(toMany instanceof ManyToMany)
+    }
+
+    protected List<Serializable> associationKeys(ToMany toMany, Collection collection) {
+        if(collection instanceof PersistentCollection && !((PersistentCollection)collection).isInitialized() && collection instanceof RxUnidirectionalCollection) {
+            return ((RxUnidirectionalCollection)collection).associationKeys
+        }
+        EntityReflector reflector = mappingContext.getEntityReflector(toMany.associatedEntity)
+        ProxyHandler proxyHandler = mappingContext.proxyHandler
+        List<Serializable> keys = []
+        for(Object o in collection) {
+            Serializable key = proxyHandler.isProxy(o) ? proxyHandler.getIdentifier(o) : reflector.getIdentifier(o)
+            if(key != null) {
+                keys.add(key)
+            }
+        }
+        return keys
+    }
+
+    protected Collection createCollection(Association association, List<Serializable> keys, QueryState queryState) {
+        switch(association.type) {
+            case SortedSet:
+                return new RxPersistentSortedSet(this, association, keys, queryState)
+            case List:
+                return new RxPersistentList(this, association, keys, queryState)
+            default:
+                return new RxPersistentSet(this, association, keys, queryState)
+        }
+    }
+
+    protected Serializable convertIdentifier(Class idType, long key) {
+        if(idType == Long || idType == Object || idType == Serializable) {
+            return key
+        }
+        else if(idType == Integer) {
+            return (int)key
+        }
+        else if(mappingContext.conversionService.canConvert(Long, idType)) {
+            return (Serializable)mappingContext.conversionService.convert(key, idType)
+        }
+        throw new IdentityGenerationException("Cannot generate identifiers of type [$idType.name]")
+    }
+}
@@ -0,0 +1,473 @@
+package org.grails.datastore.mapping.simple.rx
+
+import groovy.transform.CompileStatic
+import org.codehaus.groovy.runtime.typehandling.DefaultTypeTransformation
+import org.grails.datastore.gorm.finders.DynamicFinder
+import org.grails.datastore.mapping.model.PersistentEntity
+import org.grails.datastore.mapping.model.PersistentProperty
+import org.grails.datastore.mapping.model.types.Association
+import org.grails.datastore.mapping.model.types.ToMany
+import org.grails.datastore.mapping.model.types.ToOne
+import org.grails.datastore.mapping.query.AssociationQuery
+import org.grails.datastore.mapping.query.Query
+import org.grails.datastore.mapping.query.api.QueryArgumentsAware
+import org.grails.datastore.mapping.query.event.PreQueryEvent
+import org.grails.datastore.mapping.query.projections.ManualProjections
+import org.grails.datastore.mapping.reflect.EntityReflector
+import org.grails.datastore.rx.query.QueryState
+import org.grails.datastore.rx.query.RxQuery
+import org.grails.datastore.rx.query.RxQueryUtils
+import org.grails.datastore.rx.query.event.PostQueryEvent
+import org.springframework.context.ApplicationEventPublisher
+import org.springframework.dao.InvalidDataAccessResourceUsageException
+import rx.Observable
+import rx.functions.Func0
+
+import javax.persistence.FetchType
+import java.util.concurrent.Callable
+import java.util.regex.Pattern
+
+/**
+ * A {@link RxQuery} that evaluates the criteria against the native entries of a {@link SimpleMapRxDatastoreClient},
+ * following the semantics of the {@link org.grails.datastore.mapping.simple.query.SimpleMapQuery}. The query is executed
+ * on the scheduler of the client when subscribed to.
+ *
+ * @author Graeme Rocher
+ * @since 7.0
+ */
+@CompileStatic
+class SimpleMapRxQuery extends Query implements RxQuery, QueryArgumentsAware {
+
+    final SimpleMapRxDatastoreClient datastoreClient
+    final QueryState queryState
+    Map arguments = [:]
+
+    SimpleMapRxQuery(SimpleMapRxDatastoreClient datastoreClient, PersistentEntity entity, QueryState queryState, Map arguments = [:]) {
+        super(null, entity)
+        this.datastoreClient = datastoreClient
+        this.queryState = queryState
+        this.arguments = arguments
+    }
+
+    @Override
+    Observable findAll() {
+        return findAll(arguments)
+    }
+
+    @Override
+    Observable findAll(Map<String, Object> queryArguments) {
+        if(queryArguments.containsKey(ARGUMENT_BATCH_SIZE)) {
+            return findAllInBatches(queryArguments)
+        }
+        DynamicFinder.populateArgumentsForCriteria(entity.javaClass, this, queryArguments)
+        ApplicationEventPublisher publisher = datastoreClient.eventPublisher
+        publisher?.publishEvent(new PreQueryEvent(datastoreClient, this))
+
+        Observable observable = Observable.defer({
+            Observable.from(executeQuery(entity, criteria))
+        } as Func0<Observable>).subscribeOn(datastoreClient.scheduler)
+        observable = RxQueryUtils.processFetchStrategies(datastoreClient, observable, entity, fetchStrategies, queryState)
+
+        if(publisher != null) {
+            PostQueryEvent postQueryEvent = new PostQueryEvent(datastoreClient, this, observable)
+            publisher.publishEvent(postQueryEvent)
+            observable = postQueryEvent.observable
+        }
+        return observable
+    }
+
+    /**
+     * Streams the results in batches, creating a new query with the criteria, order and fetch strategies of this query for
+     * each batch
+     */
+    protected Observable findAllInBatches(Map<String, Object> queryArguments) {
+        if(!projections().isEmpty()) {
+            throw new InvalidDataAccessResourceUsageException("Argument [$ARGUMENT_BATCH_SIZE] cannot be used with projections")
+        }
+        Map<String, Object> batchArguments = new LinkedHashMap<>(queryArguments)
+        if(max > -1 && !batchArguments.containsKey(DynamicFinder.ARGUMENT_MAX)) {
+            batchArguments.put(DynamicFinder.ARGUMENT_MAX, max)
+        }
+        if(offset > 0 && !batchArguments.containsKey(DynamicFinder.ARGUMENT_OFFSET)) {
+            batchArguments.put(DynamicFinder.ARGUMENT_OFFSET, offset)
+        }
+        List<Query.Criterion> criterionList = new ArrayList<>(criteria.criteria)
+        List<Query.Order> orders = new ArrayList<>(orderBy)
+        Map<String, FetchType> fetches = new LinkedHashMap<>(fetchStrategies)
+
+        return RxQueryUtils.findAllInBatches(entity, batchArguments, {
+            Query query = datastoreClient.createQuery(entity.javaClass, queryState)
+            for(criterion in criterionList) {
+                query.add(criterion)
+            }
+            for(order in orders) {
+                query.order(order)
+            }
+            for(fetch in fetches) {
+                if(fetch.value == FetchType.EAGER) {
+                    query.join(fetch.key)
+                }
+                else {
+                    query.select(fetch.key)
+                }
+            }
+            return query
+        } as Func0<Query>)
+    }
+
+    @Override
+    Observable singleResult() {
+        return singleResult(arguments)
+    }
+
+    @Override
+    Observable singleResult(Map<String, Object> queryArguments) {
+        DynamicFinder.populateArgumentsForCriteria(entity.javaClass, this, queryArguments)
+        max(1)
+        return findAll(Collections.<String, Object>emptyMap())
+    }
+
+    @Override
+    Observable<Number> updateAll(Map properties) {
+        return Observable.fromCallable({
+            Map<Object, Map> family = datastoreClient.getFamily(datastoreClient.getFamilyName(entity))
+            int count = 0
+            for(Map.Entry<Object, Map> entry in findMatchingEntries()) {
+                Map updated = new LinkedHashMap(entry.value)
+                for(Object property in properties.keySet()) {
+                    updated.put(property, resolveIdIfEntity(properties.get(property)))
+                }
+                if(family.replace(entry.key, entry.value, updated)) {
+                    count++
+                }
+            }
+            return (Number)count
+        } as Callable<Number>).subscribeOn(datastoreClient.scheduler)
+    }
+
+    @Override
+    Observable<Number> deleteAll() {
+        return Observable.fromCallable({
+            Map<Object, Map> family = datastoreClient.getFamily(datastoreClient.getFamilyName(entity))
+            int count = 0
+            for(Map.Entry<Object, Map> entry in findMatchingEntries()) {
+                if(family.remove(entry.key, entry.value)) {
+                    queryState?.removeLoadedEntity(entity.javaClass, (Serializable)entry.key)
+                    count++
+                }
+            }
+            return (Number)count
+        } as Callable<Number>).subscribeOn(datastoreClient.scheduler)
+    }
+
+    @Override
+    protected List executeQuery(PersistentEntity entity, Query.Junction criteria) {
+        List<Map.Entry<Object, Map>> matches = findMatchingEntries()
+        if(!orderBy.isEmpty()) {
+            sortEntries(entity, matches)
+        }
+        if(projections.isEmpty()) {
+            // only convert the entries that are part of the requested page
+            return decode(applyMaxAndOffset(matches))
+        }
+        return applyMaxAndOffset(applyProjections(decode(matches)))
+    }
+
+    /**
+     * Sorts native entries by the order of this query, comparing the stored values like the SimpleMapQuery so that
+     * only the entries of the requested page need to be converted
+     */
+    protected void sortEntries(PersistentEntity entity, List<Map.Entry<Object, Map>> entries) {
+        List<Query.Order> orders = new ArrayList<>(orderBy)
+        Collections.sort(entries, { Map.Entry<Object, Map> a, Map.Entry<Object, Map> b ->
+            for(Query.Order order in orders) {
+                int cmp = compare(valueOf(entity, a.key, a.value, order.property), valueOf(entity, b.key, b.value, order.property))
+                if(cmp != 0) {
+                    return order.direction == Query.Order.Direction.DESC ? -cmp : cmp
+                }
+            }
+            return 0
+        } as Comparator<Map.Entry<Object, Map>>)
+    }
+
+    /**
+     * @return The entries of the family of the entity that match the criteria of this query, in insertion order
+     */
+    protected List<Map.Entry<Object, Map>> findMatchingEntries() {
+        Map<Object, Map> family = datastoreClient.getFamily(datastoreClient.getFamilyName(entity))
+        List<Map.Entry<Object, Map>> matches = []
+        for(Map.Entry<Object, Map> entry in family.entrySet()) {
+            if(isInstance(entity, entry.value) && matches(entity, entry.key, entry.value, criteria)) {
+                matches.add(entry)
+            }
+        }
+        return matches
+    }
+
+    protected List decode(List<Map.Entry<Object, Map>> entries) {
+        List results = new ArrayList(entries.size())
+        for(Map.Entry<Object, Map> entry in entries) {
+            results.add(datastoreClient.decodeEntry(entity, (Serializable)entry.key, entry.value, queryState))
+        }
+        return results
+    }
+
+    protected List applyProjections(List results) {
+        List<Query.Projection> projectionList = projections.projectionList
+        int projectionCount = projectionList.size()
+        ManualProjections manualProjections = new ManualProjections(entity)
+        EntityReflector reflector = entity.mappingContext.getEntityReflector(entity)
+        List projected = []
+        for(Query.Projection projection in projectionList) {
+            List column
+            if(projection instanceof Query.IdProjection) {
+                column = results.collect { Object o -> reflector.getIdentifier(o) }
+            }
+            else if(projection instanceof Query.CountProjection) {
+                column = [results.size()]
+            }
+            else if(projection instanceof Query.CountDistinctProjection) {
+                column = [manualProjections.countDistinct(results, ((Query.PropertyProjection)projection).propertyName)]
+            }
+            else if(projection instanceof Query.PropertyProjection) {
+                String propertyName = ((Query.PropertyProjection)projection).propertyName
+                if(projection instanceof Query.MaxProjection) {
+                    column = [manualProjections.max(results, propertyName)]
+                }
+                else if(projection instanceof Query.MinProjection) {
+                    column = [manualProjections.min(results, propertyName)]
+                }
+                else if(projection instanceof Query.SumProjection || projection instanceof Query.AvgProjection) {
+                    List<Number> values = manualProjections.property(results, propertyName).findAll { it != null } as List<Number>
+                    Number sum = values ? (Number)values.sum() : null
+                    column = [projection instanceof Query.AvgProjection && sum != null ? sum / values.size() : sum]
+                }
+                else if(projection instanceof Query.DistinctPropertyProjection) {
+                    column = new ArrayList(manualProjections.distinct(results, propertyName))
+                }
+                else {
+                    column = manualProjections.property(results, propertyName)
+                }
+            }
+            else {
+                throw new InvalidDataAccessResourceUsageException("Unsupported projection [${projection.getClass().simpleName}] used in query")
+            }
+
+            if(projectionCount == 1) {
+                return column
+            }
+            projected.add(column)
+        }
+
+        // transpose the columns of each projection into rows
+        List<List> columns = (List<List>)projected
+        int rows = columns.collect { List column -> column.size() }.max() as int
+        List transposed = []
+        for(int i = 0; i < rows; i++) {
+            transposed.add(columns.collect { List column -> i < column.size() ? column.get(i) : null })
+        }
+        return transposed
+    }
+
+    protected List applyMaxAndOffset(List results) {
+        int total = results.size()
+        if(offset >= total) {
+            return Collections.emptyList()
+        }
+        int to = max > -1 ? Math.min(offset + max, total) : total
+        return results.subList(offset, to)
+    }
+
+    protected boolean isInstance(PersistentEntity entity, Map entry) {
+        if(entity.isRoot()) {
+            return true
+        }
+        String discriminator = (String)entry.get(SimpleMapRxDatastoreClient.DISCRIMINATOR)
+        if(discriminator == null) {
+            return false
+        }
+        PersistentEntity child = entity.mappingContext.getChildEntityByDiscriminator(entity.rootEntity, discriminator)
+        return child != null && entity.javaClass.isAssignableFrom(child.javaClass)
+    }
+
+    protected boolean matches(PersistentEntity entity, Object id, Map entry, Query.Criterion criterion) {
+        if(criterion instanceof Query.Conjunction) {
+            for(Query.Criterion c in ((Query.Junction)criterion).criteria) {
+                if(!matches(entity, id, entry, c)) return false
+            }
+            return true
+        }
+        else if(criterion instanceof Query.Disjunction) {
+            for(Query.Criterion c in ((Query.Junction)criterion).criteria) {
+                if(matches(entity, id, entry, c)) return true
+            }
+            return false
+        }
+        else if(criterion instanceof Query.Negation) {
+            // like the SimpleMapQuery, which intersects the negated results, a negation matches when none of its criteria match
+            for(Query.Criterion c in ((Query.Junction)criterion).criteria) {
+                if(matches(entity, id, entry, c)) return false
+            }
+            return true
+        }
+        else if(criterion instanceof AssociationQuery) {
+            return matchesAssociation(id, entry, (AssociationQuery)criterion)
+        }
+        else if(criterion instanceof Query.IdEquals) {
+            return id == convertIdentifier(entity, ((Query.IdEquals)criterion).value)
+        }
+        else if(criterion instanceof Query.SubqueryCriterion || criterion instanceof Query.Exists || criterion instanceof Query.NotExists) {
+            throw new InvalidDataAccessResourceUsageException("Unsupported criterion [${criterion.getClass().simpleName}] used in query")
+        }
+        else if(criterion instanceof Query.PropertyComparisonCriterion) {
+            Query.PropertyComparisonCriterion comparison = (Query.PropertyComparisonCriterion)criterion
+            Object value = valueOf(entity, id, entry, comparison.property)
+            Object other = valueOf(entity, id, entry, comparison.otherProperty)
+            if(criterion instanceof Query.EqualsProperty) return value == other
+            if(criterion instanceof Query.NotEqualsProperty) return value != other
+            if(value == null || other == null) return false
+            int cmp = compare(value, other)
+            if(criterion instanceof Query.GreaterThanProperty) return cmp > 0
+            if(criterion instanceof Query.GreaterThanEqualsProperty) return cmp >= 0
+            if(criterion instanceof Query.LessThanProperty) return cmp < 0
+            if(criterion instanceof Query.LessThanEqualsProperty) return cmp <= 0
+        }
+        else if(criterion instanceof Query.IsNull) {
+            return valueOf(entity, id, entry, ((Query.IsNull)criterion).property) == null
+        }
+        else if(criterion instanceof Query.IsNotNull) {
+            return valueOf(entity, id, entry, ((Query.IsNotNull)criterion).property) != null
+        }
+        else if(criterion instanceof Query.IsEmpty) {
+            return sizeOf(entity, id, entry, ((Query.IsEmpty)criterion).property) == 0
+        }
+        else if(criterion instanceof Query.IsNotEmpty) {
+            return sizeOf(entity, id, entry, ((Query.IsNotEmpty)criterion).property) > 0
+        }
+        else if(criterion instanceof Query.In) {
+            Query.In inCriterion = (Query.In)criterion
+            if(inCriterion.subquery != null) {
+                throw new InvalidDataAccessResourceUsageException("Unsupported criterion [In] with a subquery used in query")
+            }
+            Object value = valueOf(entity, id, entry, inCriterion.property)
+            for(Object candidate in inCriterion.values) {
+                if(value == resolveIdIfEntity(candidate)) return true
+            }
+            return false
+        }
+        else if(criterion instanceof Query.Between) {
+            Query.Between between = (Query.Between)criterion
+            Object value = valueOf(entity, id, entry, between.property)
+            return value != null && compare(value, between.from) >= 0 && compare(value, between.to) <= 0
+        }
+        else if(criterion instanceof Query.Like) {
+            Query.Like like = (Query.Like)criterion
+            Object value = valueOf(entity, id, entry, like.property)
+            if(value == null) return false
+            if(criterion instanceof Query.RLike) {
+                return Pattern.compile(like.pattern).matcher(value.toString()).find()
+            }
+            int flags = criterion instanceof Query.ILike ? Pattern.CASE_INSENSITIVE : 0
+            return Pattern.compile(patternToRegex(like.pattern), flags).matcher(value.toString()).matches()
+        }
+        else if(criterion instanceof Query.PropertyCriterion) {
+            Query.PropertyCriterion pc = (Query.PropertyCriterion)criterion
+            String property = pc.property
+            if(criterion instanceof Query.SizeEquals) return sizeOf(entity, id, entry, property) == toInt(pc.value)
+            if(criterion instanceof Query.SizeNotEquals) return sizeOf(entity, id, entry, property) != toInt(pc.value)
+            if(criterion instanceof Query.SizeGreaterThan) return sizeOf(entity, id, entry, property) > toInt(pc.value)
+            if(criterion instanceof Query.SizeGreaterThanEquals) return sizeOf(entity, id, entry, property) >= toInt(pc.value)
+            if(criterion instanceof Query.SizeLessThan) return sizeOf(entity, id, entry, property) < toInt(pc.value)
+            if(criterion instanceof Query.SizeLessThanEquals) return sizeOf(entity, id, entry, property) <= toInt(pc.value)
+
+            Object value = valueOf(entity, id, entry, property)
+            Object expected = resolveIdIfEntity(pc.value)
+            if(criterion instanceof Query.Equals) return value == expected
+            if(criterion instanceof Query.NotEquals) return value != expected
+            if(value == null || expected == null) return false
+            int cmp = compare(value, expected)
+            if(criterion instanceof Query.GreaterThan) return cmp > 0
+            if(criterion instanceof Query.GreaterThanEquals) return cmp >= 0
+            if(criterion instanceof Query.LessThan) return cmp < 0
+            if(criterion instanceof Query.LessThanEquals) return cmp <= 0
+        }
+        throw new InvalidDataAccessResourceUsageException("Unsupported criterion [${criterion.getClass().simpleName}] used in query")
+    }
+
+    protected boolean matchesAssociation(Object id, Map entry, AssociationQuery associationQuery) {
+        Association association = associationQuery.association
+        PersistentEntity associatedEntity = association.associatedEntity
+        Map<Object, Map> associatedFamily = datastoreClient.getFamily(datastoreClient.getFamilyName(associatedEntity))
+        for(Map.Entry<Object, Map> associated in associatedEntries(association, id, entry, associatedFamily)) {
+            if(matches(associatedEntity, associated.key, associated.value, associationQuery.criteria)) {
+                return true
+            }
+        }
+        return false
+    }
+
+    protected List<Map.Entry<Object, Map>> associatedEntries(Association association, Object id, Map entry, Map<Object, Map> associatedFamily) {
+        List<Map.Entry<Object, Map>> associated = []
+        if(association instanceof ToOne && !((ToOne)association).isForeignKeyInChild()) {
+            Object key = entry.get(association.name)
+            Map associatedEntry = key != null ? associatedFamily.get(key) : null
+            if(associatedEntry != null) {
+                associated.add(new AbstractMap.SimpleImmutableEntry<Object, Map>(key, associatedEntry))
+            }
+        }
+        else if(association instanceof ToMany && !datastoreClient.isStoredByInverseSide((ToMany)association)) {
+            Collection keys = (Collection)entry.get(association.name)
+            for(Object key in keys ?: []) {
+                Map associatedEntry = associatedFamily.get(key)
+                if(associatedEntry != null) {
+                    associated.add(new AbstractMap.SimpleImmutableEntry<Object, Map>(key, associatedEntry))
+                }
+            }
+        }
+        else {
+            // the foreign key is stored by the other side of the association
+            String inverseName = association.inverseSide.name
+            for(Map.Entry<Object, Map> candidate in associatedFamily.entrySet()) {
+                if(candidate.value.get(inverseName) == id) {
+                    associated.add(candidate)
+                }
+            }
+        }
+        return associated
+    }
+
+    protected Object valueOf(PersistentEntity entity, Object id, Map entry, String property) {
+        if(entity.identity?.name == property) {
+            return id
+        }
+        return entry.get(property)
+    }
+
+    protected int sizeOf(PersistentEntity entity, Object id, Map entry, String property) {
+        PersistentProperty persistentProperty = entity.getPropertyByName(property)
+        if(persistentProperty instanceof Association) {
+            Association association = (Association)persistentProperty
+            Map<Object, Map> associatedFamily = datastoreClient.getFamily(datastoreClient.getFamilyName(association.associatedEntity))
+            return associatedEntries(association, id, entry, associatedFamily).size()
+        }
+        Object value = entry.get(property)
+        return value instanceof Collection ? ((Collection)value).size() : 0
+    }
+
+    protected Object convertIdentifier(PersistentEntity entity, Object value) {
+        value = resolveIdIfEntity(value)
+        Class idType = entity.identity.type
+        if(value != null && !idType.isInstance(value) && entity.mappingContext.conversionService.canConvert(value.getClass(), idType)) {
+            return entity.mappingContext.conversionService.convert(value, idType)
+        }
+        return value
+    }
+
+    private static int compare(Object value, Object other) {
+        return DefaultTypeTransformation.compareTo(value, other)
+    }
+
+    private static int toInt(Object value) {
+        return value instanceof Number ? ((Number)value).intValue() : Integer.parseInt(value.toString())
+    }
+}
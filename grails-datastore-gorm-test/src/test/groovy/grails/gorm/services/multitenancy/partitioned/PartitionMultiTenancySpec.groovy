@@ -9,10 +9,14 @@ import grails.gorm.multitenancy.WithoutTenant
 import grails.gorm.services.Service
 import grails.gorm.transactions.ReadOnly
 import grails.gorm.transactions.Transactional
+import org.grails.datastore.gorm.multitenancy.MultiTenantEventListener
 import org.grails.datastore.mapping.config.Settings
+import org.grails.datastore.mapping.core.Session
 import org.grails.datastore.mapping.multitenancy.MultiTenancySettings
 import org.grails.datastore.mapping.multitenancy.exceptions.TenantNotFoundException
 import org.grails.datastore.mapping.multitenancy.resolvers.SystemPropertyTenantResolver
+import org.grails.datastore.mapping.query.Query
+import org.grails.datastore.mapping.query.event.PreQueryEvent
 import org.grails.datastore.mapping.simple.SimpleMapDatastore
 import spock.lang.AutoCleanup
 import spock.lang.Shared
@@ -87,6 +91,47 @@ class PartitionMultiTenancySpec extends Specification {
 
 
     }
+
+    void 'Test queries are restricted to the current tenant when they are executed'() {
+        given:
+        System.setProperty(SystemPropertyTenantResolver.PROPERTY_NAME, "12")
+
+        when:
+        List<Integer> criteriaSizes = Book.withNewSession { Session session ->
+            Query query = session.createQuery(Book)
+            Query cloned = (Query) query.clone()
+            int before = query.criteria.criteria.size()
+            int results = query.list().size()
+            int clonedResults = cloned.list().size()
+            [query.restrictedToTenant ? before : -1, query.criteria.criteria.size(), cloned.criteria.criteria.size(), results, clonedResults]
+        }
+
+        then:"the criterion is applied once on execution, including for cloned queries"
+        criteriaSizes == [0, 1, 1, 2, 2]
+        !((MultiTenantEventListener) datastore.tenantQueryFilter).supportsEventType(PreQueryEvent)
+    }
+
+    void 'Test creating a query without a current tenant only fails when it is executed'() {
+        given:
+        System.setProperty(SystemPropertyTenantResolver.PROPERTY_NAME, "")
+
+        when:"a query is created without a tenant"
+        Query query = Book.withNewSession { Session session ->
+            session.createQuery(Book)
+        }
+
+        then:"no tenant is resolved"
+        noExceptionThrown()
+        query.restrictedToTenant
+
+        when:"the query is executed"
+        Book.withNewSession { Session session ->
+            session.createQuery(Book).list()
+        }
+
+        then:
+        thrown(TenantNotFoundException)
+    }
 }
 
 @Entity
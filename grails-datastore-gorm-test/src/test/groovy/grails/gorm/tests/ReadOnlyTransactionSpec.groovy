@@ -0,0 +1,105 @@
+package grails.gorm.tests
+
+import grails.gorm.annotation.Entity
+import org.grails.datastore.gorm.events.DefaultApplicationEventPublisher
+import org.grails.datastore.mapping.core.AbstractSession
+import org.grails.datastore.mapping.core.DatastoreUtils
+import org.grails.datastore.mapping.model.PersistentEntity
+import org.grails.datastore.mapping.simple.SimpleMapDatastore
+import org.springframework.dao.InvalidDataAccessApiUsageException
+import spock.lang.AutoCleanup
+import spock.lang.Shared
+import spock.lang.Specification
+
+class ReadOnlyTransactionSpec extends Specification {
+
+    @Shared @AutoCleanup SimpleMapDatastore datastore = new SimpleMapDatastore(
+            DatastoreUtils.createPropertyResolver([:]),
+            new DefaultApplicationEventPublisher(),
+            ReadOnlyBook
+    )
+
+    void "test read-only transactions do not snapshot entries or write changes"() {
+        given:
+        Long id = ReadOnlyBook.withTransaction {
+            new ReadOnlyBook(title: "The Stand").save(flush: true).id
+        }
+        PersistentEntity entity = datastore.mappingContext.getPersistentEntity(ReadOnlyBook.name)
+
+        when:"an entity is loaded and changed in a read-only transaction"
+        Map result = ReadOnlyBook.withNewSession { session ->
+            ReadOnlyBook.withTransaction(readOnly: true) {
+                AbstractSession current = (AbstractSession) datastore.currentSession
+                ReadOnlyBook book = ReadOnlyBook.get(id)
+                book.title = "Changed"
+                [readOnly     : current.readOnly,
+                 entry        : current.getCachedEntry(entity, id),
+                 dirtyCheck   : current.getCachedEntry(entity, id, true),
+                 pendingUpdate: current.pendingUpdates.values().flatten().size()]
+            } + [readOnlyAfter: ((AbstractSession) session).readOnly]
+        }
+
+        then:"no dirty checking snapshot or pending update was registered and the session is restored"
+        result.readOnly
+        result.entry != null
+        result.dirtyCheck == null
+        result.pendingUpdate == 0
+        !result.readOnlyAfter
+
+        and:"the change was not written"
+        ReadOnlyBook.withNewSession { ReadOnlyBook.get(id).title } == "The Stand"
+    }
+
+    void "test writes in read-only transactions are rejected"() {
+        given:
+        Long id = ReadOnlyBook.withTransaction {
+            new ReadOnlyBook(title: "Carrie").save(flush: true).id
+        }
+
+        when:"an entity is saved in a read-only transaction"
+        ReadOnlyBook.withNewSession {
+            ReadOnlyBook.withTransaction(readOnly: true) {
+                ReadOnlyBook book = ReadOnlyBook.get(id)
+                book.title = "Changed"
+                book.save(flush: true)
+            }
+        }
+
+        then:
+        thrown(InvalidDataAccessApiUsageException)
+
+        when:"an entity is deleted in a read-only transaction"
+        ReadOnlyBook.withNewSession {
+            ReadOnlyBook.withTransaction(readOnly: true) {
+                ReadOnlyBook.get(id).delete(flush: true)
+            }
+        }
+
+        then:
+        thrown(InvalidDataAccessApiUsageException)
+
+        and:"nothing was written"
+        ReadOnlyBook.withNewSession { ReadOnlyBook.get(id).title } == "Carrie"
+    }
+
+    void "test regular transactions still snapshot entries"() {
+        given:
+        Long id = ReadOnlyBook.withTransaction {
+            new ReadOnlyBook(title: "It").save(flush: true).id
+        }
+        PersistentEntity entity = datastore.mappingContext.getPersistentEntity(ReadOnlyBook.name)
+
+        expect:
+        ReadOnlyBook.withNewSession { session ->
+            ReadOnlyBook.withTransaction {
+                ReadOnlyBook.get(id)
+                ((AbstractSession) session).getCachedEntry(entity, id, true) != null
+            }
+        }
+    }
+}
+
+@Entity
+class ReadOnlyBook {
+    String title
+}
@@ -0,0 +1,86 @@
+package grails.gorm.tests.multitenancy
+
+import grails.gorm.MultiTenant
+import grails.gorm.annotation.Entity
+import grails.gorm.multitenancy.Tenants
+import org.grails.datastore.gorm.events.DefaultApplicationEventPublisher
+import org.grails.datastore.mapping.config.Settings
+import org.grails.datastore.mapping.core.DatastoreUtils
+import org.grails.datastore.mapping.metrics.InMemoryDatastoreMetrics
+import org.grails.datastore.mapping.multitenancy.MultiTenancySettings
+import org.grails.datastore.mapping.multitenancy.TenantResolver
+import org.grails.datastore.mapping.multitenancy.resolvers.SystemPropertyTenantResolver
+import org.grails.datastore.mapping.simple.SimpleMapDatastore
+import spock.lang.AutoCleanup
+import spock.lang.Shared
+import spock.lang.Specification
+
+class DatastoreMetricsSpec extends Specification {
+
+    @Shared @AutoCleanup SimpleMapDatastore datastore = new SimpleMapDatastore(
+            DatastoreUtils.createPropertyResolver(
+                    [(Settings.SETTING_MULTI_TENANCY_MODE)   : MultiTenancySettings.MultiTenancyMode.DISCRIMINATOR,
+                     (Settings.SETTING_MULTI_TENANT_RESOLVER): new SystemPropertyTenantResolver(),
+                     (Settings.SETTING_METRICS)              : true]
+            ),
+            new DefaultApplicationEventPublisher(),
+            MetricsBook
+    )
+
+    void "test queries and persistence operations are recorded per tenant"() {
+        given:
+        InMemoryDatastoreMetrics metrics = (InMemoryDatastoreMetrics) datastore.datastoreMetrics
+
+        when:
+        Tenants.withId(datastore, 1L) {
+            MetricsBook.withNewSession {
+                new MetricsBook(title: "The Stand").save(flush: true)
+                new MetricsBook(title: "The Shining").save(flush: true)
+                MetricsBook.list()
+            }
+        }
+        Tenants.withId(datastore, 2L) {
+            MetricsBook.withNewSession {
+                MetricsBook.list()
+            }
+        }
+        InMemoryDatastoreMetrics.TenantStatistics one = metrics.getTenantStatistics(1L)
+        InMemoryDatastoreMetrics.TenantStatistics two = metrics.getTenantStatistics(2L)
+
+        then:
+        one.persists.count == 2
+        one.flushes.count >= 2
+        one.queries.count >= 1
+        one.queries.rowCount >= 2
+        two.persists.count == 0
+        two.queries.count >= 1
+        two.queries.rowCount == 0
+        metrics.getHotTenants(1).size() == 1
+        metrics.getHotTenants(10)*.tenantId as Set == [1L, 2L] as Set
+    }
+
+    void "test the statistics of the least recently active tenants are evicted beyond the limit"() {
+        given:
+        Serializable currentTenant = null
+        InMemoryDatastoreMetrics metrics = new InMemoryDatastoreMetrics({ -> currentTenant } as TenantResolver, 2)
+
+        when:
+        for(Long tenantId in [1L, 2L, 1L, 3L]) {
+            currentTenant = tenantId
+            metrics.recordQuery(null, 10, 1)
+        }
+
+        then:
+        metrics.tenantStatistics.size() == 2
+        metrics.getTenantStatistics(1L).queries.count == 2
+        metrics.getTenantStatistics(2L) == null
+        metrics.getTenantStatistics(3L).queries.count == 1
+        metrics.evictedTenants == 1
+    }
+}
+
+@Entity
+class MetricsBook implements MultiTenant<MetricsBook> {
+    Long tenantId
+    String title
+}
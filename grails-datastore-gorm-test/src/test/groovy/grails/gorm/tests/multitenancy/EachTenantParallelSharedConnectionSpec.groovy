@@ -0,0 +1,79 @@
+package grails.gorm.tests.multitenancy
+
+import grails.gorm.MultiTenant
+import grails.gorm.annotation.Entity
+import grails.gorm.multitenancy.TenantExecution
+import grails.gorm.multitenancy.Tenants
+import org.grails.datastore.gorm.events.DefaultApplicationEventPublisher
+import org.grails.datastore.mapping.config.Settings
+import org.grails.datastore.mapping.core.DatastoreUtils
+import org.grails.datastore.mapping.core.Session
+import org.grails.datastore.mapping.multitenancy.AllTenantsResolver
+import org.grails.datastore.mapping.multitenancy.MultiTenancySettings
+import org.grails.datastore.mapping.multitenancy.resolvers.SystemPropertyTenantResolver
+import org.grails.datastore.mapping.simple.SimpleMapDatastore
+import spock.lang.AutoCleanup
+import spock.lang.Shared
+import spock.lang.Specification
+
+import java.util.concurrent.ConcurrentHashMap
+
+class EachTenantParallelSharedConnectionSpec extends Specification {
+
+    @Shared @AutoCleanup SimpleMapDatastore datastore = new SimpleMapDatastore(
+            DatastoreUtils.createPropertyResolver(
+                    (Settings.SETTING_MULTI_TENANCY_MODE)   : MultiTenancySettings.MultiTenancyMode.DISCRIMINATOR,
+                    (Settings.SETTING_MULTI_TENANT_RESOLVER): new AllTenantsSystemPropertyResolver()
+            ),
+            new DefaultApplicationEventPublisher(),
+            ParallelDiscriminatorBook
+    )
+
+    void setup() {
+        System.setProperty(SystemPropertyTenantResolver.PROPERTY_NAME, "")
+    }
+
+    void cleanup() {
+        System.setProperty(SystemPropertyTenantResolver.PROPERTY_NAME, "")
+    }
+
+    void "test each tenant of a shared connection is processed in its own session with the current tenant bound"() {
+        given:
+        Map<Serializable, Serializable> seen = new ConcurrentHashMap<>()
+        Map<Serializable, Session> sessions = new ConcurrentHashMap<>()
+
+        when:
+        List<TenantExecution> executions = Tenants.eachTenantParallel(datastore, 2) { String tenantId ->
+            sessions.put(tenantId, datastore.currentSession)
+            seen.put(tenantId, Tenants.currentId(datastore))
+            new ParallelDiscriminatorBook(title: "Book for $tenantId").save(flush: true)
+            return ParallelDiscriminatorBook.count()
+        }
+
+        then:"the work of each tenant only sees the data of that tenant"
+        executions*.tenantId == ["one", "two", "three"]
+        executions.every { it.success && it.result == 1 }
+        seen == [one: "one", two: "two", three: "three"]
+
+        and:"a separate session was bound on the worker thread for each tenant"
+        sessions.keySet() == ["one", "two", "three"] as Set
+        sessions.values().toSet().size() == 3
+
+        and:"the data was written with the discriminator of each tenant"
+        Tenants.withId(datastore, "two") { ParallelDiscriminatorBook.list()*.tenantId } == ["two"]
+        Tenants.withId(datastore, "three") { ParallelDiscriminatorBook.list()*.title } == ["Book for three"]
+    }
+}
+
+class AllTenantsSystemPropertyResolver extends SystemPropertyTenantResolver implements AllTenantsResolver {
+    @Override
+    Iterable<Serializable> resolveTenantIds() {
+        return ["one", "two", "three"]
+    }
+}
+
+@Entity
+class ParallelDiscriminatorBook implements MultiTenant<ParallelDiscriminatorBook> {
+    String title
+    String tenantId
+}
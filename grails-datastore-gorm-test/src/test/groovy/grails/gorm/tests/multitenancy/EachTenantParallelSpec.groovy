@@ -0,0 +1,75 @@
+package grails.gorm.tests.multitenancy
+
+import grails.gorm.MultiTenant
+import grails.gorm.annotation.Entity
+import grails.gorm.multitenancy.TenantExecution
+import grails.gorm.multitenancy.TenantExecutionException
+import grails.gorm.multitenancy.Tenants
+import org.grails.datastore.mapping.config.Settings
+import org.grails.datastore.mapping.core.connections.ConnectionSource
+import org.grails.datastore.mapping.multitenancy.MultiTenancySettings
+import org.grails.datastore.mapping.multitenancy.resolvers.SystemPropertyTenantResolver
+import org.grails.datastore.mapping.simple.SimpleMapDatastore
+import spock.lang.AutoCleanup
+import spock.lang.Shared
+import spock.lang.Specification
+
+import java.util.concurrent.ConcurrentHashMap
+
+class EachTenantParallelSpec extends Specification {
+
+    @Shared @AutoCleanup SimpleMapDatastore datastore = new SimpleMapDatastore(
+            [(Settings.SETTING_MULTI_TENANCY_MODE)   : MultiTenancySettings.MultiTenancyMode.DATABASE,
+             (Settings.SETTING_MULTI_TENANT_RESOLVER): new SystemPropertyTenantResolver()],
+            [ConnectionSource.DEFAULT, "one", "two", "three"],
+            getClass().getPackage()
+    )
+
+    void "test each tenant is processed on a worker thread with the current tenant bound"() {
+        given:
+        Map<Serializable, Serializable> seen = new ConcurrentHashMap<>()
+
+        when:
+        List<TenantExecution> executions = Tenants.eachTenantParallel(datastore, 2) { String tenantId ->
+            new ParallelTenantBook(title: "Book for $tenantId").save(flush: true)
+            seen.put(tenantId, Tenants.currentId(datastore))
+            return ParallelTenantBook.count()
+        }
+
+        then:
+        executions*.tenantId as Set == ["one", "two", "three"] as Set
+        executions.every { it.success && it.result == 1 && it.durationNanos > 0 }
+        seen == [one: "one", two: "two", three: "three"]
+        Tenants.withId(datastore, "two") { ParallelTenantBook.count() } == 1
+    }
+
+    void "test failures are aggregated once all tenants complete"() {
+        when:
+        ParallelTenantBook.eachTenantParallel(3) { String tenantId ->
+            if(tenantId != "two") {
+                throw new IllegalStateException("Failed for $tenantId")
+            }
+            return tenantId
+        }
+
+        then:
+        TenantExecutionException e = thrown()
+        e.executions.size() == 3
+        e.failures*.tenantId as Set == ["one", "three"] as Set
+        e.executions.find { it.tenantId == "two" }.result == "two"
+        ([e.cause] + e.suppressed.toList())*.message as Set == ["Failed for one", "Failed for three"] as Set
+    }
+
+    void "test the concurrency must be positive"() {
+        when:
+        Tenants.eachTenantParallel(datastore, 0) { }
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+}
+
+@Entity
+class ParallelTenantBook implements MultiTenant<ParallelTenantBook> {
+    String title
+}
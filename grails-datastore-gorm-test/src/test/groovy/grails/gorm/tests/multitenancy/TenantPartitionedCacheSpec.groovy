@@ -0,0 +1,184 @@
+package grails.gorm.tests.multitenancy
+
+import grails.gorm.MultiTenant
+import grails.gorm.annotation.Entity
+import grails.gorm.multitenancy.Tenants
+import org.grails.datastore.mapping.cache.impl.HashMapTPCacheAdapter
+import org.grails.datastore.mapping.cache.impl.TPCacheAdapterRepositoryImpl
+import org.grails.datastore.mapping.cache.impl.TenantPartitionedTPCacheAdapterRepository
+import org.grails.datastore.mapping.cache.impl.TenantPartitionedTPCacheAdapterRepository.TenantKey
+import org.grails.datastore.gorm.events.DefaultApplicationEventPublisher
+import org.grails.datastore.mapping.config.Settings
+import org.grails.datastore.mapping.core.AbstractDatastore
+import org.grails.datastore.mapping.core.AbstractSession
+import org.grails.datastore.mapping.core.DatastoreUtils
+import org.grails.datastore.mapping.core.Session
+import org.grails.datastore.mapping.model.PersistentEntity
+import org.grails.datastore.mapping.multitenancy.MultiTenancySettings
+import org.grails.datastore.mapping.multitenancy.TenantResolver
+import org.grails.datastore.mapping.multitenancy.resolvers.SystemPropertyTenantResolver
+import org.grails.datastore.mapping.simple.SimpleMapDatastore
+import org.springframework.core.env.PropertyResolver
+import spock.lang.AutoCleanup
+import spock.lang.Shared
+import spock.lang.Specification
+
+class TenantPartitionedCacheSpec extends Specification {
+
+    @Shared @AutoCleanup SimpleMapDatastore datastore = new SimpleMapDatastore(
+            DatastoreUtils.createPropertyResolver(
+                    [(Settings.SETTING_MULTI_TENANCY_MODE)   : MultiTenancySettings.MultiTenancyMode.DISCRIMINATOR,
+                     (Settings.SETTING_MULTI_TENANT_RESOLVER): new SystemPropertyTenantResolver()]
+            ),
+            new DefaultApplicationEventPublisher(),
+            CachedTenantBook, CachedBook
+    )
+
+    void "test the session cache is partitioned by tenant"() {
+        given:
+        AbstractSession session = (AbstractSession) datastore.connect()
+        CachedTenantBook book = new CachedTenantBook(title: "The Stand")
+
+        when:
+        Tenants.withId(datastore, 1L) {
+            session.cacheInstance(CachedTenantBook, 10L, book)
+        }
+
+        then:
+        Tenants.withId(datastore, 1L) { session.getCachedInstance(CachedTenantBook, 10L) }.is(book)
+        Tenants.withId(datastore, 2L) { session.getCachedInstance(CachedTenantBook, 10L) } == null
+
+        when:"collections are cached"
+        PersistentEntity tenantEntity = datastore.mappingContext.getPersistentEntity(CachedTenantBook.name)
+        List<String> chapters = ["one", "two"]
+        Tenants.withId(datastore, 1L) {
+            session.cacheCollection(tenantEntity, 10L, chapters, "chapters")
+        }
+
+        then:"they are partitioned the same way"
+        Tenants.withId(datastore, 1L) { session.getCachedCollection(tenantEntity, 10L, "chapters") }.is(chapters)
+        Tenants.withId(datastore, 2L) { session.getCachedCollection(tenantEntity, 10L, "chapters") } == null
+
+        when:
+        session.clearTenant(1L)
+
+        then:
+        Tenants.withId(datastore, 1L) { session.getCachedInstance(CachedTenantBook, 10L) } == null
+        Tenants.withId(datastore, 1L) { session.getCachedCollection(tenantEntity, 10L, "chapters") } == null
+
+        cleanup:
+        session.disconnect()
+    }
+
+    void "test the tenant of the session cache is resolved on each access"() {
+        given:
+        PersistentEntity tenantEntity = datastore.mappingContext.getPersistentEntity(CachedTenantBook.name)
+        System.setProperty(SystemPropertyTenantResolver.PROPERTY_NAME, "five")
+        AbstractSession session = (AbstractSession) datastore.connect()
+        CachedTenantBook book = new CachedTenantBook(title: "The Stand")
+
+        when:
+        Serializable resolved = session.getCacheTenantId(tenantEntity)
+        session.cacheInstance(CachedTenantBook, 10L, book)
+        System.setProperty(SystemPropertyTenantResolver.PROPERTY_NAME, "six")
+
+        then:"a session that switches tenants uses the partition of the current tenant"
+        resolved == "five"
+        session.getCacheTenantId(tenantEntity) == "six"
+        session.getCachedInstance(CachedTenantBook, 10L) == null
+        Tenants.withId(datastore, "seven") { session.getCacheTenantId(tenantEntity) } == "seven"
+        Tenants.withId(datastore, "five") { session.getCachedInstance(CachedTenantBook, 10L) }.is(book)
+
+        cleanup:
+        System.setProperty(SystemPropertyTenantResolver.PROPERTY_NAME, "")
+        session?.disconnect()
+    }
+
+    void "test the second level cache is partitioned by tenant with a quota"() {
+        given:
+        Serializable currentTenant = null
+        TenantResolver tenantResolver = { -> currentTenant } as TenantResolver
+        HashMapTPCacheAdapter<Map> tenantAdapter = new HashMapTPCacheAdapter<>()
+        HashMapTPCacheAdapter<Map> sharedAdapter = new HashMapTPCacheAdapter<>()
+        TenantPartitionedTPCacheAdapterRepository<Map> repository = new TenantPartitionedTPCacheAdapterRepository<>(new TPCacheAdapterRepositoryImpl<Map>(), tenantResolver, 2)
+        PersistentEntity tenantEntity = datastore.mappingContext.getPersistentEntity(CachedTenantBook.name)
+        PersistentEntity sharedEntity = datastore.mappingContext.getPersistentEntity(CachedBook.name)
+        repository.setTPCacheAdapter(tenantEntity, tenantAdapter)
+        repository.setTPCacheAdapter(sharedEntity, sharedAdapter)
+
+        expect:"multi tenant entities are not cached without a tenant"
+        repository.getTPCacheAdapter(tenantEntity) == null
+        repository.getTPCacheAdapter(sharedEntity).is(sharedAdapter)
+
+        when:"a tenant exceeds its quota"
+        currentTenant = "one"
+        repository.getTPCacheAdapter(tenantEntity).cacheEntry(1L, [title: "one-1"])
+        currentTenant = "two"
+        repository.getTPCacheAdapter(tenantEntity).cacheEntry(1L, [title: "two-1"])
+        currentTenant = "one"
+        repository.getTPCacheAdapter(tenantEntity).cacheEntry(2L, [title: "one-2"])
+        repository.getTPCacheAdapter(tenantEntity).cacheEntry(3L, [title: "one-3"])
+
+        then:"only its own entries are evicted from the configured adapter"
+        repository.getTPCacheAdapter(tenantEntity).getCachedEntry(1L) == null
+        repository.getTPCacheAdapter(tenantEntity).getCachedEntry(3L) == [title: "one-3"]
+        tenantAdapter.getCachedEntry(new TenantKey("one", CachedTenantBook.name, 3L)) == [title: "one-3"]
+        tenantAdapter.getCachedEntry(new TenantKey("one", CachedTenantBook.name, 1L)) == null
+        repository.getEntryCount("one") == 2
+        repository.getEvictionCount("one") == 1
+        repository.getTenantIds() == ["one", "two"] as Set
+
+        when:
+        currentTenant = "two"
+
+        then:
+        repository.getTPCacheAdapter(tenantEntity).getCachedEntry(1L) == [title: "two-1"]
+        repository.getTPCacheAdapter(tenantEntity, "one").getCachedEntry(2L) == [title: "one-2"]
+
+        when:"a tenant is evicted"
+        int evicted = repository.evictTenant("two")
+
+        then:
+        evicted == 1
+        repository.getTPCacheAdapter(tenantEntity).getCachedEntry(1L) == null
+        tenantAdapter.getCachedEntry(new TenantKey("two", CachedTenantBook.name, 1L)) == null
+
+        when:"an entry is stored through an adapter obtained before its tenant was evicted"
+        def staleAdapter = repository.getTPCacheAdapter(tenantEntity, "one")
+        repository.evictTenant("one")
+        staleAdapter.cacheEntry(4L, [title: "one-4"])
+
+        then:"it is evicted as soon as it is stored"
+        tenantAdapter.getCachedEntry(new TenantKey("one", CachedTenantBook.name, 4L)) == null
+        repository.getEntryCount("one") == 0
+    }
+
+    void "test the configured cache adapter repository is partitioned by tenant"() {
+        given:
+        TPCacheAdapterRepositoryImpl<Map> configured = new TPCacheAdapterRepositoryImpl<>()
+        AbstractDatastore cachingDatastore = new AbstractDatastore(datastore.mappingContext, DatastoreUtils.createPropertyResolver([:]), null, configured) {
+            @Override
+            protected Session createSession(PropertyResolver connectionDetails) {
+                return null
+            }
+        }
+
+        when:
+        cachingDatastore.setCurrentTenantResolver(datastore.currentTenantResolver)
+
+        then:
+        cachingDatastore.cacheAdapterRepository instanceof TenantPartitionedTPCacheAdapterRepository
+        ((TenantPartitionedTPCacheAdapterRepository) cachingDatastore.cacheAdapterRepository).repository.is(configured)
+    }
+}
+
+@Entity
+class CachedTenantBook implements MultiTenant<CachedTenantBook> {
+    Long tenantId
+    String title
+}
+
+@Entity
+class CachedBook {
+    String title
+}
@@ -0,0 +1,148 @@
+package org.grails.datastore.gorm.async
+
+import grails.async.Promise
+import grails.gorm.annotation.Entity
+import org.grails.datastore.gorm.events.DefaultApplicationEventPublisher
+import org.grails.datastore.mapping.core.DatastoreUtils
+import org.grails.datastore.mapping.simple.SimpleMapDatastore
+import spock.lang.Specification
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.RejectedExecutionException
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.function.IntBinaryOperator
+
+class GormAsyncExecutorSpec extends Specification {
+
+    void "test operations over the concurrency limit wait without holding a thread"() {
+        given:
+        GormAsyncExecutor executor = new GormAsyncExecutor(true, 4, 1)
+        CountDownLatch release = new CountDownLatch(1)
+        AtomicInteger running = new AtomicInteger()
+        AtomicInteger maxRunning = new AtomicInteger()
+
+        when:"more operations than the limit are submitted while the first is blocked"
+        List<Promise<Integer>> promises = (1..5).collect { int i ->
+            executor.createPromise({ ->
+                int current = running.incrementAndGet()
+                maxRunning.accumulateAndGet(current, { int a, int b -> Math.max(a, b) } as IntBinaryOperator)
+                release.await(10, TimeUnit.SECONDS)
+                running.decrementAndGet()
+                return i
+            }, [])
+        }
+
+        then:"the remaining operations wait in the queue"
+        executor.availablePermits == 0
+        executor.waitingCount == 4
+
+        when:
+        release.countDown()
+
+        then:"all operations complete without exceeding the limit"
+        promises.collect { it.get(10, TimeUnit.SECONDS) } == [1, 2, 3, 4, 5]
+        maxRunning.get() == 1
+        executor.waitingCount == 0
+        executor.availablePermits == 1
+
+        cleanup:
+        executor.close()
+    }
+
+    void "test operations beyond the queue capacity are rejected"() {
+        given:
+        GormAsyncExecutor executor = new GormAsyncExecutor(true, 1, 1, 1)
+        CountDownLatch release = new CountDownLatch(1)
+
+        when:
+        Promise<Boolean> first = executor.createPromise({ -> release.await(10, TimeUnit.SECONDS) }, [])
+        Promise<Boolean> second = executor.createPromise({ -> true }, [])
+        executor.createPromise({ -> true }, [])
+
+        then:
+        thrown(RejectedExecutionException)
+        executor.waitingCount == 1
+
+        when:
+        release.countDown()
+
+        then:
+        first.get(10, TimeUnit.SECONDS)
+        second.get(10, TimeUnit.SECONDS)
+
+        cleanup:
+        executor.close()
+    }
+
+    void "test a closed executor rejects operations"() {
+        given:
+        GormAsyncExecutor executor = new GormAsyncExecutor(true, 1)
+
+        when:
+        executor.close()
+        executor.createPromise({ -> true }, [])
+
+        then:
+        executor.closed
+        thrown(RejectedExecutionException)
+    }
+
+    void "test the executor of a datastore is created once and closed with the datastore"() {
+        given:
+        SimpleMapDatastore datastore = new SimpleMapDatastore(
+                DatastoreUtils.createPropertyResolver((GormAsyncExecutor.SETTING_VIRTUAL_THREADS): true, (GormAsyncExecutor.SETTING_MAX_CONCURRENCY): 2),
+                new DefaultApplicationEventPublisher(),
+                AsyncExecutorBook
+        )
+
+        when:
+        GormAsyncExecutor executor = GormAsyncExecutor.forDatastore(datastore)
+
+        then:
+        GormAsyncExecutor.forDatastore(datastore).is(executor)
+        executor.virtualThreads
+        executor.maxConcurrency == 2
+        executor.createPromise({ -> 'done' }, []).get(10, TimeUnit.SECONDS) == 'done'
+
+        when:
+        datastore.close()
+
+        then:
+        executor.closed
+
+        when:"the executor is requested after the datastore was closed"
+        GormAsyncExecutor.forDatastore(datastore)
+
+        then:"no new executor is created since nothing would close it"
+        thrown(IllegalStateException)
+
+        cleanup:
+        GormAsyncExecutor.unregister(datastore)
+    }
+
+    void "test the executor of a datastore destroyed without closing its enhancer is closed"() {
+        given:
+        SimpleMapDatastore datastore = new SimpleMapDatastore(
+                DatastoreUtils.createPropertyResolver((GormAsyncExecutor.SETTING_VIRTUAL_THREADS): true),
+                new DefaultApplicationEventPublisher(),
+                AsyncExecutorBook
+        )
+        GormAsyncExecutor executor = GormAsyncExecutor.forDatastore(datastore)
+
+        when:
+        datastore.destroy()
+
+        then:
+        executor.closed
+        datastore.destroyed
+
+        cleanup:
+        datastore.close()
+    }
+}
+
+@Entity
+class AsyncExecutorBook {
+    String title
+}
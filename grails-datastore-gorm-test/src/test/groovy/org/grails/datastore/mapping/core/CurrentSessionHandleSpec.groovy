@@ -0,0 +1,108 @@
+package org.grails.datastore.mapping.core
+
+import org.grails.datastore.mapping.simple.SimpleMapDatastore
+import org.grails.datastore.mapping.transactions.SessionHolder
+import org.springframework.transaction.TransactionStatus
+import org.springframework.transaction.support.TransactionCallback
+import org.springframework.transaction.support.TransactionSynchronizationManager
+import org.springframework.transaction.support.TransactionTemplate
+import spock.lang.AutoCleanup
+import spock.lang.Specification
+
+class CurrentSessionHandleSpec extends Specification {
+
+    @AutoCleanup SimpleMapDatastore datastore = new SimpleMapDatastore()
+
+    void "test execute reuses the session bound to the current thread"() {
+        given:
+        Session bound = DatastoreUtils.bindSession(datastore.connect())
+
+        when:
+        Session first = DatastoreUtils.execute(datastore, { Session session -> session } as SessionCallback<Session>)
+        Session second = DatastoreUtils.execute(datastore, { Session session -> session } as SessionCallback<Session>)
+
+        then:
+        first.is(bound)
+        second.is(bound)
+        ((SessionHolder) TransactionSynchronizationManager.getResource(datastore)).sessionHandle.is(bound)
+
+        cleanup:
+        DatastoreUtils.unbindSession(bound)
+    }
+
+    void "test the session handle is invalidated when the bound sessions change"() {
+        given:
+        Session bound = DatastoreUtils.bindSession(datastore.connect())
+        SessionHolder holder = (SessionHolder) TransactionSynchronizationManager.getResource(datastore)
+
+        expect:
+        DatastoreUtils.getCurrentSession(datastore).is(bound)
+        holder.sessionHandle.is(bound)
+
+        when:"a session is added"
+        Session other = datastore.connect()
+        holder.addSession(other)
+
+        then:
+        holder.sessionHandle == null
+        DatastoreUtils.getCurrentSession(datastore).is(other)
+
+        when:"the current session is disconnected"
+        other.disconnect()
+
+        then:
+        holder.sessionHandle == null
+        DatastoreUtils.getCurrentSession(datastore).is(bound)
+
+        when:"the session is unbound"
+        DatastoreUtils.unbindSession(bound)
+
+        then:
+        DatastoreUtils.getCurrentSession(datastore) == null
+        holder.sessionHandle == null
+    }
+
+    void "test a pre-bound session is synchronized with each transaction"() {
+        given:
+        Session bound = DatastoreUtils.bindSession(datastore.connect())
+        SessionHolder holder = (SessionHolder) TransactionSynchronizationManager.getResource(datastore)
+        TransactionTemplate template = new TransactionTemplate(datastore.transactionManager)
+        DatastoreUtils.getCurrentSession(datastore)
+
+        when:"the session is used by two transactions"
+        List<Boolean> synchronizedWithTransaction = []
+        List<Session> sessions = []
+        2.times {
+            template.execute({ TransactionStatus status ->
+                sessions << DatastoreUtils.getCurrentSession(datastore)
+                synchronizedWithTransaction << holder.synchronizedWithTransaction
+            } as TransactionCallback)
+        }
+
+        then:"each transaction synchronizes the session and the handle is invalidated on completion"
+        sessions.every { it.is(bound) }
+        synchronizedWithTransaction == [true, true]
+        !holder.synchronizedWithTransaction
+        holder.sessionHandle == null
+
+        when:"synchronization is active but the holder has not been synchronized"
+        DatastoreUtils.getCurrentSession(datastore)
+        TransactionSynchronizationManager.initSynchronization()
+
+        then:"the cached handle is bypassed"
+        holder.sessionHandle.is(bound)
+        DatastoreUtils.getCurrentSession(datastore).is(bound)
+
+        cleanup:
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization()
+        }
+        DatastoreUtils.unbindSession(bound)
+    }
+
+    void "test no session is returned when none is bound"() {
+        expect:
+        DatastoreUtils.getCurrentSession(datastore) == null
+        datastore.hasDefaultSessionLookup()
+    }
+}
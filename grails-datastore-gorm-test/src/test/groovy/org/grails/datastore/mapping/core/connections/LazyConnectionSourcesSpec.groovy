@@ -0,0 +1,229 @@
+package org.grails.datastore.mapping.core.connections
+
+import org.grails.datastore.mapping.core.DatastoreUtils
+import org.grails.datastore.mapping.simple.connections.SimpleMapConnectionSourceFactory
+import org.springframework.core.env.PropertyResolver
+import spock.lang.Specification
+
+import java.util.concurrent.Callable
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.Future
+import java.util.concurrent.TimeUnit
+
+class LazyConnectionSourcesSpec extends Specification {
+
+    void "test connection sources are created on first use"() {
+        given:
+        LazyConnectionSources<Map<String, Map>, ConnectionSourceSettings> connectionSources = createConnectionSources(2)
+
+        expect:
+        connectionSources.connectionSourceNames as Set == [ConnectionSource.DEFAULT, "one", "two", "three"] as Set
+        connectionSources.allConnectionSources*.name == [ConnectionSource.DEFAULT]
+        connectionSources.creationCount == 0
+        connectionSources.getConnectionSource("four") == null
+
+        when:
+        ConnectionSource<Map<String, Map>, ConnectionSourceSettings> one = connectionSources.getConnectionSource("one")
+
+        then:
+        one.name == "one"
+        connectionSources.getConnectionSource("one").is(one)
+        connectionSources.isActive("one")
+        connectionSources.creationCount == 1
+        connectionSources.missCount == 1
+        connectionSources.hitCount == 1
+    }
+
+    void "test the least recently used connection source is evicted once released"() {
+        given:
+        LazyConnectionSources<Map<String, Map>, ConnectionSourceSettings> connectionSources = createConnectionSources(2)
+        ConnectionSource<Map<String, Map>, ConnectionSourceSettings> one = use(connectionSources, "one")
+        use(connectionSources, "two")
+
+        when:"one is used again and a third source is requested"
+        use(connectionSources, "one")
+        use(connectionSources, "three")
+
+        then:"two is evicted"
+        connectionSources.activeCount == 2
+        connectionSources.evictionCount == 1
+        connectionSources.isActive("one")
+        !connectionSources.isActive("two")
+        connectionSources.allConnectionSources*.name as Set == [ConnectionSource.DEFAULT, "one", "three"] as Set
+
+        when:"the evicted source is requested again"
+        ConnectionSource<Map<String, Map>, ConnectionSourceSettings> two = use(connectionSources, "two")
+
+        then:"it is recreated"
+        two.name == "two"
+        connectionSources.creationCount == 4
+        !connectionSources.isActive("one")
+        use(connectionSources, "one") != one
+    }
+
+    void "test connection sources handed out without a lease are never evicted"() {
+        given:
+        LazyConnectionSources<Map<String, Map>, ConnectionSourceSettings> connectionSources = createConnectionSources(1)
+
+        when:"a source is obtained without a lease and others are used"
+        ConnectionSource<Map<String, Map>, ConnectionSourceSettings> one = connectionSources.getConnectionSource("one")
+        use(connectionSources, "two")
+        use(connectionSources, "three")
+
+        then:"it stays open while the leased sources are evicted"
+        connectionSources.isInUse(one)
+        connectionSources.isActive("one")
+        connectionSources.getConnectionSource("one").is(one)
+        connectionSources.activeCount == 1
+        connectionSources.evictionCount == 2
+    }
+
+    void "test concurrent requests for an inactive connection source create it once"() {
+        given:
+        CountDownLatch creating = new CountDownLatch(1)
+        CountDownLatch proceed = new CountDownLatch(1)
+        SimpleMapConnectionSourceFactory factory = new SimpleMapConnectionSourceFactory()
+        PropertyResolver configuration = DatastoreUtils.createPropertyResolver(null)
+        LazyConnectionSources<Map<String, Map>, ConnectionSourceSettings> connectionSources = new LazyConnectionSources<Map<String, Map>, ConnectionSourceSettings>(factory.create(ConnectionSource.DEFAULT, configuration), factory, configuration, 2) {
+            @Override
+            protected Iterable<String> getConnectionSourceNames(ConnectionSourceFactory<Map<String, Map>, ConnectionSourceSettings> connectionSourceFactory, PropertyResolver config) {
+                return ["one"]
+            }
+
+            @Override
+            protected ConnectionSource<Map<String, Map>, ConnectionSourceSettings> createConnectionSource(String name, PropertyResolver config) {
+                creating.countDown()
+                proceed.await(10, TimeUnit.SECONDS)
+                return super.createConnectionSource(name, config)
+            }
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(4)
+
+        when:"several threads request the source while it is being created"
+        List<Future<ConnectionSource<Map<String, Map>, ConnectionSourceSettings>>> futures = [executor.submit({ -> connectionSources.acquireConnectionSource("one") } as Callable<ConnectionSource<Map<String, Map>, ConnectionSourceSettings>>)]
+        creating.await(10, TimeUnit.SECONDS)
+        3.times {
+            futures.add(executor.submit({ -> connectionSources.acquireConnectionSource("one") } as Callable<ConnectionSource<Map<String, Map>, ConnectionSourceSettings>>))
+        }
+        proceed.countDown()
+        List<ConnectionSource<Map<String, Map>, ConnectionSourceSettings>> obtained = futures.collect { it.get(10, TimeUnit.SECONDS) }
+
+        then:"a single source is created and leased to each of them"
+        connectionSources.creationCount == 1
+        obtained.every { it.is(obtained[0]) }
+
+        when:"all but one lease are released"
+        3.times { connectionSources.releaseConnectionSource(obtained[0]) }
+
+        then:
+        connectionSources.isInUse(obtained[0])
+
+        when:
+        connectionSources.releaseConnectionSource(obtained[0])
+
+        then:
+        !connectionSources.isInUse(obtained[0])
+
+        cleanup:
+        executor.shutdownNow()
+    }
+
+    void "test added connection sources are activated"() {
+        given:
+        LazyConnectionSources<Map<String, Map>, ConnectionSourceSettings> connectionSources = createConnectionSources(1)
+
+        when:
+        connectionSources.addConnectionSource("four", DatastoreUtils.createPropertyResolver([:]))
+        connectionSources.close()
+
+        then:
+        connectionSources.connectionSourceNames.contains("four")
+        connectionSources.activeCount == 0
+    }
+
+    void "test connection sources in use are not evicted"() {
+        given:
+        LazyConnectionSources<Map<String, Map>, ConnectionSourceSettings> connectionSources = createConnectionSources(1)
+
+        when:"a source is acquired and another one is used"
+        ConnectionSource<Map<String, Map>, ConnectionSourceSettings> one = connectionSources.acquireConnectionSource("one")
+        use(connectionSources, "two")
+
+        then:"the source in use is kept while the other one is evicted"
+        connectionSources.isInUse(one)
+        connectionSources.isActive("one")
+        !connectionSources.isActive("two")
+        connectionSources.evictionCount == 1
+
+        when:"the source is released and another source is used"
+        connectionSources.releaseConnectionSource(one)
+        use(connectionSources, "three")
+
+        then:"the released source is evicted"
+        !connectionSources.isInUse(one)
+        connectionSources.activeCount == 1
+        connectionSources.isActive("three")
+        connectionSources.evictionCount == 2
+    }
+
+    void "test listeners are notified of lazily created connection sources"() {
+        given:
+        LazyConnectionSources<Map<String, Map>, ConnectionSourceSettings> connectionSources = createConnectionSources(1)
+        List<String> created = []
+        connectionSources.addListener({ ConnectionSource connectionSource -> created.add(connectionSource.name) } as ConnectionSourcesListener)
+
+        when:
+        use(connectionSources, "one")
+        use(connectionSources, "one")
+        use(connectionSources, "two")
+        use(connectionSources, "one")
+
+        then:
+        created == ["one", "two", "one"]
+    }
+
+    void "test connection sources holding their data in memory are never evicted"() {
+        given:
+        SimpleMapConnectionSourceFactory factory = new SimpleMapConnectionSourceFactory()
+        PropertyResolver configuration = DatastoreUtils.createPropertyResolver(null)
+        LazyConnectionSources<Map<String, Map>, ConnectionSourceSettings> connectionSources = new LazyConnectionSources<Map<String, Map>, ConnectionSourceSettings>(factory.create(ConnectionSource.DEFAULT, configuration), factory, configuration, 1) {
+            @Override
+            protected Iterable<String> getConnectionSourceNames(ConnectionSourceFactory<Map<String, Map>, ConnectionSourceSettings> connectionSourceFactory, PropertyResolver config) {
+                return ["one", "two"]
+            }
+        }
+
+        when:
+        connectionSources.getConnectionSource("one").source.put("Book", [1: "The Stand"])
+        connectionSources.getConnectionSource("two")
+
+        then:
+        connectionSources.evictionCount == 0
+        connectionSources.getConnectionSource("one").source.get("Book") == [1: "The Stand"]
+    }
+
+    private ConnectionSource<Map<String, Map>, ConnectionSourceSettings> use(LazyConnectionSources<Map<String, Map>, ConnectionSourceSettings> connectionSources, String name) {
+        ConnectionSource<Map<String, Map>, ConnectionSourceSettings> connectionSource = connectionSources.acquireConnectionSource(name)
+        connectionSources.releaseConnectionSource(connectionSource)
+        return connectionSource
+    }
+
+    private LazyConnectionSources<Map<String, Map>, ConnectionSourceSettings> createConnectionSources(int maxActive) {
+        SimpleMapConnectionSourceFactory factory = new SimpleMapConnectionSourceFactory()
+        PropertyResolver configuration = DatastoreUtils.createPropertyResolver(null)
+        return new LazyConnectionSources<Map<String, Map>, ConnectionSourceSettings>(factory.create(ConnectionSource.DEFAULT, configuration), factory, configuration, maxActive) {
+            @Override
+            protected Iterable<String> getConnectionSourceNames(ConnectionSourceFactory<Map<String, Map>, ConnectionSourceSettings> connectionSourceFactory, PropertyResolver config) {
+                return ["one", "two", "three"]
+            }
+
+            @Override
+            protected boolean isEvictable(ConnectionSource<Map<String, Map>, ConnectionSourceSettings> connectionSource) {
+                // the data of these sources is disposable
+                return true
+            }
+        }
+    }
+}
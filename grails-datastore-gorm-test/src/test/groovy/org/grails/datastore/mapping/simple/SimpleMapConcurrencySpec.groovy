@@ -0,0 +1,118 @@
+package org.grails.datastore.mapping.simple
+
+import grails.gorm.annotation.Entity
+import org.grails.datastore.gorm.events.DefaultApplicationEventPublisher
+import org.grails.datastore.mapping.core.DatastoreUtils
+import org.grails.datastore.mapping.core.OptimisticLockingException
+import org.grails.datastore.mapping.core.Session
+import org.grails.datastore.mapping.transactions.Transaction
+import spock.lang.AutoCleanup
+import spock.lang.Specification
+
+import java.util.concurrent.Callable
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.Future
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+class SimpleMapConcurrencySpec extends Specification {
+
+    static final int THREADS = 8
+    static final int OPERATIONS = 200
+
+    @AutoCleanup SimpleMapDatastore datastore = new SimpleMapDatastore(
+            DatastoreUtils.createPropertyResolver([:]),
+            new DefaultApplicationEventPublisher(),
+            Counter
+    )
+    @AutoCleanup("shutdownNow") ExecutorService executor = Executors.newFixedThreadPool(THREADS)
+
+    void "test concurrent inserts are all stored and indexed"() {
+        when:"each thread inserts entities, alternating between transactional and non-transactional sessions"
+        List<Set<Serializable>> ids = runConcurrently { int thread ->
+            Set<Serializable> inserted = []
+            for (int i = 0; i < OPERATIONS; i++) {
+                Session session = datastore.connect()
+                Transaction transaction = i % 2 == 0 ? session.beginTransaction() : null
+                try {
+                    inserted << session.persist(new Counter(name: "thread-$thread".toString(), total: i))
+                    session.flush()
+                    transaction?.commit()
+                }
+                finally {
+                    session.disconnect()
+                }
+            }
+            inserted
+        }
+        Session session = datastore.connect()
+
+        then:"every identifier is distinct and every entity can be found"
+        ids.flatten().unique().size() == THREADS * OPERATIONS
+        datastore.backingMap[Counter.name].size() == THREADS * OPERATIONS
+        (0..<THREADS).every { int thread ->
+            session.createQuery(Counter).eq("name", "thread-$thread".toString()).list().size() == OPERATIONS
+        }
+
+        cleanup:
+        session?.disconnect()
+    }
+
+    void "test concurrent updates of a single entity are never lost"() {
+        given:
+        Session setup = datastore.connect()
+        Serializable id = setup.persist(new Counter(name: "shared", total: 0))
+        setup.flush()
+        setup.disconnect()
+        AtomicInteger failures = new AtomicInteger()
+
+        when:"each thread repeatedly increments the total, with or without a transaction"
+        List<Integer> successes = runConcurrently { int thread ->
+            int succeeded = 0
+            for (int i = 0; i < OPERATIONS; i++) {
+                Session session = datastore.connect()
+                Transaction transaction = thread % 2 == 0 ? session.beginTransaction() : null
+                try {
+                    Counter counter = session.retrieve(Counter, id)
+                    counter.total = counter.total + 1
+                    session.persist(counter)
+                    session.flush()
+                    transaction?.commit()
+                    succeeded++
+                }
+                catch (OptimisticLockingException e) {
+                    failures.incrementAndGet()
+                }
+                finally {
+                    session.disconnect()
+                }
+            }
+            succeeded
+        }
+        Map stored = datastore.backingMap[Counter.name][id]
+
+        then:"every successful update is reflected in the stored total"
+        successes.sum() + failures.get() == THREADS * OPERATIONS
+        stored.total == successes.sum()
+    }
+
+    private <T> List<T> runConcurrently(Closure<T> task) {
+        CountDownLatch start = new CountDownLatch(1)
+        List<Future<T>> futures = (0..<THREADS).collect { int thread ->
+            executor.submit({
+                start.await()
+                task.call(thread)
+            } as Callable<T>)
+        }
+        start.countDown()
+        futures.collect { Future<T> future -> future.get(60, TimeUnit.SECONDS) }
+    }
+}
+
+@Entity
+class Counter {
+    String name
+    Integer total
+}
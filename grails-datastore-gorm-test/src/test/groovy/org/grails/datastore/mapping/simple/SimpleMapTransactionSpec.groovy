@@ -0,0 +1,217 @@
+package org.grails.datastore.mapping.simple
+
+import grails.gorm.annotation.Entity
+import org.grails.datastore.gorm.events.DefaultApplicationEventPublisher
+import org.grails.datastore.mapping.core.DatastoreUtils
+import org.grails.datastore.mapping.core.OptimisticLockingException
+import org.grails.datastore.mapping.core.Session
+import org.grails.datastore.mapping.transactions.Transaction
+import org.springframework.dao.DuplicateKeyException
+import spock.lang.AutoCleanup
+import spock.lang.Specification
+
+class SimpleMapTransactionSpec extends Specification {
+
+    @AutoCleanup SimpleMapDatastore datastore = new SimpleMapDatastore(
+            DatastoreUtils.createPropertyResolver([:]),
+            new DefaultApplicationEventPublisher(),
+            TxBook, TxAssignedBook
+    )
+
+    void "test uncommitted changes are only visible to the session that made them"() {
+        given:
+        Session session = datastore.connect()
+        Session other = datastore.connect()
+        Transaction transaction = session.beginTransaction()
+
+        when:
+        Serializable id = session.persist(new TxBook(title: "The Stand"))
+        session.flush()
+
+        then:
+        session.retrieve(TxBook, id) != null
+        session.createQuery(TxBook).eq("title", "The Stand").list().size() == 1
+        other.retrieve(TxBook, id) == null
+        other.createQuery(TxBook).list().isEmpty()
+
+        when:
+        transaction.commit()
+        other.clear()
+
+        then:
+        other.retrieve(TxBook, id).title == "The Stand"
+        other.createQuery(TxBook).eq("title", "The Stand").list().size() == 1
+
+        cleanup:
+        session.disconnect()
+        other.disconnect()
+    }
+
+    void "test rollback discards the changes of the transaction"() {
+        given:
+        Session session = datastore.connect()
+        Transaction transaction = session.beginTransaction()
+
+        when:
+        session.persist(new TxBook(title: "It"))
+        session.flush()
+        transaction.rollback()
+        session.clear()
+
+        then:
+        session.createQuery(TxBook).list().isEmpty()
+        datastore.backingMap[TxBook.name].isEmpty()
+
+        cleanup:
+        session.disconnect()
+    }
+
+    void "test concurrent updates of a versioned entity fail on commit"() {
+        given:
+        Session setup = datastore.connect()
+        Serializable id = setup.persist(new TxBook(title: "Carrie"))
+        setup.flush()
+        setup.disconnect()
+
+        Session first = datastore.connect()
+        Session second = datastore.connect()
+        Transaction firstTransaction = first.beginTransaction()
+        Transaction secondTransaction = second.beginTransaction()
+
+        when:"both sessions update the same entity and the second commits first"
+        TxBook one = first.retrieve(TxBook, id)
+        one.title = "Carrie 1"
+        first.persist(one)
+        first.flush()
+        TxBook two = second.retrieve(TxBook, id)
+        two.title = "Carrie 2"
+        second.persist(two)
+        second.flush()
+        secondTransaction.commit()
+        firstTransaction.commit()
+
+        then:
+        OptimisticLockingException e = thrown()
+        e.key == id
+        !firstTransaction.active
+        datastore.backingMap[TxBook.name][id].title == "Carrie 2"
+
+        cleanup:
+        first.disconnect()
+        second.disconnect()
+    }
+
+    void "test an update committed between the read and the first write of a transaction is detected"() {
+        given:
+        Session setup = datastore.connect()
+        Serializable id = setup.persist(new TxBook(title: "Christine"))
+        setup.flush()
+        setup.disconnect()
+
+        Session first = datastore.connect()
+        Session second = datastore.connect()
+        Transaction firstTransaction = first.beginTransaction()
+
+        when:"the entity is read in a transaction and updated by another session before it is written"
+        TxBook one = first.retrieve(TxBook, id)
+        TxBook two = second.retrieve(TxBook, id)
+        two.title = "Christine 2"
+        second.persist(two)
+        second.flush()
+        one.title = "Christine 1"
+        first.persist(one)
+        first.flush()
+        firstTransaction.commit()
+
+        then:
+        thrown(OptimisticLockingException)
+        datastore.backingMap[TxBook.name][id].title == "Christine 2"
+
+        cleanup:
+        first.disconnect()
+        second.disconnect()
+    }
+
+    void "test concurrent inserts of the same assigned identifier fail on commit"() {
+        given:
+        Session first = datastore.connect()
+        Session second = datastore.connect()
+        Transaction firstTransaction = first.beginTransaction()
+        Transaction secondTransaction = second.beginTransaction()
+
+        when:
+        first.persist(new TxAssignedBook(id: "dup", title: "Firestarter"))
+        first.flush()
+        second.persist(new TxAssignedBook(id: "dup", title: "Thinner"))
+        second.flush()
+        firstTransaction.commit()
+        secondTransaction.commit()
+
+        then:
+        thrown(DuplicateKeyException)
+        datastore.backingMap[TxAssignedBook.name]["dup"].title == "Firestarter"
+
+        cleanup:
+        first.disconnect()
+        second.disconnect()
+    }
+
+    void "test identifiers reserved outside a transaction are released when the session is disconnected"() {
+        given:
+        Session session = datastore.connect()
+
+        when:"an entity is persisted but never flushed"
+        Serializable id = session.persist(new TxBook(title: "Dolores Claiborne"))
+
+        then:
+        !datastore.reserveIdentifier(TxBook.name, id)
+
+        when:
+        session.disconnect()
+
+        then:
+        datastore.reserveIdentifier(TxBook.name, id)
+
+        cleanup:
+        datastore.releaseIdentifier(TxBook.name, id)
+    }
+
+    void "test concurrent transactions generate distinct identifiers"() {
+        given:
+        Session first = datastore.connect()
+        Session second = datastore.connect()
+        Transaction firstTransaction = first.beginTransaction()
+        Transaction secondTransaction = second.beginTransaction()
+
+        when:
+        Serializable one = first.persist(new TxBook(title: "Misery"))
+        first.flush()
+        Serializable two = second.persist(new TxBook(title: "Cujo"))
+        second.flush()
+        firstTransaction.commit()
+        secondTransaction.commit()
+
+        then:
+        one != two
+        datastore.backingMap[TxBook.name].size() == 2
+
+        cleanup:
+        first.disconnect()
+        second.disconnect()
+    }
+}
+
+@Entity
+class TxBook {
+    String title
+}
+
+@Entity
+class TxAssignedBook {
+    String id
+    String title
+
+    static mapping = {
+        id generator: 'assigned'
+    }
+}
@@ -0,0 +1,67 @@
+package org.grails.datastore.mapping.simple.engine
+
+import org.grails.datastore.gorm.events.DefaultApplicationEventPublisher
+import org.grails.datastore.mapping.core.DatastoreUtils
+import org.grails.datastore.mapping.simple.SimpleMapDatastore
+import spock.lang.AutoCleanup
+import spock.lang.Specification
+
+class PostingListSpec extends Specification {
+
+    @AutoCleanup SimpleMapDatastore datastore = new SimpleMapDatastore(
+            DatastoreUtils.createPropertyResolver([:]),
+            new DefaultApplicationEventPublisher()
+    )
+
+    void "test appending keys does not change the published lists"() {
+        given:
+        PostingList first = new PostingList().append(1L).append(2L)
+
+        when:
+        PostingList second = (3L..10L).inject(first) { PostingList list, Long key -> list.append(key) }
+
+        then:
+        first == [1L, 2L]
+        !first.contains(3L)
+        first.indexOf(5L) == -1
+        second == (1L..10L).toList()
+        second.indexOf(5L) == 4
+        second.append(5L).is(second)
+    }
+
+    void "test removing a key copies the list"() {
+        given:
+        PostingList list = PostingList.copyOf([1L, 2L, 3L])
+
+        when:
+        PostingList remaining = list.without(2L)
+
+        then:
+        list == [1L, 2L, 3L]
+        remaining == [1L, 3L]
+        remaining.indexOf(3L) == 1
+        remaining.without(2L).is(remaining)
+
+        when:
+        list.get(3)
+
+        then:
+        thrown(IndexOutOfBoundsException)
+    }
+
+    void "test the datastore indices are posting lists without duplicates"() {
+        when:
+        datastore.addToIndex("Book:author:Stephen", 1L)
+        List published = (List) datastore.indices["Book:author:Stephen"]
+        (1L..1000L).each { datastore.addToIndex("Book:author:Stephen", it) }
+        datastore.removeFromIndex("Book:author:Stephen", 500L)
+        List indexed = (List) datastore.indices["Book:author:Stephen"]
+
+        then:
+        indexed instanceof PostingList
+        published == [1L]
+        indexed.size() == 999
+        !indexed.contains(500L)
+        indexed[0..2] == [1L, 2L, 3L]
+    }
+}
@@ -0,0 +1,689 @@
+package org.grails.datastore.mapping.simple.rx
+
+import grails.gorm.annotation.Entity
+import grails.gorm.rx.DetachedCriteria
+import grails.gorm.rx.RxEntity
+import grails.gorm.rx.collection.ObservableCollection
+import grails.gorm.rx.proxy.ObservableProxy
+import org.grails.datastore.mapping.core.OptimisticLockingException
+import org.grails.datastore.mapping.engine.event.PostDeleteEvent
+import org.grails.datastore.mapping.engine.event.PostLoadEvent
+import org.grails.datastore.mapping.engine.event.PreDeleteEvent
+import org.grails.datastore.mapping.engine.event.PreInsertEvent
+import org.grails.datastore.mapping.query.AssociationQuery
+import org.grails.datastore.mapping.query.Query
+import org.grails.datastore.mapping.query.Restrictions
+import org.grails.datastore.mapping.query.event.PreQueryEvent
+import org.grails.datastore.rx.exceptions.BlockingOperationException
+import org.grails.datastore.rx.internal.BlockingInitializer
+import org.grails.datastore.rx.query.BatchLoader
+import org.grails.datastore.rx.query.QueryState
+import org.grails.datastore.rx.query.RxQuery
+import org.springframework.context.ApplicationEvent
+import org.springframework.context.ApplicationListener
+import org.springframework.dao.DuplicateKeyException
+import rx.Observable
+import rx.functions.Func0
+import rx.plugins.RxJavaHooks
+import rx.schedulers.Schedulers
+import rx.schedulers.TestScheduler
+import spock.lang.AutoCleanup
+import spock.lang.Specification
+
+import java.util.concurrent.Executor
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.Future
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+class SimpleMapRxDatastoreClientSpec extends Specification {
+
+    @AutoCleanup SimpleMapRxDatastoreClient client = new SimpleMapRxDatastoreClient(RxAuthor, RxTitle)
+
+    void "test persist, get and delete an entity"() {
+        when:"an entity is persisted"
+        RxAuthor author = client.persist(new RxAuthor(name: "Stephen King", age: 70)).toBlocking().first()
+
+        then:"an identifier and version are assigned"
+        author.id != null
+        author.version == 0
+
+        when:"the entity is retrieved"
+        RxAuthor retrieved = client.get(RxAuthor, author.id).toBlocking().first()
+
+        then:"a new instance is read from the native entry"
+        !retrieved.is(author)
+        retrieved.name == "Stephen King"
+        retrieved.age == 70
+
+        when:"the entity is deleted"
+        boolean deleted = client.delete(retrieved).toBlocking().first()
+
+        then:"it can no longer be retrieved"
+        deleted
+        client.get(RxAuthor, author.id).toList().toBlocking().first().isEmpty()
+    }
+
+    void "test operations are executed on the scheduler of the client"() {
+        given:
+        String caller = Thread.currentThread().name
+        String executedOn = null
+
+        when:
+        client.persist(new RxAuthor(name: "Ursula Le Guin", age: 88))
+              .doOnNext { executedOn = Thread.currentThread().name }
+              .toBlocking()
+              .first()
+
+        then:
+        executedOn != null
+        executedOn != caller
+    }
+
+    void "test queries filter, order and paginate the native entries"() {
+        given:
+        client.persistAll([
+                new RxAuthor(name: "Terry Pratchett", age: 66),
+                new RxAuthor(name: "Neil Gaiman", age: 56),
+                new RxAuthor(name: "Iain Banks", age: 59),
+                new RxAuthor(name: "Jane Austen", age: 41)
+        ]).toBlocking().first()
+
+        when:
+        List<RxAuthor> results = findAll(query(RxAuthor).gt("age", 50).order(Query.Order.desc("age")).max(2))
+
+        then:
+        results*.name == ["Terry Pratchett", "Iain Banks"]
+
+        and:
+        findAll(query(RxAuthor).like("name", "%an%"))*.name == ["Neil Gaiman", "Iain Banks", "Jane Austen"]
+        findAll(query(RxAuthor).ilike("name", "jane%"))*.name == ["Jane Austen"]
+        findAll(query(RxAuthor).between("age", 50, 60).order(Query.Order.asc("age")))*.name == ["Neil Gaiman", "Iain Banks"]
+        findAll(query(RxAuthor).in("name", ["Neil Gaiman", "Nobody"]))*.name == ["Neil Gaiman"]
+        findAll(query(RxAuthor).offset(3))*.name == ["Jane Austen"]
+    }
+
+    void "test ordered queries only convert the entries of the requested page"() {
+        given:
+        client.persistAll((1..20).collect { int i -> new RxAuthor(name: "author-$i".toString(), age: i % 7) }).toBlocking().first()
+        List<PostLoadEvent> loads = Collections.synchronizedList([])
+        client.eventPublisher.addApplicationListener({ ApplicationEvent event ->
+            if(event instanceof PostLoadEvent) {
+                loads.add((PostLoadEvent)event)
+            }
+        } as ApplicationListener)
+
+        when:
+        List<RxAuthor> results = findAll(query(RxAuthor).order(Query.Order.desc("age")).order(Query.Order.asc("name")).offset(2).max(3))
+
+        then:"the entries are ordered by each property in turn before the page is converted"
+        results*.name == (1..20).sort { int a, int b -> (b % 7 <=> a % 7) ?: ("author-$a" <=> "author-$b") }.drop(2).take(3).collect { int i -> "author-$i".toString() }
+        loads.size() == 3
+    }
+
+    void "test inserting an existing identifier fails and writes nothing of the batch"() {
+        given:
+        RxAuthor existing = client.persist(new RxAuthor(name: "Stephen King", age: 70)).toBlocking().first()
+
+        when:
+        client.insertAll([new RxAuthor(name: "Neil Gaiman", age: 56), new RxAuthor(id: existing.id, name: "Iain Banks", age: 59)]).toBlocking().first()
+
+        then:
+        thrown(DuplicateKeyException)
+        findAll(query(RxAuthor))*.name == ["Stephen King"]
+    }
+
+    void "test a negation matches the entries that match none of its criteria"() {
+        given:
+        client.persistAll([
+                new RxAuthor(name: "Terry Pratchett", age: 66),
+                new RxAuthor(name: "Neil Gaiman", age: 56),
+                new RxAuthor(name: "Iain Banks", age: 59)
+        ]).toBlocking().first()
+
+        when:
+        Query negated = query(RxAuthor).order(Query.Order.asc("name"))
+        negated.add(new Query.Negation()
+                .add(Restrictions.eq("name", "Terry Pratchett"))
+                .add(Restrictions.gt("age", 58)))
+
+        then:"the negation is not(a or b), as evaluated by the SimpleMapQuery"
+        findAll(negated)*.name == ["Neil Gaiman"]
+    }
+
+    void "test projections"() {
+        given:
+        client.persistAll([
+                new RxAuthor(name: "Terry Pratchett", age: 66),
+                new RxAuthor(name: "Neil Gaiman", age: 56)
+        ]).toBlocking().first()
+
+        when:
+        Query countQuery = query(RxAuthor)
+        countQuery.projections().count()
+        Query maxQuery = query(RxAuthor)
+        maxQuery.projections().max("age")
+        Query namesQuery = query(RxAuthor).order(Query.Order.asc("name"))
+        namesQuery.projections().property("name")
+
+        then:
+        ((RxQuery)countQuery).singleResult().toBlocking().first() == 2
+        ((RxQuery)maxQuery).singleResult().toBlocking().first() == 66
+        findAll(namesQuery) == ["Neil Gaiman", "Terry Pratchett"]
+    }
+
+    void "test associations are stored as identifiers and loaded lazily"() {
+        given:
+        RxAuthor author = new RxAuthor(name: "Terry Pratchett", age: 66)
+        author.titles = [new RxTitle(name: "Mort", author: author), new RxTitle(name: "Guards! Guards!", author: author)] as Set
+        client.persist(author).toBlocking().first()
+
+        when:"the titles of the author are queried"
+        List<RxTitle> titles = findAll(query(RxTitle).eq("author", author).order(Query.Order.asc("name")))
+
+        then:"the cascaded titles are found and the author is a proxy"
+        titles*.name == ["Guards! Guards!", "Mort"]
+        titles[0].author.id == author.id
+
+        when:"the author is loaded"
+        RxAuthor loaded = client.get(RxAuthor, author.id).toBlocking().first()
+
+        then:"the inverse side of the association is initialized by a query"
+        loaded.titles.toList().toBlocking().first()*.name.sort() == ["Guards! Guards!", "Mort"]
+
+        when:"the titles are queried by a property of the author"
+        Query byAuthorName = query(RxTitle)
+        AssociationQuery authorQuery = byAuthorName.createQuery("author")
+        authorQuery.eq("name", "Terry Pratchett")
+        byAuthorName.add(authorQuery)
+
+        then:
+        findAll(byAuthorName).size() == 2
+    }
+
+    void "test lazy loads of proxies and collections sharing a query state are batched into one query per type"() {
+        given:
+        List<RxAuthor> authors = (1..3).collect { int i ->
+            RxAuthor author = new RxAuthor(name: "author-$i".toString(), age: i)
+            author.titles = [new RxTitle(name: "title-$i".toString(), author: author)] as Set
+            author
+        }
+        client.persistAll(authors).toBlocking().first()
+        List<Class> queried = Collections.synchronizedList([])
+        client.eventPublisher.addApplicationListener({ ApplicationEvent event ->
+            if(event instanceof PreQueryEvent) {
+                queried.add(((PreQueryEvent)event).query.entity.javaClass)
+            }
+        } as ApplicationListener)
+        TestScheduler scheduler = new TestScheduler()
+        client.batchLoadScheduler = scheduler
+
+        when:"the authors of the titles returned by a query are loaded"
+        List<RxTitle> titles = findAll(query(RxTitle))
+        Future<List> authorsLoaded = Observable.merge(titles.collect { RxTitle title ->
+            ((ObservableProxy)title.author).toObservable()
+        }).toList().toBlocking().toFuture()
+
+        then:"nothing is loaded before the end of the window"
+        queried == [RxTitle]
+
+        when:
+        scheduler.advanceTimeBy(client.batchLoadWindow, TimeUnit.MILLISECONDS)
+
+        then:"a single query loads all of them"
+        authorsLoaded.get(5, TimeUnit.SECONDS)*.name.sort() == ["author-1", "author-2", "author-3"]
+        queried == [RxTitle, RxAuthor]
+
+        when:"the titles of the authors returned by a query are loaded"
+        queried.clear()
+        List<RxAuthor> found = findAll(query(RxAuthor))
+        Future<List> titlesLoaded = Observable.merge(found.collect { RxAuthor author ->
+            ((ObservableCollection)author.titles).toObservable()
+        }).toList().toBlocking().toFuture()
+        scheduler.advanceTimeBy(client.batchLoadWindow, TimeUnit.MILLISECONDS)
+
+        then:"a single query loads the titles of every author"
+        titlesLoaded.get(5, TimeUnit.SECONDS)*.name.sort() == ["title-1", "title-2", "title-3"]
+        queried == [RxAuthor, RxTitle]
+        found.every { RxAuthor author -> author.titles*.name == ["title-$author.age".toString()] }
+    }
+
+    void "test the identifiers of batched loads are split into in lists of the max batch size"() {
+        given:
+        List<Serializable> ids = client.persistAll((1..5).collect { int i ->
+            new RxAuthor(name: "author-$i".toString(), age: i)
+        }).toBlocking().first()
+        List<Integer> inSizes = Collections.synchronizedList([])
+        client.eventPublisher.addApplicationListener({ ApplicationEvent event ->
+            if(event instanceof PreQueryEvent) {
+                Query.In inCriterion = (Query.In)((PreQueryEvent)event).query.criteria.criteria.find { it instanceof Query.In }
+                inSizes.add(inCriterion.values.size())
+            }
+        } as ApplicationListener)
+        TestScheduler scheduler = new TestScheduler()
+        BatchLoader batchLoader = new BatchLoader(client, new QueryState(), scheduler)
+        batchLoader.maxBatchSize = 2
+
+        when:"the loads are registered and dispatched together"
+        Future<List> loaded = batchLoader.loadAll(RxAuthor, ids).toList().toBlocking().toFuture()
+        scheduler.advanceTimeBy(batchLoader.window, TimeUnit.MILLISECONDS)
+
+        then:"a query is executed per chunk and the results keep the order of the identifiers"
+        loaded.get(5, TimeUnit.SECONDS)*.name == (1..5).collect { int i -> "author-$i".toString() }
+        inSizes.sort() == [1, 2, 2]
+    }
+
+    void "test results are streamed in batches using keyset pagination"() {
+        given:
+        client.persistAll((1..25).collect { int i ->
+            new RxAuthor(name: "author-$i".toString(), age: i % 5)
+        }).toBlocking().first()
+        List<PreQueryEvent> queries = Collections.synchronizedList([])
+        client.eventPublisher.addApplicationListener({ ApplicationEvent event ->
+            if(event instanceof PreQueryEvent) {
+                queries.add((PreQueryEvent)event)
+            }
+        } as ApplicationListener)
+
+        when:"all results are streamed ordered by a property with duplicate values"
+        List<RxAuthor> results = ((RxQuery)query(RxAuthor).order(Query.Order.desc("age")))
+                .findAll(batchSize: 10)
+                .toList()
+                .toBlocking()
+                .first()
+
+        then:"every result is emitted once in order and one query is executed per batch"
+        results.size() == 25
+        results*.id.toSet().size() == 25
+        results*.age == results*.age.sort(false).reverse()
+        queries.size() == 3
+
+        when:"the subscriber only requests the first few results"
+        queries.clear()
+        List<RxAuthor> first = ((RxQuery)query(RxAuthor)).findAll(batchSize: 10).take(5).toList().toBlocking().first()
+
+        then:"only the first batch is fetched"
+        first*.name == (1..5).collect { int i -> "author-$i".toString() }
+        queries.size() == 1
+
+        when:"a detached criteria is streamed in batches with a max"
+        queries.clear()
+        List<RxAuthor> criteriaResults = new DetachedCriteria<RxAuthor>(RxAuthor)
+                .gt("age", 2)
+                .findAll(batchSize: 4, max: 7, sort: "name")
+                .toList()
+                .toBlocking()
+                .first()
+
+        then:
+        criteriaResults*.name == (1..25).findAll { int i -> i % 5 > 2 }.collect { int i -> "author-$i".toString() }.sort().take(7)
+        queries.size() == 2
+
+        when:"the results are streamed in batches with an offset"
+        queries.clear()
+        List<RxAuthor> offsetResults = ((RxQuery)query(RxAuthor).order(Query.Order.asc("name")))
+                .findAll(batchSize: 4, offset: 18)
+                .toList()
+                .toBlocking()
+                .first()
+
+        then:"the skipped results are not fetched"
+        offsetResults*.name == (1..25).collect { int i -> "author-$i".toString() }.sort().drop(18)
+        queries.size() == 2
+    }
+
+    void "test operations within a session share a bounded identity map"() {
+        given:
+        RxAuthor author = client.persist(new RxAuthor(name: "Iain Banks", age: 59)).toBlocking().first()
+        List<PreQueryEvent> queries = Collections.synchronizedList([])
+        client.eventPublisher.addApplicationListener({ ApplicationEvent event ->
+            if(event instanceof PreQueryEvent) {
+                queries.add((PreQueryEvent)event)
+            }
+        } as ApplicationListener)
+
+        when:"the same entity is retrieved twice within a session"
+        List<RxAuthor> loaded = RxAuthor.withSession { QueryState session ->
+            RxAuthor.get(author.id).flatMap { RxAuthor first ->
+                RxAuthor.withSession(session) {
+                    RxAuthor.get(author.id)
+                }.map { RxAuthor second -> [first, second] }
+            }
+        }.toBlocking().first()
+
+        then:"it is only loaded once"
+        loaded[0].is(loaded[1])
+        queries.size() == 1
+
+        and:"outside of a session each retrieval loads a new instance"
+        !RxAuthor.get(author.id).toBlocking().first().is(RxAuthor.get(author.id).toBlocking().first())
+
+        when:"more entities are loaded than the identity map retains"
+        QueryState session = new QueryState(2)
+        (1L..3L).each { Long id -> session.addLoadedEntity(RxAuthor, id, new RxAuthor(name: "author-$id".toString())) }
+        session.getLoadedEntity(RxAuthor, 2L)
+        session.addLoadedEntity(RxAuthor, 4L, new RxAuthor(name: "author-4"))
+
+        then:"the least recently used are evicted"
+        session.getLoadedEntity(RxAuthor, 1L) == null
+        session.getLoadedEntity(RxAuthor, 3L) == null
+        session.getLoadedEntity(RxAuthor, 2L).name == "author-2"
+        session.getLoadedEntity(RxAuthor, 4L).name == "author-4"
+    }
+
+    void "test entities deleted within a session are removed from its identity map"() {
+        given:
+        RxAuthor author = client.persist(new RxAuthor(name: "Iain Banks", age: 59)).toBlocking().first()
+        RxAuthor other = client.persist(new RxAuthor(name: "Jane Austen", age: 41)).toBlocking().first()
+
+        when:"entities loaded within a session are deleted by instance and by criteria"
+        List<Boolean> missing = RxAuthor.withSession {
+            RxAuthor loaded = RxAuthor.get(author.id).toBlocking().first()
+            RxAuthor.get(other.id).toBlocking().first()
+            loaded.delete().toBlocking().first()
+            ((RxQuery)client.createQuery(RxAuthor).eq("name", "Jane Austen")).deleteAll().toBlocking().first()
+            [author.id, other.id].collect { Serializable id -> RxAuthor.get(id).toList().toBlocking().first().isEmpty() }
+        }
+
+        then:"get no longer returns them"
+        missing == [true, true]
+    }
+
+    void "test a cascade is prepared on the calling thread and a cancelled event cancels the cascade"() {
+        given:
+        String caller = Thread.currentThread().name
+        List<List> prepared = Collections.synchronizedList([])
+        boolean cancelAuthors = false
+        client.eventPublisher.addApplicationListener({ ApplicationEvent event ->
+            if(event instanceof PreInsertEvent) {
+                PreInsertEvent preInsertEvent = (PreInsertEvent)event
+                prepared.add([preInsertEvent.entity.javaClass, Thread.currentThread().name])
+                if(cancelAuthors && preInsertEvent.entity.javaClass == RxAuthor) {
+                    preInsertEvent.cancel()
+                }
+            }
+        } as ApplicationListener)
+        RxAuthor author = new RxAuthor(name: "Terry Pratchett", age: 66)
+        author.titles = (1..50).collect { int i -> new RxTitle(name: "title-$i".toString(), author: author) } as Set
+
+        when:"an author with many titles is persisted"
+        client.persist(author).toBlocking().first()
+
+        then:"each object is prepared once on the calling thread"
+        prepared.findAll { List p -> p[0] == RxAuthor }.size() == 1
+        prepared.findAll { List p -> p[0] == RxTitle }.size() == 50
+        prepared.every { List p -> p[1] == caller }
+        findAll(query(RxTitle)).size() == 50
+
+        when:"the insert of the author is cancelled"
+        prepared.clear()
+        cancelAuthors = true
+        RxAuthor cancelled = new RxAuthor(name: "Nobody", age: 1)
+        cancelled.titles = [new RxTitle(name: "Never Written", author: cancelled)] as Set
+        client.persist(cancelled).toBlocking().first()
+
+        then:"its titles are neither prepared nor written"
+        prepared.findAll { List p -> p[0] == RxTitle }.isEmpty()
+        findAll(query(RxTitle).eq("name", "Never Written")).isEmpty()
+    }
+
+    void "test the entity types of a larger cascade reserve identifiers concurrently after the events on the calling thread"() {
+        given:
+        String caller = Thread.currentThread().name
+        List<String> eventThreads = Collections.synchronizedList([])
+        client.eventPublisher.addApplicationListener({ ApplicationEvent event ->
+            if(event instanceof PreInsertEvent) {
+                eventThreads.add(Thread.currentThread().name)
+            }
+        } as ApplicationListener)
+        AtomicInteger scheduled = new AtomicInteger()
+        ExecutorService pool = Executors.newFixedThreadPool(2)
+        client.cascadeScheduler = Schedulers.from({ Runnable task ->
+            scheduled.incrementAndGet()
+            pool.execute(task)
+        } as Executor)
+        client.parallelCascadeThreshold = 10
+        RxAuthor author = new RxAuthor(name: "Terry Pratchett", age: 66)
+        author.titles = (1..20).collect { int i -> new RxTitle(name: "title-$i".toString(), author: author) } as Set
+
+        when:
+        client.persist(author).toBlocking().first()
+
+        then:"the events are published on the calling thread and the types are prepared on the cascade scheduler"
+        eventThreads.size() == 21
+        eventThreads.every { String name -> name == caller }
+        scheduled.get() >= 2
+
+        and:"every object is assigned a distinct identifier and written"
+        author.id != null
+        author.titles*.id.toSet().size() == 20
+        findAll(query(RxTitle)).size() == 20
+
+        cleanup:
+        pool.shutdownNow()
+    }
+
+    void "test objects added to the graph by a pre insert listener are cascaded"() {
+        given:
+        client.eventPublisher.addApplicationListener({ ApplicationEvent event ->
+            if(event instanceof PreInsertEvent && ((PreInsertEvent)event).entity.javaClass == RxAuthor) {
+                RxAuthor inserted = (RxAuthor)((PreInsertEvent)event).entityObject
+                inserted.titles = [new RxTitle(name: "Added Before Insert", author: inserted)] as Set
+            }
+        } as ApplicationListener)
+
+        when:
+        client.persist(new RxAuthor(name: "Iain Banks", age: 59)).toBlocking().first()
+
+        then:
+        findAll(query(RxTitle))*.name == ["Added Before Insert"]
+    }
+
+    void "test concurrent updates of the same version fail with an optimistic locking exception"() {
+        given:
+        RxAuthor author = client.persist(new RxAuthor(name: "Iain Banks", age: 59)).toBlocking().first()
+        RxAuthor first = client.get(RxAuthor, author.id).toBlocking().first()
+        RxAuthor second = client.get(RxAuthor, author.id).toBlocking().first()
+
+        when:
+        first.age = 60
+        client.persist(first).toBlocking().first()
+
+        then:
+        first.version == 1
+
+        when:
+        second.age = 61
+        client.persist(second).toBlocking().first()
+
+        then:
+        thrown(OptimisticLockingException)
+        client.get(RxAuthor, author.id).toBlocking().first().age == 60
+    }
+
+    void "test bulk update and delete of the entries matching a query"() {
+        given:
+        client.persistAll([
+                new RxAuthor(name: "Terry Pratchett", age: 66),
+                new RxAuthor(name: "Neil Gaiman", age: 56),
+                new RxAuthor(name: "Jane Austen", age: 41)
+        ]).toBlocking().first()
+
+        expect:
+        ((RxQuery)query(RxAuthor).gt("age", 50)).updateAll(age: 50).toBlocking().first() == 2
+        ((RxQuery)query(RxAuthor).eq("age", 50)).deleteAll().toBlocking().first() == 2
+        findAll(query(RxAuthor))*.name == ["Jane Austen"]
+    }
+
+    void "test dynamic finders on rx entities are bound at compile time"() {
+        given:
+        client.persist(new RxAuthor(name: "Stephen King", age: 70)).toBlocking().first()
+        client.persist(new RxAuthor(name: "Jane Austen", age: 41)).toBlocking().first()
+        client.persist(new RxAuthor(name: "Mary Shelley", age: 53)).toBlocking().first()
+
+        when:
+        RxAuthor king = RxAuthor.findByName("Stephen King").toBlocking().first()
+        List<RxAuthor> older = RxAuthor.findAllByAgeGreaterThan(50).toList().toBlocking().first()
+        Number count = RxAuthor.countByNameLikeAndAgeLessThan("%e%", 60).toBlocking().first()
+        List<RxAuthor> unnamed = RxAuthor.findAllByName(null).toList().toBlocking().first()
+
+        then:"the finders return the same results as when dispatched at runtime"
+        king.age == 70
+        older*.name as Set == ["Stephen King", "Mary Shelley"] as Set
+        count == 2
+        unnamed.isEmpty()
+
+        and:"they were not registered on the metaclass by methodMissing"
+        RxAuthor.metaClass.getStaticMetaMethod("findByName", [String] as Object[]) == null
+        RxAuthor.metaClass.getStaticMetaMethod("findAllByAgeGreaterThan", [Integer] as Object[]) == null
+    }
+
+    void "test blocking initialization on a non-blocking scheduler fails fast and is counted"() {
+        given:
+        client.blockingInitializer = new BlockingInitializer(true)
+        RxAuthor author = new RxAuthor(name: "Terry Pratchett", age: 66)
+        author.titles = [new RxTitle(name: "Mort", author: author), new RxTitle(name: "Guards! Guards!", author: author)] as Set
+        client.persist(author).toBlocking().first()
+
+        when:"a lazy collection is initialized on the computation scheduler"
+        client.get(RxAuthor, author.id)
+                .observeOn(Schedulers.computation())
+                .map { RxAuthor loaded -> loaded.titles*.name.sort() }
+                .toBlocking()
+                .first()
+
+        then:"the initialization is rejected"
+        BlockingOperationException e = thrown()
+        e.message.contains(RxAuthor.name + ".titles")
+        client.blockingInitializer.rejectedInitializations == 1
+        client.blockingInitializer.blockingInitializations == 0
+
+        when:"a lazy collection is initialized on a thread recognised by a detector"
+        boolean eventLoop = true
+        Func0<Boolean> detector = { -> eventLoop } as Func0<Boolean>
+        BlockingInitializer.addNonBlockingThreadDetector(detector)
+        client.get(RxAuthor, author.id).toBlocking().first().titles.size()
+
+        then:
+        thrown(BlockingOperationException)
+        client.blockingInitializer.rejectedInitializations == 2
+
+        when:"a lazy collection is initialized on the caller thread"
+        eventLoop = false
+        RxAuthor loaded = client.get(RxAuthor, author.id).toBlocking().first()
+
+        then:"the initialization runs on the caller thread and is counted by association"
+        loaded.titles*.name.sort() == ["Guards! Guards!", "Mort"]
+        client.blockingInitializer.blockingInitializations == 1
+        client.blockingInitializer.initializationsByLocation == [(RxAuthor.name + ".titles"): 1L]
+
+        cleanup:
+        BlockingInitializer.removeNonBlockingThreadDetector(detector)
+        RxJavaHooks.reset()
+    }
+
+    void "test criteria driven delete streams deleted counts in batches"() {
+        given:
+        client.persistAll((1..25).collect { int i -> new RxAuthor(name: "author-$i".toString(), age: i) }).toBlocking().first()
+        List<ApplicationEvent> deleteEvents = Collections.synchronizedList([])
+
+        when:"the matching entities are deleted in batches without delete listeners"
+        List<Number> deleted = client.deleteAll(query(RxAuthor).gt("age", 5), 8, [concurrency: 2])
+                .toList()
+                .toBlocking()
+                .first()
+
+        then:"the deleted counts of each batch are emitted"
+        deleted.sort() == [4, 8, 8]
+        findAll(query(RxAuthor))*.age.sort() == [1, 2, 3, 4, 5]
+
+        when:"a delete listener is registered"
+        client.eventPublisher.addApplicationListener({ ApplicationEvent event ->
+            if(event instanceof PreDeleteEvent || event instanceof PostDeleteEvent) {
+                deleteEvents.add(event)
+            }
+        } as ApplicationListener)
+        List<Number> remaining = new DetachedCriteria<RxAuthor>(RxAuthor).lt("age", 4).deleteAll(2)
+                .toList()
+                .toBlocking()
+                .first()
+
+        then:"events are published for each deleted entity"
+        remaining == [2, 1]
+        deleteEvents.count { ApplicationEvent event -> event instanceof PreDeleteEvent } == 3
+        deleteEvents.count { ApplicationEvent event -> event instanceof PostDeleteEvent } == 3
+        findAll(query(RxAuthor))*.age.sort() == [4, 5]
+    }
+
+    void "test criteria driven delete rejects a query with a max or an offset"() {
+        when:
+        client.deleteAll(query(RxAuthor).gt("age", 5).max(10), 8)
+
+        then:
+        thrown(IllegalArgumentException)
+
+        when:
+        client.deleteAll(query(RxAuthor).offset(5), 8)
+
+        then:
+        thrown(IllegalArgumentException)
+
+        when:
+        client.deleteAll(client.createQuery(RxAuthor, [max: 10]), 8)
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+
+    void "test streaming persistAll writes in batches and consumes upstream with backpressure"() {
+        given:
+        List<Long> requests = Collections.synchronizedList([])
+        Observable<RxAuthor> authors = Observable.range(1, 1000)
+                .doOnRequest { Long n -> requests.add(n) }
+                .map { Integer i -> new RxAuthor(name: "author-$i".toString(), age: i) }
+
+        when:
+        List<Serializable> identifiers = client.persistAll(authors, 50, [concurrency: 2])
+                .toList()
+                .toBlocking()
+                .first()
+
+        then:"every object is stored and upstream is never asked for more than the batches in flight"
+        identifiers.size() == 1000
+        identifiers.toSet().size() == 1000
+        findAll(query(RxAuthor)).size() == 1000
+        !requests.isEmpty()
+        requests.every { Long n -> n <= 100 }
+    }
+
+    void "test streaming persistAll rejects an invalid batch size"() {
+        when:
+        client.persistAll(Observable.just(new RxAuthor(name: "Nobody", age: 1)), 0)
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+
+    private Query query(Class type) {
+        client.createQuery(type)
+    }
+
+    private List findAll(Query query) {
+        ((RxQuery)query).findAll().toList().toBlocking().first()
+    }
+}
+
+@Entity
+class RxAuthor implements RxEntity<RxAuthor> {
+    String name
+    Integer age
+    Set<RxTitle> titles
+    static hasMany = [titles: RxTitle]
+}
+
+@Entity
+class RxTitle implements RxEntity<RxTitle> {
+    String name
+    static belongsTo = [author: RxAuthor]
+}
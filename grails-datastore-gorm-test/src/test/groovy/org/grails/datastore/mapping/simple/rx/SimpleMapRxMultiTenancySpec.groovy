@@ -0,0 +1,121 @@
+package org.grails.datastore.mapping.simple.rx
+
+import grails.gorm.annotation.Entity
+import grails.gorm.rx.MultiTenant
+import grails.gorm.rx.multitenancy.Tenants
+import org.grails.datastore.mapping.config.Settings
+import org.grails.datastore.mapping.core.DatastoreUtils
+import org.grails.datastore.mapping.multitenancy.MultiTenancySettings
+import org.grails.datastore.mapping.multitenancy.resolvers.SystemPropertyTenantResolver
+import rx.Observable
+import rx.schedulers.Schedulers
+import spock.lang.AutoCleanup
+import spock.lang.Specification
+
+class SimpleMapRxMultiTenancySpec extends Specification {
+
+    @AutoCleanup SimpleMapRxDatastoreClient client = new SimpleMapRxDatastoreClient(
+            DatastoreUtils.createPropertyResolver(
+                    [(Settings.SETTING_MULTI_TENANCY_MODE): MultiTenancySettings.MultiTenancyMode.DISCRIMINATOR,
+                     (Settings.SETTING_MULTI_TENANT_RESOLVER): new SystemPropertyTenantResolver()]
+            ),
+            RxTenantBook
+    )
+
+    void setup() {
+        System.setProperty(SystemPropertyTenantResolver.PROPERTY_NAME, "")
+    }
+
+    void cleanup() {
+        System.setProperty(SystemPropertyTenantResolver.PROPERTY_NAME, "")
+    }
+
+    void "test streaming saveAll with a tenant saves each batch within the tenant scope"() {
+        given:"books emitted on another thread after the pipeline is assembled"
+        List<RxTenantBook> books = (1..5).collect { int i -> new RxTenantBook(title: "book-$i") }
+        Observable<RxTenantBook> emitted = Observable.from(books).subscribeOn(Schedulers.computation())
+
+        when:
+        List identifiers = RxTenantBook.withTenant("moreBooks").saveAll(emitted, 2).toList().toBlocking().first()
+
+        then:"every batch is assigned the tenant"
+        identifiers.size() == 5
+        books*.tenantId.unique() == ["moreBooks"]
+    }
+
+    void "test streaming saveAll with a tenant and concurrent batches"() {
+        given:
+        List<RxTenantBook> books = (1..6).collect { int i -> new RxTenantBook(title: "book-$i") }
+
+        when:
+        List identifiers = RxTenantBook.withTenant("moreBooks")
+                                       .saveAll(Observable.from(books), 2, [concurrency: 2, validate: false])
+                                       .toList()
+                                       .toBlocking()
+                                       .first()
+
+        then:
+        identifiers.size() == 6
+        books*.tenantId.unique() == ["moreBooks"]
+    }
+
+    void "test an entity loaded within a session for one tenant is not returned for another"() {
+        given:
+        RxTenantBook saved = RxTenantBook.withTenant("one").save(new RxTenantBook(title: "The Stand")).toBlocking().first()
+
+        when:"the entity is retrieved for both tenants within the same session"
+        List<RxTenantBook> loaded = RxTenantBook.withSession {
+            [RxTenantBook.withTenant("one").get(saved.id).toBlocking().firstOrDefault(null),
+             RxTenantBook.withTenant("two").get(saved.id).toBlocking().firstOrDefault(null),
+             RxTenantBook.withTenant("one").get(saved.id).toBlocking().firstOrDefault(null)]
+        }
+
+        then:"only the tenant it belongs to finds it, from the identity map of that tenant"
+        loaded[0].title == "The Stand"
+        loaded[1] == null
+        loaded[2].is(loaded[0])
+    }
+
+    void "test criteria driven delete deletes every page within the tenant of the call"() {
+        given:
+        RxTenantBook.withTenant("one").saveAll((1..7).collect { int i -> new RxTenantBook(title: "one-$i") }).toBlocking().first()
+        RxTenantBook.withTenant("two").saveAll((1..7).collect { int i -> new RxTenantBook(title: "two-$i") }).toBlocking().first()
+
+        when:"the pages after the first are read on the threads of the client scheduler"
+        List<Number> deleted = Tenants.withId(client, "one") {
+            client.deleteAll(client.createQuery(RxTenantBook), 3, [concurrency: 2])
+        }.toList().toBlocking().first()
+
+        then:"only the entities of the tenant are deleted"
+        deleted.sum() == 7
+        RxTenantBook.withTenant("one").count().toBlocking().first() == 0
+        RxTenantBook.withTenant("two").count().toBlocking().first() == 7
+    }
+
+    void "test an entity loaded within a session for a resolved tenant is not returned for another"() {
+        given:
+        RxTenantBook saved = RxTenantBook.withTenant("one").save(new RxTenantBook(title: "The Stand")).toBlocking().first()
+
+        when:"the tenant comes from the resolver and changes within the same session"
+        List<RxTenantBook> loaded = RxTenantBook.withSession {
+            System.setProperty(SystemPropertyTenantResolver.PROPERTY_NAME, "one")
+            RxTenantBook first = RxTenantBook.get(saved.id).toBlocking().firstOrDefault(null)
+            System.setProperty(SystemPropertyTenantResolver.PROPERTY_NAME, "two")
+            RxTenantBook second = RxTenantBook.get(saved.id).toBlocking().firstOrDefault(null)
+            System.setProperty(SystemPropertyTenantResolver.PROPERTY_NAME, "one")
+            RxTenantBook third = RxTenantBook.get(saved.id).toBlocking().firstOrDefault(null)
+            [first, second, third]
+        }
+
+        then:"each resolved tenant has its own identity map"
+        loaded[0].title == "The Stand"
+        loaded[1] == null
+        loaded[2].is(loaded[0])
+    }
+}
+
+@Entity
+class RxTenantBook implements MultiTenant<RxTenantBook> {
+    String title
+    String tenantId
+}
@@ -3,8 +3,14 @@ package grails.gorm.validation
 import groovy.transform.CompileDynamic
 import groovy.transform.CompileStatic
 import org.grails.datastore.gorm.support.BeforeValidateHelper
+import org.grails.datastore.gorm.validation.constraints.AbstractConstraint
+import org.grails.datastore.gorm.validation.constraints.NullableConstraint
 import org.grails.datastore.gorm.validation.constraints.eval.ConstraintsEvaluator
+import org.grails.datastore.gorm.validation.metrics.NoopValidationMetrics
+import org.grails.datastore.gorm.validation.metrics.ValidationMetrics
+import org.grails.datastore.mapping.config.Entity
 import org.grails.datastore.mapping.config.Property
+import org.grails.datastore.mapping.dirty.checking.DirtyCheckable
 import org.grails.datastore.mapping.model.MappingContext
 import org.grails.datastore.mapping.model.PersistentEntity
 import org.grails.datastore.mapping.model.PersistentProperty
@@ -33,28 +39,195 @@ class PersistentEntityValidator implements CascadingValidator, ConstrainedEntity
                                                             GormProperties.IDENTITY,
                                                             GormProperties.VERSION)
 
+    /**
+     * The name of the meta constraint used to declare the properties a constraint depends on (for example a cross-field validator)
+     */
+    public static final String DEPENDS_ON = "dependsOn"
+
     final PersistentEntity entity
     final EntityReflector entityReflector
     final MessageSource messageSource
     final Class targetClass
-    final Map<String, ConstrainedProperty> constrainedProperties
     final BeforeValidateHelper validateHelper = new BeforeValidateHelper()
+    /**
+     * Whether only the dirty properties of already persisted instances are validated
+     */
+    final boolean validateDirtyOnly
 
     protected final ProxyHandler proxyHandler
+    protected final ConstraintsEvaluator constraintsEvaluator
+    protected Map<String, List<String>> propertyDependencies
+
+    private volatile Map<String, ConstrainedProperty> constrainedProperties
+    private volatile ValidationMetrics validationMetrics = NoopValidationMetrics.INSTANCE
+    private EntityReflector.PropertyReader[] requiredPropertyReaders
 
-    PersistentEntityValidator(PersistentEntity entity, MessageSource messageSource, ConstraintsEvaluator constraintsEvaluator) {
+    PersistentEntityValidator(PersistentEntity entity, MessageSource messageSource, ConstraintsEvaluator constraintsEvaluator, boolean validateDirtyOnly = false) {
         this.entity = entity
         this.messageSource = messageSource
         this.targetClass = entity.javaClass
         def mappingContext = entity.getMappingContext()
         this.entityReflector = mappingContext.getEntityReflector(entity)
         this.proxyHandler = mappingContext.getProxyHandler()
+        this.constraintsEvaluator = constraintsEvaluator
+
+        Entity mappedForm = entity.getMapping()?.getMappedForm()
+        Boolean entityValidateDirtyOnly = mappedForm?.validateDirtyOnly
+        this.validateDirtyOnly = entityValidateDirtyOnly != null ? entityValidateDirtyOnly.booleanValue() : validateDirtyOnly
+    }
+
+    /**
+     * The constrained properties of the entity. The constraints are evaluated on first access
+     *
+     * @return The constrained properties
+     */
+    @Override
+    Map<String, ConstrainedProperty> getConstrainedProperties() {
+        Map<String, ConstrainedProperty> evaluated = this.constrainedProperties
+        if(evaluated == null) {
+            synchronized (this) {
+                evaluated = this.constrainedProperties
+                if(evaluated == null) {
+                    Map<String, ConstrainedProperty> result = constraintsEvaluator.evaluate(targetClass)
+                    if(result == null) {
+                        throw new IllegalStateException("Constraint evaluator returned null for class: $targetClass")
+                    }
+                    evaluated = Collections.unmodifiableMap(result)
+                    this.propertyDependencies = resolvePropertyDependencies(evaluated)
+                    this.requiredPropertyReaders = resolveRequiredPropertyReaders(evaluated)
+                    applyValidationMetrics(evaluated, validationMetrics)
+                    this.constrainedProperties = evaluated
+                }
+            }
+        }
+        return evaluated
+    }
+
+    /**
+     * @return The metrics sink validations of this entity are reported to
+     */
+    ValidationMetrics getValidationMetrics() {
+        return validationMetrics
+    }
 
-        def evaluated = constraintsEvaluator.evaluate(targetClass)
-        this.constrainedProperties = Collections.unmodifiableMap(evaluated)
-        if(constrainedProperties == null) {
-            throw new IllegalStateException("Constraint evaluator returned null for class: $targetClass")
+    /**
+     * Sets the metrics sink validations of this entity and its constraints are reported to
+     *
+     * @param validationMetrics The metrics sink
+     */
+    void setValidationMetrics(ValidationMetrics validationMetrics) {
+        synchronized (this) {
+            this.validationMetrics = validationMetrics != null ? validationMetrics : NoopValidationMetrics.INSTANCE
+            Map<String, ConstrainedProperty> evaluated = this.constrainedProperties
+            if(evaluated != null) {
+                applyValidationMetrics(evaluated, this.validationMetrics)
+            }
+        }
+    }
+
+    /**
+     * Applies the metrics sink to each of the evaluated constraints
+     *
+     * @param constrainedProperties The constrained properties
+     * @param metrics The metrics sink
+     */
+    protected void applyValidationMetrics(Map<String, ConstrainedProperty> constrainedProperties, ValidationMetrics metrics) {
+        for(ConstrainedProperty constrainedProperty in constrainedProperties.values()) {
+            for(Constraint constraint in constrainedProperty.appliedConstraints) {
+                if(constraint instanceof AbstractConstraint) {
+                    ((AbstractConstraint)constraint).setValidationMetrics(metrics)
+                }
+            }
+        }
+    }
+
+    /**
+     * @return Whether the constraints of the entity have been evaluated
+     */
+    boolean isInitialized() {
+        return this.constrainedProperties != null
+    }
+
+    /**
+     * Whether the entity has a trivial constraint set, that is no associations and only nullable constraints on its persistent properties.
+     * For such entities {@link #hasNullViolations(Object)} is sufficient to determine whether an instance is valid
+     *
+     * @return True if the constraints are trivial
+     */
+    boolean hasTrivialConstraints() {
+        getConstrainedProperties()
+        return requiredPropertyReaders != null
+    }
+
+    /**
+     * Checks whether any of the non-nullable properties of an entity with {@link #hasTrivialConstraints() trivial constraints} is null.
+     * A check without violations completes the validation of the object, so it is reported to the metrics sink as a validation
+     *
+     * @param obj The object
+     * @return True if a non-nullable property is null
+     */
+    boolean hasNullViolations(Object obj) {
+        EntityReflector.PropertyReader[] readers = requiredPropertyReaders
+        if(readers == null) {
+            throw new IllegalStateException("Entity [$targetClass] does not have trivial constraints")
+        }
+        ValidationMetrics metrics = this.validationMetrics
+        if(!metrics.isEnabled()) {
+            return hasNullValue(obj, readers)
+        }
+        long start = System.nanoTime()
+        boolean violations = hasNullValue(obj, readers)
+        if(!violations) {
+            // with violations the full validation runs and records itself
+            metrics.recordValidation(targetClass, System.nanoTime() - start)
+        }
+        return violations
+    }
+
+    private static boolean hasNullValue(Object obj, EntityReflector.PropertyReader[] readers) {
+        for(int i = 0; i < readers.length; i++) {
+            if(readers[i].read(obj) == null) {
+                return true
+            }
         }
+        return false
+    }
+
+    /**
+     * Resolves the readers for the non-nullable properties if the constraints are trivial
+     *
+     * @param constrainedProperties The constrained properties
+     * @return The property readers or null if the constraints are not trivial
+     */
+    protected EntityReflector.PropertyReader[] resolveRequiredPropertyReaders(Map<String, ConstrainedProperty> constrainedProperties) {
+        Set<String> persistentPropertyNames = new HashSet<>()
+        for(PersistentProperty pp in entity.persistentProperties) {
+            if(pp instanceof Association) {
+                return null
+            }
+            persistentPropertyNames.add(pp.name)
+        }
+
+        List<EntityReflector.PropertyReader> readers = []
+        for(Map.Entry<String, ConstrainedProperty> entry in constrainedProperties.entrySet()) {
+            String propertyName = entry.key
+            if(!persistentPropertyNames.contains(propertyName)) {
+                return null
+            }
+            for(Constraint constraint in entry.value.appliedConstraints) {
+                if(!(constraint instanceof NullableConstraint)) {
+                    return null
+                }
+                if(!((NullableConstraint)constraint).isNullable()) {
+                    EntityReflector.PropertyReader reader = entityReflector.getPropertyReader(propertyName)
+                    if(reader == null) {
+                        return null
+                    }
+                    readers.add(reader)
+                }
+            }
+        }
+        return readers.toArray(new EntityReflector.PropertyReader[readers.size()])
     }
 
     @Override
@@ -64,18 +237,43 @@ class PersistentEntityValidator implements CascadingValidator, ConstrainedEntity
         }
 
 
-        Map<String, ConstrainedProperty> constrainedProperties = this.constrainedProperties
+        ValidationMetrics metrics = this.validationMetrics
+        if(metrics.isEnabled()) {
+            long start = System.nanoTime()
+            try {
+                doValidate(obj, errors, cascade)
+            }
+            finally {
+                metrics.recordValidation(targetClass, System.nanoTime() - start)
+            }
+        }
+        else {
+            doValidate(obj, errors, cascade)
+        }
+    }
+
+    /**
+     * Validates the given object, which has already been checked to be an instance of the target class
+     *
+     * @param obj The object
+     * @param errors The errors
+     * @param cascade Whether to cascade validation to associations
+     */
+    protected void doValidate(Object obj, Errors errors, boolean cascade) {
+        Map<String, ConstrainedProperty> constrainedProperties = getConstrainedProperties()
         Set<String> constrainedPropertyNames = new HashSet<>(constrainedProperties.keySet())
         
         def validatedObjects = new HashSet();
         validatedObjects.add(obj);
 
+        DirtyCheckable dirtyCheckable = isDirtyValidationCandidate(obj, entityReflector) ? (DirtyCheckable)obj : null
+
         for(PersistentProperty pp in entity.persistentProperties) {
             def propertyName = pp.name
 
             ConstrainedProperty constrainedProperty = constrainedProperties.get(propertyName)
 
-            if(constrainedProperty != null) {
+            if(constrainedProperty != null && (dirtyCheckable == null || requiresValidation(dirtyCheckable, propertyName))) {
                 validatePropertyWithConstraint(obj, propertyName, entityReflector, errors, constrainedProperty, pp)
             }
 
@@ -98,6 +296,74 @@ class PersistentEntityValidator implements CascadingValidator, ConstrainedEntity
 
     }
 
+    /**
+     * Whether the given object is an already persisted instance for which only the dirty properties should be validated
+     *
+     * @param obj The object
+     * @param reflector The entity reflector
+     * @return True if only the dirty properties need validating
+     */
+    protected boolean isDirtyValidationCandidate(Object obj, EntityReflector reflector) {
+        return validateDirtyOnly && (obj instanceof DirtyCheckable) && reflector.getIdentifier(obj) != null
+    }
+
+    /**
+     * Whether the given property requires validation because either it or one of the properties it declares a dependency on has changed
+     *
+     * @param dirtyCheckable The instance
+     * @param propertyName The property name
+     * @return True if the property should be validated
+     */
+    protected boolean requiresValidation(DirtyCheckable dirtyCheckable, String propertyName) {
+        if(dirtyCheckable.hasChanged(propertyName)) {
+            return true
+        }
+        List<String> dependencies = propertyDependencies.get(propertyName)
+        if(dependencies != null) {
+            for(String dependency in dependencies) {
+                if(dirtyCheckable.hasChanged(dependency)) {
+                    return true
+                }
+            }
+        }
+        return false
+    }
+
+    /**
+     * Resolves the properties each constrained property depends on from the {@link #DEPENDS_ON} meta constraint. For example:
+     *
+     * <pre>
+     * <code>
+     * static constraints = {
+     *     password validator: { val, obj -> val == obj.passwordConfirm }, dependsOn: ['passwordConfirm']
+     * }
+     * </code>
+     * </pre>
+     *
+     * @param constrainedProperties The constrained properties
+     * @return A map of property name to the names of the properties it depends on
+     */
+    protected Map<String, List<String>> resolvePropertyDependencies(Map<String, ConstrainedProperty> constrainedProperties) {
+        Map<String, List<String>> dependencies = [:]
+        for(Map.Entry<String, ConstrainedProperty> entry in constrainedProperties.entrySet()) {
+            ConstrainedProperty constrainedProperty = entry.value
+            if(constrainedProperty instanceof DefaultConstrainedProperty) {
+                Object dependsOn = ((DefaultConstrainedProperty)constrainedProperty).getMetaConstraintValue(DEPENDS_ON)
+                if(dependsOn instanceof Iterable) {
+                    List<String> names = []
+                    for(name in ((Iterable)dependsOn)) {
+                        names.add(name.toString())
+                    }
+                    dependencies.put(entry.key, names)
+                }
+                else if(dependsOn instanceof CharSequence) {
+                    dependencies.put(entry.key, [dependsOn.toString()])
+                }
+            }
+        }
+        return dependencies
+    }
+
     /**
      * Cascades validation onto an associative property maybe a one-to-many, one-to-one or many-to-one relationship.
      *
@@ -223,10 +489,16 @@ class PersistentEntityValidator implements CascadingValidator, ConstrainedEntity
         }
 
         Map associatedConstrainedProperties
+        PersistentEntityValidator associatedValidator = null
+        DirtyCheckable associatedDirtyCheckable = null
 
         def validator = mappingContext.getEntityValidator(associatedEntity)
         if(validator instanceof PersistentEntityValidator) {
-            associatedConstrainedProperties = ((PersistentEntityValidator)validator).getConstrainedProperties()
+            associatedValidator = (PersistentEntityValidator)validator
+            associatedConstrainedProperties = associatedValidator.getConstrainedProperties()
+            if(associatedValidator.isDirtyValidationCandidate(associatedObject, associatedReflector)) {
+                associatedDirtyCheckable = (DirtyCheckable)associatedObject
+            }
         }
         else {
             associatedConstrainedProperties = Collections.<String, ConstrainedProperty>emptyMap()
@@ -247,7 +519,8 @@ class PersistentEntityValidator implements CascadingValidator, ConstrainedEntity
 
 
                 String associatedPropertyName = associatedPersistentProperty.getName()
-                if (associatedConstrainedProperties.containsKey(associatedPropertyName)) {
+                if (associatedConstrainedProperties.containsKey(associatedPropertyName) &&
+                        (associatedDirtyCheckable == null || associatedValidator.requiresValidation(associatedDirtyCheckable, associatedPropertyName))) {
 
                     ConstrainedProperty associatedConstrainedProperty = associatedConstrainedProperties.get(associatedPropertyName)
                     validatePropertyWithConstraint(associatedObject, errors.getNestedPath() + associatedPropertyName, associatedReflector, errors, associatedConstrainedProperty, associatedPersistentProperty)
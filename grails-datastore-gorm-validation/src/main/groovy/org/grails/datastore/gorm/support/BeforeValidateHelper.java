@@ -40,6 +40,10 @@ public class BeforeValidateHelper implements Serializable {
             return EventTriggerCaller.buildCaller(BEFORE_VALIDATE, domainClass, metaClass, argumentTypes);
         }
         
+        public boolean isEmpty() {
+            return eventTriggerCaller == null && eventTriggerCallerNoArgs == null;
+        }
+
         public void call(final Object target, final List<?> validatedFieldsList) {
             if(validatedFieldsList != null && eventTriggerCaller != null) {
                 eventTriggerCaller.call(target, new Object[]{validatedFieldsList});
@@ -50,13 +54,24 @@ public class BeforeValidateHelper implements Serializable {
     }
     
     public void invokeBeforeValidate(final Object target, final List<?> validatedFieldsList) {
-        Class<?> domainClass = target.getClass();
+        getEventTriggerCaller(target.getClass()).call(target, validatedFieldsList);
+    }
+
+    /**
+     * @param domainClass The domain class
+     * @return Whether the domain class defines a beforeValidate method
+     */
+    public boolean hasBeforeValidate(Class<?> domainClass) {
+        return !getEventTriggerCaller(domainClass).isEmpty();
+    }
+
+    private BeforeValidateEventTriggerCaller getEventTriggerCaller(Class<?> domainClass) {
         BeforeValidateEventTriggerCaller eventTriggerCaller = eventTriggerCallerCache.get(domainClass);
         if(eventTriggerCaller==null) {
             eventTriggerCaller = new BeforeValidateEventTriggerCaller(domainClass, null);
             eventTriggerCallerCache.put(domainClass, eventTriggerCaller);
         }
-        eventTriggerCaller.call(target, validatedFieldsList);
+        return eventTriggerCaller;
     }
 
     // Ensure that the cache is re-initalized empty when deserialized
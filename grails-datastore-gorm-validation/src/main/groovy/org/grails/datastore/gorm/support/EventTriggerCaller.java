@@ -2,9 +2,12 @@ package org.grails.datastore.gorm.support;
 
 import groovy.lang.*;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.lang.reflect.UndeclaredThrowableException;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -31,6 +34,25 @@ public abstract class EventTriggerCaller {
         return caller;
     }
 
+    /**
+     * Builds a caller for an already resolved event method. The method is bound to a {@link MethodHandle} once, held in a
+     * final field of an invoker dedicated to the method, so that subsequent invocations avoid reflective dispatch
+     *
+     * @param method The event method
+     * @return The caller
+     */
+    public static EventTriggerCaller buildMethodCaller(Method method) {
+        ReflectionUtils.makeAccessible(method);
+        return createMethodCaller(method);
+    }
+
+    private static EventTriggerCaller createMethodCaller(Method method) {
+        if (method.getParameterTypes().length == 0) {
+            return new NoArgumentMethodCaller(method);
+        }
+        return new MethodCaller(method);
+    }
+
     private static EventTriggerCaller resolveMetaClassCallers(String eventMethodName, Class<?> clazz, MetaClass metaClass) {
         if(metaClass==null) {
             metaClass=GroovySystem.getMetaClassRegistry().getMetaClass(clazz);
@@ -77,7 +99,7 @@ public abstract class EventTriggerCaller {
         }
         if (method != null) {
             ReflectionUtils.makeAccessible(method);
-            return new MethodCaller(method);
+            return createMethodCaller(method);
         }
         return null;
     }
@@ -127,13 +149,50 @@ public abstract class EventTriggerCaller {
         }
     }
     
-    private static class MethodCaller extends EventTriggerCaller {
-        Method method;
-        int numberOfParameters;
+    private static MethodHandle unreflect(Method method) {
+        try {
+            return MethodHandles.lookup().unreflect(method);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Cannot access event method [" + method + "]: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Invokes an event method without parameters, the most common form of event method
+     */
+    private static final class NoArgumentMethodCaller extends EventTriggerCaller {
+        // (Object)Object so that the handle can be invoked exactly without reflection
+        private final MethodHandle methodHandle;
+
+        NoArgumentMethodCaller(Method method) {
+            MethodHandle handle = unreflect(method);
+            this.methodHandle = handle.asType(handle.type().generic());
+        }
+
+        @Override
+        public boolean call(Object entity, Object[] argumentArray) {
+            Object retval;
+            try {
+                retval = (Object) methodHandle.invokeExact(entity);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new UndeclaredThrowableException(e);
+            }
+            return resolveReturnValue(retval);
+        }
+    }
+
+    private static final class MethodCaller extends EventTriggerCaller {
+        private final int numberOfParameters;
+        // (Object, Object[])Object so that the handle can be invoked exactly without reflection
+        private final MethodHandle methodHandle;
 
         MethodCaller(Method method) {
-            this.method = method;
             this.numberOfParameters = method.getParameterTypes().length;
+            MethodHandle handle = unreflect(method);
+            this.methodHandle = handle.asType(handle.type().generic())
+                                      .asSpreader(Object[].class, numberOfParameters);
         }
 
         @Override
@@ -144,7 +203,14 @@ public abstract class EventTriggerCaller {
                     arguments[i] = argumentArray[i];
                 }
             }
-            Object retval = ReflectionUtils.invokeMethod(method, entity, arguments);
+            Object retval;
+            try {
+                retval = (Object) methodHandle.invokeExact(entity, arguments);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new UndeclaredThrowableException(e);
+            }
             return resolveReturnValue(retval);
         }
     }
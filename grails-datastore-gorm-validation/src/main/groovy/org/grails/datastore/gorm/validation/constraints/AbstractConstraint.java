@@ -8,6 +8,8 @@ import java.util.Set;
 
 import grails.gorm.validation.ConstrainedProperty;
 import grails.gorm.validation.Constraint;
+import org.grails.datastore.gorm.validation.metrics.NoopValidationMetrics;
+import org.grails.datastore.gorm.validation.metrics.ValidationMetrics;
 import org.springframework.beans.BeanWrapperImpl;
 import org.springframework.context.MessageSource;
 import org.springframework.context.i18n.LocaleContextHolder;
@@ -35,6 +37,9 @@ public abstract class AbstractConstraint implements Constraint {
     private final String shortNameConstraintErrorCode;
     private final String fullQualifiedPrefix;
     private final String shortNamePrefix;
+    private volatile ValidationMetrics validationMetrics = NoopValidationMetrics.INSTANCE;
+    // resolved once from the metrics sink, null when metrics are disabled
+    private volatile ValidationMetrics.ConstraintRecorder constraintRecorder;
 
     public AbstractConstraint(Class<?> constraintOwningClass, String constraintPropertyName, Object constraintParameter, MessageSource messageSource) {
         this.constraintPropertyName = constraintPropertyName;
@@ -65,6 +70,29 @@ public abstract class AbstractConstraint implements Constraint {
         return constraintParameter;
     }
 
+    /**
+     * @return The metrics sink the time taken by this constraint is reported to
+     */
+    public ValidationMetrics getValidationMetrics() {
+        return validationMetrics;
+    }
+
+    /**
+     * @param validationMetrics The metrics sink the time taken by this constraint is reported to
+     */
+    public void setValidationMetrics(ValidationMetrics validationMetrics) {
+        ValidationMetrics metrics = validationMetrics != null ? validationMetrics : NoopValidationMetrics.INSTANCE;
+        this.constraintRecorder = metrics.isEnabled() ? metrics.getConstraintRecorder(constraintOwningClass, constraintPropertyName, getName()) : null;
+        this.validationMetrics = metrics;
+    }
+
+    /**
+     * @return The recorder the time taken by this constraint is reported to or null if metrics are disabled
+     */
+    protected ValidationMetrics.ConstraintRecorder getConstraintRecorder() {
+        return constraintRecorder;
+    }
+
     protected void checkState() {
         Assert.hasLength(constraintPropertyName, "Property 'propertyName' must be set on the constraint");
         Assert.notNull(constraintOwningClass, "Property 'owningClass' must be set on the constraint");
@@ -85,7 +113,19 @@ public abstract class AbstractConstraint implements Constraint {
         }
 
         // Do the validation for this constraint.
-        processValidate(target, propertyValue, errors);
+        ValidationMetrics.ConstraintRecorder recorder = this.constraintRecorder;
+        if (recorder != null) {
+            long start = System.nanoTime();
+            try {
+                processValidate(target, propertyValue, errors);
+            }
+            finally {
+                recorder.record(System.nanoTime() - start);
+            }
+        }
+        else {
+            processValidate(target, propertyValue, errors);
+        }
     }
 
     protected boolean skipNullValues() {
@@ -1,6 +1,7 @@
 package org.grails.datastore.gorm.validation.constraints;
 
 import grails.gorm.validation.VetoingConstraint;
+import org.grails.datastore.gorm.validation.metrics.ValidationMetrics;
 import org.springframework.context.MessageSource;
 import org.springframework.validation.Errors;
 
@@ -22,6 +23,16 @@ public abstract class AbstractVetoingConstraint extends AbstractConstraint imple
             return false;
         }
 
+        ValidationMetrics.ConstraintRecorder recorder = getConstraintRecorder();
+        if (recorder != null) {
+            long start = System.nanoTime();
+            try {
+                return processValidateWithVetoing(target, propertyValue, errors);
+            }
+            finally {
+                recorder.record(System.nanoTime() - start);
+            }
+        }
         return processValidateWithVetoing(target, propertyValue, errors);
     }
 
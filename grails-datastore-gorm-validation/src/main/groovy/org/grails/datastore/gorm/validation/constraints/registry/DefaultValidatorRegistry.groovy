@@ -3,8 +3,12 @@ package org.grails.datastore.gorm.validation.constraints.registry
 import grails.gorm.validation.PersistentEntityValidator
 import grails.gorm.validation.exceptions.ValidationConfigurationException
 import groovy.transform.CompileStatic
+import groovy.util.logging.Slf4j
 import org.grails.datastore.gorm.validation.constraints.eval.ConstraintsEvaluator
 import org.grails.datastore.gorm.validation.constraints.eval.DefaultConstraintEvaluator
+import org.grails.datastore.gorm.validation.metrics.InMemoryValidationMetrics
+import org.grails.datastore.gorm.validation.metrics.NoopValidationMetrics
+import org.grails.datastore.gorm.validation.metrics.ValidationMetrics
 import org.grails.datastore.mapping.core.connections.ConnectionSourceSettings
 import org.grails.datastore.mapping.model.MappingContext
 import org.grails.datastore.mapping.model.PersistentEntity
@@ -19,6 +23,7 @@ import org.springframework.validation.Validator
 import org.springframework.validation.annotation.Validated
 
 import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.TimeUnit
 
 /**
  * A {@link ValidatorRegistry} that builds validators on demand.
@@ -28,6 +33,7 @@ import java.util.concurrent.ConcurrentHashMap
  * @since 6.0
  */
 @CompileStatic
+@Slf4j
 class DefaultValidatorRegistry implements ValidatorRegistry, ConstraintRegistry, ConstraintsEvaluator {
 
     final Map<PersistentEntity, Validator> validatorMap = new ConcurrentHashMap<>()
@@ -35,6 +41,12 @@ class DefaultValidatorRegistry implements ValidatorRegistry, ConstraintRegistry,
     final @Delegate ConstraintRegistry constraintRegistry
     final MessageSource messageSource
     final MappingContext mappingContext
+    final boolean validateDirtyOnly
+
+    /**
+     * The metrics sink validators created by this registry report to
+     */
+    ValidationMetrics validationMetrics = NoopValidationMetrics.INSTANCE
 
     DefaultValidatorRegistry(MappingContext mappingContext, ConnectionSourceSettings connectionSourceSettings, MessageSource messageSource = new StaticMessageSource()) {
         this.constraintRegistry = new DefaultConstraintRegistry(messageSource)
@@ -42,6 +54,24 @@ class DefaultValidatorRegistry implements ValidatorRegistry, ConstraintRegistry,
         Map<String, Object> defaultConstraintsMap = resolveDefaultConstraints(connectionSourceSettings)
         this.constraintsEvaluator = new DefaultConstraintEvaluator(constraintRegistry, mappingContext, defaultConstraintsMap)
         this.mappingContext = mappingContext
+        this.validateDirtyOnly = connectionSourceSettings.validateDirtyOnly
+        if(connectionSourceSettings.validationMetrics) {
+            this.validationMetrics = new InMemoryValidationMetrics(TimeUnit.MILLISECONDS.toNanos(connectionSourceSettings.slowConstraintThreshold))
+        }
+    }
+
+    /**
+     * Sets the metrics sink and applies it to any validators already created
+     *
+     * @param validationMetrics The metrics sink
+     */
+    void setValidationMetrics(ValidationMetrics validationMetrics) {
+        this.validationMetrics = validationMetrics != null ? validationMetrics : NoopValidationMetrics.INSTANCE
+        for(Validator validator in validatorMap.values()) {
+            if(validator instanceof PersistentEntityValidator) {
+                ((PersistentEntityValidator)validator).setValidationMetrics(this.validationMetrics)
+            }
+        }
     }
 
     protected Map<String, Object> resolveDefaultConstraints( ConnectionSourceSettings connectionSourceSettings ) {
@@ -65,9 +95,39 @@ class DefaultValidatorRegistry implements ValidatorRegistry, ConstraintRegistry,
             return validator
         }
         else {
-            validator = new PersistentEntityValidator(entity, messageSource, constraintsEvaluator)
-            validatorMap.put(entity, validator)
+            // constraints are evaluated lazily on first validation so creating the validator is cheap
+            PersistentEntityValidator entityValidator = new PersistentEntityValidator(entity, messageSource, constraintsEvaluator, validateDirtyOnly)
+            entityValidator.setValidationMetrics(validationMetrics)
+            validator = entityValidator
+            Validator existing = validatorMap.putIfAbsent(entity, validator)
+            if(existing != null) {
+                validator = existing
+            }
         }
         return validator
     }
+
+    /**
+     * Evaluates the constraints of all the entities in the mapping context in a background thread so
+     * that the cost is not paid on the first validation of each entity
+     *
+     * @return The thread performing the warm up
+     */
+    Thread warmUp() {
+        Thread thread = new Thread({
+            for(PersistentEntity entity in mappingContext.persistentEntities) {
+                try {
+                    Validator validator = getValidator(entity)
+                    if(validator instanceof PersistentEntityValidator) {
+                        ((PersistentEntityValidator)validator).getConstrainedProperties()
+                    }
+                } catch (Throwable e) {
+                    log.warn("Error evaluating constraints of entity [${entity.name}] during warm up: ${e.message}", e)
+                }
+            }
+        } as Runnable, "gorm-validator-warm-up")
+        thread.setDaemon(true)
+        thread.start()
+        return thread
+    }
 }
@@ -0,0 +1,211 @@
+package org.grails.datastore.gorm.validation.metrics
+
+import groovy.transform.CompileStatic
+import groovy.transform.EqualsAndHashCode
+import groovy.transform.ToString
+import org.grails.datastore.gorm.validation.metrics.ValidationMetrics.ConstraintRecorder
+import org.grails.datastore.mapping.metrics.LatencyHistogram
+import org.slf4j.Logger
+import org.slf4j.LoggerFactory
+
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ConcurrentMap
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
+
+/**
+ * A {@link ValidationMetrics} implementation that keeps per entity and per constraint latency histograms in memory
+ * and reports constraints whose 99th percentile exceeds a configured threshold. Typical offenders are
+ * <code>unique</code> constraints, which query the database, and custom <code>validator</code> closures.
+ *
+ * @author Graeme Rocher
+ * @since 7.0
+ */
+@CompileStatic
+class InMemoryValidationMetrics implements ValidationMetrics {
+
+    /**
+     * The default p99 threshold above which a constraint is considered slow
+     */
+    public static final long DEFAULT_SLOW_THRESHOLD_NANOS = TimeUnit.MILLISECONDS.toNanos(50)
+
+    /**
+     * The minimum number of samples before a constraint can be reported as slow
+     */
+    public static final long MINIMUM_SAMPLES = 100
+
+    /**
+     * The percentile compared against the threshold
+     */
+    public static final double SLOW_PERCENTILE = 99d
+
+    /**
+     * How often, in samples, the percentile of a constraint is checked while recording
+     */
+    public static final long CHECK_INTERVAL = 64
+
+    final long slowThresholdNanos
+
+    private final ConcurrentMap<Class, LatencyHistogram> entityStatistics = new ConcurrentHashMap<>()
+    private final ConcurrentMap<ConstraintKey, ConstraintStatistics> constraintStatistics = new ConcurrentHashMap<>()
+
+    InMemoryValidationMetrics(long slowThresholdNanos = DEFAULT_SLOW_THRESHOLD_NANOS) {
+        this.slowThresholdNanos = slowThresholdNanos
+    }
+
+    @Override
+    boolean isEnabled() {
+        return true
+    }
+
+    @Override
+    void recordValidation(Class<?> entityClass, long durationNanos) {
+        LatencyHistogram histogram = entityStatistics.get(entityClass)
+        if(histogram == null) {
+            histogram = new LatencyHistogram()
+            LatencyHistogram existing = entityStatistics.putIfAbsent(entityClass, histogram)
+            if(existing != null) {
+                histogram = existing
+            }
+        }
+        histogram.record(durationNanos)
+    }
+
+    @Override
+    void recordConstraint(Class<?> entityClass, String propertyName, String constraintName, long durationNanos) {
+        getConstraintRecorder(entityClass, propertyName, constraintName).record(durationNanos)
+    }
+
+    @Override
+    ConstraintStatistics getConstraintRecorder(Class<?> entityClass, String propertyName, String constraintName) {
+        ConstraintKey key = new ConstraintKey(entityClass, propertyName, constraintName)
+        ConstraintStatistics statistics = constraintStatistics.get(key)
+        if(statistics == null) {
+            statistics = new ConstraintStatistics(key, slowThresholdNanos)
+            ConstraintStatistics existing = constraintStatistics.putIfAbsent(key, statistics)
+            if(existing != null) {
+                statistics = existing
+            }
+        }
+        return statistics
+    }
+
+    /**
+     * @param entityClass The entity class
+     * @return The validation latencies of the given entity or null if it has not been validated
+     */
+    LatencyHistogram getValidationStatistics(Class entityClass) {
+        return entityStatistics.get(entityClass)
+    }
+
+    /**
+     * @param entityClass The entity class
+     * @param propertyName The property name
+     * @param constraintName The constraint name
+     * @return The statistics of the given constraint or null if it has not been applied
+     */
+    ConstraintStatistics getConstraintStatistics(Class entityClass, String propertyName, String constraintName) {
+        return constraintStatistics.get(new ConstraintKey(entityClass, propertyName, constraintName))
+    }
+
+    /**
+     * @return The statistics of all the constraints applied so far
+     */
+    Collection<ConstraintStatistics> getConstraintStatistics() {
+        return Collections.unmodifiableCollection(constraintStatistics.values())
+    }
+
+    /**
+     * @return The constraints with at least {@link #MINIMUM_SAMPLES} samples whose 99th percentile exceeds the threshold, slowest first
+     */
+    List<ConstraintStatistics> getSlowConstraints() {
+        List<ConstraintStatistics> slow = []
+        for(ConstraintStatistics statistics in constraintStatistics.values()) {
+            if(statistics.histogram.count >= MINIMUM_SAMPLES && statistics.p99 > slowThresholdNanos) {
+                slow.add(statistics)
+            }
+        }
+        slow.sort { ConstraintStatistics a, ConstraintStatistics b -> Long.compare(b.p99, a.p99) }
+        return slow
+    }
+
+    /**
+     * Clears all recorded metrics. Constraints that already resolved their recorder keep recording into it, but it is no longer reported
+     */
+    void reset() {
+        entityStatistics.clear()
+        constraintStatistics.clear()
+    }
+
+    @EqualsAndHashCode
+    @ToString
+    static class ConstraintKey {
+        final Class entityClass
+        final String propertyName
+        final String constraintName
+
+        ConstraintKey(Class entityClass, String propertyName, String constraintName) {
+            this.entityClass = entityClass
+            this.propertyName = propertyName
+            this.constraintName = constraintName
+        }
+    }
+
+    /**
+     * The recorded statistics of a single constraint
+     */
+    static class ConstraintStatistics implements ConstraintRecorder {
+        private static final Logger LOG = LoggerFactory.getLogger(InMemoryValidationMetrics)
+
+        final ConstraintKey key
+        final LatencyHistogram histogram = new LatencyHistogram()
+        protected final AtomicBoolean reported = new AtomicBoolean(false)
+        private final long slowThresholdNanos
+
+        ConstraintStatistics(ConstraintKey key, long slowThresholdNanos = DEFAULT_SLOW_THRESHOLD_NANOS) {
+            this.key = key
+            this.slowThresholdNanos = slowThresholdNanos
+        }
+
+        @Override
+        void record(long durationNanos) {
+            histogram.record(durationNanos)
+
+            long count = histogram.count
+            if(count >= MINIMUM_SAMPLES && count % CHECK_INTERVAL == 0 && !reported.get()) {
+                long p99 = histogram.getPercentile(SLOW_PERCENTILE)
+                if(p99 > slowThresholdNanos && reported.compareAndSet(false, true)) {
+                    LOG.warn("Constraint [${constraintName}] on property [${propertyName}] of class [${entityClass.name}] is slow: p99 of ${TimeUnit.NANOSECONDS.toMillis(p99)}ms exceeds the threshold of ${TimeUnit.NANOSECONDS.toMillis(slowThresholdNanos)}ms")
+                }
+            }
+        }
+
+        Class getEntityClass() {
+            return key.entityClass
+        }
+
+        String getPropertyName() {
+            return key.propertyName
+        }
+
+        String getConstraintName() {
+            return key.constraintName
+        }
+
+        long getCount() {
+            return histogram.count
+        }
+
+        /**
+         * @return The 99th percentile latency in nanoseconds
+         */
+        long getP99() {
+            return histogram.getPercentile(SLOW_PERCENTILE)
+        }
+
+        @Override
+        String toString() {
+            return "${entityClass.name}.${propertyName} ${constraintName} (count: ${count}, p99: ${p99}ns)"
+        }
+    }
+}
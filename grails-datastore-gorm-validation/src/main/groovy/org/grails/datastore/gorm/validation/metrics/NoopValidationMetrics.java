@@ -0,0 +1,39 @@
+package org.grails.datastore.gorm.validation.metrics;
+
+/**
+ * The default {@link ValidationMetrics} which records nothing
+ *
+ * @author Graeme Rocher
+ * @since 7.0
+ */
+public class NoopValidationMetrics implements ValidationMetrics {
+
+    public static final NoopValidationMetrics INSTANCE = new NoopValidationMetrics();
+
+    private static final ConstraintRecorder NOOP_RECORDER = new ConstraintRecorder() {
+        @Override
+        public void record(long durationNanos) {
+            // no-op
+        }
+    };
+
+    @Override
+    public boolean isEnabled() {
+        return false;
+    }
+
+    @Override
+    public void recordValidation(Class<?> entityClass, long durationNanos) {
+        // no-op
+    }
+
+    @Override
+    public void recordConstraint(Class<?> entityClass, String propertyName, String constraintName, long durationNanos) {
+        // no-op
+    }
+
+    @Override
+    public ConstraintRecorder getConstraintRecorder(Class<?> entityClass, String propertyName, String constraintName) {
+        return NOOP_RECORDER;
+    }
+}
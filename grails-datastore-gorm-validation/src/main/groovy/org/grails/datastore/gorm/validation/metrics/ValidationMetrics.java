@@ -0,0 +1,56 @@
+package org.grails.datastore.gorm.validation.metrics;
+
+/**
+ * A sink for validation metrics. Implementations receive the time taken to validate entities and to
+ * apply individual constraints
+ *
+ * @author Graeme Rocher
+ * @since 7.0
+ */
+public interface ValidationMetrics {
+
+    /**
+     * @return Whether metrics should be recorded at all. When false callers avoid taking timings
+     */
+    boolean isEnabled();
+
+    /**
+     * Records the validation of an entity
+     *
+     * @param entityClass The entity class
+     * @param durationNanos The time taken in nanoseconds
+     */
+    void recordValidation(Class<?> entityClass, long durationNanos);
+
+    /**
+     * Records the application of a single constraint
+     *
+     * @param entityClass The class that owns the constraint
+     * @param propertyName The constrained property
+     * @param constraintName The name of the constraint
+     * @param durationNanos The time taken in nanoseconds
+     */
+    void recordConstraint(Class<?> entityClass, String propertyName, String constraintName, long durationNanos);
+
+    /**
+     * Resolves the recorder of a single constraint. Constraints resolve their recorder once so that recording an application
+     * of the constraint does not need to look the constraint up again
+     *
+     * @param entityClass The class that owns the constraint
+     * @param propertyName The constrained property
+     * @param constraintName The name of the constraint
+     * @return The recorder
+     */
+    ConstraintRecorder getConstraintRecorder(Class<?> entityClass, String propertyName, String constraintName);
+
+    /**
+     * Records the applications of a single constraint
+     */
+    interface ConstraintRecorder {
+
+        /**
+         * @param durationNanos The time taken to apply the constraint in nanoseconds
+         */
+        void record(long durationNanos);
+    }
+}
@@ -0,0 +1,142 @@
+package grails.gorm.validation
+
+import org.grails.datastore.gorm.validation.constraints.registry.DefaultValidatorRegistry
+import org.grails.datastore.mapping.core.connections.ConnectionSourceSettings
+import org.grails.datastore.mapping.dirty.checking.DirtyCheckable
+import org.grails.datastore.mapping.keyvalue.mapping.config.GormKeyValueMappingFactory
+import org.grails.datastore.mapping.keyvalue.mapping.config.KeyValueMappingContext
+import org.grails.datastore.mapping.model.MappingContext
+import org.grails.datastore.mapping.model.config.GormMappingConfigurationStrategy
+import org.grails.datastore.mapping.validation.ValidationErrors
+import org.springframework.validation.Errors
+import org.springframework.validation.Validator
+import spock.lang.Shared
+import spock.lang.Specification
+
+import javax.persistence.Entity
+
+class DirtyPropertyValidationSpec extends Specification {
+
+    @Shared MappingContext mappingContext
+
+    void setupSpec() {
+        mappingContext = new KeyValueMappingContext("test")
+        mappingContext.mappingFactory = new GormKeyValueMappingFactory("test")
+        mappingContext.syntaxStrategy = new GormMappingConfigurationStrategy(mappingContext.mappingFactory)
+        mappingContext.addPersistentEntities(DirtyAccount, DirtyAccountOptOut)
+    }
+
+    void "test all properties are validated when the instance has not been persisted"() {
+        given:
+        Validator validator = createValidator(DirtyAccount, true)
+        DirtyAccount account = new DirtyAccount(email: 'bad', password: 'a', passwordConfirm: 'b')
+
+        when:
+        Errors errors = new ValidationErrors(account)
+        validator.validate(account, errors)
+
+        then:
+        errors.getFieldError('name')
+        errors.getFieldError('email')
+        errors.getFieldError('password')
+    }
+
+    void "test only dirty properties are validated for a persisted instance"() {
+        given:
+        Validator validator = createValidator(DirtyAccount, true)
+        DirtyAccount account = new DirtyAccount(id: 1L, email: 'bad', password: 'a', passwordConfirm: 'b')
+        account.trackChanges()
+
+        when:"nothing has changed"
+        Errors errors = new ValidationErrors(account)
+        validator.validate(account, errors)
+
+        then:
+        !errors.hasErrors()
+
+        when:"a single property changes"
+        account.markDirty('email', 'other', 'bad')
+        errors = new ValidationErrors(account)
+        validator.validate(account, errors)
+
+        then:
+        errors.errorCount == 1
+        errors.getFieldError('email')
+    }
+
+    void "test a validator that declares dependencies is validated when a dependency changes"() {
+        given:
+        Validator validator = createValidator(DirtyAccount, true)
+        DirtyAccount account = new DirtyAccount(id: 1L, name: 'Fred', email: 'fred@test.com', password: 'a', passwordConfirm: 'a')
+        account.trackChanges()
+
+        when:
+        account.passwordConfirm = 'b'
+        account.markDirty('passwordConfirm', 'b', 'a')
+        Errors errors = new ValidationErrors(account)
+        validator.validate(account, errors)
+
+        then:
+        errors.errorCount == 1
+        errors.getFieldError('password')
+    }
+
+    void "test the entity mapping overrides the global setting"() {
+        given:
+        Validator validator = createValidator(DirtyAccountOptOut, true)
+        DirtyAccountOptOut account = new DirtyAccountOptOut(id: 1L)
+        account.trackChanges()
+
+        when:
+        Errors errors = new ValidationErrors(account)
+        validator.validate(account, errors)
+
+        then:
+        ((PersistentEntityValidator)validator).validateDirtyOnly == false
+        errors.getFieldError('name')
+    }
+
+    void "test dirty only validation is disabled by default"() {
+        given:
+        Validator validator = createValidator(DirtyAccount, false)
+        DirtyAccount account = new DirtyAccount(id: 1L, email: 'bad', password: 'a', passwordConfirm: 'a')
+        account.trackChanges()
+
+        when:
+        Errors errors = new ValidationErrors(account)
+        validator.validate(account, errors)
+
+        then:
+        errors.getFieldError('name')
+        errors.getFieldError('email')
+    }
+
+    private Validator createValidator(Class type, boolean validateDirtyOnly) {
+        ConnectionSourceSettings settings = new ConnectionSourceSettings().validateDirtyOnly(validateDirtyOnly)
+        new DefaultValidatorRegistry(mappingContext, settings).getValidator(mappingContext.getPersistentEntity(type.name))
+    }
+}
+
+@Entity
+class DirtyAccount implements DirtyCheckable {
+    Long id
+    String name
+    String email
+    String password
+    String passwordConfirm
+
+    static constraints = {
+        email email: true
+        password validator: { val, obj -> val == obj.passwordConfirm }, dependsOn: ['passwordConfirm']
+    }
+}
+
+@Entity
+class DirtyAccountOptOut implements DirtyCheckable {
+    Long id
+    String name
+
+    static mapping = {
+        validateDirtyOnly false
+    }
+}
@@ -1,8 +1,10 @@
 package grails.gorm.validation
 
 import org.grails.datastore.gorm.validation.constraints.registry.DefaultValidatorRegistry
+import org.grails.datastore.gorm.validation.metrics.InMemoryValidationMetrics
 import org.grails.datastore.mapping.core.connections.ConnectionSourceSettings
 import org.grails.datastore.mapping.keyvalue.mapping.config.KeyValueMappingContext
+import org.grails.datastore.mapping.metrics.LatencyHistogram
 import org.grails.datastore.mapping.model.MappingContext
 import org.grails.datastore.mapping.validation.ValidationErrors
 import org.grails.datastore.mapping.validation.ValidatorRegistry
@@ -35,6 +37,133 @@ class ValidatorRegistrySpec extends Specification {
 
     }
 
+    void "test constraints are evaluated on first validation"() {
+        given:"A validator registry"
+        MappingContext mappingContext = new KeyValueMappingContext("test")
+        def entity = mappingContext.addPersistentEntity(Person)
+        ValidatorRegistry registry = new DefaultValidatorRegistry(mappingContext, new ConnectionSourceSettings())
+
+        when:"A validator is created"
+        PersistentEntityValidator validator = (PersistentEntityValidator)registry.getValidator(entity)
+
+        then:"The constraints have not been evaluated and the same instance is returned on subsequent calls"
+        !validator.initialized
+        registry.getValidator(entity).is(validator)
+
+        when:"The entity is validated"
+        def person = new Person(age: -1)
+        validator.validate(person, new ValidationErrors(person, Person.simpleName))
+
+        then:"The constraints are evaluated"
+        validator.initialized
+        validator.constrainedProperties.containsKey('town')
+    }
+
+    void "test warm up evaluates constraints in the background"() {
+        given:"A validator registry"
+        MappingContext mappingContext = new KeyValueMappingContext("test")
+        def entity = mappingContext.addPersistentEntity(Person)
+        DefaultValidatorRegistry registry = new DefaultValidatorRegistry(mappingContext, new ConnectionSourceSettings())
+
+        when:"The validators are warmed up"
+        registry.warmUp().join(10000)
+
+        then:"The constraints have been evaluated"
+        ((PersistentEntityValidator)registry.getValidator(entity)).initialized
+    }
+
+    void "test entities with only nullable constraints are detected as trivial"() {
+        given:"A validator registry"
+        MappingContext mappingContext = new KeyValueMappingContext("test")
+        def product = mappingContext.addPersistentEntity(Product)
+        def person = mappingContext.addPersistentEntity(Person)
+        ValidatorRegistry registry = new DefaultValidatorRegistry(mappingContext, new ConnectionSourceSettings())
+
+        when:"The validators are obtained"
+        PersistentEntityValidator productValidator = (PersistentEntityValidator)registry.getValidator(product)
+        PersistentEntityValidator personValidator = (PersistentEntityValidator)registry.getValidator(person)
+
+        then:"Only the entity with nullable constraints is trivial"
+        productValidator.hasTrivialConstraints()
+        !personValidator.hasTrivialConstraints()
+
+        and:"The null check detects missing values"
+        productValidator.hasNullViolations(new Product(name: "Apple"))
+        !productValidator.hasNullViolations(new Product(name: "Apple", price: "1.00"))
+    }
+
+    void "test validation metrics record entity and constraint latencies"() {
+        given:"A validator registry with metrics enabled and a zero threshold"
+        MappingContext mappingContext = new KeyValueMappingContext("test")
+        def entity = mappingContext.addPersistentEntity(Person)
+        DefaultValidatorRegistry registry = new DefaultValidatorRegistry(mappingContext, new ConnectionSourceSettings().validationMetrics(true))
+        InMemoryValidationMetrics metrics = new InMemoryValidationMetrics(0)
+        registry.validationMetrics = metrics
+
+        when:"An entity is validated repeatedly"
+        Validator validator = registry.getValidator(entity)
+        int iterations = (int)InMemoryValidationMetrics.MINIMUM_SAMPLES
+        iterations.times {
+            def person = new Person(age: -1, town: "London")
+            validator.validate(person, new ValidationErrors(person, Person.simpleName))
+        }
+
+        then:"The validations and constraints are recorded"
+        metrics.getValidationStatistics(Person).count == iterations
+        metrics.getConstraintStatistics(Person, 'age', 'validator').count == iterations
+        metrics.getConstraintStatistics(Person, 'town', 'nullable').count == iterations
+
+        and:"Constraints above the threshold are reported as slow"
+        metrics.slowConstraints.find { it.constraintName == 'validator' }
+    }
+
+    void "test latency histogram percentiles"() {
+        given:
+        LatencyHistogram histogram = new LatencyHistogram()
+
+        when:
+        (1..99).each { histogram.record(10) }
+        histogram.record(1000)
+
+        then:
+        histogram.count == 100
+        histogram.max == 1000
+        histogram.getPercentile(50) == 10
+        histogram.getPercentile(99) == 10
+        histogram.getPercentile(100) == 1000
+    }
+
+    void "test latency histogram precision for large values"() {
+        given:
+        LatencyHistogram histogram = new LatencyHistogram()
+
+        when:
+        (1..99).each { histogram.record(1_000_000) }
+        histogram.record(1_000_000_000)
+
+        then:"Percentiles are reported within the precision of the histogram"
+        histogram.getPercentile(50) >= 1_000_000
+        histogram.getPercentile(50) - 1_000_000 <= 1_000_000 * histogram.precision
+        histogram.getPercentile(100) == 1_000_000_000
+    }
+
+    void "test the null check fast path records validation metrics"() {
+        given:"A validator with metrics enabled for an entity with trivial constraints"
+        MappingContext mappingContext = new KeyValueMappingContext("test")
+        def product = mappingContext.addPersistentEntity(Product)
+        DefaultValidatorRegistry registry = new DefaultValidatorRegistry(mappingContext, new ConnectionSourceSettings())
+        InMemoryValidationMetrics metrics = new InMemoryValidationMetrics()
+        registry.validationMetrics = metrics
+        PersistentEntityValidator validator = (PersistentEntityValidator)registry.getValidator(product)
+
+        when:"Valid and invalid instances are checked"
+        validator.hasNullViolations(new Product(name: "Apple", price: "1.00"))
+        validator.hasNullViolations(new Product(name: "Apple"))
+
+        then:"Only the check that completes the validation is recorded"
+        metrics.getValidationStatistics(Product).count == 1
+    }
+
 }
 
 @Entity
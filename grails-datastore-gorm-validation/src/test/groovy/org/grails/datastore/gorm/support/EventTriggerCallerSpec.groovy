@@ -0,0 +1,67 @@
+package org.grails.datastore.gorm.support
+
+import spock.lang.Specification
+
+class EventTriggerCallerSpec extends Specification {
+
+    void "test method callers honour the return value of the event method"() {
+        given:
+        def vetoing = EventTriggerCaller.buildCaller("beforeInsert", VetoingEntity)
+        def passing = EventTriggerCaller.buildCaller("beforeUpdate", VetoingEntity)
+        def withArgument = EventTriggerCaller.buildCaller("beforeDelete", VetoingEntity)
+        def entity = new VetoingEntity()
+
+        expect:
+        vetoing.call(entity)
+        !passing.call(entity)
+        !withArgument.call(entity, ["one", "two"] as Object[])
+        entity.lastArgument == "one"
+        entity.updates == 1
+    }
+
+    void "test a method caller can be built from a resolved method"() {
+        given:
+        def caller = EventTriggerCaller.buildMethodCaller(VetoingEntity.getDeclaredMethod("beforeUpdate"))
+        def entity = new VetoingEntity()
+
+        when:
+        caller.call(entity)
+        caller.call(entity, null)
+
+        then:
+        entity.updates == 2
+    }
+
+    void "test exceptions thrown by event methods are propagated"() {
+        given:
+        def caller = EventTriggerCaller.buildCaller("afterInsert", VetoingEntity)
+
+        when:
+        caller.call(new VetoingEntity())
+
+        then:
+        thrown(IllegalStateException)
+    }
+}
+
+class VetoingEntity {
+    int updates
+    Object lastArgument
+
+    boolean beforeInsert() {
+        false
+    }
+
+    void beforeUpdate() {
+        updates++
+    }
+
+    private Object beforeDelete(Object argument) {
+        lastArgument = argument
+        true
+    }
+
+    void afterInsert() {
+        throw new IllegalStateException("bad")
+    }
+}
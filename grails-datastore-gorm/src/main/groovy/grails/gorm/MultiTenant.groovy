@@ -1,6 +1,7 @@
 package grails.gorm
 
 import grails.gorm.api.GormAllOperations
+import grails.gorm.multitenancy.TenantExecution
 import groovy.transform.CompileStatic
 import org.grails.datastore.gorm.GormEnhancer
 import org.grails.datastore.mapping.core.connections.ConnectionSource
@@ -35,6 +36,17 @@ trait MultiTenant<D> extends Entity {
         GormEnhancer.findStaticApi(this, ConnectionSource.DEFAULT).eachTenant callable
     }
 
+    /**
+     * Execute the closure for each tenant in parallel, running at most the given number of tenants concurrently
+     *
+     * @param maxConcurrency The maximum number of tenants to process concurrently
+     * @param callable The closure
+     * @return The outcome and timing of each tenant
+     */
+    static List<TenantExecution> eachTenantParallel(int maxConcurrency, Closure callable) {
+        GormEnhancer.findStaticApi(this, ConnectionSource.DEFAULT).eachTenantParallel maxConcurrency, callable
+    }
+
     /**
      * Return the {@link GormAllOperations} for the given tenant id
      *
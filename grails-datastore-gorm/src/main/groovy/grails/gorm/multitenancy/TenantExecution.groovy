@@ -0,0 +1,62 @@
+package grails.gorm.multitenancy
+
+import groovy.transform.CompileStatic
+
+import java.util.concurrent.TimeUnit
+
+/**
+ * The outcome of executing work for a single tenant with {@link Tenants#eachTenantParallel(int, groovy.lang.Closure)}
+ *
+ * @author Graeme Rocher
+ * @since 7.0
+ */
+@CompileStatic
+class TenantExecution {
+
+    /**
+     * The tenant id
+     */
+    final Serializable tenantId
+
+    /**
+     * The result of the closure, if it completed successfully
+     */
+    final Object result
+
+    /**
+     * The error thrown by the closure, if any
+     */
+    final Throwable error
+
+    /**
+     * The time taken in nanoseconds
+     */
+    final long durationNanos
+
+    TenantExecution(Serializable tenantId, Object result, Throwable error, long durationNanos) {
+        this.tenantId = tenantId
+        this.result = result
+        this.error = error
+        this.durationNanos = durationNanos
+    }
+
+    /**
+     * @return Whether the work for the tenant completed without error
+     */
+    boolean isSuccess() {
+        return error == null
+    }
+
+    /**
+     * @param unit The time unit
+     * @return The time taken in the given unit
+     */
+    long getDuration(TimeUnit unit) {
+        return unit.convert(durationNanos, TimeUnit.NANOSECONDS)
+    }
+
+    @Override
+    String toString() {
+        return "TenantExecution(tenantId: $tenantId, success: ${isSuccess()}, duration: ${getDuration(TimeUnit.MILLISECONDS)}ms)"
+    }
+}
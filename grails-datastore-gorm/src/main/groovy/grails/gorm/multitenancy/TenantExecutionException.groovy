@@ -0,0 +1,46 @@
+package grails.gorm.multitenancy
+
+import groovy.transform.CompileStatic
+import org.grails.datastore.mapping.multitenancy.exceptions.TenantException
+
+/**
+ * Thrown by {@link Tenants#eachTenantParallel(int, groovy.lang.Closure)} when the work for one or more tenants fails. The errors of
+ * the failed tenants are added as suppressed exceptions and the outcome of every tenant is available from {@link #getExecutions()}
+ *
+ * @author Graeme Rocher
+ * @since 7.0
+ */
+@CompileStatic
+class TenantExecutionException extends TenantException {
+
+    /**
+     * The outcome of each tenant, in the order the tenants were resolved
+     */
+    final List<TenantExecution> executions
+
+    TenantExecutionException(String message, List<TenantExecution> executions) {
+        super(message, firstError(executions))
+        this.executions = Collections.unmodifiableList(executions)
+        for(TenantExecution execution in executions) {
+            if(!execution.success && !execution.error.is(getCause())) {
+                addSuppressed(execution.error)
+            }
+        }
+    }
+
+    /**
+     * @return The executions that failed
+     */
+    List<TenantExecution> getFailures() {
+        return executions.findAll { TenantExecution execution -> !execution.success }
+    }
+
+    private static Throwable firstError(List<TenantExecution> executions) {
+        for(TenantExecution execution in executions) {
+            if(!execution.success) {
+                return execution.error
+            }
+        }
+        return null
+    }
+}
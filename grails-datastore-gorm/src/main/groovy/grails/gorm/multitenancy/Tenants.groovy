@@ -7,9 +7,19 @@ import org.grails.datastore.mapping.core.Datastore
 import org.grails.datastore.mapping.core.connections.ConnectionSource
 import org.grails.datastore.mapping.core.connections.ConnectionSources
 import org.grails.datastore.mapping.multitenancy.AllTenantsResolver
+import org.grails.datastore.mapping.multitenancy.MemoizingTenantResolver
 import org.grails.datastore.mapping.multitenancy.MultiTenancySettings
 import org.grails.datastore.mapping.multitenancy.MultiTenantCapableDatastore
 import org.grails.datastore.mapping.multitenancy.TenantResolver
+import org.grails.datastore.mapping.multitenancy.exceptions.TenantException
+
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.Future
+import java.util.concurrent.ThreadFactory
+import java.util.concurrent.atomic.AtomicInteger
 
 /**
  * Helper methods for working with multi tenancy
@@ -72,10 +82,17 @@ class Tenants {
             TenantResolver tenantResolver = multiTenantCapableDatastore.getTenantResolver()
             Serializable tenantIdentifier = tenantResolver.resolveTenantIdentifier()
             log.debug "Resolved tenant id [$tenantIdentifier] from resolver [${tenantResolver.getClass().simpleName}]"
-            return multiTenantCapableDatastore.getTenantResolver().resolveTenantIdentifier()
+            return tenantIdentifier
         }
     }
 
+    /**
+     * @return The tenant id bound to the current thread with {@link #withId(Serializable, Closure)} or {@link #withoutId(Closure)} or null if there is none
+     */
+    static Serializable boundId() {
+        CurrentTenant.get()
+    }
+
     /**
      * @return The current tenant id for the given datastore type
      *
@@ -195,6 +212,16 @@ class Tenants {
      * @return The result of the closure
      */
     static <T> T withoutId(MultiTenantCapableDatastore multiTenantCapableDatastore, Closure<T> callable) {
+        clearResolvedTenantIdentifier(multiTenantCapableDatastore.tenantResolver)
+        try {
+            return withoutIdInternal(multiTenantCapableDatastore, callable)
+        }
+        finally {
+            clearResolvedTenantIdentifier(multiTenantCapableDatastore.tenantResolver)
+        }
+    }
+
+    private static <T> T withoutIdInternal(MultiTenantCapableDatastore multiTenantCapableDatastore, Closure<T> callable) {
         return CurrentTenant.withoutTenant {
             if (multiTenantCapableDatastore.getMultiTenancyMode().isSharedConnection()) {
                 def i = callable.parameterTypes.length
@@ -233,6 +260,17 @@ class Tenants {
     * @return The result of the closure
     */
     static <T> T withId(MultiTenantCapableDatastore multiTenantCapableDatastore, Serializable tenantId, Closure<T> callable) {
+        // the tenant is explicitly switched so any tenant id memoized for the current request is discarded
+        clearResolvedTenantIdentifier(multiTenantCapableDatastore.tenantResolver)
+        try {
+            return withIdInternal(multiTenantCapableDatastore, tenantId, callable)
+        }
+        finally {
+            clearResolvedTenantIdentifier(multiTenantCapableDatastore.tenantResolver)
+        }
+    }
+
+    private static <T> T withIdInternal(MultiTenantCapableDatastore multiTenantCapableDatastore, Serializable tenantId, Closure<T> callable) {
         return CurrentTenant.withTenant(tenantId) {
             if(multiTenantCapableDatastore.getMultiTenancyMode().isSharedConnection()) {
                 def i = callable.parameterTypes.length
@@ -281,19 +319,143 @@ class Tenants {
      * @return The result of the closure
      */
     static void eachTenant(MultiTenantCapableDatastore multiTenantCapableDatastore, Closure callable) {
+        for (Serializable tenantId in resolveTenantIds(multiTenantCapableDatastore)) {
+            withId(multiTenantCapableDatastore, tenantId, callable)
+        }
+    }
+
+    /**
+     * Execute the given closure for each tenant in parallel, running at most the given number of tenants concurrently.
+     *
+     * @param maxConcurrency The maximum number of tenants to process concurrently
+     * @param callable The closure
+     * @return The outcome and timing of each tenant
+     * @throws TenantExecutionException If the closure failed for any of the tenants
+     */
+    static List<TenantExecution> eachTenantParallel(int maxConcurrency, Closure callable) {
+        Datastore datastore = GormEnhancer.findSingleDatastore()
+        if (datastore instanceof MultiTenantCapableDatastore) {
+            return eachTenantParallel((MultiTenantCapableDatastore) datastore, maxConcurrency, callable)
+        } else {
+            throw new UnsupportedOperationException("Datastore implementation does not support multi-tenancy")
+        }
+    }
+
+    /**
+     * Execute the given closure for each tenant of the given datastore type in parallel, running at most the given number of tenants concurrently.
+     *
+     * @param datastoreClass The datastore class
+     * @param maxConcurrency The maximum number of tenants to process concurrently
+     * @param callable The closure
+     * @return The outcome and timing of each tenant
+     * @throws TenantExecutionException If the closure failed for any of the tenants
+     */
+    static List<TenantExecution> eachTenantParallel(Class<? extends Datastore> datastoreClass, int maxConcurrency, Closure callable) {
+        Datastore datastore = GormEnhancer.findDatastoreByType(datastoreClass)
+        if (datastore instanceof MultiTenantCapableDatastore) {
+            return eachTenantParallel((MultiTenantCapableDatastore) datastore, maxConcurrency, callable)
+        } else {
+            throw new UnsupportedOperationException("Datastore implementation does not support multi-tenancy")
+        }
+    }
+
+    /**
+     * Execute the given closure for each tenant of the given datastore in parallel, running at most the given number of tenants concurrently.
+     * The work for each tenant is executed on a worker thread in its own session with the tenant bound as the current tenant. All tenants are
+     * processed even if some fail, in which case a {@link TenantExecutionException} aggregating the failures is thrown once all have completed.
+     *
+     * @param multiTenantCapableDatastore The datastore
+     * @param maxConcurrency The maximum number of tenants to process concurrently
+     * @param callable The closure
+     * @return The outcome and timing of each tenant, in the order the tenants were resolved
+     * @throws TenantExecutionException If the closure failed for any of the tenants
+     */
+    static List<TenantExecution> eachTenantParallel(MultiTenantCapableDatastore multiTenantCapableDatastore, int maxConcurrency, Closure callable) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("Argument [maxConcurrency] must be greater than zero")
+        }
+        List<Serializable> tenantIds = resolveTenantIds(multiTenantCapableDatastore)
+        if (tenantIds.isEmpty()) {
+            return Collections.<TenantExecution>emptyList()
+        }
+
+        int threads = Math.min(maxConcurrency, tenantIds.size())
+        ExecutorService executorService = Executors.newFixedThreadPool(threads, new TenantWorkerThreadFactory())
+        try {
+            List<Future<TenantExecution>> futures = new ArrayList<>(tenantIds.size())
+            for (Serializable tenantId in tenantIds) {
+                futures.add(executorService.submit(new Callable<TenantExecution>() {
+                    @Override
+                    TenantExecution call() throws Exception {
+                        return executeForTenant(multiTenantCapableDatastore, tenantId, callable)
+                    }
+                }))
+            }
+
+            List<TenantExecution> executions = new ArrayList<>(futures.size())
+            boolean failed = false
+            for (Future<TenantExecution> future in futures) {
+                TenantExecution execution
+                try {
+                    execution = future.get()
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt()
+                    throw new TenantException("Interrupted waiting for tenant executions to complete", e)
+                } catch (ExecutionException e) {
+                    throw new TenantException("Error executing tenant work: ${e.cause?.message}", e.cause)
+                }
+                failed = failed || !execution.success
+                executions.add(execution)
+            }
+            if (failed) {
+                int failures = executions.count { TenantExecution execution -> !execution.success } as int
+                throw new TenantExecutionException("Execution failed for ${failures} of ${executions.size()} tenants", executions)
+            }
+            return executions
+        } finally {
+            executorService.shutdownNow()
+        }
+    }
+
+    protected static TenantExecution executeForTenant(MultiTenantCapableDatastore multiTenantCapableDatastore, Serializable tenantId, Closure callable) {
+        long start = System.nanoTime()
+        try {
+            Object result
+            if (multiTenantCapableDatastore.getMultiTenancyMode().isSharedConnection()) {
+                // withId only creates a session for non shared connections so bind one for the worker thread
+                result = multiTenantCapableDatastore.withNewSession(tenantId) { session ->
+                    withId(multiTenantCapableDatastore, tenantId, callable)
+                }
+            }
+            else {
+                result = withId(multiTenantCapableDatastore, tenantId, callable)
+            }
+            return new TenantExecution(tenantId, result, null, System.nanoTime() - start)
+        } catch (Throwable e) {
+            log.error("Error executing work for tenant [$tenantId]: ${e.message}", e)
+            return new TenantExecution(tenantId, null, e, System.nanoTime() - start)
+        }
+    }
+
+    /**
+     * Resolves the ids of all the tenants of the given datastore
+     *
+     * @param multiTenantCapableDatastore The datastore
+     * @return The tenant ids
+     */
+    protected static List<Serializable> resolveTenantIds(MultiTenantCapableDatastore multiTenantCapableDatastore) {
+        List<Serializable> tenantIds = []
         MultiTenancySettings.MultiTenancyMode multiTenancyMode = multiTenantCapableDatastore.multiTenancyMode
         if (multiTenancyMode == MultiTenancySettings.MultiTenancyMode.DATABASE) {
             if (multiTenantCapableDatastore.tenantResolver instanceof AllTenantsResolver) {
-                def tenantIds = ((AllTenantsResolver) multiTenantCapableDatastore.tenantResolver).resolveTenantIds()
-                for (tenantId in tenantIds) {
-                    withId(multiTenantCapableDatastore, tenantId, callable)
+                for (tenantId in ((AllTenantsResolver) multiTenantCapableDatastore.tenantResolver).resolveTenantIds()) {
+                    tenantIds.add(tenantId)
                 }
             } else {
                 ConnectionSources connectionSources = multiTenantCapableDatastore.connectionSources
-                for (ConnectionSource connectionSource in connectionSources.allConnectionSources) {
-                    def tenantId = connectionSource.name
+                for (String tenantId in connectionSources.connectionSourceNames) {
                     if (tenantId != ConnectionSource.DEFAULT) {
-                        withId(multiTenantCapableDatastore, tenantId, callable)
+                        tenantIds.add(tenantId)
                     }
                 }
             }
@@ -301,7 +463,7 @@ class Tenants {
             TenantResolver tenantResolver = multiTenantCapableDatastore.tenantResolver
             if (tenantResolver instanceof AllTenantsResolver) {
                 for (tenantId in ((AllTenantsResolver) tenantResolver).resolveTenantIds()) {
-                    withId(multiTenantCapableDatastore, tenantId, callable)
+                    tenantIds.add(tenantId)
                 }
             } else {
                 throw new UnsupportedOperationException("Multi tenancy mode $multiTenancyMode is configured, but the configured TenantResolver does not implement the [org.grails.datastore.mapping.multitenancy.AllTenantsResolver] interface")
@@ -309,6 +471,18 @@ class Tenants {
         } else {
             throw new UnsupportedOperationException("Method not supported in multi tenancy mode $multiTenancyMode")
         }
+        return tenantIds
+    }
+
+    /**
+     * Clears the tenant id memoized by the given resolver, if it memoizes
+     *
+     * @param tenantResolver The tenant resolver
+     */
+    static void clearResolvedTenantIdentifier(TenantResolver tenantResolver) {
+        if(tenantResolver instanceof MemoizingTenantResolver) {
+            ((MemoizingTenantResolver)tenantResolver).clearResolvedTenantIdentifier()
+        }
     }
 
     private static void eachTenantInternal(Datastore datastore, Closure callable) {
@@ -320,6 +494,20 @@ class Tenants {
         }
     }
 
+    @CompileStatic
+    private static class TenantWorkerThreadFactory implements ThreadFactory {
+        private static final AtomicInteger POOL_NUMBER = new AtomicInteger(1)
+        private final AtomicInteger threadNumber = new AtomicInteger(1)
+        private final String prefix = "gorm-tenant-${POOL_NUMBER.getAndIncrement()}-worker-".toString()
+
+        @Override
+        Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, prefix + threadNumber.getAndIncrement())
+            thread.setDaemon(true)
+            return thread
+        }
+    }
+
     @CompileStatic
     protected static class CurrentTenant  {
 
@@ -28,6 +28,8 @@ import org.grails.datastore.gorm.internal.StaticMethodInvokingClosure
 import org.grails.datastore.gorm.query.GormQueryOperations
 import org.grails.datastore.gorm.query.NamedCriteriaProxy
 import org.grails.datastore.gorm.query.NamedQueriesBuilder
+import org.grails.datastore.gorm.validation.constraints.registry.DefaultValidatorRegistry
+import org.grails.datastore.mapping.core.AbstractDatastore
 import org.grails.datastore.mapping.core.Datastore
 import org.grails.datastore.mapping.core.connections.ConnectionSource
 import org.grails.datastore.mapping.core.connections.ConnectionSourceSettings
@@ -45,12 +47,14 @@ import org.grails.datastore.mapping.reflect.ClassUtils
 import org.grails.datastore.mapping.reflect.MetaClassUtils
 import org.grails.datastore.mapping.reflect.NameUtils
 import org.grails.datastore.mapping.transactions.TransactionCapableDatastore
+import org.grails.datastore.mapping.validation.ValidatorRegistry
 import org.springframework.transaction.PlatformTransactionManager
 import org.springframework.transaction.TransactionSystemException
 
 import java.lang.reflect.Method
 import java.lang.reflect.Modifier
 import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.CopyOnWriteArrayList
 
 /**
  * Enhances a class with GORM behavior
@@ -78,6 +82,9 @@ class GormEnhancer implements Closeable {
 
     private static final Map<Class, Datastore> DATASTORES_BY_TYPE = new ConcurrentHashMap<Class, Datastore>()
 
+    private static final Map<Datastore, List<Closeable>> CLOSEABLES = new ConcurrentHashMap<Datastore, List<Closeable>>()
+    private static final Set<Datastore> CLOSED = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<Datastore, Boolean>()))
+
     final Datastore datastore
     PlatformTransactionManager transactionManager
     List<FinderMethod> finders
@@ -93,6 +100,11 @@ class GormEnhancer implements Closeable {
      */
     final boolean dynamicEnhance
 
+    /**
+     * Whether {@link #warmUp()} evaluates the constraints of the entities
+     */
+    final boolean validatorWarmUp
+
 
     GormEnhancer(Datastore datastore) {
         this(datastore, null)
@@ -125,6 +137,24 @@ class GormEnhancer implements Closeable {
         for(entity in datastore.mappingContext.persistentEntities) {
             registerEntity(entity)
         }
+        this.validatorWarmUp = settings.validatorWarmUp
+    }
+
+    /**
+     * Evaluates the constraints of all the entities in the background if the <code>validatorWarmUp</code> setting is enabled.
+     * Datastores call it once they are fully initialized
+     *
+     * @return The thread performing the warm up or null if there is none
+     */
+    Thread warmUp() {
+        if(!validatorWarmUp) {
+            return null
+        }
+        ValidatorRegistry validatorRegistry = datastore.mappingContext.validatorRegistry
+        if(validatorRegistry instanceof DefaultValidatorRegistry) {
+            return ((DefaultValidatorRegistry)validatorRegistry).warmUp()
+        }
+        return null
     }
 
     /**
@@ -177,10 +207,13 @@ class GormEnhancer implements Closeable {
             qualifiers.clear()
             qualifiers.add(ConnectionSource.DEFAULT)
 
-            Iterable<ConnectionSource> allConnectionSources = ((ConnectionSourcesProvider) datastore).getConnectionSources().allConnectionSources
-            Collection<String> allConnectionSourceNames = allConnectionSources.findAll() { ConnectionSource connectionSource -> connectionSource.name != ConnectionSource.DEFAULT }
-                                                                              .collect() { ((ConnectionSource)it).name }
-            qualifiers.addAll allConnectionSourceNames
+            // use the names so that lazily created connection sources are not created here
+            Iterable<String> allConnectionSourceNames = ((ConnectionSourcesProvider) datastore).getConnectionSources().connectionSourceNames
+            for(String connectionSourceName in allConnectionSourceNames) {
+                if(connectionSourceName != ConnectionSource.DEFAULT) {
+                    qualifiers.add(connectionSourceName)
+                }
+            }
         }
         return qualifiers
     }
@@ -351,6 +384,44 @@ class GormEnhancer implements Closeable {
         return datastore
     }
 
+    /**
+     * Registers a resource that is closed when the given datastore is closed. Datastores extending {@link AbstractDatastore}
+     * close it when they are destroyed, others when their enhancer is closed
+     *
+     * @param datastore The datastore
+     * @param closeable The resource
+     * @throws IllegalStateException If the datastore has already been closed
+     */
+    static void registerCloseable(Datastore datastore, Closeable closeable) {
+        if(datastore instanceof AbstractDatastore) {
+            ((AbstractDatastore) datastore).addCloseable(closeable)
+            return
+        }
+        if(isClosed(datastore)) {
+            throw new IllegalStateException("Datastore [$datastore] has been closed")
+        }
+        List<Closeable> closeables = CLOSEABLES.get(datastore)
+        if(closeables == null) {
+            List<Closeable> newCloseables = new CopyOnWriteArrayList<Closeable>()
+            closeables = CLOSEABLES.putIfAbsent(datastore, newCloseables)
+            if(closeables == null) {
+                closeables = newCloseables
+            }
+        }
+        closeables.add(closeable)
+    }
+
+    /**
+     * @param datastore The datastore
+     * @return Whether the datastore has been destroyed or its enhancer closed
+     */
+    static boolean isClosed(Datastore datastore) {
+        if(datastore instanceof AbstractDatastore) {
+            return ((AbstractDatastore) datastore).isDestroyed()
+        }
+        return CLOSED.contains(datastore)
+    }
+
     /**
      * Finds a datastore by type
      *
@@ -434,6 +505,19 @@ class GormEnhancer implements Closeable {
     void close() throws IOException {
         removeConstraints()
         DATASTORES_BY_TYPE.clear()
+        if(!(datastore instanceof AbstractDatastore)) {
+            CLOSED.add(datastore)
+        }
+        List<Closeable> closeables = CLOSEABLES.remove(datastore)
+        if(closeables != null) {
+            for(Closeable closeable in closeables) {
+                try {
+                    closeable.close()
+                } catch (Throwable e) {
+                    log.error("Error closing resource [$closeable] of datastore [$datastore]: ${e.message}", e)
+                }
+            }
+        }
         def registry = GroovySystem.metaClassRegistry
         for(entity in datastore.mappingContext.persistentEntities) {
 
@@ -19,6 +19,7 @@ import grails.gorm.DetachedCriteria
 import grails.gorm.MultiTenant
 import grails.gorm.PagedResultList
 import grails.gorm.api.GormAllOperations
+import grails.gorm.multitenancy.TenantExecution
 import grails.gorm.multitenancy.Tenants
 import grails.gorm.transactions.GrailsTransactionTemplate
 import groovy.transform.CompileDynamic
@@ -42,6 +43,7 @@ import org.grails.datastore.mapping.model.PersistentEntity
 import org.grails.datastore.mapping.model.PersistentProperty
 import org.grails.datastore.mapping.model.types.Association
 import org.grails.datastore.mapping.multitenancy.MultiTenancySettings.MultiTenancyMode
+import org.grails.datastore.mapping.multitenancy.MultiTenantCapableDatastore
 import org.grails.datastore.mapping.query.Query
 import org.grails.datastore.mapping.query.api.BuildableCriteria
 import org.grails.datastore.mapping.query.api.Criteria
@@ -901,6 +903,23 @@ class GormStaticApi<D> extends AbstractGormApi<D> implements GormAllOperations<D
         }
     }
 
+    /**
+     * Execute the closure for each tenant in parallel, running at most the given number of tenants concurrently
+     *
+     * @param maxConcurrency The maximum number of tenants to process concurrently
+     * @param callable The closure
+     * @return The outcome and timing of each tenant
+     * @see Tenants#eachTenantParallel(MultiTenantCapableDatastore, int, Closure)
+     */
+    List<TenantExecution> eachTenantParallel(int maxConcurrency, Closure callable) {
+        if(multiTenancyMode != MultiTenancyMode.NONE && datastore instanceof MultiTenantCapableDatastore) {
+            return Tenants.eachTenantParallel((MultiTenantCapableDatastore)datastore, maxConcurrency, callable)
+        }
+        else {
+            throw new UnsupportedOperationException("Method not supported in multi tenancy mode $multiTenancyMode")
+        }
+    }
+
     @Override
     GormAllOperations<D> withTenant(Serializable tenantId) {
         if(multiTenancyMode == MultiTenancyMode.DATABASE) {
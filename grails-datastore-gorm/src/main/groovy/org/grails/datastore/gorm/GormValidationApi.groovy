@@ -15,6 +15,7 @@
 package org.grails.datastore.gorm
 
 import grails.gorm.validation.CascadingValidator
+import grails.gorm.validation.PersistentEntityValidator
 import groovy.transform.CompileStatic
 import org.grails.datastore.gorm.support.BeforeValidateHelper
 import org.grails.datastore.gorm.validation.ValidatorProvider
@@ -46,6 +47,7 @@ class GormValidationApi<D> extends AbstractGormApi<D> {
     public static final String ARGUMENT_DEEP_VALIDATE = "deepValidate";
 
     private Validator internalValidator
+    private Boolean trivialValidation
     BeforeValidateHelper beforeValidateHelper
     protected final MappingContext mappingContext
     protected final ApplicationEventPublisher eventPublisher
@@ -81,6 +83,29 @@ class GormValidationApi<D> extends AbstractGormApi<D> {
 
     void setValidator(Validator validator) {
         internalValidator = validator
+        trivialValidation = null
+    }
+
+    /**
+     * Whether the given instance can be validated with a simple null check of its non-nullable properties. This is the
+     * case when the entity has no associations, only nullable constraints and no beforeValidate method
+     *
+     * @param instance The instance
+     * @return True if the instance can be validated with a null check
+     */
+    protected boolean hasTrivialValidation(D instance) {
+        if(instance.getClass() != persistentClass) {
+            return false
+        }
+        Boolean trivial = trivialValidation
+        if(trivial == null) {
+            Validator validator = getValidator()
+            trivial = validator != null && validator.getClass() == PersistentEntityValidator &&
+                    ((PersistentEntityValidator)validator).hasTrivialConstraints() &&
+                    !beforeValidateHelper.hasBeforeValidate(persistentClass)
+            trivialValidation = trivial
+        }
+        return trivial
     }
 
     private boolean doValidate(D instance, Map arguments, List fields) {
@@ -98,7 +123,10 @@ class GormValidationApi<D> extends AbstractGormApi<D> {
             currentSession.setFlushMode(FlushModeType.COMMIT)
         }
         try {
-            beforeValidateHelper.invokeBeforeValidate instance, fields
+            boolean trivial = fields == null && hasTrivialValidation(instance)
+            if(!trivial) {
+                beforeValidateHelper.invokeBeforeValidate instance, fields
+            }
             fireEvent(instance, fields)
 
             Validator validator = getValidator()
@@ -106,6 +134,14 @@ class GormValidationApi<D> extends AbstractGormApi<D> {
                 return true
             }
 
+            if(trivial) {
+                // fast path: no errors need copying and no constraint is violated so there is nothing to record
+                Errors existingErrors = getErrors(instance)
+                if(!existingErrors.hasErrors() && !((PersistentEntityValidator)validator).hasNullViolations(instance)) {
+                    return true
+                }
+            }
+
             ValidationErrors localErrors = new ValidationErrors(instance)
 
             Errors errors = getErrors(instance)
@@ -54,4 +54,11 @@ class DefaultApplicationEventPublisher implements ConfigurableApplicationEventPu
     void addApplicationListener(ApplicationListener<?> listener) {
         applicationListeners.add(listener)
     }
+
+    /**
+     * @return The listeners that events are published to
+     */
+    List<ApplicationListener> getApplicationListeners() {
+        return Collections.unmodifiableList(applicationListeners)
+    }
 }
@@ -16,13 +16,15 @@ package org.grails.datastore.gorm.events;
 
 import java.lang.reflect.Method;
 import java.sql.Timestamp;
-import java.util.Arrays;
 import java.util.Date;
-import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
+import org.grails.datastore.gorm.support.EventTriggerCaller;
+import org.grails.datastore.mapping.core.AbstractSession;
 import org.grails.datastore.mapping.core.Datastore;
+import org.grails.datastore.mapping.core.DatastoreUtils;
+import org.grails.datastore.mapping.core.Session;
 import org.grails.datastore.mapping.core.connections.ConnectionSourcesProvider;
 import org.grails.datastore.mapping.dirty.checking.DirtyCheckable;
 import org.grails.datastore.mapping.engine.EntityAccess;
@@ -44,7 +46,13 @@ import org.springframework.util.ReflectionUtils;
 public class DomainEventListener extends AbstractPersistenceEventListener
        implements MappingContext.Listener {
 
-    private Map<PersistentEntity, Map<String, Method>> entityEvents = new ConcurrentHashMap<PersistentEntity, Map<String, Method>>();
+    /**
+     * The resolved event callers for each entity, indexed by {@link EventType#ordinal()}
+     */
+    private Map<PersistentEntity, EventTriggerCaller[]> entityEvents = new ConcurrentHashMap<PersistentEntity, EventTriggerCaller[]>();
+    private static final int EVENT_TYPE_COUNT = EventType.values().length;
+    // the event methods take no arguments
+    private static final Object[] NO_ARGUMENTS = {};
 
     @SuppressWarnings("rawtypes")
     public static final Class[] ZERO_PARAMS = {};
@@ -57,9 +65,6 @@ public class DomainEventListener extends AbstractPersistenceEventListener
     private static final String EVENT_AFTER_DELETE  = "afterDelete";
     private static final String EVENT_AFTER_LOAD    = "afterLoad";
 
-    private static final List<String> REFRESH_EVENTS = Arrays.asList(
-            EVENT_BEFORE_INSERT, EVENT_BEFORE_UPDATE, EVENT_BEFORE_DELETE);
-
     private final boolean autowireEntities;
 
     public DomainEventListener(final Datastore datastore) {
@@ -150,7 +155,7 @@ public class DomainEventListener extends AbstractPersistenceEventListener
             }
         }
 
-        return invokeEvent(EVENT_BEFORE_INSERT, entity, ea, event);
+        return invokeEvent(EventType.PreInsert, entity, ea);
     }    
 
     protected void setVersion(final EntityAccess ea) {
@@ -167,19 +172,19 @@ public class DomainEventListener extends AbstractPersistenceEventListener
     }
 
     public boolean beforeUpdate(final PersistentEntity entity, final EntityAccess ea) {
-        return invokeEvent(EVENT_BEFORE_UPDATE, entity, ea, null);
+        return invokeEvent(EventType.PreUpdate, entity, ea);
     }
 
     public boolean beforeUpdate(final PersistentEntity entity, final EntityAccess ea, PreUpdateEvent event) {
-        return invokeEvent(EVENT_BEFORE_UPDATE, entity, ea, event);
+        return invokeEvent(EventType.PreUpdate, entity, ea);
     }    
 
     public boolean beforeDelete(final PersistentEntity entity, final EntityAccess ea) {
-        return invokeEvent(EVENT_BEFORE_DELETE, entity, ea, null);
+        return invokeEvent(EventType.PreDelete, entity, ea);
     }
 
     public boolean beforeDelete(final PersistentEntity entity, final EntityAccess ea, PreDeleteEvent event) {
-        return invokeEvent(EVENT_BEFORE_DELETE, entity, ea, event);
+        return invokeEvent(EventType.PreDelete, entity, ea);
     }    
 
     public void beforeLoad(final PersistentEntity entity, final EntityAccess ea) {
@@ -187,7 +192,7 @@ public class DomainEventListener extends AbstractPersistenceEventListener
     }
 
     public void beforeLoad(final PersistentEntity entity, final EntityAccess ea, PreLoadEvent event) {
-        invokeEvent(EVENT_BEFORE_LOAD, entity, ea, event);
+        invokeEvent(EventType.PreLoad, entity, ea);
     }
 
     public void afterDelete(final PersistentEntity entity, final EntityAccess ea) {
@@ -195,7 +200,7 @@ public class DomainEventListener extends AbstractPersistenceEventListener
     }
 
     public void afterDelete(final PersistentEntity entity, final EntityAccess ea, PostDeleteEvent event) {
-        invokeEvent(EVENT_AFTER_DELETE, entity, ea, event);
+        invokeEvent(EventType.PostDelete, entity, ea);
     }    
 
     public void afterInsert(final PersistentEntity entity, final EntityAccess ea) {
@@ -204,7 +209,15 @@ public class DomainEventListener extends AbstractPersistenceEventListener
 
     public void afterInsert(final PersistentEntity entity, final EntityAccess ea, PostInsertEvent event) {
         activateDirtyChecking(ea);
-        invokeEvent(EVENT_AFTER_INSERT, entity, ea, event);
+        invokeEvent(EventType.PostInsert, entity, ea);
+    }
+
+    private boolean isReadOnlySession(PostLoadEvent event) {
+        if (event != null) {
+            return event.isReadOnly();
+        }
+        Session session = DatastoreUtils.getCurrentSession(datastore);
+        return session instanceof AbstractSession && ((AbstractSession) session).isReadOnly();
     }
 
     private void activateDirtyChecking(EntityAccess ea) {
@@ -220,7 +233,7 @@ public class DomainEventListener extends AbstractPersistenceEventListener
 
     public void afterUpdate(final PersistentEntity entity, final EntityAccess ea, PostUpdateEvent event) {
         activateDirtyChecking(ea); // reset dirty checking
-        invokeEvent(EVENT_AFTER_UPDATE, entity, ea, event);
+        invokeEvent(EventType.PostUpdate, entity, ea);
     }
 
     public void afterLoad(final PersistentEntity entity, final EntityAccess ea) {
@@ -228,11 +241,13 @@ public class DomainEventListener extends AbstractPersistenceEventListener
     }
 
     public void afterLoad(final PersistentEntity entity, final EntityAccess ea, PostLoadEvent event) {
-        activateDirtyChecking(ea);
+        if (!isReadOnlySession(event)) {
+            activateDirtyChecking(ea);
+        }
         if (autowireEntities || ( entity != null &&  entity.getMapping().getMappedForm().isAutowire() )) {
             autowireBeanProperties(ea.getEntity());
         }
-        invokeEvent(EVENT_AFTER_LOAD, entity, ea, event);
+        invokeEvent(EventType.PostLoad, entity, ea);
     }
 
     protected void autowireBeanProperties(final Object entity) {
@@ -261,59 +276,61 @@ public class DomainEventListener extends AbstractPersistenceEventListener
         return AbstractPersistenceEvent.class.isAssignableFrom(eventType);
     }
 
-    private boolean invokeEvent(String eventName, PersistentEntity entity, EntityAccess ea, ApplicationEvent event) {
-        final Map<String, Method> events = entityEvents.get(entity);
+    /**
+     * Whether the given entity declares a method for the given event, such as <code>beforeDelete</code>
+     *
+     * @param entity The entity
+     * @param eventType The event type
+     * @return True if the event invokes a method of the entity
+     */
+    public boolean hasEventMethod(PersistentEntity entity, EventType eventType) {
+        final EventTriggerCaller[] events = entityEvents.get(entity);
+        return events != null && events[eventType.ordinal()] != null;
+    }
+
+    private boolean invokeEvent(EventType eventType, PersistentEntity entity, EntityAccess ea) {
+        final EventTriggerCaller[] events = entityEvents.get(entity);
         if (events == null) {
             return true;
         }
 
-        final Method eventMethod = events.get(eventName);
-        if (eventMethod == null) {
+        final EventTriggerCaller caller = events[eventType.ordinal()];
+        if (caller == null) {
             return true;
         }
 
-        
-        final Object result;
-        if(ea != null) {
-            final Object o = ea.getEntity();
-
-            if (eventMethod.getParameterTypes().length == 1) {
-                result = ReflectionUtils.invokeMethod(eventMethod, o, event);
-            }
-            else {
-                result = ReflectionUtils.invokeMethod(eventMethod, o);
-            }
-        }
-        else {
-            result = null;
-        }
-
-        boolean booleanResult = (result instanceof Boolean) ? (Boolean)result : true;
-        if (booleanResult && REFRESH_EVENTS.contains(eventName)) {
+        // the caller inverts a Boolean return value and treats any other value as not vetoed
+        boolean booleanResult = ea == null || !caller.call(ea.getEntity(), NO_ARGUMENTS);
+        if (booleanResult && ea != null && isRefreshEvent(eventType)) {
             ea.refresh();
         }
         return booleanResult;
     }
 
+    private static boolean isRefreshEvent(EventType eventType) {
+        return eventType == EventType.PreInsert || eventType == EventType.PreUpdate || eventType == EventType.PreDelete;
+    }
+
     private void createEventCaches(PersistentEntity entity) {
         Class<?> javaClass = entity.getJavaClass();
-        final ConcurrentHashMap<String, Method> events = new ConcurrentHashMap<String, Method>();
-        entityEvents.put(entity, events);
+        final EventTriggerCaller[] events = new EventTriggerCaller[EVENT_TYPE_COUNT];
+
+        findAndCacheEvent(EVENT_BEFORE_INSERT, EventType.PreInsert,  javaClass, events);
+        findAndCacheEvent(EVENT_BEFORE_UPDATE, EventType.PreUpdate,  javaClass, events);
+        findAndCacheEvent(EVENT_BEFORE_DELETE, EventType.PreDelete,  javaClass, events);
+        findAndCacheEvent(EVENT_BEFORE_LOAD,   EventType.PreLoad,    javaClass, events);
+        findAndCacheEvent(EVENT_AFTER_INSERT,  EventType.PostInsert, javaClass, events);
+        findAndCacheEvent(EVENT_AFTER_UPDATE,  EventType.PostUpdate, javaClass, events);
+        findAndCacheEvent(EVENT_AFTER_DELETE,  EventType.PostDelete, javaClass, events);
+        findAndCacheEvent(EVENT_AFTER_LOAD,    EventType.PostLoad,   javaClass, events);
 
-        findAndCacheEvent(EVENT_BEFORE_INSERT, javaClass, events);
-        findAndCacheEvent(EVENT_BEFORE_UPDATE, javaClass, events);
-        findAndCacheEvent(EVENT_BEFORE_DELETE, javaClass, events);
-        findAndCacheEvent(EVENT_BEFORE_LOAD,   javaClass, events);
-        findAndCacheEvent(EVENT_AFTER_INSERT,  javaClass, events);
-        findAndCacheEvent(EVENT_AFTER_UPDATE,  javaClass, events);
-        findAndCacheEvent(EVENT_AFTER_DELETE,  javaClass, events);
-        findAndCacheEvent(EVENT_AFTER_LOAD,    javaClass, events);
+        entityEvents.put(entity, events);
     }
 
-    private void findAndCacheEvent(String event, Class<?> javaClass, Map<String, Method> events) {
+    private void findAndCacheEvent(String event, EventType eventType, Class<?> javaClass, EventTriggerCaller[] events) {
         final Method method = ReflectionUtils.findMethod(javaClass, event);
         if (method != null) {
-            events.put(event, method);
+            events[eventType.ordinal()] = EventTriggerCaller.buildMethodCaller(method);
         }
     }
 }
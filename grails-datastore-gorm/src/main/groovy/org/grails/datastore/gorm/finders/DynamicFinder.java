@@ -182,7 +182,7 @@ public abstract class DynamicFinder extends AbstractFinder implements QueryBuild
             List<MethodExpression> expressions = new ArrayList<>();
             if (matcher.groupCount() == 2) {
                 String querySequence = matcher.group(2);
-                String operatorInUse;
+                String operatorInUse = null;
                 boolean containsOperator = false;
                 String[] queryParameters;
                 for (int i = 0; i < DEFAULT_OPERATORS.length; i++) {
@@ -223,7 +223,7 @@ public abstract class DynamicFinder extends AbstractFinder implements QueryBuild
                     return null;
                 }
                 else {
-                    return new MatchSpec(methodName,prefix, querySequence, totalRequiredArguments, expressions);
+                    return new MatchSpec(methodName,prefix, querySequence, totalRequiredArguments, expressions, operatorInUse);
                 }
             }
         }
@@ -392,6 +392,58 @@ public abstract class DynamicFinder extends AbstractFinder implements QueryBuild
         return invoke(clazz, methodName, (Closure)null, arguments);
     }
 
+    /**
+     * Invokes a finder whose method name was already parsed into method expressions, for example at compile time
+     *
+     * @param invocation The invocation
+     * @return The result of the finder
+     */
+    public Object invoke(DynamicFinderInvocation invocation) {
+        return doInvokeInternal(invocation);
+    }
+
+    /**
+     * Creates a finder invocation from method expressions that were already parsed from the method name, binding the
+     * arguments to the expressions without matching the method name again
+     *
+     * @param clazz The class
+     * @param methodName The method name
+     * @param operator The operator joining the expressions or null if there is only one expression
+     * @param expressions The new, unbound method expressions of the finder
+     * @param arguments The arguments
+     * @return The finder invocation
+     */
+    public DynamicFinderInvocation createFinderInvocation(Class clazz, String methodName, String operator,
+            List<MethodExpression> expressions, Object[] arguments) {
+        if (arguments == null) arguments = EMPTY_OBJECT_ARRAY;
+        PersistentEntity persistentEntity = mappingContext.getPersistentEntity(clazz.getName());
+        List<MethodExpression> initialized = new ArrayList<MethodExpression>(expressions.size());
+        int argumentCursor = 0;
+        for (MethodExpression expression : expressions) {
+            final int requiredArgs = expression.getArgumentsRequired();
+            if ((argumentCursor + requiredArgs) > arguments.length) {
+                throw new MissingMethodException(methodName, clazz, arguments);
+            }
+            Object[] currentArguments = new Object[requiredArgs];
+            System.arraycopy(arguments, argumentCursor, currentArguments, 0, requiredArgs);
+            argumentCursor += requiredArgs;
+
+            expression = getInitializedExpression(expression, currentArguments);
+            try {
+                expression.convertArguments(persistentEntity);
+            } catch (ConversionException e) {
+                if (expressions.size() > 1 || !(persistentEntity.getPropertyByName(expression.propertyName) instanceof Basic)) {
+                    throw new MissingMethodException(methodName, clazz, arguments);
+                }
+            }
+            initialized.add(expression);
+        }
+
+        Object[] remainingArguments = new Object[arguments.length - argumentCursor];
+        System.arraycopy(arguments, argumentCursor, remainingArguments, 0, remainingArguments.length);
+        return new DynamicFinderInvocation(clazz, methodName, remainingArguments, initialized, null, operator);
+    }
+
     /**
      * Populates arguments for the given query form the given map
      * @param query The query
@@ -32,13 +32,18 @@ class MatchSpec {
      * The method call expressions
      */
     final List<MethodExpression> methodCallExpressions
+    /**
+     * The operator joining the method call expressions (for example "And") or null if there is only one expression
+     */
+    final String operator
 
-    MatchSpec(String methodName, String prefix, String queryExpression, int requiredArguments, List<MethodExpression> methodCallExpressions) {
+    MatchSpec(String methodName, String prefix, String queryExpression, int requiredArguments, List<MethodExpression> methodCallExpressions, String operator = null) {
         this.methodName = methodName
         this.prefix = prefix
         this.queryExpression = queryExpression
         this.requiredArguments = requiredArguments
         this.methodCallExpressions = methodCallExpressions
+        this.operator = operator
     }
 
     Collection<String> getPropertyNames() {
@@ -0,0 +1,29 @@
+package org.grails.datastore.gorm.multitenancy
+
+import grails.gorm.multitenancy.Tenants
+import groovy.transform.CompileStatic
+import org.grails.datastore.mapping.multitenancy.MultiTenantCapableDatastore
+import org.grails.datastore.mapping.multitenancy.TenantResolver
+import org.grails.datastore.mapping.multitenancy.exceptions.TenantNotFoundException
+
+/**
+ * A {@link TenantResolver} that resolves the current tenant of a datastore, taking into account the tenant bound to the current thread
+ * by {@link Tenants#withId(MultiTenantCapableDatastore, Serializable, Closure)}. Used to partition caches by tenant
+ *
+ * @author Graeme Rocher
+ * @since 7.0
+ */
+@CompileStatic
+class CurrentTenantResolver implements TenantResolver {
+
+    final MultiTenantCapableDatastore datastore
+
+    CurrentTenantResolver(MultiTenantCapableDatastore datastore) {
+        this.datastore = datastore
+    }
+
+    @Override
+    Serializable resolveTenantIdentifier() throws TenantNotFoundException {
+        return Tenants.currentId(datastore)
+    }
+}
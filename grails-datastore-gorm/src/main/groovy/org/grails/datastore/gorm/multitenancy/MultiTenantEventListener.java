@@ -2,12 +2,14 @@ package org.grails.datastore.gorm.multitenancy;
 
 import grails.gorm.multitenancy.Tenants;
 import org.grails.datastore.gorm.GormEnhancer;
+import org.grails.datastore.mapping.core.AbstractDatastore;
 import org.grails.datastore.mapping.core.Datastore;
 import org.grails.datastore.mapping.core.connections.ConnectionSource;
 import org.grails.datastore.mapping.engine.event.*;
 import org.grails.datastore.mapping.model.PersistentEntity;
 import org.grails.datastore.mapping.model.types.TenantId;
 import org.grails.datastore.mapping.multitenancy.MultiTenantCapableDatastore;
+import org.grails.datastore.mapping.multitenancy.TenantQueryFilter;
 import org.grails.datastore.mapping.multitenancy.exceptions.TenantException;
 import org.grails.datastore.mapping.query.Query;
 import org.grails.datastore.mapping.query.event.PostQueryEvent;
@@ -22,10 +24,13 @@ import java.util.List;
 /**
  * An event listener that hooks into persistence events to enable discriminator based multi tenancy (ie {@link org.grails.datastore.mapping.multitenancy.MultiTenancySettings.MultiTenancyMode#DISCRIMINATOR}
  *
+ * When registered with {@link org.grails.datastore.mapping.core.AbstractDatastore#setTenantQueryFilter(TenantQueryFilter)} queries are restricted to the
+ * current tenant, resolved when they are first executed, and the listener no longer subscribes to the {@link PreQueryEvent}
+ *
  * @author Graeme Rocher
  * @since 6.0
  */
-public class MultiTenantEventListener implements PersistenceEventListener {
+public class MultiTenantEventListener implements PersistenceEventListener, TenantQueryFilter {
     protected final Datastore datastore;
     public static final List<Class<? extends ApplicationEvent>> SUPPORTED_EVENTS = Arrays.asList(PreQueryEvent.class, ValidationEvent.class, PreInsertEvent.class, PreUpdateEvent.class);
 
@@ -35,14 +40,33 @@ public class MultiTenantEventListener implements PersistenceEventListener {
 
     @Override
     public boolean supportsEventType(Class<? extends ApplicationEvent> eventType) {
+        if(eventType == PreQueryEvent.class && isTenantQueryFilter()) {
+            return false;
+        }
         return SUPPORTED_EVENTS.contains(eventType);
     }
 
+    /**
+     * @return Whether this listener is the {@link TenantQueryFilter} of the datastore, in which case queries are restricted without a {@link PreQueryEvent}
+     */
+    protected boolean isTenantQueryFilter() {
+        return datastore instanceof AbstractDatastore && ((AbstractDatastore) datastore).getTenantQueryFilter() == this;
+    }
+
     @Override
     public boolean supportsSourceType(Class<?> sourceType) {
         return Datastore.class.isAssignableFrom(sourceType);
     }
 
+    @Override
+    public void filter(Query query) {
+        PersistentEntity entity = query.getEntity();
+        TenantId tenantId = entity.getTenantId();
+        if(entity.isMultiTenant() && tenantId != null) {
+            query.restrictToCurrentTenant(tenantId.getName(), () -> currentId(this.datastore));
+        }
+    }
+
     @Override
     public void onApplicationEvent(ApplicationEvent event) {
         Class<? extends ApplicationEvent> eventClass = event.getClass();
@@ -53,22 +77,14 @@ public class MultiTenantEventListener implements PersistenceEventListener {
                 Query query = preQueryEvent.getQuery();
 
                 PersistentEntity entity = query.getEntity();
-                if(entity.isMultiTenant()) {
+                if(entity.isMultiTenant() && !query.isRestrictedToTenant()) {
                     if(datastore == null) {
                         datastore = GormEnhancer.findDatastore(entity.getJavaClass());
                     }
                     if(supportsSourceType(datastore.getClass()) && this.datastore.equals(datastore)) {
                         TenantId tenantId = entity.getTenantId();
                         if(tenantId != null) {
-                            Serializable currentId;
-
-                            if(datastore instanceof MultiTenantCapableDatastore) {
-                                currentId = Tenants.currentId((MultiTenantCapableDatastore) datastore);
-                            }
-                            else {
-                                currentId = Tenants.currentId(datastore.getClass());
-                            }
-                            query.eq(tenantId.getName(), currentId );
+                            query.restrictToTenant(tenantId.getName(), currentId(datastore));
                         }
                     }
                 }
@@ -82,14 +98,7 @@ public class MultiTenantEventListener implements PersistenceEventListener {
                         datastore = GormEnhancer.findDatastore(entity.getJavaClass());
                     }
                     if(supportsSourceType(datastore.getClass()) && this.datastore.equals(datastore)) {
-                        Serializable currentId;
-
-                        if(datastore instanceof MultiTenantCapableDatastore) {
-                            currentId = Tenants.currentId((MultiTenantCapableDatastore) datastore);
-                        }
-                        else {
-                            currentId = Tenants.currentId(datastore.getClass());
-                        }
+                        Serializable currentId = currentId(datastore);
                         if(currentId != null) {
                             try {
                                 if(currentId == ConnectionSource.DEFAULT) {
@@ -106,6 +115,15 @@ public class MultiTenantEventListener implements PersistenceEventListener {
         }
     }
 
+    protected Serializable currentId(Datastore datastore) {
+        if(datastore instanceof MultiTenantCapableDatastore) {
+            return Tenants.currentId((MultiTenantCapableDatastore) datastore);
+        }
+        else {
+            return Tenants.currentId(datastore.getClass());
+        }
+    }
+
     @Override
     public int getOrder() {
         return DEFAULT_ORDER;
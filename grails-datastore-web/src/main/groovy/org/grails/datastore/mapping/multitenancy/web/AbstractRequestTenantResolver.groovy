@@ -0,0 +1,62 @@
+package org.grails.datastore.mapping.multitenancy.web
+
+import groovy.transform.CompileStatic
+import org.grails.datastore.mapping.multitenancy.MemoizingTenantResolver
+import org.grails.datastore.mapping.multitenancy.exceptions.TenantNotFoundException
+import org.springframework.web.context.request.RequestAttributes
+import org.springframework.web.context.request.RequestContextHolder
+
+/**
+ * Abstract base class for tenant resolvers that resolve the tenant from the current web request. When {@link #memoize} is enabled
+ * the resolved tenant id is stored as a request attribute so that the headers, cookies, URI or HTTP session are only inspected
+ * once per request. The memoized value lives only as long as the request it was resolved for
+ *
+ * @author Graeme Rocher
+ * @since 7.0
+ */
+@CompileStatic
+abstract class AbstractRequestTenantResolver implements MemoizingTenantResolver {
+
+    /**
+     * Whether to memoize the resolved tenant id for the duration of the request. Disabled by default and only suitable when the
+     * source of the tenant id cannot change during the request
+     */
+    boolean memoize = false
+
+    private final String memoizedAttributeName = "${getClass().name}@${Integer.toHexString(System.identityHashCode(this))}.tenantId".toString()
+
+    @Override
+    Serializable resolveTenantIdentifier() throws TenantNotFoundException {
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes()
+        boolean memoizing = memoize && requestAttributes != null
+        if(memoizing) {
+            Object memoized = requestAttributes.getAttribute(memoizedAttributeName, RequestAttributes.SCOPE_REQUEST)
+            if(memoized != null) {
+                return (Serializable)memoized
+            }
+        }
+
+        Serializable tenantId = resolveTenantIdentifier(requestAttributes)
+        if(memoizing && tenantId != null) {
+            requestAttributes.setAttribute(memoizedAttributeName, tenantId, RequestAttributes.SCOPE_REQUEST)
+        }
+        return tenantId
+    }
+
+    @Override
+    void clearResolvedTenantIdentifier() {
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes()
+        if(requestAttributes != null) {
+            requestAttributes.removeAttribute(memoizedAttributeName, RequestAttributes.SCOPE_REQUEST)
+        }
+    }
+
+    /**
+     * Resolves the tenant id from the request
+     *
+     * @param requestAttributes The current request attributes or null if outside a web request
+     * @return The tenant id
+     * @throws TenantNotFoundException If the tenant could not be resolved
+     */
+    protected abstract Serializable resolveTenantIdentifier(RequestAttributes requestAttributes) throws TenantNotFoundException
+}
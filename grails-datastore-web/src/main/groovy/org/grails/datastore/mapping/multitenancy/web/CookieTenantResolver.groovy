@@ -2,10 +2,8 @@ package org.grails.datastore.mapping.multitenancy.web
 
 import groovy.transform.CompileStatic
 import org.grails.datastore.mapping.core.connections.ConnectionSource
-import org.grails.datastore.mapping.multitenancy.TenantResolver
 import org.grails.datastore.mapping.multitenancy.exceptions.TenantNotFoundException
 import org.springframework.web.context.request.RequestAttributes
-import org.springframework.web.context.request.RequestContextHolder
 import org.springframework.web.context.request.ServletWebRequest
 
 import javax.servlet.http.Cookie
@@ -18,7 +16,7 @@ import javax.servlet.http.HttpServletRequest
  * @since 6.0
  */
 @CompileStatic
-class CookieTenantResolver implements TenantResolver {
+class CookieTenantResolver extends AbstractRequestTenantResolver {
 
     public static final String COOKIE_NAME = "gorm.tenantId"
 
@@ -28,8 +26,7 @@ class CookieTenantResolver implements TenantResolver {
     String cookieName = COOKIE_NAME
 
     @Override
-    Serializable resolveTenantIdentifier() throws TenantNotFoundException {
-        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes()
+    protected Serializable resolveTenantIdentifier(RequestAttributes requestAttributes) throws TenantNotFoundException {
         if(requestAttributes instanceof ServletWebRequest) {
 
             HttpServletRequest servletRequest = ((ServletWebRequest) requestAttributes).getRequest()
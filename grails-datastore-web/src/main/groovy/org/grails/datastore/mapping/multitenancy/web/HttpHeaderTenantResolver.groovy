@@ -1,10 +1,8 @@
 package org.grails.datastore.mapping.multitenancy.web
 
 import groovy.transform.CompileStatic
-import org.grails.datastore.mapping.multitenancy.TenantResolver
 import org.grails.datastore.mapping.multitenancy.exceptions.TenantNotFoundException
 import org.springframework.web.context.request.RequestAttributes
-import org.springframework.web.context.request.RequestContextHolder
 import org.springframework.web.context.request.ServletWebRequest
 
 import javax.servlet.http.HttpServletRequest
@@ -16,7 +14,7 @@ import javax.servlet.http.HttpServletRequest
  * @since 6.1.7
  */
 @CompileStatic
-class HttpHeaderTenantResolver implements TenantResolver {
+class HttpHeaderTenantResolver extends AbstractRequestTenantResolver {
     public static final String HEADER_NAME = "gorm.tenantId"
 
     /**
@@ -25,9 +23,7 @@ class HttpHeaderTenantResolver implements TenantResolver {
     String headerName = HEADER_NAME
 
     @Override
-    Serializable resolveTenantIdentifier() {
-
-        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes()
+    protected Serializable resolveTenantIdentifier(RequestAttributes requestAttributes) throws TenantNotFoundException {
         if(requestAttributes instanceof ServletWebRequest) {
 
             HttpServletRequest httpServletRequest = ((ServletWebRequest) requestAttributes).getRequest()
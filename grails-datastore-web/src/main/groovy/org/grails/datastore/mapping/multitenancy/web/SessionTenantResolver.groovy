@@ -2,10 +2,8 @@ package org.grails.datastore.mapping.multitenancy.web
 
 import groovy.transform.CompileStatic
 import org.grails.datastore.mapping.core.connections.ConnectionSource
-import org.grails.datastore.mapping.multitenancy.TenantResolver
 import org.grails.datastore.mapping.multitenancy.exceptions.TenantNotFoundException
 import org.springframework.web.context.request.RequestAttributes
-import org.springframework.web.context.request.RequestContextHolder
 import org.springframework.web.context.request.ServletWebRequest
 
 /**
@@ -15,7 +13,7 @@ import org.springframework.web.context.request.ServletWebRequest
  * @since 6.0
  */
 @CompileStatic
-class SessionTenantResolver implements TenantResolver {
+class SessionTenantResolver extends AbstractRequestTenantResolver {
 
     public static final String ATTRIBUTE = "gorm.tenantId"
     /**
@@ -24,8 +22,7 @@ class SessionTenantResolver implements TenantResolver {
     String attributeName = ATTRIBUTE
 
     @Override
-    Serializable resolveTenantIdentifier() throws TenantNotFoundException {
-        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes()
+    protected Serializable resolveTenantIdentifier(RequestAttributes requestAttributes) throws TenantNotFoundException {
         if(requestAttributes != null) {
 
             def tenantId = requestAttributes.getAttribute(attributeName, RequestAttributes.SCOPE_SESSION)
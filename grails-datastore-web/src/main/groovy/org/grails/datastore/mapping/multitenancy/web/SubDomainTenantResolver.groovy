@@ -2,10 +2,8 @@ package org.grails.datastore.mapping.multitenancy.web
 
 import groovy.transform.CompileStatic
 import org.grails.datastore.mapping.core.connections.ConnectionSource
-import org.grails.datastore.mapping.multitenancy.TenantResolver
 import org.grails.datastore.mapping.multitenancy.exceptions.TenantNotFoundException
 import org.springframework.web.context.request.RequestAttributes
-import org.springframework.web.context.request.RequestContextHolder
 import org.springframework.web.context.request.ServletWebRequest
 
 import javax.servlet.http.HttpServletRequest
@@ -17,12 +15,10 @@ import javax.servlet.http.HttpServletRequest
  * @since 6.0
  */
 @CompileStatic
-class SubDomainTenantResolver implements TenantResolver{
+class SubDomainTenantResolver extends AbstractRequestTenantResolver {
 
     @Override
-    Serializable resolveTenantIdentifier() {
-
-        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes()
+    protected Serializable resolveTenantIdentifier(RequestAttributes requestAttributes) throws TenantNotFoundException {
         if(requestAttributes instanceof ServletWebRequest) {
 
             HttpServletRequest httpServletRequest = ((ServletWebRequest) requestAttributes).getRequest()
@@ -55,5 +55,55 @@ class HttpHeaderTenantResolverSpec extends Specification {
         cleanup:
         RequestContextHolder.setRequestAttributes(null)
     }
-}
 
+    void "Test the tenant id is not memoized by default"() {
+
+        setup:
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/foo")
+        request.addHeader(HttpHeaderTenantResolver.HEADER_NAME, "foo")
+        RequestContextHolder.setRequestAttributes(new ServletWebRequest(request))
+        def resolver = new HttpHeaderTenantResolver()
+
+        when:"The tenant is resolved and the header subsequently changes"
+        def tenantId = resolver.resolveTenantIdentifier()
+        request.removeHeader(HttpHeaderTenantResolver.HEADER_NAME)
+        request.addHeader(HttpHeaderTenantResolver.HEADER_NAME, "bar")
+
+        then:"The new tenant id is returned"
+        !resolver.memoize
+        tenantId == "foo"
+        resolver.resolveTenantIdentifier() == "bar"
+
+        cleanup:
+        RequestContextHolder.setRequestAttributes(null)
+    }
+
+    void "Test a memoized tenant id is scoped to the request it was resolved for"() {
+
+        setup:
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/foo")
+        request.addHeader(HttpHeaderTenantResolver.HEADER_NAME, "foo")
+        RequestContextHolder.setRequestAttributes(new ServletWebRequest(request))
+        def resolver = new HttpHeaderTenantResolver(memoize: true)
+
+        when:"The tenant is resolved and the header subsequently changes"
+        def tenantId = resolver.resolveTenantIdentifier()
+        request.removeHeader(HttpHeaderTenantResolver.HEADER_NAME)
+        request.addHeader(HttpHeaderTenantResolver.HEADER_NAME, "bar")
+
+        then:"The memoized tenant id is returned for the rest of the request"
+        tenantId == "foo"
+        resolver.resolveTenantIdentifier() == "foo"
+
+        when:"The next request carries a different header"
+        MockHttpServletRequest next = new MockHttpServletRequest("GET", "/foo")
+        next.addHeader(HttpHeaderTenantResolver.HEADER_NAME, "bar")
+        RequestContextHolder.setRequestAttributes(new ServletWebRequest(next))
+
+        then:"The tenant id is resolved from the new request"
+        resolver.resolveTenantIdentifier() == "bar"
+
+        cleanup:
+        RequestContextHolder.setRequestAttributes(null)
+    }
+}
@@ -56,5 +56,50 @@ class SessionTenantResolverSpec extends Specification {
         cleanup:
         RequestContextHolder.setRequestAttributes(null)
     }
-}
 
+    void "Test a tenant id changed in the session during the request is resolved"() {
+
+        setup:
+        def request = new MockHttpServletRequest("GET", "/foo")
+        request.getSession(true).setAttribute(SessionTenantResolver.ATTRIBUTE, "foo")
+        RequestContextHolder.setRequestAttributes(new ServletWebRequest(request))
+        def resolver = new SessionTenantResolver()
+
+        when:"The tenant is resolved and the session attribute subsequently changes"
+        def tenantId = resolver.resolveTenantIdentifier()
+        request.getSession().setAttribute(SessionTenantResolver.ATTRIBUTE, "bar")
+
+        then:"The new tenant id is returned"
+        tenantId == "foo"
+        resolver.resolveTenantIdentifier() == "bar"
+
+        cleanup:
+        RequestContextHolder.setRequestAttributes(null)
+    }
+
+    void "Test the tenant id is memoized for the duration of the request until cleared when memoization is enabled"() {
+
+        setup:
+        def request = new MockHttpServletRequest("GET", "/foo")
+        request.getSession(true).setAttribute(SessionTenantResolver.ATTRIBUTE, "foo")
+        RequestContextHolder.setRequestAttributes(new ServletWebRequest(request))
+        def resolver = new SessionTenantResolver(memoize: true)
+
+        when:"The tenant is resolved and the session attribute subsequently changes"
+        def tenantId = resolver.resolveTenantIdentifier()
+        request.getSession().setAttribute(SessionTenantResolver.ATTRIBUTE, "bar")
+
+        then:"The memoized tenant id is returned"
+        tenantId == "foo"
+        resolver.resolveTenantIdentifier() == "foo"
+
+        when:"The memoized tenant id is cleared"
+        resolver.clearResolvedTenantIdentifier()
+
+        then:"The tenant id is resolved again"
+        resolver.resolveTenantIdentifier() == "bar"
+
+        cleanup:
+        RequestContextHolder.setRequestAttributes(null)
+    }
+}
@@ -72,4 +72,53 @@ class SubDomainTenantResolverSpec extends Specification {
         cleanup:
         RequestContextHolder.setRequestAttributes(null)
     }
+
+    void "Test the tenant id is not memoized by default"() {
+
+        setup:
+        def request = new MockHttpServletRequest("GET", "/foo")
+        request.setServerName("foo.mycompany.com")
+        RequestContextHolder.setRequestAttributes(new ServletWebRequest(request))
+        def resolver = new SubDomainTenantResolver()
+
+        when:"The tenant is resolved and the server name subsequently changes"
+        def tenantId = resolver.resolveTenantIdentifier()
+        request.setServerName("bar.mycompany.com")
+
+        then:"The new tenant id is returned"
+        !resolver.memoize
+        tenantId == "foo"
+        resolver.resolveTenantIdentifier() == "bar"
+
+        cleanup:
+        RequestContextHolder.setRequestAttributes(null)
+    }
+
+    void "Test a memoized tenant id is scoped to the request it was resolved for"() {
+
+        setup:
+        def request = new MockHttpServletRequest("GET", "/foo")
+        request.setServerName("foo.mycompany.com")
+        RequestContextHolder.setRequestAttributes(new ServletWebRequest(request))
+        def resolver = new SubDomainTenantResolver(memoize: true)
+
+        when:"The tenant is resolved and the server name subsequently changes"
+        def tenantId = resolver.resolveTenantIdentifier()
+        request.setServerName("bar.mycompany.com")
+
+        then:"The memoized tenant id is returned for the rest of the request"
+        tenantId == "foo"
+        resolver.resolveTenantIdentifier() == "foo"
+
+        when:"The next request is made to a different subdomain"
+        def next = new MockHttpServletRequest("GET", "/foo")
+        next.setServerName("bar.mycompany.com")
+        RequestContextHolder.setRequestAttributes(new ServletWebRequest(next))
+
+        then:"The tenant id is resolved from the new request"
+        resolver.resolveTenantIdentifier() == "bar"
+
+        cleanup:
+        RequestContextHolder.setRequestAttributes(null)
+    }
 }